@@ -0,0 +1,50 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Runs the TaskManager and HistoryManager suites with the GC profiler and writes JSON results
+ * for regression comparison.
+ * <p>
+ * Usage: {@code BenchmarkRunner <result.json> [quick] [threads...]}. Every suite runs single
+ * threaded; thread counts given after it rerun the CONCURRENT implementations with that many
+ * threads. {@code quick} shortens warmup and measurement, as used for results/baseline.json.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String resultFile = args.length > 0 ? args[0] : "benchmarks/results/latest.json";
+        boolean quick = args.length > 1 && args[1].equals("quick");
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(TaskManagerBenchmark.class.getSimpleName())
+                .include(EpicBenchmark.class.getSimpleName())
+                .include(HistoryManagerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile);
+        if (quick) {
+            options.warmupIterations(1)
+                    .warmupTime(TimeValue.milliseconds(500))
+                    .measurementIterations(3)
+                    .measurementTime(TimeValue.milliseconds(500));
+        }
+        new Runner(options.build()).run();
+
+        for (int i = quick ? 2 : 1; i < args.length; i++) {
+            int threads = Integer.parseInt(args[i]);
+            new Runner(options
+                    .threads(threads)
+                    .param("manager", "CONCURRENT")
+                    .param("implementation", "CONCURRENT")
+                    .exclude("clearSubtasks")
+                    .result(resultFile.replace(".json", "-t" + threads + ".json"))
+                    .build()).run();
+        }
+    }
+}
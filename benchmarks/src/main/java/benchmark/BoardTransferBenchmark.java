@@ -0,0 +1,58 @@
+package benchmark;
+
+import persistence.BoardExporter;
+import persistence.BoardFormat;
+import persistence.BoardImporter;
+import service.InMemoryTaskManager;
+import service.TaskManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Export and import throughput of a board of N items in every {@link BoardFormat}, in MB of file
+ * per second. The board is the one {@link StartupBenchmark} builds. Each direction runs a few times
+ * and the best run is reported, so the page cache is warm and the numbers show the codec rather than
+ * the disk.
+ * <p>
+ * Usage: {@code BoardTransferBenchmark [items] [runs]}. Files are written to java.io.tmpdir and
+ * removed afterwards.
+ */
+public class BoardTransferBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        TaskManager board = new InMemoryTaskManager();
+        StartupBenchmark.build(board, items);
+        Path directory = Files.createTempDirectory("board-transfer-benchmark");
+        try {
+            for (BoardFormat format : BoardFormat.values()) {
+                Path file = directory.resolve("board." + format.name().toLowerCase());
+                long bestExport = Long.MAX_VALUE;
+                long bestImport = Long.MAX_VALUE;
+                for (int run = 0; run < runs; run++) {
+                    long start = System.nanoTime();
+                    BoardExporter.write(board, file, format);
+                    bestExport = Math.min(bestExport, System.nanoTime() - start);
+
+                    TaskManager restored = new InMemoryTaskManager();
+                    start = System.nanoTime();
+                    BoardImporter.read(file, format, restored);
+                    bestImport = Math.min(bestImport, System.nanoTime() - start);
+                }
+                long bytes = Files.size(file);
+                System.out.printf("%-6s %,d items, %,d MB: export %,.0f MB/s (%,d ms), import %,.0f MB/s (%,d ms)%n",
+                        format, items, bytes >> 20, megabytesPerSecond(bytes, bestExport), bestExport / 1_000_000,
+                        megabytesPerSecond(bytes, bestImport), bestImport / 1_000_000);
+                Files.delete(file);
+            }
+        } finally {
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private static double megabytesPerSecond(long bytes, long nanos) {
+        return bytes / (1024.0 * 1024.0) / (nanos / 1e9);
+    }
+}
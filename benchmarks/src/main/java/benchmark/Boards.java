@@ -0,0 +1,41 @@
+package benchmark;
+
+import model.Epic;
+import model.Subtask;
+import service.ConcurrentHistoryManager;
+import service.ConcurrentTaskManager;
+import service.InMemoryHistoryManager;
+import service.InMemoryTaskManager;
+import service.TaskManager;
+
+/**
+ * Test boards shared by the benchmarks.
+ */
+final class Boards {
+
+    private Boards() {
+    }
+
+    static TaskManager createManager(String manager) {
+        return switch (manager) {
+            case "IN_MEMORY" -> new InMemoryTaskManager(new InMemoryHistoryManager());
+            case "CONCURRENT" -> new ConcurrentTaskManager(new ConcurrentHistoryManager());
+            default -> throw new IllegalArgumentException("Unknown manager " + manager);
+        };
+    }
+
+    /**
+     * Adds epicsCount epics with subtasksPerEpic subtasks each and returns the epics.
+     */
+    static Epic[] addEpics(TaskManager taskManager, int epicsCount, int subtasksPerEpic) {
+        Epic[] epics = new Epic[epicsCount];
+        for (int i = 0; i < epicsCount; i++) {
+            epics[i] = taskManager.addEpic(new Epic("epic", "description", taskManager.getCounter()));
+            for (int j = 0; j < subtasksPerEpic; j++) {
+                taskManager.addSubTask(new Subtask("subtask", "description", taskManager.getCounter(),
+                        epics[i].getId()));
+            }
+        }
+        return epics;
+    }
+}
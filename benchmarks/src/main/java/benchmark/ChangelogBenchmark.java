@@ -0,0 +1,81 @@
+package benchmark;
+
+import model.ChangeSet;
+import model.Task;
+import model.TaskStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.ChangeFeed;
+import service.TaskManager;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeping a copy of the board in sync after 100 updates: reading the changes since the last revision
+ * the copy has seen, against reading the whole board again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class ChangelogBenchmark {
+
+    private static final int UPDATES = 100;
+
+    @Param({"IN_MEMORY", "CONCURRENT"})
+    public String manager;
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    private TaskManager taskManager;
+    private ChangeFeed changeFeed;
+    private int[] ids;
+    private long revision;
+
+    @Setup
+    public void setUp() {
+        taskManager = Boards.createManager(manager);
+        changeFeed = (ChangeFeed) taskManager;
+        ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = taskManager.addTask(new Task("task", "description", taskManager.getCounter())).getId();
+        }
+        revision = changeFeed.getRevision();
+    }
+
+    @Benchmark
+    public List<?> updateAndReadChanges() {
+        update();
+        ChangeSet changes = changeFeed.getChangesSince(revision, UPDATES);
+        revision = changes.getRevision();
+        return changes.getChanges();
+    }
+
+    @Benchmark
+    public List<?> updateAndReadBoard() {
+        update();
+        return taskManager.getAllTasks();
+    }
+
+    private void update() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < UPDATES; i++) {
+            int id = ids[random.nextInt(size)];
+            taskManager.updateTask(new Task("task", "description", id, TaskStatus.IN_PROGRESS));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package benchmark;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import persistence.FsyncPolicy;
+import service.CompactingTaskManager;
+import service.CompactionMetrics;
+import service.InMemoryTaskManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Writers mixing addTask and updateSubTask against a compacting manager for a fixed time, then the
+ * compaction metrics: roll pauses, compaction throughput and the write latency writers observed.
+ * <p>
+ * Usage: {@code CompactionBenchmark [threads] [seconds] [segment MB]}.
+ */
+public class CompactionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 10;
+        long segmentBytes = (args.length > 2 ? Long.parseLong(args[2]) : 8) << 20;
+        Path directory = Files.createTempDirectory("compaction-benchmark");
+        try (CompactingTaskManager taskManager = new CompactingTaskManager(new InMemoryTaskManager(), directory,
+                FsyncPolicy.osManaged(), segmentBytes)) {
+            Epic epic = taskManager.addEpic(new Epic("epic", "description", taskManager.getCounter()));
+            int[] subtaskIds = new int[10_000];
+            for (int i = 0; i < subtaskIds.length; i++) {
+                subtaskIds[i] = taskManager.addSubTask(new Subtask("subtask", "description",
+                        taskManager.getCounter(), epic.getId())).getId();
+            }
+            long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+            List<Thread> writers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Thread writer = new Thread(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        if (random.nextBoolean()) {
+                            taskManager.addTask(new Task("task", "description", taskManager.getCounter()));
+                        } else {
+                            taskManager.updateSubTask(new Subtask("subtask", "description",
+                                    subtaskIds[random.nextInt(subtaskIds.length)], epic.getId(),
+                                    TaskStatus.values()[random.nextInt(3)]));
+                        }
+                    }
+                });
+                writer.start();
+                writers.add(writer);
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+            CompactionMetrics metrics = taskManager.getMetrics();
+            System.out.printf("writes %,d, compactions %d%n", metrics.getWrites(), metrics.getCompactions());
+            System.out.printf("roll pause max %,d us, total %,d us%n", metrics.getRollPauseMaxNanos() / 1000,
+                    metrics.getRollPauseTotalNanos() / 1000);
+            System.out.printf("compaction %,.1f MB/s%n", metrics.getCompactionThroughput() / (1 << 20));
+            System.out.printf("write latency p50 %,d ns, p99 %,d ns, max %,d us%n",
+                    metrics.getWriteLatencyP50Nanos(), metrics.getWriteLatencyP99Nanos(),
+                    metrics.getWriteLatencyMaxNanos() / 1000);
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package benchmark;
+
+import model.Epic;
+import model.Subtask;
+import model.TaskStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.TaskManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Subtask operations inside one epic of 10, 1k or 100k subtasks, plus clearSubtasks over ten
+ * such epics measured as a single shot per freshly built board.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EpicBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class OneEpic {
+
+        @Param({"IN_MEMORY", "CONCURRENT"})
+        public String manager;
+
+        @Param({"10", "1000", "100000"})
+        public int subtasksPerEpic;
+
+        TaskManager taskManager;
+        Epic epic;
+        int[] subtaskIds;
+
+        @Setup
+        public void setUp() {
+            taskManager = Boards.createManager(manager);
+            epic = Boards.addEpics(taskManager, 1, subtasksPerEpic)[0];
+            subtaskIds = taskManager.getSubtaskIdsByEpicId(epic.getId());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Board {
+
+        @Param({"IN_MEMORY", "CONCURRENT"})
+        public String manager;
+
+        @Param({"10", "1000", "100000"})
+        public int subtasksPerEpic;
+
+        TaskManager taskManager;
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            taskManager = Boards.createManager(manager);
+            Boards.addEpics(taskManager, 10, subtasksPerEpic);
+        }
+    }
+
+    @Benchmark
+    public void updateSubTask(OneEpic state) {
+        int id = state.subtaskIds[ThreadLocalRandom.current().nextInt(state.subtaskIds.length)];
+        state.taskManager.updateSubTask(new Subtask("subtask", "description", id, state.epic.getId(),
+                TaskStatus.values()[ThreadLocalRandom.current().nextInt(3)]));
+    }
+
+    @Benchmark
+    public void addAndDeleteSubTask(OneEpic state) {
+        TaskManager taskManager = state.taskManager;
+        Subtask subtask = taskManager.addSubTask(new Subtask("subtask", "description", taskManager.getCounter(),
+                state.epic.getId()));
+        taskManager.deleteSubTaskById(subtask.getId());
+    }
+
+    @Benchmark
+    public int[] getSubtaskIdsByEpicId(OneEpic state) {
+        return state.taskManager.getSubtaskIdsByEpicId(state.epic.getId());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public void clearSubtasks(Board state) {
+        state.taskManager.clearSubtasks();
+    }
+}
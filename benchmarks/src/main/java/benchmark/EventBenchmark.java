@@ -0,0 +1,119 @@
+package benchmark;
+
+import model.Task;
+import model.TaskEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import service.InMemoryTaskManager;
+
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Cost of a write with change events: no subscriber, one that takes every event as it comes, one
+ * taking batches of 64 and one that never requests anything. The draining ones subscribe again
+ * when the writer outruns them and they overflow, the stalled one is dropped after its first
+ * overflow, as any subscriber that stops reading.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventBenchmark {
+
+    @Param({"NONE", "DRAINING", "BATCHED", "STALLED"})
+    public String subscriber;
+
+    private InMemoryTaskManager taskManager;
+
+    @Setup
+    public void setUp() {
+        taskManager = new InMemoryTaskManager();
+        switch (subscriber) {
+            case "DRAINING" -> new Draining<TaskEvent>(
+                    self -> taskManager.getEvents().subscribe(self, 4096)).subscribe();
+            case "BATCHED" -> new Draining<List<TaskEvent>>(
+                    self -> taskManager.getEvents().subscribeBatches(self, 4096, 64)).subscribe();
+            case "STALLED" -> taskManager.getEvents().subscribe(new Stalled());
+            case "NONE" -> {
+            }
+            default -> throw new IllegalArgumentException("Unknown subscriber " + subscriber);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        taskManager.getEvents().close();
+    }
+
+    @Benchmark
+    public int addAndDeleteTask() {
+        Task task = taskManager.addTask(new Task("task", "description", taskManager.getCounter()));
+        taskManager.deleteTaskById(task.getId());
+        return task.getId();
+    }
+
+    private static final class Draining<T> implements Flow.Subscriber<T> {
+        private final Consumer<Draining<T>> subscribe;
+        private long received;
+
+        Draining(Consumer<Draining<T>> subscribe) {
+            this.subscribe = subscribe;
+        }
+
+        void subscribe() {
+            subscribe.accept(this);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(T item) {
+            received++;
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            subscribe();
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+
+    private static final class Stalled implements Flow.Subscriber<TaskEvent> {
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+        }
+
+        @Override
+        public void onNext(TaskEvent item) {
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package benchmark;
+
+/**
+ * Rough retained heap measurement for footprint reports: used heap after several full GCs.
+ */
+final class HeapMeter {
+
+    private static volatile Object sink;
+
+    private HeapMeter() {
+    }
+
+    static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    /**
+     * Keeps the measured structure reachable until the measurement is taken.
+     */
+    static void keep(Object object) {
+        sink = object;
+        sink = null;
+    }
+}
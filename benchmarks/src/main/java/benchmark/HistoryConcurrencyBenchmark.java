@@ -0,0 +1,74 @@
+package benchmark;
+
+import model.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import service.ConcurrentHistoryManager;
+import service.HistoryManager;
+import service.InMemoryHistoryManager;
+import service.SynchronizedHistoryManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Views of random tasks from many threads: the lock-guarded InMemoryHistoryManager against
+ * ConcurrentHistoryManager. Use -t to set the number of threads or run main for 1..32.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryConcurrencyBenchmark {
+
+    @Param({"SYNCHRONIZED", "CONCURRENT"})
+    public String implementation;
+
+    @Param({"10000"})
+    public int tasksCount;
+
+    private HistoryManager historyManager;
+    private Task[] tasks;
+
+    @Setup
+    public void setUp() {
+        historyManager = implementation.equals("CONCURRENT")
+                ? new ConcurrentHistoryManager()
+                : new SynchronizedHistoryManager(new InMemoryHistoryManager());
+        tasks = new Task[tasksCount];
+        for (int i = 0; i < tasksCount; i++) {
+            tasks[i] = new Task("task" + i, "description", i);
+            historyManager.add(tasks[i]);
+        }
+    }
+
+    @Benchmark
+    public void add() {
+        historyManager.add(tasks[ThreadLocalRandom.current().nextInt(tasks.length)]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads = 1; threads <= 32; threads *= 2) {
+            Options options = new OptionsBuilder()
+                    .include(HistoryConcurrencyBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package benchmark;
+
+import model.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import service.ArrayHistoryManager;
+import service.HistoryManager;
+import service.InMemoryHistoryManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Linked Node history against the array-backed one: allocation per view/removal (run with
+ * -prof gc) and, from main, retained heap per history entry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryFootprintBenchmark {
+
+    @Param({"LINKED", "ARRAY"})
+    public String implementation;
+
+    @Param({"100000"})
+    public int historySize;
+
+    private HistoryManager historyManager;
+    private Task[] tasks;
+
+    @Setup
+    public void setUp() {
+        historyManager = create(implementation);
+        tasks = createTasks(historySize);
+        for (Task task : tasks) {
+            historyManager.add(task);
+        }
+    }
+
+    @Benchmark
+    public void viewAndRemove() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        historyManager.add(tasks[random.nextInt(tasks.length)]);
+        historyManager.remove(tasks[random.nextInt(tasks.length)].getId());
+    }
+
+    static HistoryManager create(String implementation) {
+        return implementation.equals("ARRAY") ? new ArrayHistoryManager() : new InMemoryHistoryManager();
+    }
+
+    static Task[] createTasks(int count) {
+        Task[] tasks = new Task[count];
+        for (int i = 0; i < count; i++) {
+            tasks[i] = new Task("task", "description", i);
+        }
+        return tasks;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int entries = 1_000_000;
+        Task[] tasks = createTasks(entries);
+        for (String implementation : new String[]{"LINKED", "ARRAY"}) {
+            long before = HeapMeter.usedHeap();
+            HistoryManager historyManager = create(implementation);
+            for (Task task : tasks) {
+                historyManager.add(task);
+            }
+            long after = HeapMeter.usedHeap();
+            System.out.printf("%s history: %.1f bytes per entry%n", implementation,
+                    (double) (after - before) / entries);
+            HeapMeter.keep(historyManager);
+        }
+        new Runner(new OptionsBuilder()
+                .include(HistoryFootprintBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,80 @@
+package benchmark;
+
+import model.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.ArrayHistoryManager;
+import service.ConcurrentHistoryManager;
+import service.HistoryManager;
+import service.InMemoryHistoryManager;
+
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * History operations on a history already holding historySize tasks. Only the CONCURRENT
+ * implementation may be run with more than one thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryManagerBenchmark {
+
+    @Param({"LINKED", "ARRAY", "CONCURRENT"})
+    public String implementation;
+
+    @Param({"100", "10000", "1000000"})
+    public int historySize;
+
+    private HistoryManager historyManager;
+    private Task[] tasks;
+
+    @Setup
+    public void setUp() {
+        historyManager = switch (implementation) {
+            case "LINKED" -> new InMemoryHistoryManager();
+            case "ARRAY" -> new ArrayHistoryManager();
+            case "CONCURRENT" -> new ConcurrentHistoryManager();
+            default -> throw new IllegalArgumentException("Unknown history " + implementation);
+        };
+        tasks = HistoryFootprintBenchmark.createTasks(historySize);
+        for (Task task : tasks) {
+            historyManager.add(task);
+        }
+    }
+
+    @Benchmark
+    public void addWithReordering() {
+        historyManager.add(tasks[ThreadLocalRandom.current().nextInt(tasks.length)]);
+    }
+
+    @Benchmark
+    public void removeAndAdd() {
+        Task task = tasks[ThreadLocalRandom.current().nextInt(tasks.length)];
+        historyManager.remove(task.getId());
+        historyManager.add(task);
+    }
+
+    @Benchmark
+    public ArrayList<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Benchmark
+    public ArrayList<Task> getHistoryLimit10() {
+        return historyManager.getHistory(10);
+    }
+}
@@ -0,0 +1,150 @@
+package benchmark;
+
+import http.HttpTaskServer;
+import model.Task;
+import model.TaskStatus;
+import service.TaskManager;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency and throughput of {@link HttpTaskServer} over loopback under many open connections. A
+ * {@link service.ConcurrentTaskManager} is filled with N tasks and served, then C clients each keep
+ * one request in flight for the given time: nine in ten read a random task by id, the rest update
+ * one. Requests are sent asynchronously, so C is the number of connections rather than client
+ * threads. The first quarter of the run warms up and is not measured.
+ * <p>
+ * Reports requests per second and the 50th, 99th and 99.9th percentile latency, measured by the
+ * client, so they include the client's own time on the shared CPUs.
+ * <p>
+ * Usage: {@code HttpLoadTest [connections] [seconds] [tasks]}.
+ */
+public class HttpLoadTest {
+
+    private static final int UPDATE_PERCENT = 10;
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int tasks = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        TaskManager board = Boards.createManager("CONCURRENT");
+        int firstId = board.getCounter();
+        for (int i = 0; i < tasks; i++) {
+            board.addTask(new Task("task " + i, "description " + i, firstId + i));
+        }
+        board.restoreCounter(firstId + tasks);
+
+        try (HttpTaskServer server = new HttpTaskServer(board,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            server.start();
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            String base = "http://127.0.0.1:" + server.getPort();
+            long start = System.nanoTime();
+            long measureFrom = start + seconds * 250_000_000L;
+            long end = start + seconds * 1_000_000_000L;
+            CountDownLatch done = new CountDownLatch(connections);
+            AtomicLong errors = new AtomicLong();
+            Client[] clients = new Client[connections];
+            for (int i = 0; i < connections; i++) {
+                clients[i] = new Client(client, base, firstId, tasks, measureFrom, end, errors, done);
+                clients[i].next();
+            }
+            done.await();
+
+            int count = 0;
+            for (Client c : clients) {
+                count += c.count;
+            }
+            long[] latencies = new long[count];
+            int offset = 0;
+            for (Client c : clients) {
+                System.arraycopy(c.latencies, 0, latencies, offset, c.count);
+                offset += c.count;
+            }
+            Arrays.sort(latencies);
+            double measuredSeconds = (end - measureFrom) / 1e9;
+            System.out.printf("%,d connections, %,d tasks, %s threads: %,.0f requests/s, p50 %.2f ms, "
+                            + "p99 %.2f ms, p99.9 %.2f ms, max %.2f ms, %,d errors%n",
+                    connections, tasks, server.usesVirtualThreads() ? "virtual" : "platform",
+                    count / measuredSeconds, millis(latencies, 0.50), millis(latencies, 0.99),
+                    millis(latencies, 0.999), count == 0 ? 0 : latencies[count - 1] / 1e6, errors.get());
+        }
+    }
+
+    private static double millis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, (long) Math.ceil(percentile * sorted.length) - 1)] / 1e6;
+    }
+
+    /**
+     * One connection with one request in flight, sending the next when the last one completes, so
+     * its latencies are recorded by one thread at a time.
+     */
+    private static final class Client {
+        private final HttpClient client;
+        private final String base;
+        private final int firstId;
+        private final int tasks;
+        private final long measureFrom;
+        private final long end;
+        private final AtomicLong errors;
+        private final CountDownLatch done;
+        private long[] latencies = new long[1024];
+        private int count;
+
+        Client(HttpClient client, String base, int firstId, int tasks, long measureFrom, long end,
+               AtomicLong errors, CountDownLatch done) {
+            this.client = client;
+            this.base = base;
+            this.firstId = firstId;
+            this.tasks = tasks;
+            this.measureFrom = measureFrom;
+            this.end = end;
+            this.errors = errors;
+            this.done = done;
+        }
+
+        void next() {
+            long sent = System.nanoTime();
+            if (sent >= end) {
+                done.countDown();
+                return;
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int id = firstId + random.nextInt(tasks);
+            HttpRequest request;
+            if (random.nextInt(100) < UPDATE_PERCENT) {
+                TaskStatus status = TaskStatus.values()[random.nextInt(TaskStatus.values().length)];
+                request = HttpRequest.newBuilder(URI.create(base + "/tasks"))
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"type\":\"TASK\",\"id\":" + id
+                                + ",\"name\":\"task\",\"description\":\"updated\",\"status\":\"" + status + "\"}"))
+                        .build();
+            } else {
+                request = HttpRequest.newBuilder(URI.create(base + "/tasks/" + id)).build();
+            }
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).whenComplete((response, failure) -> {
+                long received = System.nanoTime();
+                if (failure != null || response.statusCode() >= 300) {
+                    errors.incrementAndGet();
+                } else if (sent >= measureFrom && received <= end) {
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = received - sent;
+                }
+                next();
+            });
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package benchmark;
+
+import model.Epic;
+import model.Subtask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.TaskManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports one million subtasks into 1 or 1000 empty epics, once through addSubTask per item and
+ * once through addAllSubtasks, measured as a single shot per fresh manager.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class ImportBenchmark {
+
+    private static final int SUBTASKS = 1_000_000;
+
+    @State(Scope.Thread)
+    public static class Import {
+
+        @Param({"IN_MEMORY", "CONCURRENT"})
+        public String manager;
+
+        @Param({"1", "1000"})
+        public int epicsCount;
+
+        TaskManager taskManager;
+        List<Subtask> subtasks;
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            taskManager = Boards.createManager(manager);
+            Epic[] epics = Boards.addEpics(taskManager, epicsCount, 0);
+            subtasks = new ArrayList<>(SUBTASKS);
+            for (int i = 0; i < SUBTASKS; i++) {
+                subtasks.add(new Subtask("subtask", "description", taskManager.getCounter(),
+                        epics[i % epicsCount].getId()));
+            }
+        }
+    }
+
+    @Benchmark
+    public TaskManager addSubTaskOneByOne(Import state) {
+        for (Subtask subtask : state.subtasks) {
+            state.taskManager.addSubTask(subtask);
+        }
+        return state.taskManager;
+    }
+
+    @Benchmark
+    public TaskManager addAllSubtasks(Import state) {
+        state.taskManager.addAllSubtasks(state.subtasks);
+        return state.taskManager;
+    }
+}
@@ -0,0 +1,111 @@
+package benchmark;
+
+import exception.TaskOverlapException;
+import model.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.TaskManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overlap validation on a board of scheduled tasks, one hour long and one hour apart.
+ * <p>
+ * Adding into a gap, moving a task within its gap and rejecting a clash all check the time against
+ * the interval index. scanForOverlap is the check done by walking every stored task instead, for
+ * comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class ScheduleBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final Duration HOUR = Duration.ofHours(1);
+    private static final Duration HALF_HOUR = Duration.ofMinutes(30);
+
+    @Param({"IN_MEMORY", "CONCURRENT"})
+    public String manager;
+
+    @Param({"1000", "1000000"})
+    public int scheduled;
+
+    private TaskManager taskManager;
+    private Task[] tasks;
+
+    @Setup
+    public void setUp() {
+        taskManager = Boards.createManager(manager);
+        tasks = new Task[scheduled];
+        for (int i = 0; i < scheduled; i++) {
+            tasks[i] = taskManager.addTask(new Task("task", "description", taskManager.getCounter())
+                    .setStartTime(slot(i)).setDuration(HOUR));
+        }
+    }
+
+    @Benchmark
+    public int addAndDeleteScheduledTask() {
+        Task task = taskManager.addTask(new Task("task", "description", taskManager.getCounter())
+                .setStartTime(slot(random()).plus(HOUR)).setDuration(HALF_HOUR));
+        taskManager.deleteTaskById(task.getId());
+        return task.getId();
+    }
+
+    @Benchmark
+    public Task rescheduleTask() {
+        int index = random();
+        Task task = tasks[index];
+        LocalDateTime start = slot(index);
+        Task moved = new Task("task", "description", task.getId())
+                .setStartTime(task.getStartTime().equals(start) ? start.plus(HALF_HOUR) : start).setDuration(HOUR);
+        taskManager.updateTask(moved);
+        tasks[index] = moved;
+        return moved;
+    }
+
+    @Benchmark
+    public TaskOverlapException rejectOverlappingTask() {
+        try {
+            taskManager.addTask(new Task("task", "description", taskManager.getCounter())
+                    .setStartTime(slot(random()).plus(HALF_HOUR)).setDuration(HOUR));
+        } catch (TaskOverlapException e) {
+            return e;
+        }
+        throw new IllegalStateException("Overlap was not detected");
+    }
+
+    @Benchmark
+    public boolean scanForOverlap() {
+        LocalDateTime start = slot(random()).plus(HOUR);
+        LocalDateTime end = start.plus(HALF_HOUR);
+        for (Task task : taskManager.getTasksView()) {
+            if (task.getStartTime().isBefore(end) && start.isBefore(task.getEndTime())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int random() {
+        return ThreadLocalRandom.current().nextInt(scheduled);
+    }
+
+    private static LocalDateTime slot(int index) {
+        return START.plusHours(2L * index);
+    }
+}
@@ -0,0 +1,101 @@
+package benchmark;
+
+import model.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.InMemoryTaskManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Free/busy queries over a quarter of 15-minute slots on a board of one-hour tasks one hour apart,
+ * answered by the slot grid of the manager. scanFreeSlotsInQuarter finds the same slots by walking
+ * every stored task, for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class SlotGridBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final Duration SLOT = Duration.ofMinutes(15);
+    private static final Duration QUARTER = Duration.ofDays(91);
+    private static final Duration HOUR = Duration.ofHours(1);
+
+    @Param({"1000", "1000000"})
+    public int scheduled;
+
+    private InMemoryTaskManager taskManager;
+    private long quarters;
+
+    @Setup
+    public void setUp() {
+        taskManager = new InMemoryTaskManager();
+        for (int i = 0; i < scheduled; i++) {
+            taskManager.addTask(new Task("task", "description", taskManager.getCounter())
+                    .setStartTime(START.plusHours(2L * i)).setDuration(HOUR));
+        }
+        Duration horizon = Duration.ofHours(2L * scheduled).plus(QUARTER);
+        taskManager.setSlotGrid(START, SLOT, horizon);
+        quarters = Math.max(1, Duration.ofHours(2L * scheduled).dividedBy(QUARTER));
+    }
+
+    @Benchmark
+    public List<LocalDateTime> freeSlotsInQuarter() {
+        LocalDateTime from = randomQuarter();
+        return taskManager.getFreeSlots(from, from.plus(QUARTER));
+    }
+
+    @Benchmark
+    public boolean isFreeHour() {
+        LocalDateTime from = randomHour();
+        return taskManager.isFree(from, from.plus(HOUR));
+    }
+
+    @Benchmark
+    public LocalDateTime findFreeHour() {
+        return taskManager.findFreeSlots(randomHour(), 4);
+    }
+
+    @Benchmark
+    public BitSet scanFreeSlotsInQuarter() {
+        LocalDateTime from = randomQuarter();
+        LocalDateTime to = from.plus(QUARTER);
+        int slots = (int) QUARTER.dividedBy(SLOT);
+        BitSet busy = new BitSet(slots);
+        for (Task task : taskManager.getTasksView()) {
+            if (task.getStartTime().isBefore(to) && task.getEndTime().isAfter(from)) {
+                long first = Math.max(0, Duration.between(from, task.getStartTime()).dividedBy(SLOT));
+                long last = Math.min(slots, Duration.between(from, task.getEndTime().minusNanos(1)).dividedBy(SLOT) + 1);
+                busy.set((int) first, (int) last);
+            }
+        }
+        busy.flip(0, slots);
+        return busy;
+    }
+
+    private LocalDateTime randomQuarter() {
+        return START.plus(QUARTER.multipliedBy(ThreadLocalRandom.current().nextLong(quarters)));
+    }
+
+    private LocalDateTime randomHour() {
+        return START.plusHours(ThreadLocalRandom.current().nextLong(2L * scheduled));
+    }
+}
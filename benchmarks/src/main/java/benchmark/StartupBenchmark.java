@@ -0,0 +1,119 @@
+package benchmark;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import persistence.FsyncPolicy;
+import persistence.TaskSnapshot;
+import service.FileBackedTaskManager;
+import service.InMemoryTaskManager;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cold start of a board of N items: loading the mapped snapshot, replaying the write-ahead log and
+ * rebuilding the board through the API. Each variant runs in a fresh JVM that reports load time and
+ * peak heap.
+ * <p>
+ * Usage: {@code StartupBenchmark [items] [child JVM options...]}, for example
+ * {@code StartupBenchmark 10000000 -Xmx8g}. Files are written to java.io.tmpdir and removed afterwards.
+ */
+public class StartupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("load")) {
+            load(args[1], args.length > 2 ? args[2] : null, Integer.parseInt(args[3]));
+            return;
+        }
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<String> jvmOptions = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            jvmOptions.add(args[i]);
+        }
+        Path directory = Files.createTempDirectory("startup-benchmark");
+        Path log = directory.resolve("tasks.log");
+        Path snapshot = directory.resolve("tasks.snapshot");
+        try {
+            try (FileBackedTaskManager taskManager = new FileBackedTaskManager(new InMemoryTaskManager(), log,
+                    FsyncPolicy.osManaged())) {
+                build(taskManager, items);
+                TaskSnapshot.write(taskManager, snapshot);
+            }
+            System.out.printf("%,d items: log %,d MB, snapshot %,d MB%n", items, Files.size(log) >> 20,
+                    Files.size(snapshot) >> 20);
+            runChild(jvmOptions, "snapshot", snapshot, items);
+            runChild(jvmOptions, "log", log, items);
+            runChild(jvmOptions, "rebuild", directory, items);
+        } finally {
+            Files.deleteIfExists(log);
+            Files.deleteIfExists(snapshot);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    /**
+     * Half of the items are tasks, a twentieth epics and the rest their subtasks.
+     */
+    static void build(TaskManager taskManager, int items) {
+        int tasks = items / 2;
+        int epics = Math.max(1, items / 20);
+        for (int i = 0; i < tasks; i++) {
+            taskManager.addTask(new Task("task " + i, "description of task " + i, taskManager.getCounter()));
+        }
+        int[] epicIds = new int[epics];
+        for (int i = 0; i < epics; i++) {
+            epicIds[i] = taskManager.addEpic(new Epic("epic " + i, "description of epic " + i,
+                    taskManager.getCounter())).getId();
+        }
+        for (int i = 0; i < items - tasks - epics; i++) {
+            taskManager.addSubTask(new Subtask("subtask " + i, "description of subtask " + i,
+                    taskManager.getCounter(), epicIds[i % epics]));
+        }
+    }
+
+    private static void runChild(List<String> jvmOptions, String variant, Path file, int items)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(StartupBenchmark.class.getName());
+        command.add("load");
+        command.add(variant);
+        command.add(file.toString());
+        command.add(Integer.toString(items));
+        int exitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+        if (exitCode != 0) {
+            System.out.println(variant + " failed with exit code " + exitCode);
+        }
+    }
+
+    private static void load(String variant, String file, int items) throws IOException {
+        long start = System.nanoTime();
+        TaskManager taskManager = new InMemoryTaskManager();
+        switch (variant) {
+            case "snapshot" -> TaskSnapshot.load(Path.of(file), taskManager);
+            case "log" -> new FileBackedTaskManager(taskManager, Path.of(file), FsyncPolicy.osManaged()).close();
+            default -> build(taskManager, items);
+        }
+        long elapsed = System.nanoTime() - start;
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+        System.out.printf("%-8s %,8d ms, peak heap %,6d MB, %,d tasks%n", variant, elapsed / 1_000_000,
+                peakHeap >> 20, taskManager.getAllTasks().size() + taskManager.getAllEpics().size()
+                        + taskManager.getAllSubtasks().size());
+    }
+}
@@ -0,0 +1,79 @@
+package benchmark;
+
+import model.Task;
+import persistence.FileTaskBodyStore;
+import service.InMemoryHistoryManager;
+import service.InMemoryTaskManager;
+import service.StorageType;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retained heap of a board with large descriptions when bodies stay in memory and when they live in
+ * a {@link FileTaskBodyStore}, plus the cost of reading descriptions from a hot set and from the
+ * whole board.
+ * <p>
+ * Usage: {@code TaskBodyFootprintBenchmark [tasks] [description bytes] [cache size]}.
+ */
+public class TaskBodyFootprintBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int descriptionLength = args.length > 1 ? Integer.parseInt(args[1]) : 2048;
+        int cacheSize = args.length > 2 ? Integer.parseInt(args[2]) : FileTaskBodyStore.DEFAULT_CACHE_SIZE;
+        Path file = Files.createTempFile("task-bodies", ".bin");
+        try {
+            long before = HeapMeter.usedHeap();
+            TaskManager eager = new InMemoryTaskManager(new InMemoryHistoryManager());
+            fill(eager, tasks, descriptionLength);
+            long eagerHeap = HeapMeter.usedHeap() - before;
+            report("eager", eager, tasks, cacheSize, eagerHeap);
+            HeapMeter.keep(eager);
+            eager = null;
+
+            before = HeapMeter.usedHeap();
+            try (FileTaskBodyStore bodyStore = new FileTaskBodyStore(file, cacheSize)) {
+                TaskManager lazy = new InMemoryTaskManager(new InMemoryHistoryManager(), StorageType.HASH_MAP,
+                        bodyStore);
+                fill(lazy, tasks, descriptionLength);
+                long lazyHeap = HeapMeter.usedHeap() - before;
+                report("lazy", lazy, tasks, cacheSize, lazyHeap);
+                System.out.printf("lazy body file %,d MB, cache miss rate %.2f%n", bodyStore.getFileSize() >> 20,
+                        bodyStore.getMissRate());
+                HeapMeter.keep(lazy);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void fill(TaskManager taskManager, int tasks, int descriptionLength) {
+        for (int i = 0; i < tasks; i++) {
+            String description = Integer.toString(i).repeat(descriptionLength / Integer.toString(i).length() + 1);
+            taskManager.addTask(new Task("task " + i, description, taskManager.getCounter()));
+        }
+    }
+
+    private static void report(String mode, TaskManager taskManager, int tasks, int hotSet, long heap) {
+        System.out.printf("%-5s heap %,d MB (%,d bytes per task), hot set read %,d ns, uniform read %,d ns%n",
+                mode, heap >> 20, heap / tasks, readNanos(taskManager, Math.min(hotSet, tasks)),
+                readNanos(taskManager, tasks));
+    }
+
+    private static long readNanos(TaskManager taskManager, int range) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int reads = 200_000;
+        long length = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < reads; i++) {
+            length += taskManager.getTaskById(1 + random.nextInt(range)).getDescription().length();
+        }
+        long elapsed = System.nanoTime() - start;
+        HeapMeter.keep(length);
+        return elapsed / reads;
+    }
+}
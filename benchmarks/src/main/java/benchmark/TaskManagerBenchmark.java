@@ -0,0 +1,152 @@
+package benchmark;
+
+import model.Epic;
+import model.Page;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.TaskManager;
+
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single entity operations of the task managers on a board of dataSize tasks, dataSize subtasks
+ * and dataSize / 10 epics. Only the CONCURRENT manager may be run with more than one thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskManagerBenchmark {
+
+    @Param({"IN_MEMORY", "CONCURRENT"})
+    public String manager;
+
+    @Param({"1000", "100000"})
+    public int dataSize;
+
+    private TaskManager taskManager;
+    private Task[] tasks;
+    private Epic[] epics;
+    private Subtask[] subtasks;
+
+    @Setup
+    public void setUp() {
+        taskManager = Boards.createManager(manager);
+        tasks = new Task[dataSize];
+        epics = new Epic[Math.max(1, dataSize / 10)];
+        subtasks = new Subtask[dataSize];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = taskManager.addTask(new Task("task", "description", taskManager.getCounter()));
+        }
+        for (int i = 0; i < epics.length; i++) {
+            epics[i] = taskManager.addEpic(new Epic("epic", "description", taskManager.getCounter()));
+        }
+        for (int i = 0; i < subtasks.length; i++) {
+            subtasks[i] = taskManager.addSubTask(new Subtask("subtask", "description", taskManager.getCounter(),
+                    epics[i % epics.length].getId()));
+        }
+    }
+
+    @Benchmark
+    public Task getTaskById() {
+        return taskManager.getTaskById(random(tasks).getId());
+    }
+
+    @Benchmark
+    public Epic getEpicById() {
+        return taskManager.getEpicById(random(epics).getId());
+    }
+
+    @Benchmark
+    public Subtask getSubTaskById() {
+        return taskManager.getSubTaskById(random(subtasks).getId());
+    }
+
+    @Benchmark
+    public void updateTask() {
+        taskManager.updateTask(random(tasks));
+    }
+
+    @Benchmark
+    public void updateSubTask() {
+        Subtask subtask = random(subtasks);
+        Subtask changes = new Subtask(subtask.getName(), subtask.getDescription(), subtask.getId(),
+                subtask.getEpicId(), TaskStatus.values()[ThreadLocalRandom.current().nextInt(3)]);
+        taskManager.updateSubTask(changes);
+    }
+
+    @Benchmark
+    public void addAndDeleteTask() {
+        Task task = taskManager.addTask(new Task("task", "description", taskManager.getCounter()));
+        taskManager.deleteTaskById(task.getId());
+    }
+
+    @Benchmark
+    public void addAndDeleteEpic() {
+        Epic epic = taskManager.addEpic(new Epic("epic", "description", taskManager.getCounter()));
+        taskManager.deleteEpicById(epic.getId());
+    }
+
+    @Benchmark
+    public void addAndDeleteSubTask() {
+        Subtask subtask = taskManager.addSubTask(new Subtask("subtask", "description", taskManager.getCounter(),
+                random(epics).getId()));
+        taskManager.deleteSubTaskById(subtask.getId());
+    }
+
+    @Benchmark
+    public ArrayList<Task> getAllTasks() {
+        return taskManager.getAllTasks();
+    }
+
+    @Benchmark
+    public ArrayList<Epic> getAllEpics() {
+        return taskManager.getAllEpics();
+    }
+
+    @Benchmark
+    public ArrayList<Subtask> getAllSubtasks() {
+        return taskManager.getAllSubtasks();
+    }
+
+    @Benchmark
+    public long countDoneSubtasksFromCopy() {
+        return taskManager.getAllSubtasks().stream().filter(subtask -> subtask.getStatus() == TaskStatus.DONE).count();
+    }
+
+    @Benchmark
+    public long countDoneSubtasksFromView() {
+        return taskManager.getSubtasksView().stream().filter(subtask -> subtask.getStatus() == TaskStatus.DONE)
+                .count();
+    }
+
+    @Benchmark
+    public int countDoneSubtasksByStatus() {
+        return taskManager.countSubtasksByStatus(TaskStatus.DONE);
+    }
+
+    @Benchmark
+    public Page<Task> getTasksPage() {
+        return taskManager.getTasksPage(Page.cursorAfter(random(tasks).getId()), 100);
+    }
+
+    private static <T> T random(T[] values) {
+        return values[ThreadLocalRandom.current().nextInt(values.length)];
+    }
+}
@@ -0,0 +1,82 @@
+package benchmark;
+
+import model.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import service.StorageType;
+import service.TaskStorage;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup throughput of the InMemoryTaskManager storages and, from main, heap they take per
+ * million tasks (the tasks themselves are not counted).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskStorageBenchmark {
+
+    @Param({"HASH_MAP", "OPEN_ADDRESSING"})
+    public StorageType storageType;
+
+    @Param({"1000000"})
+    public int tasksCount;
+
+    private TaskStorage<Task> storage;
+
+    @Setup
+    public void setUp() {
+        storage = fill(storageType, HistoryFootprintBenchmark.createTasks(tasksCount));
+    }
+
+    @Benchmark
+    public Task get() {
+        return storage.get(ThreadLocalRandom.current().nextInt(tasksCount));
+    }
+
+    @Benchmark
+    public Task removeAndPut() {
+        int id = ThreadLocalRandom.current().nextInt(tasksCount);
+        Task task = storage.remove(id);
+        storage.put(id, task);
+        return task;
+    }
+
+    static TaskStorage<Task> fill(StorageType storageType, Task[] tasks) {
+        TaskStorage<Task> storage = storageType.create();
+        for (Task task : tasks) {
+            storage.put(task.getId(), task);
+        }
+        return storage;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Task[] tasks = HistoryFootprintBenchmark.createTasks(1_000_000);
+        for (StorageType storageType : StorageType.values()) {
+            long before = HeapMeter.usedHeap();
+            TaskStorage<Task> storage = fill(storageType, tasks);
+            long after = HeapMeter.usedHeap();
+            System.out.printf("%s storage: %.1f MB per million tasks%n", storageType,
+                    (after - before) / 1024.0 / 1024.0);
+            HeapMeter.keep(storage);
+        }
+        new Runner(new OptionsBuilder().include(TaskStorageBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,81 @@
+package benchmark;
+
+import model.Task;
+import service.TextIndex;
+
+import java.util.SplittableRandom;
+
+/**
+ * Retained heap of a {@link TextIndex} per indexed token and the latency of typical queries.
+ * <p>
+ * Every task gets a name of a few words and a description of more words drawn from a Zipf-like
+ * vocabulary, plus a word of its own, so the index has both very common and unique terms. The
+ * tasks are created before the first heap measurement, so only the index is counted. A token here
+ * is one (term, task) pair, which is what the index stores.
+ * <p>
+ * Usage: {@code TextIndexBenchmark [tasks] [description words] [vocabulary]}.
+ */
+public class TextIndexBenchmark {
+
+    private static final int QUERY_RUNS = 200;
+    private static final long QUERY_NANOS = 2_000_000_000L;
+
+    public static void main(String[] args) {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int descriptionWords = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int vocabulary = args.length > 2 ? Integer.parseInt(args[2]) : 50_000;
+        SplittableRandom random = new SplittableRandom(42);
+        Task[] tasks = new Task[taskCount];
+        for (int i = 0; i < taskCount; i++) {
+            tasks[i] = new Task(words(random, 4, vocabulary), words(random, descriptionWords, vocabulary)
+                    + " ticket" + i, i + 1);
+        }
+
+        long before = HeapMeter.usedHeap();
+        long start = System.nanoTime();
+        TextIndex index = new TextIndex();
+        for (Task task : tasks) {
+            index.put(task);
+        }
+        long buildNanos = System.nanoTime() - start;
+        long heap = HeapMeter.usedHeap() - before;
+        System.out.printf("%,d tasks, %,d terms, %,d tokens indexed in %,d ms%n", index.size(), index.termCount(),
+                index.postingCount(), buildNanos / 1_000_000);
+        System.out.printf("index heap %,d MB: %.1f bytes per token, %,d bytes per task%n", heap >> 20,
+                (double) heap / index.postingCount(), heap / taskCount);
+
+        query(index, "common term", "w0");
+        query(index, "rare term", "w" + Integer.toString(vocabulary - 1, 36));
+        query(index, "unique term", "ticket" + taskCount / 2);
+        query(index, "prefix", "w1*");
+        query(index, "and", "w0 w1 w2");
+        query(index, "or", "w5 OR w6");
+        HeapMeter.keep(tasks);
+        HeapMeter.keep(index);
+    }
+
+    private static void query(TextIndex index, String label, String query) {
+        int hits = index.search(query, 10).length;
+        int runs = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            index.search(query, 10);
+            runs++;
+            elapsed = System.nanoTime() - start;
+        } while (runs < QUERY_RUNS && elapsed < QUERY_NANOS);
+        System.out.printf("%-12s %-16s %,10d us/query (%d hits)%n", label, query, elapsed / runs / 1_000, hits);
+    }
+
+    /**
+     * Words with rank r drawn with probability about 1/r, named by their rank in base 36.
+     */
+    private static String words(SplittableRandom random, int count, int vocabulary) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            int rank = (int) Math.min(vocabulary - 1, Math.floor(Math.pow(vocabulary, random.nextDouble()) - 1));
+            text.append(i == 0 ? "w" : " w").append(Integer.toString(rank, 36));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,67 @@
+package benchmark;
+
+import model.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import persistence.FsyncPolicy;
+import service.FileBackedTaskManager;
+import service.InMemoryTaskManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a logged mutation under each fsync policy. The log lives in java.io.tmpdir, point it at
+ * the disk you care about with -Djava.io.tmpdir.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriteAheadLogBenchmark {
+
+    @Param({"PER_OPERATION", "GROUP_COMMIT", "OS_MANAGED"})
+    public String policy;
+
+    private Path directory;
+    private FileBackedTaskManager taskManager;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("wal-benchmark");
+        FsyncPolicy fsyncPolicy = switch (policy) {
+            case "PER_OPERATION" -> FsyncPolicy.perOperation();
+            case "GROUP_COMMIT" -> FsyncPolicy.groupCommit(Duration.ofMillis(10));
+            default -> FsyncPolicy.osManaged();
+        };
+        taskManager = new FileBackedTaskManager(new InMemoryTaskManager(), directory.resolve("tasks.log"),
+                fsyncPolicy);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        taskManager.close();
+        Files.deleteIfExists(directory.resolve("tasks.log"));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public Task addTask() {
+        return taskManager.addTask(new Task("task", "description", taskManager.getCounter()));
+    }
+}
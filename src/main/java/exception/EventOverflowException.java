@@ -0,0 +1,7 @@
+package exception;
+
+public class EventOverflowException extends RuntimeException {
+    public EventOverflowException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package exception;
+
+public class FeatureNotEnabledException extends IllegalStateException {
+    public FeatureNotEnabledException(String message) {
+        super(message);
+    }
+}
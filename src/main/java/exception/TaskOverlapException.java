@@ -0,0 +1,7 @@
+package exception;
+
+public class TaskOverlapException extends RuntimeException {
+    public TaskOverlapException(String message) {
+        super(message);
+    }
+}
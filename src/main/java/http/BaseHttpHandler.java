@@ -0,0 +1,233 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import exception.AlreadyExistsException;
+import exception.EpicDoesntExistException;
+import exception.FeatureNotEnabledException;
+import exception.TaskOverlapException;
+import model.Page;
+import model.Subtask;
+import model.Task;
+import model.TaskType;
+import persistence.ByteSink;
+import persistence.JsonReader;
+import persistence.JsonWriter;
+import persistence.TaskJson;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * Routing, JSON bodies and error mapping shared by the handlers. A handler gets the method and the
+ * path split on '/', its own name first, and answers through the send methods. Exceptions of the
+ * manager become statuses: a missing epic 404, a duplicate id 409, an overlapping time 406, a
+ * malformed request 400, a feature the manager has not turned on 501 and anything else 500, each
+ * with an error message as JSON.
+ */
+abstract class BaseHttpHandler implements HttpHandler {
+
+    static final int OK = 200;
+    static final int CREATED = 201;
+    static final int NO_CONTENT = 204;
+    static final int BAD_REQUEST = 400;
+    static final int NOT_FOUND = 404;
+    static final int METHOD_NOT_ALLOWED = 405;
+    static final int NOT_ACCEPTABLE = 406;
+    static final int CONFLICT = 409;
+    static final int INTERNAL_ERROR = 500;
+    static final int NOT_IMPLEMENTED = 501;
+
+    private static final int MAX_BODY_BYTES = 1 << 20;
+
+    protected final TaskManager taskManager;
+
+    BaseHttpHandler(TaskManager taskManager) {
+        this.taskManager = taskManager;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/+");
+            try {
+                handle(exchange, exchange.getRequestMethod(), path);
+            } catch (EpicDoesntExistException e) {
+                sendError(exchange, NOT_FOUND, e.getMessage());
+            } catch (AlreadyExistsException e) {
+                sendError(exchange, CONFLICT, e.getMessage());
+            } catch (FeatureNotEnabledException e) {
+                sendError(exchange, NOT_IMPLEMENTED, e.getMessage());
+            } catch (TaskOverlapException e) {
+                sendError(exchange, NOT_ACCEPTABLE, e.getMessage());
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, BAD_REQUEST, e.getMessage());
+            } catch (RuntimeException e) {
+                sendError(exchange, INTERNAL_ERROR, e.toString());
+            }
+        }
+    }
+
+    /**
+     * Answers the request, path holds the segments of the request path from the handler name on.
+     */
+    abstract void handle(HttpExchange exchange, String method, String[] path) throws IOException;
+
+    void sendJson(HttpExchange exchange, int status, Consumer<JsonWriter> body) throws IOException {
+        ByteSink sink = new ByteSink(1024);
+        body.accept(new JsonWriter(sink));
+        byte[] bytes = sink.toByteArray();
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Sends the task, or 404 when it is null.
+     */
+    void sendTask(HttpExchange exchange, int status, Task task) throws IOException {
+        if (task == null) {
+            sendNotFound(exchange);
+        } else {
+            sendJson(exchange, status, json -> TaskJson.write(json, task));
+        }
+    }
+
+    void sendTasks(HttpExchange exchange, Collection<? extends Task> tasks) throws IOException {
+        sendJson(exchange, OK, json -> writeTasks(json, tasks));
+    }
+
+    /**
+     * Sends the page as an object with its items and the cursor of the next page, null on the last.
+     */
+    void sendPage(HttpExchange exchange, Page<? extends Task> page) throws IOException {
+        sendJson(exchange, OK, json -> {
+            json.beginObject().name("items");
+            writeTasks(json, page.getItems());
+            json.name("nextCursor").value(page.getNextCursor()).endObject();
+        });
+    }
+
+    void sendNoContent(HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(NO_CONTENT, -1);
+    }
+
+    void sendNotFound(HttpExchange exchange) throws IOException {
+        sendError(exchange, NOT_FOUND, "Not found: " + exchange.getRequestMethod() + " "
+                + exchange.getRequestURI().getPath());
+    }
+
+    void sendMethodNotAllowed(HttpExchange exchange) throws IOException {
+        sendError(exchange, METHOD_NOT_ALLOWED, "Method " + exchange.getRequestMethod() + " is not allowed for "
+                + exchange.getRequestURI().getPath());
+    }
+
+    void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        sendJson(exchange, status, json -> json.beginObject().name("error").value(message).endObject());
+    }
+
+    /**
+     * Task read from a request body, new when it came without an id and got one.
+     */
+    static final class Posted<T extends Task> {
+        final T task;
+        final boolean isNew;
+
+        Posted(T task, boolean isNew) {
+            this.task = task;
+            this.isNew = isNew;
+        }
+    }
+
+    /**
+     * Reads the request body as one task of the type, a task without an id gets a new one. The new id
+     * is drawn only once the body was read whole and the epic of a subtask was found, by reading the
+     * body again, so a rejected request does not use one up.
+     */
+    <T extends Task> Posted<T> readTask(HttpExchange exchange, Class<T> type) throws IOException {
+        byte[] body;
+        try (var in = exchange.getRequestBody()) {
+            body = in.readNBytes(MAX_BODY_BYTES + 1);
+        }
+        if (body.length > MAX_BODY_BYTES) {
+            throw new IllegalArgumentException("Request body is larger than " + MAX_BODY_BYTES + " bytes");
+        }
+        boolean[] isNew = {false};
+        Task task = readTask(body, () -> {
+            isNew[0] = true;
+            return 0;
+        });
+        if (task.getClass() != type) {
+            throw new IllegalArgumentException("Expected " + type.getSimpleName() + " but got "
+                    + TaskType.of(task));
+        }
+        if (task instanceof Subtask subtask && taskManager.findEpic(subtask.getEpicId()) == null) {
+            throw new EpicDoesntExistException("Epic does not exist");
+        }
+        if (isNew[0]) {
+            task = readTask(body, taskManager::getCounter);
+        }
+        return new Posted<>(type.cast(task), isNew[0]);
+    }
+
+    private static Task readTask(byte[] body, IntSupplier newId) {
+        JsonReader reader = new JsonReader(body);
+        Task task = TaskJson.read(reader, newId);
+        reader.endDocument();
+        return task;
+    }
+
+    static void writeTasks(JsonWriter json, Collection<? extends Task> tasks) {
+        json.beginArray();
+        for (Task task : tasks) {
+            TaskJson.write(json, task);
+        }
+        json.endArray();
+    }
+
+    static int parseId(String segment) {
+        try {
+            return Integer.parseInt(segment);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid id " + segment);
+        }
+    }
+
+    static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    static int intParameter(Map<String, String> parameters, String name, int defaultValue) {
+        String value = parameters.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + " " + value);
+        }
+    }
+}
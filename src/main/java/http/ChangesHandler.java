@@ -0,0 +1,84 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import model.ChangeSet;
+import model.TaskEvent;
+import persistence.JsonWriter;
+import persistence.TaskJson;
+import service.ChangeFeed;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GET /changes?since=&amp;limit=: the changes made after a revision, see {@link ChangeSet}. Without
+ * since it returns the current revision and no changes, the point to start a copy of the board from.
+ */
+class ChangesHandler extends BaseHttpHandler {
+
+    private static final int DEFAULT_LIMIT = 1000;
+
+    private final ChangeFeed changeFeed;
+
+    ChangesHandler(TaskManager taskManager, ChangeFeed changeFeed) {
+        super(taskManager);
+        this.changeFeed = changeFeed;
+    }
+
+    @Override
+    void handle(HttpExchange exchange, String method, String[] path) throws IOException {
+        if (!method.equals("GET")) {
+            sendMethodNotAllowed(exchange);
+            return;
+        }
+        if (path.length != 1) {
+            sendNotFound(exchange);
+            return;
+        }
+        Map<String, String> query = query(exchange);
+        ChangeSet changes = query.containsKey("since")
+                ? changeFeed.getChangesSince(longParameter(query.get("since")),
+                        intParameter(query, "limit", DEFAULT_LIMIT))
+                : new ChangeSet(List.of(), changeFeed.getRevision(), false);
+        sendJson(exchange, OK, json -> {
+            json.beginObject()
+                    .name("revision").value(changes.getRevision())
+                    .name("hasMore").value(changes.hasMore())
+                    .name("tooOld").value(changes.isTooOld())
+                    .name("changes").beginArray();
+            for (TaskEvent change : changes.getChanges()) {
+                writeChange(json, change);
+            }
+            json.endArray().endObject();
+        });
+    }
+
+    private static void writeChange(JsonWriter json, TaskEvent change) {
+        json.beginObject()
+                .name("revision").value(change.getRevision())
+                .name("kind").value(change.getKind().name())
+                .name("type").value(change.getType().name())
+                .name("id").value(change.getId());
+        if (change.getOldStatus() != null) {
+            json.name("oldStatus").value(change.getOldStatus().name());
+        }
+        if (change.getNewStatus() != null) {
+            json.name("newStatus").value(change.getNewStatus().name());
+        }
+        if (change.getTask() != null) {
+            json.name("task");
+            TaskJson.write(json, change.getTask());
+        }
+        json.endObject();
+    }
+
+    private static long longParameter(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid since " + value);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import model.Epic;
+import model.Page;
+import model.Subtask;
+import model.TaskStatus;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /epics, like {@link TasksHandler}, plus GET /epics/{id}/subtasks for the subtasks of an epic.
+ * Deleting an epic deletes its subtasks. Status and times of an epic come from its subtasks, the
+ * ones sent are ignored.
+ */
+class EpicsHandler extends BaseHttpHandler {
+
+    private static final int SUBTASK_PAGE_SIZE = 1024;
+
+    EpicsHandler(TaskManager taskManager) {
+        super(taskManager);
+    }
+
+    @Override
+    void handle(HttpExchange exchange, String method, String[] path) throws IOException {
+        switch (method) {
+            case "GET" -> {
+                if (path.length == 1) {
+                    Map<String, String> query = query(exchange);
+                    if (query.containsKey("limit")) {
+                        sendPage(exchange, taskManager.getEpicsPage(query.get("cursor"),
+                                intParameter(query, "limit", 0)));
+                    } else if (query.containsKey("status")) {
+                        sendTasks(exchange, taskManager.getEpicsByStatus(TaskStatus.valueOf(query.get("status"))));
+                    } else {
+                        sendTasks(exchange, taskManager.getAllEpics());
+                    }
+                } else if (path.length == 2) {
+                    sendTask(exchange, OK, taskManager.getEpicById(parseId(path[1])));
+                } else if (path.length == 3 && path[2].equals("subtasks")) {
+                    List<Subtask> subtasks = subtasksOf(parseId(path[1]));
+                    if (subtasks == null) {
+                        sendNotFound(exchange);
+                    } else {
+                        sendTasks(exchange, subtasks);
+                    }
+                } else {
+                    sendNotFound(exchange);
+                }
+            }
+            case "POST" -> {
+                if (path.length != 1) {
+                    sendNotFound(exchange);
+                    return;
+                }
+                Posted<Epic> posted = readTask(exchange, Epic.class);
+                Epic epic = posted.task;
+                if (posted.isNew) {
+                    taskManager.addEpic(epic);
+                } else if (taskManager.findEpic(epic.getId()) != null) {
+                    taskManager.updateEpic(epic);
+                } else {
+                    sendNotFound(exchange);
+                    return;
+                }
+                sendTask(exchange, posted.isNew ? CREATED : OK, taskManager.findEpic(epic.getId()));
+            }
+            case "DELETE" -> {
+                if (path.length == 1) {
+                    taskManager.clearEpics();
+                } else if (path.length == 2) {
+                    taskManager.deleteEpicById(parseId(path[1]));
+                } else {
+                    sendNotFound(exchange);
+                    return;
+                }
+                sendNoContent(exchange);
+            }
+            default -> sendMethodNotAllowed(exchange);
+        }
+    }
+
+    /**
+     * Subtasks of the epic page by page, so none are recorded as viewed, null when there is no epic.
+     */
+    private List<Subtask> subtasksOf(int epicId) {
+        List<Subtask> subtasks = new ArrayList<>();
+        String cursor = null;
+        do {
+            Page<Subtask> page = taskManager.getSubtasksPageByEpicId(epicId, cursor, SUBTASK_PAGE_SIZE);
+            if (page == null) {
+                return subtasks.isEmpty() ? null : subtasks;
+            }
+            subtasks.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return subtasks;
+    }
+}
@@ -0,0 +1,126 @@
+package http;
+
+import com.sun.net.httpserver.HttpServer;
+import service.ChangeFeed;
+import service.TaskManager;
+import utils.Managers;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON API over a task manager on the JDK HTTP server: /tasks, /subtasks, /epics, /history,
+ * /prioritized and, when the manager is a {@link ChangeFeed}, /changes.
+ * <p>
+ * Every request runs on its own thread, a virtual one when the runtime has them, so a request that
+ * waits on a lock of the manager holds no pooled thread and thousands of connections can be served
+ * at once. Requests call the manager concurrently, so it must be thread-safe, such as
+ * {@link service.ConcurrentTaskManager}.
+ */
+public class HttpTaskServer implements AutoCloseable {
+
+    public static final int PORT = 8080;
+
+    private static final int BACKLOG = 4096;
+
+    static {
+        // The JDK server writes the headers and the body of a response separately, so with Nagle's
+        // algorithm on, a keep-alive client waits out its delayed ACK, about 40 ms, on every request.
+        // It also keeps only 200 idle connections by default and closes the rest, which clients
+        // holding more connections than that find out when their next request fails. Both are read
+        // once, when the first server is created, and are left alone when set on the command line.
+        setDefault("sun.net.httpserver.nodelay", "true");
+        setDefault("sun.net.httpserver.maxIdleConnections", String.valueOf(BACKLOG));
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+
+    public HttpTaskServer(TaskManager taskManager, InetSocketAddress address) throws IOException {
+        server = HttpServer.create(address, BACKLOG);
+        server.createContext("/tasks", new TasksHandler(taskManager));
+        server.createContext("/subtasks", new SubtasksHandler(taskManager));
+        server.createContext("/epics", new EpicsHandler(taskManager));
+        server.createContext("/history", new HistoryHandler(taskManager));
+        server.createContext("/prioritized", new PrioritizedHandler(taskManager));
+        if (taskManager instanceof ChangeFeed changes) {
+            server.createContext("/changes", new ChangesHandler(taskManager, changes));
+        }
+        ExecutorService virtual = newVirtualThreadExecutor();
+        virtualThreads = virtual != null;
+        executor = virtualThreads ? virtual : Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "http-task-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+    }
+
+    public HttpTaskServer(TaskManager taskManager) throws IOException {
+        this(taskManager, new InetSocketAddress(PORT));
+    }
+
+    /**
+     * Executor starting a virtual thread per request, null before Java 21. The build targets Java 17,
+     * so the factory is looked up rather than called.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static void setDefault(String property, String value) {
+        if (System.getProperty(property) == null) {
+            System.setProperty(property, value);
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting connections and closes the open ones without waiting for their requests.
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    /**
+     * Port the server listens on, the one chosen by the system when it was created with port 0.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public static void main(String[] args) throws IOException {
+        HttpTaskServer server = new HttpTaskServer(Managers.getConcurrent());
+        server.start();
+        System.out.println("Task server listening on port " + server.getPort()
+                + (server.usesVirtualThreads() ? " on virtual threads" : ""));
+    }
+}
@@ -0,0 +1,27 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import service.TaskManager;
+
+import java.io.IOException;
+
+/**
+ * GET /prioritized: tasks and subtasks with a start time, earliest first.
+ */
+class PrioritizedHandler extends BaseHttpHandler {
+
+    PrioritizedHandler(TaskManager taskManager) {
+        super(taskManager);
+    }
+
+    @Override
+    void handle(HttpExchange exchange, String method, String[] path) throws IOException {
+        if (!method.equals("GET")) {
+            sendMethodNotAllowed(exchange);
+        } else if (path.length != 1) {
+            sendNotFound(exchange);
+        } else {
+            sendTasks(exchange, taskManager.getPrioritizedTasks());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import model.Subtask;
+import model.TaskStatus;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * /subtasks, like {@link TasksHandler}. A subtask is created under the epic it names, 404 when there
+ * is no such epic. An update naming another epic than the one the subtask belongs to is a 400.
+ */
+class SubtasksHandler extends BaseHttpHandler {
+
+    SubtasksHandler(TaskManager taskManager) {
+        super(taskManager);
+    }
+
+    @Override
+    void handle(HttpExchange exchange, String method, String[] path) throws IOException {
+        switch (method) {
+            case "GET" -> {
+                if (path.length == 1) {
+                    Map<String, String> query = query(exchange);
+                    if (query.containsKey("limit")) {
+                        sendPage(exchange, taskManager.getSubtasksPage(query.get("cursor"),
+                                intParameter(query, "limit", 0)));
+                    } else if (query.containsKey("status")) {
+                        sendTasks(exchange,
+                                taskManager.getSubtasksByStatus(TaskStatus.valueOf(query.get("status"))));
+                    } else {
+                        sendTasks(exchange, taskManager.getAllSubtasks());
+                    }
+                } else if (path.length == 2) {
+                    sendTask(exchange, OK, taskManager.getSubTaskById(parseId(path[1])));
+                } else {
+                    sendNotFound(exchange);
+                }
+            }
+            case "POST" -> {
+                if (path.length != 1) {
+                    sendNotFound(exchange);
+                    return;
+                }
+                Posted<Subtask> posted = readTask(exchange, Subtask.class);
+                Subtask subtask = posted.task;
+                if (posted.isNew) {
+                    taskManager.addSubTask(subtask);
+                } else if (taskManager.findSubtask(subtask.getId()) != null) {
+                    taskManager.updateSubTask(subtask);
+                } else {
+                    sendNotFound(exchange);
+                    return;
+                }
+                sendTask(exchange, posted.isNew ? CREATED : OK, subtask);
+            }
+            case "DELETE" -> {
+                if (path.length == 1) {
+                    taskManager.clearSubtasks();
+                } else if (path.length == 2) {
+                    taskManager.deleteSubTaskById(parseId(path[1]));
+                } else {
+                    sendNotFound(exchange);
+                    return;
+                }
+                sendNoContent(exchange);
+            }
+            default -> sendMethodNotAllowed(exchange);
+        }
+    }
+}
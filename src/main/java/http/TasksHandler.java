@@ -0,0 +1,74 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import model.Task;
+import model.TaskStatus;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * /tasks: GET lists all tasks, or those with ?status=, or a page with ?limit= and ?cursor=. GET
+ * /tasks/{id} returns one. POST creates a task sent without an id with 201 and updates the one with
+ * the id sent with 200, 404 when there is none. DELETE /tasks/{id} deletes one and DELETE /tasks all
+ * of them.
+ */
+class TasksHandler extends BaseHttpHandler {
+
+    TasksHandler(TaskManager taskManager) {
+        super(taskManager);
+    }
+
+    @Override
+    void handle(HttpExchange exchange, String method, String[] path) throws IOException {
+        switch (method) {
+            case "GET" -> {
+                if (path.length == 1) {
+                    Map<String, String> query = query(exchange);
+                    if (query.containsKey("limit")) {
+                        sendPage(exchange, taskManager.getTasksPage(query.get("cursor"),
+                                intParameter(query, "limit", 0)));
+                    } else if (query.containsKey("status")) {
+                        sendTasks(exchange, taskManager.getTasksByStatus(TaskStatus.valueOf(query.get("status"))));
+                    } else {
+                        sendTasks(exchange, taskManager.getAllTasks());
+                    }
+                } else if (path.length == 2) {
+                    sendTask(exchange, OK, taskManager.getTaskById(parseId(path[1])));
+                } else {
+                    sendNotFound(exchange);
+                }
+            }
+            case "POST" -> {
+                if (path.length != 1) {
+                    sendNotFound(exchange);
+                    return;
+                }
+                Posted<Task> posted = readTask(exchange, Task.class);
+                Task task = posted.task;
+                if (posted.isNew) {
+                    taskManager.addTask(task);
+                } else if (taskManager.findTask(task.getId()) != null) {
+                    taskManager.updateTask(task);
+                } else {
+                    sendNotFound(exchange);
+                    return;
+                }
+                sendTask(exchange, posted.isNew ? CREATED : OK, task);
+            }
+            case "DELETE" -> {
+                if (path.length == 1) {
+                    taskManager.clearTasks();
+                } else if (path.length == 2) {
+                    taskManager.deleteTaskById(parseId(path[1]));
+                } else {
+                    sendNotFound(exchange);
+                    return;
+                }
+                sendNoContent(exchange);
+            }
+            default -> sendMethodNotAllowed(exchange);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Changes made after a revision, oldest first, with the revision to ask from next.
+ * <p>
+ * Changes are deltas to apply in order: a created or updated change carries the object stored now,
+ * so applying them as upserts and deleted changes as removals brings a copy of the board up to
+ * date. When the changes after the revision asked for are no longer retained, the set is too old:
+ * it is empty and the copy has to be rebuilt from a full read of the board, continuing from
+ * {@link #getRevision()}, which is read before the board and so is never ahead of it.
+ */
+public class ChangeSet {
+
+    private final List<TaskEvent> changes;
+    private final long revision;
+    private final boolean hasMore;
+    private final boolean tooOld;
+
+    public ChangeSet(List<TaskEvent> changes, long revision, boolean hasMore) {
+        this(changes, revision, hasMore, false);
+    }
+
+    private ChangeSet(List<TaskEvent> changes, long revision, boolean hasMore, boolean tooOld) {
+        this.changes = changes;
+        this.revision = revision;
+        this.hasMore = hasMore;
+        this.tooOld = tooOld;
+    }
+
+    /**
+     * Set telling the caller to read the whole board again and continue from currentRevision.
+     */
+    public static ChangeSet tooOld(long currentRevision) {
+        return new ChangeSet(List.of(), currentRevision, false, true);
+    }
+
+    public List<TaskEvent> getChanges() {
+        return changes;
+    }
+
+    /**
+     * Revision of the last change in the set, or the one asked for when there are none, or the
+     * current revision when the set is too old.
+     */
+    public long getRevision() {
+        return revision;
+    }
+
+    /**
+     * Whether more changes were made after the last one returned, at the time of the call.
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    public boolean isTooOld() {
+        return tooOld;
+    }
+}
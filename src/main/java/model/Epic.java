@@ -1,34 +1,184 @@
 package model;
 
-import java.util.HashSet;
+import utils.CompactIntSet;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
 
 public class Epic extends Task {
-    private final HashSet<Integer> subtasks;
+    private final CompactIntSet subtasks;
+    private int newSubtasks;
+    private int inProgressSubtasks;
+    private int doneSubtasks;
+    private final TreeMap<LocalDateTime, Integer> subtaskStarts = new TreeMap<>();
+    private final TreeMap<LocalDateTime, Integer> subtaskEnds = new TreeMap<>();
+    private Duration subtasksDuration = Duration.ZERO;
+    private int timedSubtasks;
 
     public Epic(String name, String description, int id) {
         super(name, description, id);
-        subtasks = new HashSet<>();
+        subtasks = new CompactIntSet();
+    }
+
+    /**
+     * Snapshot of subtask ids in ascending order.
+     */
+    public int[] getSubtasks() {
+        return subtasks.toArray();
+    }
+
+    public IntStream getSubtaskIds() {
+        return subtasks.stream();
+    }
+
+    public boolean containsSubtask(int subtaskId) {
+        return subtasks.contains(subtaskId);
+    }
+
+    /**
+     * Smallest subtask id that is at least the given one, or -1 when there is none.
+     */
+    public int ceilingSubtaskId(int subtaskId) {
+        return subtasks.ceiling(subtaskId);
+    }
+
+    public int getSubtasksCount() {
+        return subtasks.size();
+    }
+
+    /**
+     * Takes name and description from the other epic, keeping subtasks, status and time. Returns this
+     * epic. Does nothing when given itself.
+     */
+    public Epic setBody(Epic other) {
+        if (other != this) {
+            copyBody(other);
+        }
+        return this;
+    }
+
+    /**
+     * Removes all subtasks and resets status counters at once.
+     */
+    public void clearSubtasks() {
+        subtasks.clear();
+        newSubtasks = 0;
+        inProgressSubtasks = 0;
+        doneSubtasks = 0;
+        subtaskStarts.clear();
+        subtaskEnds.clear();
+        subtasksDuration = Duration.ZERO;
+        timedSubtasks = 0;
+    }
+
+    public void addSubtaskById(int subtaskId, TaskStatus status) {
+        if (subtasks.add(subtaskId)) {
+            countSubtask(status, 1);
+        }
+    }
+
+    public void deleteSubtaskById(int subtaskId, TaskStatus status) {
+        if (subtasks.remove(subtaskId)) {
+            countSubtask(status, -1);
+        }
+    }
+
+    public void changeSubtaskStatus(TaskStatus oldStatus, TaskStatus newStatus) {
+        if (oldStatus == newStatus) {
+            return;
+        }
+        countSubtask(oldStatus, -1);
+        countSubtask(newStatus, 1);
     }
 
-    public HashSet<Integer> getSubtasks() {
-        return subtasks;
+    /**
+     * Counts the start and duration of a subtask into the epic time, in O(log n). Either may be null.
+     */
+    public void addSubtaskTime(LocalDateTime start, Duration duration) {
+        countSubtaskTime(start, duration, 1);
     }
 
-    public void addSubtaskById(Integer subtaskId) {
-        subtasks.add(subtaskId);
+    /**
+     * Takes back what {@link #addSubtaskTime} counted for the same start and duration.
+     */
+    public void removeSubtaskTime(LocalDateTime start, Duration duration) {
+        countSubtaskTime(start, duration, -1);
     }
 
-    public void deleteSubtaskById(Integer subtaskId) {
-        subtasks.remove(subtaskId);
+    /**
+     * Earliest start of the subtasks, null when none is scheduled.
+     */
+    @Override
+    public LocalDateTime getStartTime() {
+        return subtaskStarts.isEmpty() ? null : subtaskStarts.firstKey();
+    }
+
+    /**
+     * Latest end of the subtasks, null when none is scheduled.
+     */
+    @Override
+    public LocalDateTime getEndTime() {
+        return subtaskEnds.isEmpty() ? null : subtaskEnds.lastKey();
+    }
+
+    /**
+     * Sum of the subtask durations, null when no subtask has a start or a duration.
+     */
+    @Override
+    public Duration getDuration() {
+        return timedSubtasks == 0 ? null : subtasksDuration;
+    }
+
+    /**
+     * Ignored: the start of an epic is derived from its subtasks, as its status is.
+     */
+    @Override
+    public Epic setStartTime(LocalDateTime startTime) {
+        return this;
+    }
+
+    /**
+     * Ignored, the duration of an epic is derived from its subtasks.
+     */
+    @Override
+    public Epic setDuration(Duration duration) {
+        return this;
+    }
+
+    /**
+     * Derives epic status from per-status counters in constant time.
+     */
+    public void refreshStatus() {
+        setStatus(getStatusByCounters());
+    }
+
+    public TaskStatus getStatusByCounters() {
+        int total = newSubtasks + inProgressSubtasks + doneSubtasks;
+        if (total == newSubtasks) {
+            return TaskStatus.NEW;
+        } else if (total == doneSubtasks) {
+            return TaskStatus.DONE;
+        }
+        return TaskStatus.IN_PROGRESS;
     }
 
     public void calculateStatus(List<Subtask> subtasksByEpic) {
+        setStatus(recalculateStatus(subtasksByEpic.stream().map(Subtask::getStatus).toList()));
+    }
+
+    /**
+     * Full recompute over the given subtask statuses, does not change the epic.
+     */
+    public static TaskStatus recalculateStatus(Collection<TaskStatus> subtaskStatuses) {
         boolean isAllNew = true;
         boolean isAllDone = true;
 
-        for (Subtask subtask : subtasksByEpic) {
-            switch (subtask.getStatus()) {
+        for (TaskStatus status : subtaskStatuses) {
+            switch (status) {
                 case NEW -> isAllDone = false;
                 case DONE -> isAllNew = false;
                 default -> {
@@ -38,11 +188,36 @@ public class Epic extends Task {
             }
         }
         if (isAllNew) {
-            setStatus(TaskStatus.NEW);
+            return TaskStatus.NEW;
         } else if (isAllDone) {
-            setStatus(TaskStatus.DONE);
-        } else {
-            setStatus(TaskStatus.IN_PROGRESS);
+            return TaskStatus.DONE;
+        }
+        return TaskStatus.IN_PROGRESS;
+    }
+
+    private void countSubtask(TaskStatus status, int delta) {
+        switch (status) {
+            case NEW -> newSubtasks += delta;
+            case IN_PROGRESS -> inProgressSubtasks += delta;
+            case DONE -> doneSubtasks += delta;
+        }
+    }
+
+    private void countSubtaskTime(LocalDateTime start, Duration duration, int delta) {
+        if (start == null && duration == null) {
+            return;
+        }
+        timedSubtasks += delta;
+        if (duration != null) {
+            subtasksDuration = delta > 0 ? subtasksDuration.plus(duration) : subtasksDuration.minus(duration);
         }
+        if (start != null) {
+            count(subtaskStarts, start, delta);
+            count(subtaskEnds, duration == null ? start : start.plus(duration), delta);
+        }
+    }
+
+    private static void count(TreeMap<LocalDateTime, Integer> times, LocalDateTime time, int delta) {
+        times.merge(time, delta, (current, change) -> current + change == 0 ? null : current + change);
     }
 }
@@ -0,0 +1,117 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.PrimitiveIterator;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * One page of a listing ordered by id, with the cursor to pass back for the next page.
+ * <p>
+ * The cursor only says where the next page starts, so it stays valid whatever is added or deleted
+ * in between: items already returned are not repeated and items still ahead are not skipped.
+ */
+public class Page<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public Page(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Cursor of the next page, null when this page is the last one.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Cursor of the page that starts right after the given id.
+     */
+    public static String cursorAfter(int id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(
+                ByteBuffer.allocate(Integer.BYTES).putInt(id + 1).array());
+    }
+
+    /**
+     * Smallest id the page of the cursor may start with, 0 for a null cursor.
+     */
+    public static int startOf(String cursor) {
+        if (cursor == null) {
+            return 0;
+        }
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length == Integer.BYTES) {
+                int start = ByteBuffer.wrap(bytes).getInt();
+                if (start >= 0) {
+                    return start;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // Reported below like any other malformed cursor.
+        }
+        throw new IllegalArgumentException("Invalid page cursor " + cursor);
+    }
+
+    /**
+     * Collects the page of the cursor from an id ordered source: ceiling gives the smallest id at
+     * least the given one or -1, lookup the item of an id or null when it is gone meanwhile. Costs
+     * pageSize + 1 ceiling and lookup calls when nothing is gone.
+     */
+    public static <T> Page<T> collect(String cursor, int pageSize, IntUnaryOperator ceiling, IntFunction<T> lookup) {
+        checkPageSize(pageSize);
+        PrimitiveIterator.OfInt ids = IntStream.iterate(ceiling.applyAsInt(startOf(cursor)), id -> id >= 0,
+                id -> id == Integer.MAX_VALUE ? -1 : ceiling.applyAsInt(id + 1)).iterator();
+        return collect(ids, pageSize, lookup);
+    }
+
+    /**
+     * Same as above over a sorted set of ids, walked from the cursor without a lookup per id.
+     */
+    public static <T> Page<T> collect(String cursor, int pageSize, NavigableSet<Integer> ids,
+                                      IntFunction<T> lookup) {
+        checkPageSize(pageSize);
+        return collect(ids.tailSet(startOf(cursor)).stream().mapToInt(Integer::intValue).iterator(), pageSize,
+                lookup);
+    }
+
+    private static <T> Page<T> collect(PrimitiveIterator.OfInt ids, int pageSize, IntFunction<T> lookup) {
+        List<T> items = new ArrayList<>(Math.min(pageSize, 1024));
+        int lastId = -1;
+        while (ids.hasNext()) {
+            int id = ids.nextInt();
+            T item = lookup.apply(id);
+            if (item != null) {
+                if (items.size() == pageSize) {
+                    return new Page<>(items, cursorAfter(lastId));
+                }
+                items.add(item);
+                lastId = id;
+            }
+        }
+        return new Page<>(items, null);
+    }
+
+    private static void checkPageSize(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size should be positive");
+        }
+    }
+}
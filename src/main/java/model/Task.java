@@ -1,5 +1,7 @@
 package model;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Objects;
 
 public class Task {
@@ -7,6 +9,10 @@ public class Task {
     private String name;
     private String description;
     private TaskStatus status;
+    private TaskBodyStore bodyStore;
+    private long bodyReference;
+    private LocalDateTime startTime;
+    private Duration duration;
 
 
     public Task(String name, String description, int id) {
@@ -24,21 +30,62 @@ public class Task {
     }
 
     public String getName() {
-        return name;
+        return bodyStore == null ? name : bodyStore.load(bodyReference).getName();
     }
 
     public void setName(String name) {
+        attachBody();
         this.name = name;
     }
 
     public String getDescription() {
-        return description;
+        return bodyStore == null ? description : bodyStore.load(bodyReference).getDescription();
     }
 
     public void setDescription(String description) {
+        attachBody();
         this.description = description;
     }
 
+    /**
+     * Moves name and description to the store, later reads load them from it on demand.
+     */
+    public void detachBody(TaskBodyStore store) {
+        if (bodyStore == store) {
+            return;
+        }
+        String currentName = getName();
+        String currentDescription = getDescription();
+        bodyReference = store.store(currentName, currentDescription);
+        bodyStore = store;
+        name = null;
+        description = null;
+    }
+
+    public boolean isBodyDetached() {
+        return bodyStore != null;
+    }
+
+    /**
+     * Takes name and description of the other task, sharing its stored body when it has one.
+     */
+    protected void copyBody(Task other) {
+        name = other.name;
+        description = other.description;
+        bodyStore = other.bodyStore;
+        bodyReference = other.bodyReference;
+    }
+
+    // A changed body lives in memory again until the task is detached anew.
+    private void attachBody() {
+        if (bodyStore != null) {
+            TaskBody body = bodyStore.load(bodyReference);
+            name = body.getName();
+            description = body.getDescription();
+            bodyStore = null;
+        }
+    }
+
     public int getId() {
         return id;
     }
@@ -52,6 +99,46 @@ public class Task {
         return this;
     }
 
+    /**
+     * Start of the task, null when it is not scheduled.
+     */
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public Task setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+        return this;
+    }
+
+    /**
+     * Planned duration, null when it is not estimated.
+     */
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public Task setDuration(Duration duration) {
+        if (duration != null && duration.isNegative()) {
+            throw new IllegalArgumentException("Duration should not be negative");
+        }
+        this.duration = duration;
+        return this;
+    }
+
+    /**
+     * Start plus duration, null when the task is not scheduled. A task without a duration ends
+     * when it starts.
+     */
+    public LocalDateTime getEndTime() {
+        LocalDateTime start = getStartTime();
+        if (start == null) {
+            return null;
+        }
+        Duration planned = getDuration();
+        return planned == null ? start : start.plus(planned);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
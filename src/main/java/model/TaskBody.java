@@ -0,0 +1,22 @@
+package model;
+
+/**
+ * Name and description of a task, the part that can be kept out of memory.
+ */
+public final class TaskBody {
+    private final String name;
+    private final String description;
+
+    public TaskBody(String name, String description) {
+        this.name = name;
+        this.description = description;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
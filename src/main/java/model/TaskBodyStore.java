@@ -0,0 +1,14 @@
+package model;
+
+/**
+ * Storage tasks can move their bodies to, keeping only a reference in memory.
+ */
+public interface TaskBodyStore {
+
+    /**
+     * Saves the body and returns the reference it can be loaded by.
+     */
+    long store(String name, String description);
+
+    TaskBody load(long reference);
+}
@@ -0,0 +1,105 @@
+package model;
+
+/**
+ * A change made to the board: a task, epic or subtask created, updated or deleted, or the status
+ * of an epic changed by changes to its subtasks. Every change gets the next revision of the
+ * manager.
+ * <p>
+ * Created and updated events carry the object as it was stored, which may be changed later by the
+ * caller that owns it. Deleted events carry only the id and type.
+ */
+public class TaskEvent {
+
+    public enum Kind {
+        CREATED,
+        UPDATED,
+        DELETED,
+        EPIC_STATUS_CHANGED
+    }
+
+    private final long revision;
+    private final Kind kind;
+    private final TaskType type;
+    private final int id;
+    private final Task task;
+    private final TaskStatus oldStatus;
+    private final TaskStatus newStatus;
+
+    public TaskEvent(long revision, Kind kind, TaskType type, int id, Task task, TaskStatus oldStatus,
+                     TaskStatus newStatus) {
+        this.revision = revision;
+        this.kind = kind;
+        this.type = type;
+        this.id = id;
+        this.task = task;
+        this.oldStatus = oldStatus;
+        this.newStatus = newStatus;
+    }
+
+    public static TaskEvent created(long revision, Task task) {
+        return new TaskEvent(revision, Kind.CREATED, TaskType.of(task), task.getId(), task, null, task.getStatus());
+    }
+
+    public static TaskEvent updated(long revision, Task task) {
+        return new TaskEvent(revision, Kind.UPDATED, TaskType.of(task), task.getId(), task, null, task.getStatus());
+    }
+
+    public static TaskEvent deleted(long revision, TaskType type, int id) {
+        return new TaskEvent(revision, Kind.DELETED, type, id, null, null, null);
+    }
+
+    public static TaskEvent epicStatusChanged(long revision, Epic epic, TaskStatus oldStatus) {
+        return new TaskEvent(revision, Kind.EPIC_STATUS_CHANGED, TaskType.EPIC, epic.getId(), epic, oldStatus,
+                epic.getStatus());
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public TaskType getType() {
+        return type;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * The stored object, null for a deleted one. Changes read back from the changelog carry the
+     * object stored when they are read, null when it was deleted since.
+     */
+    public Task getTask() {
+        return task;
+    }
+
+    /**
+     * Status of the epic before the change, only set for {@link Kind#EPIC_STATUS_CHANGED}.
+     */
+    public TaskStatus getOldStatus() {
+        return oldStatus;
+    }
+
+    /**
+     * Status after the change, null for a deleted object.
+     */
+    public TaskStatus getNewStatus() {
+        return newStatus;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskEvent{" +
+                "revision=" + revision +
+                ", kind=" + kind +
+                ", type=" + type +
+                ", id=" + id +
+                (oldStatus != null ? ", oldStatus=" + oldStatus : "") +
+                (newStatus != null ? ", newStatus=" + newStatus : "") +
+                '}';
+    }
+}
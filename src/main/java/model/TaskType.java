@@ -0,0 +1,16 @@
+package model;
+
+public enum TaskType {
+    TASK,
+    EPIC,
+    SUBTASK;
+
+    public static TaskType of(Task task) {
+        if (task instanceof Epic) {
+            return EPIC;
+        } else if (task instanceof Subtask) {
+            return SUBTASK;
+        }
+        return TASK;
+    }
+}
@@ -0,0 +1,90 @@
+package persistence;
+
+import model.Task;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams a board into a {@link BoardFormat} file. Tasks are encoded one at a time straight from
+ * the manager storage into a buffer that is flushed to the file every megabyte, so memory use does
+ * not depend on the board size. Like {@link TaskSnapshot}, the file is written next to the target
+ * and moved over it when complete.
+ */
+public final class BoardExporter {
+
+    private static final int FLUSH_BYTES = 1 << 20;
+
+    private final FileChannel channel;
+    private final BoardFormat format;
+    private final ByteSink sink = new ByteSink(FLUSH_BYTES + (64 << 10));
+    private final JsonWriter json = new JsonWriter(sink);
+    private long records;
+
+    private BoardExporter(FileChannel channel, BoardFormat format) {
+        this.channel = channel;
+        this.format = format;
+    }
+
+    /**
+     * Writes the counter and every task, epic and subtask of the manager, returns the number of
+     * tasks written. The manager should not be changed meanwhile.
+     */
+    public static long write(TaskManager taskManager, Path file, BoardFormat format) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        long records;
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            BoardExporter exporter = new BoardExporter(channel, format);
+            exporter.writeHeader(taskManager.peekCounter());
+            try {
+                taskManager.forEachTask(exporter::writeTask);
+                taskManager.forEachEpic(exporter::writeTask);
+                taskManager.forEachSubtask(exporter::writeTask);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            exporter.sink.drainTo(channel);
+            records = exporter.records;
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return records;
+    }
+
+    private void writeHeader(int counter) {
+        if (format == BoardFormat.CSV) {
+            sink.putUtf8(TaskCsv.HEADER).put('\n');
+            sink.putDecimal(counter).putUtf8(",COUNTER,,,,,,").put('\n');
+        } else {
+            json.beginObject()
+                    .name("type").value("BOARD")
+                    .name("version").value(BoardImporter.VERSION)
+                    .name("counter").value(counter)
+                    .endObject();
+            sink.put('\n');
+        }
+    }
+
+    private void writeTask(Task task) {
+        if (format == BoardFormat.CSV) {
+            TaskCsv.write(sink, task);
+        } else {
+            TaskJson.write(json, task);
+        }
+        sink.put('\n');
+        records++;
+        if (sink.size() >= FLUSH_BYTES) {
+            try {
+                sink.drainTo(channel);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package persistence;
+
+/**
+ * Text formats boards are exported to and imported from.
+ * <p>
+ * {@link #CSV} starts with the {@link TaskCsv#HEADER} row followed by a COUNTER row whose id column
+ * holds the next id, then one row per task. {@link #NDJSON} starts with a
+ * {@code {"type":"BOARD","version":2,"counter":N}} line followed by one {@link TaskJson} object per
+ * line. Version 2 added task start times and durations, files of version 1 are still read.
+ */
+public enum BoardFormat {
+    CSV,
+    NDJSON
+}
@@ -0,0 +1,223 @@
+package persistence;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import service.TaskManager;
+import utils.IntIntHashMap;
+import utils.IntObjectHashMap;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams a {@link BoardFormat} file into a manager, keeping ids and the counter.
+ * <p>
+ * Records are parsed one at a time from a reused read buffer and handed to the manager in batches
+ * through its addAll methods. Records may come in any order: a subtask whose epic has not been read
+ * yet waits until the epic shows up, so only such forward references are held in memory. An epic
+ * may also be one the manager already has.
+ * <p>
+ * A malformed record or a subtask whose epic never appears stops the import with an IOException
+ * naming the line, an id the manager already has or a time overlapping one of its tasks fails its
+ * batch the way addAll does. Batches added before that stay in the manager.
+ */
+public final class BoardImporter {
+
+    static final int VERSION = 2;
+
+    // Version 1 boards were written before tasks had a time and read the same way.
+    static final int FIRST_VERSION = 1;
+
+    private static final int READ_BUFFER_BYTES = 1 << 20;
+    private static final int BATCH_SIZE = 4096;
+
+    private final TaskManager taskManager;
+    private final IntIntHashMap knownEpics = new IntIntHashMap();
+    private final IntObjectHashMap<List<Subtask>> waitingForEpic = new IntObjectHashMap<>();
+    private final List<Task> tasks = new ArrayList<>(BATCH_SIZE);
+    private final List<Epic> epics = new ArrayList<>(BATCH_SIZE);
+    private final List<Subtask> subtasks = new ArrayList<>(BATCH_SIZE);
+    private int maxId;
+    private long records;
+
+    private BoardImporter(TaskManager taskManager) {
+        this.taskManager = taskManager;
+    }
+
+    /**
+     * Adds everything in the file to the manager and returns the number of tasks read.
+     */
+    public static long read(Path file, BoardFormat format, TaskManager taskManager) throws IOException {
+        BoardImporter importer = new BoardImporter(taskManager);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            RecordReader reader = new RecordReader(channel, READ_BUFFER_BYTES, format == BoardFormat.CSV);
+            int counter = format == BoardFormat.CSV ? importer.readCsv(reader, file) : importer.readJson(reader, file);
+            importer.finish(file);
+            taskManager.restoreCounter(Math.max(counter, importer.maxId + 1));
+        }
+        return importer.records;
+    }
+
+    private int readCsv(RecordReader reader, Path file) throws IOException {
+        String[] fields = new String[TaskCsv.COLUMNS];
+        String header = reader.next() ? new String(reader.array(), reader.start(), reader.end() - reader.start(),
+                StandardCharsets.UTF_8) : null;
+        int columns;
+        if (TaskCsv.HEADER.equals(header)) {
+            columns = TaskCsv.COLUMNS;
+        } else if (TaskCsv.LEGACY_HEADER.equals(header)) {
+            columns = TaskCsv.LEGACY_COLUMNS;
+        } else {
+            throw new IOException(file + " does not start with the header " + TaskCsv.HEADER);
+        }
+        int counter = 0;
+        while (reader.next()) {
+            try {
+                int count = TaskCsv.split(reader.array(), reader.start(), reader.end(), fields);
+                if (count != columns) {
+                    throw new IllegalArgumentException("Row should have " + columns + " fields, found " + count);
+                }
+                if ("COUNTER".equals(fields[1])) {
+                    counter = Integer.parseInt(fields[0]);
+                } else {
+                    add(TaskCsv.read(fields));
+                }
+            } catch (IllegalArgumentException e) {
+                throw malformed(file, reader, e);
+            }
+        }
+        return counter;
+    }
+
+    private int readJson(RecordReader reader, Path file) throws IOException {
+        int counter = 0;
+        boolean header = true;
+        JsonReader in = new JsonReader(reader.array(), 0, 0);
+        while (reader.next()) {
+            try {
+                in.reset(reader.array(), reader.start(), reader.end());
+                if (header) {
+                    counter = readJsonHeader(in);
+                    header = false;
+                } else {
+                    add(TaskJson.read(in));
+                }
+                in.endDocument();
+            } catch (IllegalArgumentException e) {
+                throw malformed(file, reader, e);
+            }
+        }
+        if (header) {
+            throw new IOException(file + " has no board header");
+        }
+        return counter;
+    }
+
+    private static int readJsonHeader(JsonReader in) {
+        int counter = 0;
+        boolean board = false;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "type" -> board = "BOARD".equals(in.nextString());
+                case "version" -> {
+                    int version = in.nextInt();
+                    if (version < FIRST_VERSION || version > VERSION) {
+                        throw new IllegalArgumentException("Unsupported board version " + version);
+                    }
+                }
+                case "counter" -> counter = in.nextInt();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        if (!board) {
+            throw new IllegalArgumentException("First line should be the board header");
+        }
+        return counter;
+    }
+
+    private void add(Task task) {
+        records++;
+        maxId = Math.max(maxId, task.getId());
+        if (task instanceof Epic epic) {
+            epics.add(epic);
+            knownEpics.put(epic.getId(), 0);
+            List<Subtask> waiting = waitingForEpic.remove(epic.getId());
+            if (waiting != null) {
+                waiting.forEach(this::addSubtask);
+            }
+            if (epics.size() >= BATCH_SIZE) {
+                flushEpics();
+            }
+        } else if (task instanceof Subtask subtask) {
+            if (isKnownEpic(subtask.getEpicId())) {
+                addSubtask(subtask);
+            } else {
+                List<Subtask> waiting = waitingForEpic.get(subtask.getEpicId());
+                if (waiting == null) {
+                    waiting = new ArrayList<>();
+                    waitingForEpic.put(subtask.getEpicId(), waiting);
+                }
+                waiting.add(subtask);
+            }
+        } else {
+            tasks.add(task);
+            if (tasks.size() >= BATCH_SIZE) {
+                taskManager.addAllTasks(tasks);
+                tasks.clear();
+            }
+        }
+    }
+
+    private boolean isKnownEpic(int epicId) {
+        if (knownEpics.containsKey(epicId)) {
+            return true;
+        }
+        if (taskManager.getSubtaskIdsByEpicId(epicId) != null) {
+            knownEpics.put(epicId, 0);
+            return true;
+        }
+        return false;
+    }
+
+    private void addSubtask(Subtask subtask) {
+        subtasks.add(subtask);
+        if (subtasks.size() >= BATCH_SIZE) {
+            flushEpics();
+            taskManager.addAllSubtasks(subtasks);
+            subtasks.clear();
+        }
+    }
+
+    private void flushEpics() {
+        if (!epics.isEmpty()) {
+            taskManager.addAllEpics(epics);
+            epics.clear();
+        }
+    }
+
+    private void finish(Path file) throws IOException {
+        if (!waitingForEpic.isEmpty()) {
+            Subtask orphan = waitingForEpic.values().iterator().next().get(0);
+            throw new IOException("Subtask " + orphan.getId() + " in " + file + " refers to missing epic "
+                    + orphan.getEpicId());
+        }
+        taskManager.addAllTasks(tasks);
+        flushEpics();
+        taskManager.addAllSubtasks(subtasks);
+        tasks.clear();
+        subtasks.clear();
+    }
+
+    private static IOException malformed(Path file, RecordReader reader, RuntimeException cause) {
+        return new IOException("Malformed record at " + file + ":" + reader.line() + ": " + cause.getMessage(),
+                cause);
+    }
+}
@@ -0,0 +1,127 @@
+package persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Growable byte array that text is encoded into as UTF-8 directly, without intermediate strings or
+ * byte arrays, and then drained into a channel in large writes.
+ */
+public final class ByteSink {
+
+    private byte[] bytes;
+    private int size;
+
+    public ByteSink(int initialCapacity) {
+        bytes = new byte[Math.max(initialCapacity, 16)];
+    }
+
+    public ByteSink() {
+        this(256);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public ByteSink reset() {
+        size = 0;
+        return this;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    /**
+     * Writes out everything collected so far and empties the sink.
+     */
+    public void drainTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, size);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        size = 0;
+    }
+
+    public ByteSink put(byte value) {
+        ensureCapacity(1);
+        bytes[size++] = value;
+        return this;
+    }
+
+    public ByteSink put(char asciiChar) {
+        return put((byte) asciiChar);
+    }
+
+    /**
+     * Writes the value in decimal.
+     */
+    public ByteSink putDecimal(long value) {
+        if (value == Long.MIN_VALUE) {
+            return putUtf8("-9223372036854775808");
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            bytes[size++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = size + digits - 1; i >= size; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        size += digits;
+        return this;
+    }
+
+    public ByteSink putUtf8(String text) {
+        return putUtf8(text, 0, text.length());
+    }
+
+    /**
+     * Encodes chars from start inclusive to end exclusive. A surrogate pair split by the range, or
+     * an unpaired surrogate, is written as '?'.
+     */
+    public ByteSink putUtf8(String text, int start, int end) {
+        // Room for the rest as ASCII is kept, a wider char makes room for itself and the rest.
+        ensureCapacity(end - start);
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes[size++] = (byte) c;
+            } else {
+                ensureCapacity(4 + end - i);
+                if (c < 0x800) {
+                    bytes[size++] = (byte) (0xC0 | c >> 6);
+                    bytes[size++] = (byte) (0x80 | c & 0x3F);
+                } else if (!Character.isSurrogate(c)) {
+                    bytes[size++] = (byte) (0xE0 | c >> 12);
+                    bytes[size++] = (byte) (0x80 | c >> 6 & 0x3F);
+                    bytes[size++] = (byte) (0x80 | c & 0x3F);
+                } else if (Character.isHighSurrogate(c) && i + 1 < end
+                        && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    bytes[size++] = (byte) (0xF0 | codePoint >> 18);
+                    bytes[size++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                    bytes[size++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                    bytes[size++] = (byte) (0x80 | codePoint & 0x3F);
+                } else {
+                    bytes[size++] = '?';
+                }
+            }
+        }
+        return this;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (bytes.length - size < extra) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, size + extra));
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package persistence;
+
+import exception.ManagerSaveException;
+import model.TaskBody;
+import model.TaskBodyStore;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Task bodies in an append-only file, the reference is the offset of the body in it. The most
+ * recently used bodies stay hydrated in a bounded LRU cache, so resident heap follows the hot set
+ * rather than the size of all names and descriptions.
+ * <p>
+ * The file is scratch space that lets bodies spill off the heap, not persistence: it is truncated on
+ * open and nothing is read back from it across restarts, tasks are restored from the manager's own
+ * file. A changed body is appended anew and the old bytes are not reclaimed, as tasks replaced in
+ * the manager may still be held by the history or callers and read their old body. The file only
+ * grows for the life of the store, close it and open a new one to start over.
+ */
+public class FileTaskBodyStore implements TaskBodyStore, AutoCloseable {
+
+    public static final int DEFAULT_CACHE_SIZE = 10_000;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final Map<Long, TaskBody> cache;
+    private final RecordBuffer record = new RecordBuffer();
+    private final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+    private long size;
+    private long loads;
+    private long misses;
+
+    public FileTaskBodyStore(Path file, int cacheSize) throws IOException {
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("Cache size should be positive");
+        }
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, TaskBody> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public FileTaskBodyStore(Path file) throws IOException {
+        this(file, DEFAULT_CACHE_SIZE);
+    }
+
+    @Override
+    public synchronized long store(String name, String description) {
+        ByteBuffer buffer = record.clear().putString(name).putString(description).buffer();
+        buffer.putInt(0, buffer.position() - RecordBuffer.HEADER_BYTES).flip();
+        long reference = size;
+        try {
+            while (buffer.hasRemaining()) {
+                size += channel.write(buffer, size);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Could not write task body to " + file, e);
+        }
+        cache.put(reference, new TaskBody(name, description));
+        return reference;
+    }
+
+    @Override
+    public synchronized TaskBody load(long reference) {
+        loads++;
+        TaskBody body = cache.get(reference);
+        if (body == null) {
+            misses++;
+            body = read(reference);
+            cache.put(reference, body);
+        }
+        return body;
+    }
+
+    /**
+     * Share of loads that had to read the file.
+     */
+    public synchronized double getMissRate() {
+        return loads == 0 ? 0 : (double) misses / loads;
+    }
+
+    public synchronized long getFileSize() {
+        return size;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        cache.clear();
+        channel.close();
+    }
+
+    private TaskBody read(long reference) {
+        try {
+            header.clear();
+            readFully(header, reference);
+            ByteBuffer payload = ByteBuffer.allocate(header.getInt(0));
+            readFully(payload, reference + Integer.BYTES);
+            payload.flip();
+            String name = RecordBuffer.getString(payload);
+            return new TaskBody(name, RecordBuffer.getString(payload));
+        } catch (IOException e) {
+            throw new ManagerSaveException("Could not read task body from " + file, e);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Task body at " + position + " is cut short");
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package persistence;
+
+import java.time.Duration;
+
+/**
+ * When appended log records are forced to the storage device.
+ * <ul>
+ *     <li>per operation: every append returns only after fsync, nothing acknowledged is lost;</li>
+ *     <li>group commit: a background thread forces all records appended during the interval at once,
+ *     a crash loses at most the last interval;</li>
+ *     <li>OS managed: records are handed to the page cache and flushed whenever the OS decides, they
+ *     survive a process crash but not a power loss.</li>
+ * </ul>
+ */
+public final class FsyncPolicy {
+
+    public enum Mode {
+        PER_OPERATION,
+        GROUP_COMMIT,
+        OS_MANAGED
+    }
+
+    private static final FsyncPolicy PER_OPERATION = new FsyncPolicy(Mode.PER_OPERATION, Duration.ZERO);
+    private static final FsyncPolicy OS_MANAGED = new FsyncPolicy(Mode.OS_MANAGED, Duration.ZERO);
+
+    private final Mode mode;
+    private final Duration interval;
+
+    private FsyncPolicy(Mode mode, Duration interval) {
+        this.mode = mode;
+        this.interval = interval;
+    }
+
+    public static FsyncPolicy perOperation() {
+        return PER_OPERATION;
+    }
+
+    public static FsyncPolicy groupCommit(Duration interval) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Group commit interval should be positive");
+        }
+        return new FsyncPolicy(Mode.GROUP_COMMIT, interval);
+    }
+
+    public static FsyncPolicy osManaged() {
+        return OS_MANAGED;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    @Override
+    public String toString() {
+        return mode == Mode.GROUP_COMMIT ? mode + "(" + interval.toMillis() + "ms)" : mode.toString();
+    }
+}
@@ -0,0 +1,338 @@
+package persistence;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Pull parser over UTF-8 JSON in a byte array range. Malformed input fails with
+ * IllegalArgumentException naming the offset.
+ */
+public final class JsonReader {
+
+    private static final int NAME_CACHE_SIZE = 64;
+
+    private byte[] bytes;
+    private int end;
+    private int position;
+    // Member names repeat from record to record, decoded ones are reused by content.
+    private final String[] cachedNames = new String[NAME_CACHE_SIZE];
+    private final byte[][] cachedNameBytes = new byte[NAME_CACHE_SIZE][];
+    // Set after a value or a container start, cleared when the separating comma is consumed.
+    private boolean expectComma;
+
+    public JsonReader(byte[] bytes, int start, int end) {
+        reset(bytes, start, end);
+    }
+
+    public JsonReader(byte[] bytes) {
+        this(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Starts over on another range, so one reader with its name cache can parse many documents.
+     */
+    public JsonReader reset(byte[] bytes, int start, int end) {
+        this.bytes = bytes;
+        this.position = start;
+        this.end = end;
+        this.expectComma = false;
+        return this;
+    }
+
+    public void beginObject() {
+        beforeValue();
+        expect('{');
+        expectComma = false;
+    }
+
+    public void endObject() {
+        expect('}');
+        expectComma = true;
+    }
+
+    public void beginArray() {
+        beforeValue();
+        expect('[');
+        expectComma = false;
+    }
+
+    public void endArray() {
+        expect(']');
+        expectComma = true;
+    }
+
+    /**
+     * Whether the current object or array has another member or element.
+     */
+    public boolean hasNext() {
+        byte next = peek();
+        return next != '}' && next != ']';
+    }
+
+    public String nextName() {
+        beforeValue();
+        String name = readName();
+        expect(':');
+        expectComma = false;
+        return name;
+    }
+
+    public boolean peekNull() {
+        int next = skipSpace(position);
+        if (expectComma && next < end && bytes[next] == ',') {
+            next = skipSpace(next + 1);
+        }
+        return next < end && bytes[next] == 'n';
+    }
+
+    /**
+     * String value, null for a JSON null.
+     */
+    public String nextString() {
+        beforeValue();
+        if (peek() == 'n') {
+            expectLiteral("null");
+            expectComma = true;
+            return null;
+        }
+        String value = readString();
+        expectComma = true;
+        return value;
+    }
+
+    public long nextLong() {
+        beforeValue();
+        skipSpace();
+        int start = position;
+        boolean negative = position < end && bytes[position] == '-';
+        if (negative) {
+            position++;
+        }
+        long value = 0;
+        int digitsStart = position;
+        while (position < end && bytes[position] >= '0' && bytes[position] <= '9') {
+            int digit = bytes[position++] - '0';
+            if (value > (Long.MAX_VALUE - digit) / 10) {
+                throw error(start, "number out of range");
+            }
+            value = value * 10 + digit;
+        }
+        if (position == digitsStart) {
+            throw error(start, "expected a number");
+        }
+        expectComma = true;
+        return negative ? -value : value;
+    }
+
+    public int nextInt() {
+        int start = position;
+        long value = nextLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw error(start, "number out of int range");
+        }
+        return (int) value;
+    }
+
+    public boolean nextBoolean() {
+        beforeValue();
+        boolean value = peek() == 't';
+        expectLiteral(value ? "true" : "false");
+        expectComma = true;
+        return value;
+    }
+
+    /**
+     * Skips the next value whatever its type, nested containers included.
+     */
+    public void skipValue() {
+        beforeValue();
+        switch (peek()) {
+            case '{' -> {
+                expect('{');
+                expectComma = false;
+                while (hasNext()) {
+                    nextName();
+                    skipValue();
+                }
+                endObject();
+            }
+            case '[' -> {
+                expect('[');
+                expectComma = false;
+                while (hasNext()) {
+                    skipValue();
+                }
+                endArray();
+            }
+            case '"' -> {
+                readString();
+                expectComma = true;
+            }
+            case 'n' -> {
+                expectLiteral("null");
+                expectComma = true;
+            }
+            case 't', 'f' -> {
+                expectLiteral(peek() == 't' ? "true" : "false");
+                expectComma = true;
+            }
+            default -> {
+                expectComma = false;
+                nextLong();
+                if (position < end && (bytes[position] == '.' || bytes[position] == 'e'
+                        || bytes[position] == 'E')) {
+                    while (position < end && "+-.eE0123456789".indexOf(bytes[position]) >= 0) {
+                        position++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Fails unless only whitespace is left.
+     */
+    public void endDocument() {
+        skipSpace();
+        if (position != end) {
+            throw error(position, "unexpected trailing data");
+        }
+    }
+
+    private void beforeValue() {
+        if (expectComma) {
+            expect(',');
+            expectComma = false;
+        }
+    }
+
+    private String readName() {
+        skipSpace();
+        int start = position + 1;
+        int hash = 0;
+        int i = start;
+        while (i < end && bytes[i] != '"' && bytes[i] != '\\') {
+            hash = 31 * hash + bytes[i++];
+        }
+        if (position >= end || bytes[position] != '"' || i >= end || bytes[i] != '"') {
+            return readString();
+        }
+        int slot = (hash ^ hash >>> 16) & (NAME_CACHE_SIZE - 1);
+        byte[] cached = cachedNameBytes[slot];
+        if (cached != null && Arrays.equals(cached, 0, cached.length, bytes, start, i)) {
+            position = i + 1;
+            return cachedNames[slot];
+        }
+        String name = readString();
+        cachedNameBytes[slot] = Arrays.copyOfRange(bytes, start, i);
+        cachedNames[slot] = name;
+        return name;
+    }
+
+    private String readString() {
+        expect('"');
+        int start = position;
+        while (position < end && bytes[position] != '"' && bytes[position] != '\\') {
+            position++;
+        }
+        if (position < end && bytes[position] == '"') {
+            return new String(bytes, start, position++ - start, StandardCharsets.UTF_8);
+        }
+        StringBuilder builder = new StringBuilder(new String(bytes, start, position - start, StandardCharsets.UTF_8));
+        while (true) {
+            if (position >= end) {
+                throw error(start, "unterminated string");
+            }
+            byte b = bytes[position];
+            if (b == '"') {
+                position++;
+                return builder.toString();
+            }
+            if (b != '\\') {
+                int runStart = position;
+                while (position < end && bytes[position] != '"' && bytes[position] != '\\') {
+                    position++;
+                }
+                builder.append(new String(bytes, runStart, position - runStart, StandardCharsets.UTF_8));
+                continue;
+            }
+            if (position + 1 >= end) {
+                throw error(position, "unterminated escape");
+            }
+            byte escaped = bytes[position + 1];
+            position += 2;
+            switch (escaped) {
+                case '"' -> builder.append('"');
+                case '\\' -> builder.append('\\');
+                case '/' -> builder.append('/');
+                case 'b' -> builder.append('\b');
+                case 'f' -> builder.append('\f');
+                case 'n' -> builder.append('\n');
+                case 'r' -> builder.append('\r');
+                case 't' -> builder.append('\t');
+                case 'u' -> builder.append(readHexChar());
+                default -> throw error(position - 2, "invalid escape");
+            }
+        }
+    }
+
+    private char readHexChar() {
+        if (position + 4 > end) {
+            throw error(position, "short unicode escape");
+        }
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(bytes[position++], 16);
+            if (digit < 0) {
+                throw error(position - 1, "invalid unicode escape");
+            }
+            value = value << 4 | digit;
+        }
+        return (char) value;
+    }
+
+    private void expectLiteral(String literal) {
+        skipSpace();
+        if (position + literal.length() > end) {
+            throw error(position, "expected " + literal);
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            if (bytes[position + i] != literal.charAt(i)) {
+                throw error(position, "expected " + literal);
+            }
+        }
+        position += literal.length();
+    }
+
+    private void expect(char c) {
+        skipSpace();
+        if (position >= end || bytes[position] != c) {
+            throw error(position, "expected '" + c + "'");
+        }
+        position++;
+    }
+
+    private byte peek() {
+        skipSpace();
+        if (position >= end) {
+            throw error(position, "unexpected end of input");
+        }
+        return bytes[position];
+    }
+
+    private void skipSpace() {
+        position = skipSpace(position);
+    }
+
+    private int skipSpace(int from) {
+        while (from < end && (bytes[from] == ' ' || bytes[from] == '\t' || bytes[from] == '\n'
+                || bytes[from] == '\r')) {
+            from++;
+        }
+        return from;
+    }
+
+    private IllegalArgumentException error(int offset, String message) {
+        return new IllegalArgumentException("Malformed JSON at offset " + offset + ": " + message);
+    }
+}
@@ -0,0 +1,132 @@
+package persistence;
+
+/**
+ * Streaming JSON writer into a {@link ByteSink}. Commas between members and elements are put in by
+ * the writer, nesting is limited to 64 levels.
+ */
+public final class JsonWriter {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private final ByteSink sink;
+    // Bit per nesting level, set while the container at that level is still empty.
+    private long emptyContainers;
+    private int depth;
+    private boolean afterName;
+
+    public JsonWriter(ByteSink sink) {
+        this.sink = sink;
+    }
+
+    public ByteSink getSink() {
+        return sink;
+    }
+
+    public JsonWriter beginObject() {
+        return open('{');
+    }
+
+    public JsonWriter endObject() {
+        return close('}');
+    }
+
+    public JsonWriter beginArray() {
+        return open('[');
+    }
+
+    public JsonWriter endArray() {
+        return close(']');
+    }
+
+    public JsonWriter name(String name) {
+        beforeValue();
+        putString(name);
+        sink.put(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        putString(value);
+        return this;
+    }
+
+    public JsonWriter value(long value) {
+        beforeValue();
+        sink.putDecimal(value);
+        return this;
+    }
+
+    public JsonWriter value(boolean value) {
+        beforeValue();
+        sink.putUtf8(value ? "true" : "false");
+        return this;
+    }
+
+    public JsonWriter nullValue() {
+        beforeValue();
+        sink.putUtf8("null");
+        return this;
+    }
+
+    private JsonWriter open(char bracket) {
+        if (depth == Long.SIZE) {
+            throw new IllegalStateException("JSON is nested too deep");
+        }
+        beforeValue();
+        sink.put(bracket);
+        emptyContainers |= 1L << depth++;
+        return this;
+    }
+
+    private JsonWriter close(char bracket) {
+        if (depth == 0) {
+            throw new IllegalStateException("No open JSON container to close");
+        }
+        depth--;
+        sink.put(bracket);
+        return this;
+    }
+
+    private void beforeValue() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            long bit = 1L << (depth - 1);
+            if ((emptyContainers & bit) == 0) {
+                sink.put(',');
+            }
+            emptyContainers &= ~bit;
+        }
+    }
+
+    private void putString(String value) {
+        sink.put('"');
+        int runStart = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            sink.putUtf8(value, runStart, i);
+            runStart = i + 1;
+            switch (c) {
+                case '"' -> sink.put('\\').put('"');
+                case '\\' -> sink.put('\\').put('\\');
+                case '\n' -> sink.put('\\').put('n');
+                case '\r' -> sink.put('\\').put('r');
+                case '\t' -> sink.put('\\').put('t');
+                default -> sink.put('\\').put('u').put('0').put('0')
+                        .put(HEX[c >> 4]).put(HEX[c & 0xF]);
+            }
+        }
+        sink.putUtf8(value, runStart, value.length());
+        sink.put('"');
+    }
+}
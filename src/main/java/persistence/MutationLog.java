@@ -0,0 +1,26 @@
+package persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Durable sequence of mutation records: replayed once on startup, appended to afterwards.
+ */
+public interface MutationLog extends AutoCloseable {
+
+    /**
+     * Passes every stored record to the handler in append order, returns the number of records.
+     */
+    long replay(Consumer<ByteBuffer> handler) throws IOException;
+
+    void append(RecordBuffer record) throws IOException;
+
+    /**
+     * Bytes appended to the part of the log currently written to.
+     */
+    long size();
+
+    @Override
+    void close() throws IOException;
+}
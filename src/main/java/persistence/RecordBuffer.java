@@ -0,0 +1,120 @@
+package persistence;
+
+import model.TaskStatus;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Reusable growable buffer a log record is encoded into. The first four bytes are reserved for the
+ * record length, {@link WriteAheadLog#append} fills them in together with the checksum.
+ */
+public class RecordBuffer {
+
+    static final int HEADER_BYTES = Integer.BYTES;
+
+    // Set in the status byte of a task or subtask, in log records and snapshots alike, when its start
+    // or duration follows the description.
+    public static final int HAS_START = 0x40;
+    public static final int HAS_DURATION = 0x20;
+    public static final int STATUS_MASK = 0x1F;
+
+    private ByteBuffer buffer = ByteBuffer.allocate(256);
+
+    public RecordBuffer() {
+        clear();
+    }
+
+    public RecordBuffer clear() {
+        buffer.clear().position(HEADER_BYTES);
+        return this;
+    }
+
+    public RecordBuffer putByte(int value) {
+        ensureRemaining(1);
+        buffer.put((byte) value);
+        return this;
+    }
+
+    public RecordBuffer putInt(int value) {
+        ensureRemaining(Integer.BYTES);
+        buffer.putInt(value);
+        return this;
+    }
+
+    public RecordBuffer putLong(long value) {
+        ensureRemaining(Long.BYTES);
+        buffer.putLong(value);
+        return this;
+    }
+
+    /**
+     * UTF-8 bytes prefixed by their count, -1 for null.
+     */
+    public RecordBuffer putString(String value) {
+        if (value == null) {
+            return putInt(-1);
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        ensureRemaining(bytes.length);
+        buffer.put(bytes);
+        return this;
+    }
+
+    /**
+     * Seconds since the epoch with the time read as UTC, then nanoseconds.
+     */
+    public RecordBuffer putDateTime(LocalDateTime value) {
+        return putLong(value.toEpochSecond(ZoneOffset.UTC)).putInt(value.getNano());
+    }
+
+    public RecordBuffer putDuration(Duration value) {
+        return putLong(value.getSeconds()).putInt(value.getNano());
+    }
+
+    /**
+     * Status byte of a task with the flags of the times written after its description.
+     */
+    public static int statusFlags(TaskStatus status, LocalDateTime start, Duration duration) {
+        return status.ordinal() | (start != null ? HAS_START : 0) | (duration != null ? HAS_DURATION : 0);
+    }
+
+    public static LocalDateTime getDateTime(ByteBuffer source) {
+        long seconds = source.getLong();
+        return LocalDateTime.ofEpochSecond(seconds, source.getInt(), ZoneOffset.UTC);
+    }
+
+    public static Duration getDuration(ByteBuffer source) {
+        long seconds = source.getLong();
+        return Duration.ofSeconds(seconds, source.getInt());
+    }
+
+    public static String getString(ByteBuffer source) {
+        int length = source.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(source.array(), source.arrayOffset() + source.position(), length,
+                StandardCharsets.UTF_8);
+        source.position(source.position() + length);
+        return value;
+    }
+
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    void ensureRemaining(int bytes) {
+        if (buffer.remaining() < bytes) {
+            int newCapacity = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+            ByteBuffer grown = ByteBuffer.allocate(newCapacity);
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+    }
+}
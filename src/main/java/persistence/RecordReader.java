@@ -0,0 +1,125 @@
+package persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Splits a channel into line-terminated records read through one reusable buffer. With quoted
+ * set, line breaks inside double quotes belong to the record, as in CSV. A trailing carriage
+ * return is dropped, so CRLF files read the same. The buffer grows only for a record larger than
+ * itself.
+ */
+final class RecordReader {
+
+    private final ReadableByteChannel channel;
+    private final boolean quoted;
+    private ByteBuffer buffer;
+    private int start;
+    private int end;
+    private long line;
+    private long consumedLines;
+    private boolean endOfInput;
+
+    RecordReader(ReadableByteChannel channel, int bufferBytes, boolean quoted) {
+        this.channel = channel;
+        this.quoted = quoted;
+        this.buffer = ByteBuffer.allocate(bufferBytes);
+        buffer.flip();
+    }
+
+    /**
+     * Moves to the next record, false at the end of input. Blank lines are skipped.
+     */
+    boolean next() throws IOException {
+        while (true) {
+            if (!findRecord()) {
+                return false;
+            }
+            if (end > start) {
+                return true;
+            }
+        }
+    }
+
+    byte[] array() {
+        return buffer.array();
+    }
+
+    int start() {
+        return start;
+    }
+
+    int end() {
+        return end;
+    }
+
+    /**
+     * Line number where the current record starts, from 1.
+     */
+    long line() {
+        return line;
+    }
+
+    private boolean findRecord() throws IOException {
+        byte[] bytes = buffer.array();
+        int scanFrom = buffer.position();
+        boolean inQuotes = false;
+        long lineBreaks = 0;
+        while (true) {
+            int limit = buffer.limit();
+            for (int i = scanFrom; i < limit; i++) {
+                byte b = bytes[i];
+                if (b == '"' && quoted) {
+                    inQuotes = !inQuotes;
+                } else if (b == '\n') {
+                    if (!inQuotes) {
+                        start = buffer.position();
+                        end = i > start && bytes[i - 1] == '\r' ? i - 1 : i;
+                        buffer.position(i + 1);
+                        line = consumedLines + 1;
+                        consumedLines += lineBreaks + 1;
+                        return true;
+                    }
+                    lineBreaks++;
+                }
+            }
+            scanFrom = limit - buffer.position();
+            if (endOfInput) {
+                if (buffer.hasRemaining()) {
+                    start = buffer.position();
+                    end = limit > start && bytes[limit - 1] == '\r' ? limit - 1 : limit;
+                    buffer.position(limit);
+                    line = consumedLines + 1;
+                    consumedLines += lineBreaks + 1;
+                    return true;
+                }
+                return false;
+            }
+            fill();
+            bytes = buffer.array();
+        }
+    }
+
+    // Moves the unread part to the front, growing the buffer when it is full, and reads more.
+    private void fill() throws IOException {
+        if (buffer.position() == 0 && buffer.limit() == buffer.capacity()) {
+            ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() << 1);
+            larger.put(buffer);
+            buffer = larger;
+        } else {
+            buffer.compact();
+        }
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer);
+            if (read < 0) {
+                endOfInput = true;
+                break;
+            }
+            if (read == 0) {
+                break;
+            }
+        }
+        buffer.flip();
+    }
+}
@@ -0,0 +1,163 @@
+package persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Mutation log split into numbered segment files in one directory. Records go to the newest
+ * segment; {@link #roll} starts the next one, so the earlier segments can be folded into a snapshot
+ * and deleted while writers keep appending.
+ */
+public class SegmentedLog implements MutationLog {
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final FsyncPolicy policy;
+    private final long replayAfter;
+    private final List<WriteAheadLog> retired = new ArrayList<>();
+    private WriteAheadLog active;
+    private long activeSequence;
+
+    /**
+     * Log whose segments up to and including replayAfter are already covered by a snapshot and are
+     * skipped on replay.
+     */
+    public SegmentedLog(Path directory, FsyncPolicy policy, long replayAfter) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.policy = policy;
+        this.replayAfter = replayAfter;
+    }
+
+    @Override
+    public synchronized long replay(Consumer<ByteBuffer> handler) throws IOException {
+        long records = 0;
+        List<Long> sequences = sequences(directory);
+        for (int i = 0; i < sequences.size(); i++) {
+            long sequence = sequences.get(i);
+            if (sequence <= replayAfter) {
+                continue;
+            }
+            WriteAheadLog segment = new WriteAheadLog(segmentPath(directory, sequence), policy);
+            records += segment.replay(handler);
+            if (i == sequences.size() - 1) {
+                active = segment;
+                activeSequence = sequence;
+            } else {
+                segment.close();
+            }
+        }
+        if (active == null) {
+            long last = sequences.isEmpty() ? 0 : sequences.get(sequences.size() - 1);
+            openSegment(Math.max(last, replayAfter) + 1);
+        }
+        return records;
+    }
+
+    @Override
+    public synchronized void append(RecordBuffer record) throws IOException {
+        active.append(record);
+    }
+
+    @Override
+    public synchronized long size() {
+        return active.size();
+    }
+
+    /**
+     * Starts a new segment and returns the sequence of the previous one. The previous segment is only
+     * forced and closed by {@link #closeRetired}, so rolling does not wait for the disk.
+     */
+    public synchronized long roll() throws IOException {
+        long closed = activeSequence;
+        retired.add(active);
+        openSegment(closed + 1);
+        return closed;
+    }
+
+    /**
+     * Forces and closes the segments replaced by {@link #roll}.
+     */
+    public void closeRetired() throws IOException {
+        List<WriteAheadLog> segments;
+        synchronized (this) {
+            segments = new ArrayList<>(retired);
+            retired.clear();
+        }
+        for (WriteAheadLog segment : segments) {
+            segment.close();
+        }
+    }
+
+    /**
+     * Closed segments after the first sequence up to and including the last one, oldest first.
+     */
+    public List<Path> segments(long after, long upTo) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        for (long sequence : sequences(directory)) {
+            if (sequence > after && sequence <= upTo) {
+                segments.add(segmentPath(directory, sequence));
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Deletes the segments up to and including the sequence, returns the number of bytes freed.
+     */
+    public long deleteSegments(long upTo) throws IOException {
+        long freed = 0;
+        for (long sequence : sequences(directory)) {
+            if (sequence <= upTo) {
+                Path segment = segmentPath(directory, sequence);
+                freed += Files.size(segment);
+                Files.delete(segment);
+            }
+        }
+        return freed;
+    }
+
+    public FsyncPolicy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeRetired();
+        if (active != null) {
+            active.close();
+        }
+    }
+
+    static Path segmentPath(Path directory, long sequence) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, sequence, SUFFIX));
+    }
+
+    private void openSegment(long sequence) throws IOException {
+        WriteAheadLog segment = new WriteAheadLog(segmentPath(directory, sequence), policy);
+        segment.replay(payload -> {
+            throw new IllegalStateException("Segment " + sequence + " should be new");
+        });
+        active = segment;
+        activeSequence = sequence;
+    }
+
+    private static List<Long> sequences(Path directory) throws IOException {
+        List<Long> sequences = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                sequences.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+            }
+        }
+        sequences.sort(null);
+        return sequences;
+    }
+}
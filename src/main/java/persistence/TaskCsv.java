@@ -0,0 +1,156 @@
+package persistence;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import model.TaskType;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * CSV form of tasks, one row per task under the header {@value #HEADER}.
+ * <p>
+ * Fields holding commas, quotes or line breaks are quoted the RFC 4180 way. An empty string is
+ * written as {@code ""} so that it reads back differently from a missing value, which is an empty
+ * field. Start time and duration are ISO-8601, as in {@code 2024-05-01T09:30} and {@code PT1H30M}.
+ * Epic status and time are written for readers but ignored when read back. Files from before tasks
+ * had a time, under the header {@value #LEGACY_HEADER}, are still read.
+ */
+public final class TaskCsv {
+
+    public static final String HEADER = "id,type,name,status,description,epic,startTime,duration";
+
+    static final String LEGACY_HEADER = "id,type,name,status,description,epic";
+
+    static final int COLUMNS = 8;
+
+    static final int LEGACY_COLUMNS = 6;
+
+    private TaskCsv() {
+    }
+
+    public static void write(ByteSink out, Task task) {
+        out.putDecimal(task.getId()).put(',')
+                .putUtf8(TaskType.of(task).name()).put(',');
+        putField(out, task.getName());
+        out.put(',').putUtf8(task.getStatus().name()).put(',');
+        putField(out, task.getDescription());
+        out.put(',');
+        if (task instanceof Subtask subtask) {
+            out.putDecimal(subtask.getEpicId());
+        }
+        out.put(',');
+        if (task.getStartTime() != null) {
+            out.putUtf8(task.getStartTime().toString());
+        }
+        out.put(',');
+        if (task.getDuration() != null) {
+            out.putUtf8(task.getDuration().toString());
+        }
+    }
+
+    /**
+     * Parses the fields of one row, without its line break, into the array. Missing values become
+     * null. Returns the number of fields found.
+     */
+    static int split(byte[] bytes, int start, int end, String[] fields) {
+        int count = 0;
+        int position = start;
+        while (true) {
+            if (count == fields.length) {
+                throw new IllegalArgumentException("Row has more than " + fields.length + " fields");
+            }
+            if (position < end && bytes[position] == '"') {
+                StringBuilder value = new StringBuilder();
+                int runStart = ++position;
+                while (true) {
+                    if (position >= end) {
+                        throw new IllegalArgumentException("Quoted field is not closed");
+                    }
+                    if (bytes[position] == '"') {
+                        value.append(new String(bytes, runStart, position - runStart, StandardCharsets.UTF_8));
+                        if (position + 1 < end && bytes[position + 1] == '"') {
+                            value.append('"');
+                            position += 2;
+                            runStart = position;
+                            continue;
+                        }
+                        position++;
+                        break;
+                    }
+                    position++;
+                }
+                fields[count++] = value.toString();
+                if (position < end && bytes[position] != ',') {
+                    throw new IllegalArgumentException("Unexpected data after quoted field");
+                }
+            } else {
+                int fieldStart = position;
+                while (position < end && bytes[position] != ',') {
+                    position++;
+                }
+                fields[count++] = position == fieldStart
+                        ? null : new String(bytes, fieldStart, position - fieldStart, StandardCharsets.UTF_8);
+            }
+            if (position >= end) {
+                return count;
+            }
+            position++;
+        }
+    }
+
+    /**
+     * Builds the task of a row split by {@link #split}. Time columns missing from a legacy row should
+     * be null.
+     */
+    static Task read(String[] fields) {
+        int id = Integer.parseInt(require(fields[0], "id"));
+        TaskStatus status = TaskStatus.valueOf(require(fields[3], "status"));
+        Task task = switch (TaskType.valueOf(require(fields[1], "type"))) {
+            case TASK -> new Task(fields[2], fields[4], id, status);
+            case EPIC -> new Epic(fields[2], fields[4], id);
+            case SUBTASK -> new Subtask(fields[2], fields[4], id,
+                    Integer.parseInt(require(fields[5], "epic")), status);
+        };
+        try {
+            task.setStartTime(fields[6] == null ? null : LocalDateTime.parse(fields[6]));
+            task.setDuration(fields[7] == null ? null : Duration.parse(fields[7]));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        return task;
+    }
+
+    private static String require(String value, String column) {
+        if (value == null) {
+            throw new IllegalArgumentException("Column " + column + " should not be empty");
+        }
+        return value;
+    }
+
+    private static void putField(ByteSink out, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = value.isEmpty();
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.putUtf8(value);
+            return;
+        }
+        out.put('"');
+        int runStart = 0;
+        for (int i = value.indexOf('"'); i >= 0; i = value.indexOf('"', i + 1)) {
+            out.putUtf8(value, runStart, i + 1).put('"');
+            runStart = i + 1;
+        }
+        out.putUtf8(value, runStart, value.length()).put('"');
+    }
+}
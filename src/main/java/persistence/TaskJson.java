@@ -0,0 +1,119 @@
+package persistence;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import model.TaskType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.function.IntSupplier;
+
+/**
+ * JSON form of tasks, epics and subtasks: an object with type, id, name, description and status,
+ * plus epic for a subtask and startTime and duration as ISO-8601 strings when they are set. Epic
+ * status and time are written for readers but ignored when read back, they are always derived from
+ * the subtasks.
+ */
+public final class TaskJson {
+
+    private TaskJson() {
+    }
+
+    public static void write(JsonWriter out, Task task) {
+        TaskType type = TaskType.of(task);
+        out.beginObject()
+                .name("type").value(type.name())
+                .name("id").value(task.getId())
+                .name("name").value(task.getName())
+                .name("description").value(task.getDescription())
+                .name("status").value(task.getStatus().name());
+        if (task instanceof Subtask subtask) {
+            out.name("epic").value(subtask.getEpicId());
+        }
+        if (task.getStartTime() != null) {
+            out.name("startTime").value(task.getStartTime().toString());
+        }
+        if (task.getDuration() != null) {
+            out.name("duration").value(task.getDuration().toString());
+        }
+        out.endObject();
+    }
+
+    /**
+     * Reads one task object, unknown members are skipped. Fails with IllegalArgumentException when
+     * a required member is missing or invalid.
+     */
+    public static Task read(JsonReader in) {
+        return read(in, null);
+    }
+
+    /**
+     * Same as above, a task without an id takes one from newId, or fails when newId is null.
+     */
+    public static Task read(JsonReader in, IntSupplier newId) {
+        TaskType type = null;
+        Integer id = null;
+        Integer epicId = null;
+        String name = null;
+        String description = null;
+        TaskStatus status = TaskStatus.NEW;
+        String startTime = null;
+        String duration = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "type" -> type = TaskType.valueOf(requireValue(in.nextString(), "type"));
+                case "id" -> id = in.nextInt();
+                case "epic" -> epicId = in.peekNull() ? skipNull(in) : Integer.valueOf(in.nextInt());
+                case "name" -> name = in.nextString();
+                case "description" -> description = in.nextString();
+                case "status" -> status = TaskStatus.valueOf(requireValue(in.nextString(), "status"));
+                case "startTime" -> startTime = in.nextString();
+                case "duration" -> duration = in.nextString();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        if (id == null) {
+            if (newId == null) {
+                throw new IllegalArgumentException("Task id is missing");
+            }
+            id = newId.getAsInt();
+        }
+        if (type == null) {
+            type = epicId != null ? TaskType.SUBTASK : TaskType.TASK;
+        }
+        Task task = switch (type) {
+            case TASK -> new Task(name, description, id, status);
+            case EPIC -> new Epic(name, description, id);
+            case SUBTASK -> {
+                if (epicId == null) {
+                    throw new IllegalArgumentException("Subtask " + id + " has no epic");
+                }
+                yield new Subtask(name, description, id, epicId, status);
+            }
+        };
+        try {
+            task.setStartTime(startTime == null ? null : LocalDateTime.parse(startTime));
+            task.setDuration(duration == null ? null : Duration.parse(duration));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        return task;
+    }
+
+    private static Integer skipNull(JsonReader in) {
+        in.skipValue();
+        return null;
+    }
+
+    private static String requireValue(String value, String member) {
+        if (value == null) {
+            throw new IllegalArgumentException("Task " + member + " should not be null");
+        }
+        return value;
+    }
+}
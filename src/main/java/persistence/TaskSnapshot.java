@@ -0,0 +1,392 @@
+package persistence;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import model.TaskType;
+import service.TaskManager;
+import utils.IntIntHashMap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned binary image of a whole board.
+ * <p>
+ * Layout, big-endian: magic, format version, counter, then the tasks, the epics with the number of
+ * subtasks each one holds, the subtasks with their epic id, the history as type ordinal and id pairs
+ * from the oldest view, and a CRC32 of everything before it. Strings are UTF-8 prefixed by their byte count,
+ * -1 for null. Since version 2 the status byte of a task or subtask also flags a start time and a
+ * duration written after its description, as seconds and nanoseconds with the start read as UTC.
+ * Version 1 snapshots are still read.
+ * <p>
+ * Snapshots are written sequentially into a temporary file that replaces the target atomically, so
+ * a crash leaves either the old snapshot or the new one. They are read through memory-mapped windows
+ * of the file, which avoids copying it through the heap and lets the OS read ahead. The checksum is
+ * verified in a first pass over the file and the whole board is read and checked before it is added
+ * to the manager in one batch per type, so a corrupt snapshot is rejected before anything is added.
+ */
+public final class TaskSnapshot {
+
+    static final int MAGIC = 0x4B42534E;
+    static final short VERSION = 2;
+    static final short FIRST_VERSION = 1;
+
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+    private static final long MAP_WINDOW_BYTES = 256L << 20;
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final TaskType[] TYPES = TaskType.values();
+
+    private TaskSnapshot() {
+    }
+
+    /**
+     * Writes the board of the manager into the file. The manager should not be changed meanwhile.
+     */
+    public static void write(TaskManager taskManager, Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Output out = new Output(FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))) {
+            out.putInt(MAGIC);
+            out.putShort(VERSION);
+            out.putInt(taskManager.peekCounter());
+
+            List<Task> tasks = taskManager.getAllTasks();
+            out.putInt(tasks.size());
+            for (Task task : tasks) {
+                putTask(out, task);
+            }
+            List<Epic> epics = taskManager.getAllEpics();
+            out.putInt(epics.size());
+            for (Epic epic : epics) {
+                out.putInt(epic.getId());
+                out.putString(epic.getName());
+                out.putString(epic.getDescription());
+                out.putInt(epic.getSubtasksCount());
+            }
+            List<Subtask> subtasks = taskManager.getAllSubtasks();
+            out.putInt(subtasks.size());
+            for (Subtask subtask : subtasks) {
+                putTask(out, subtask);
+                out.putInt(subtask.getEpicId());
+            }
+            List<Task> history = taskManager.getHistory();
+            out.putInt(history.size());
+            for (Task task : history) {
+                out.putByte(TaskType.of(task).ordinal());
+                out.putInt(task.getId());
+            }
+            out.finish();
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads the snapshot into an empty manager: entities are added, the counter restored and the
+     * history rebuilt by viewing the saved ids in order. Fails without touching the manager when the
+     * snapshot is corrupt, and takes back what was added when the manager rejects a batch.
+     */
+    public static void load(Path file, TaskManager taskManager) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedInput in = new MappedInput(channel);
+            if (in.getInt() != MAGIC) {
+                throw new IOException(file + " is not a task snapshot");
+            }
+            short version = in.getShort();
+            if (version < FIRST_VERSION || version > VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + " in " + file);
+            }
+            verifyChecksum(channel, file);
+            int counter = in.getInt();
+
+            int tasksCount = in.getInt();
+            List<Task> tasks = new ArrayList<>(tasksCount);
+            for (int i = 0; i < tasksCount; i++) {
+                int id = in.getInt();
+                byte flags = in.getByte();
+                Task task = new Task(in.getString(), in.getString(), id, STATUSES[flags & RecordBuffer.STATUS_MASK]);
+                tasks.add(getTime(in, flags, task));
+            }
+            int epicsCount = in.getInt();
+            List<Epic> epics = new ArrayList<>(epicsCount);
+            IntIntHashMap epicIndexes = new IntIntHashMap(epicsCount);
+            int[] expectedSubtasks = new int[epicsCount];
+            int[] foundSubtasks = new int[epicsCount];
+            for (int i = 0; i < epicsCount; i++) {
+                int id = in.getInt();
+                epics.add(new Epic(in.getString(), in.getString(), id));
+                epicIndexes.put(id, i);
+                expectedSubtasks[i] = in.getInt();
+            }
+            int subtasksCount = in.getInt();
+            List<Subtask> subtasks = new ArrayList<>(subtasksCount);
+            for (int i = 0; i < subtasksCount; i++) {
+                int id = in.getInt();
+                byte flags = in.getByte();
+                String name = in.getString();
+                String description = in.getString();
+                Subtask subtask = new Subtask(name, description, id, 0, STATUSES[flags & RecordBuffer.STATUS_MASK]);
+                getTime(in, flags, subtask);
+                subtask.setEpicId(in.getInt());
+                int epicIndex = epicIndexes.get(subtask.getEpicId());
+                if (epicIndex == IntIntHashMap.NO_VALUE) {
+                    throw new IOException("Subtask " + id + " in " + file + " belongs to missing epic "
+                            + subtask.getEpicId());
+                }
+                foundSubtasks[epicIndex]++;
+                subtasks.add(subtask);
+            }
+            for (int i = 0; i < epicsCount; i++) {
+                if (foundSubtasks[i] != expectedSubtasks[i]) {
+                    throw new IOException("Epic " + epics.get(i).getId() + " in " + file + " should have "
+                            + expectedSubtasks[i] + " subtasks, found " + foundSubtasks[i]);
+                }
+            }
+            int historySize = in.getInt();
+            TaskType[] historyTypes = new TaskType[historySize];
+            int[] historyIds = new int[historySize];
+            for (int i = 0; i < historySize; i++) {
+                byte type = in.getByte();
+                if (type < 0 || type >= TYPES.length) {
+                    throw new IOException("Snapshot " + file + " is corrupt");
+                }
+                historyTypes[i] = TYPES[type];
+                historyIds[i] = in.getInt();
+            }
+            in.verifyEnd(file);
+
+            try {
+                taskManager.addAllTasks(tasks);
+                taskManager.addAllEpics(epics);
+                taskManager.addAllSubtasks(subtasks);
+            } catch (RuntimeException e) {
+                taskManager.clearEpics();
+                taskManager.clearTasks();
+                throw new IOException("Snapshot " + file + " was rejected by the manager", e);
+            }
+            for (int i = 0; i < historySize; i++) {
+                switch (historyTypes[i]) {
+                    case EPIC -> taskManager.getEpicById(historyIds[i]);
+                    case SUBTASK -> taskManager.getSubTaskById(historyIds[i]);
+                    default -> taskManager.getTaskById(historyIds[i]);
+                }
+            }
+            taskManager.restoreCounter(counter);
+        }
+    }
+
+    private static void verifyChecksum(FileChannel channel, Path file) throws IOException {
+        long dataSize = channel.size() - Integer.BYTES;
+        if (dataSize < 0) {
+            throw new IOException("Snapshot " + file + " is corrupt");
+        }
+        CRC32 checksum = new CRC32();
+        for (long position = 0; position < dataSize; position += MAP_WINDOW_BYTES) {
+            checksum.update(channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(MAP_WINDOW_BYTES, dataSize - position)));
+        }
+        int stored = channel.map(FileChannel.MapMode.READ_ONLY, dataSize, Integer.BYTES).getInt();
+        if (stored != (int) checksum.getValue()) {
+            throw new IOException("Snapshot " + file + " is corrupt");
+        }
+    }
+
+    private static void putTask(Output out, Task task) throws IOException {
+        LocalDateTime start = task.getStartTime();
+        Duration duration = task.getDuration();
+        out.putInt(task.getId());
+        out.putByte(RecordBuffer.statusFlags(task.getStatus(), start, duration));
+        out.putString(task.getName());
+        out.putString(task.getDescription());
+        if (start != null) {
+            out.putLong(start.toEpochSecond(ZoneOffset.UTC));
+            out.putInt(start.getNano());
+        }
+        if (duration != null) {
+            out.putLong(duration.getSeconds());
+            out.putInt(duration.getNano());
+        }
+    }
+
+    private static <T extends Task> T getTime(MappedInput in, byte flags, T task) throws IOException {
+        if ((flags & RecordBuffer.HAS_START) != 0) {
+            long seconds = in.getLong();
+            task.setStartTime(LocalDateTime.ofEpochSecond(seconds, in.getInt(), ZoneOffset.UTC));
+        }
+        if ((flags & RecordBuffer.HAS_DURATION) != 0) {
+            long seconds = in.getLong();
+            task.setDuration(Duration.ofSeconds(seconds, in.getInt()));
+        }
+        return task;
+    }
+
+    private static final class Output implements AutoCloseable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+        private final CRC32 checksum = new CRC32();
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putByte(int value) throws IOException {
+            ensureRemaining(1);
+            buffer.put((byte) value);
+        }
+
+        void putShort(short value) throws IOException {
+            ensureRemaining(Short.BYTES);
+            buffer.putShort(value);
+        }
+
+        void putInt(int value) throws IOException {
+            ensureRemaining(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensureRemaining(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void putString(String value) throws IOException {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            if (bytes.length <= buffer.capacity()) {
+                ensureRemaining(bytes.length);
+                buffer.put(bytes);
+            } else {
+                flush();
+                checksum.update(bytes);
+                writeFully(ByteBuffer.wrap(bytes));
+            }
+        }
+
+        void finish() throws IOException {
+            flush();
+            buffer.putInt((int) checksum.getValue()).flip();
+            writeFully(buffer);
+            channel.force(true);
+        }
+
+        private void ensureRemaining(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            checksum.update(buffer.duplicate());
+            writeFully(buffer);
+            buffer.clear();
+        }
+
+        private void writeFully(ByteBuffer source) throws IOException {
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Reads the file through a sliding mapped window, remapped whenever a value would cross its end.
+     */
+    private static final class MappedInput {
+
+        private final FileChannel channel;
+        private final long fileSize;
+        private MappedByteBuffer window;
+        private long windowStart;
+        private byte[] stringBytes = new byte[64];
+
+        MappedInput(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.fileSize = channel.size();
+            map(0, 0);
+        }
+
+        byte getByte() throws IOException {
+            ensureAvailable(1);
+            return window.get();
+        }
+
+        short getShort() throws IOException {
+            ensureAvailable(Short.BYTES);
+            return window.getShort();
+        }
+
+        int getInt() throws IOException {
+            ensureAvailable(Integer.BYTES);
+            return window.getInt();
+        }
+
+        long getLong() throws IOException {
+            ensureAvailable(Long.BYTES);
+            return window.getLong();
+        }
+
+        String getString() throws IOException {
+            int length = getInt();
+            if (length < 0) {
+                return null;
+            }
+            ensureAvailable(length);
+            if (stringBytes.length < length) {
+                stringBytes = new byte[Math.max(length, stringBytes.length * 2)];
+            }
+            window.get(stringBytes, 0, length);
+            return new String(stringBytes, 0, length, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Checks that the board ended right before the checksum, verified before reading.
+         */
+        void verifyEnd(Path file) throws IOException {
+            if (windowStart + window.position() != fileSize - Integer.BYTES) {
+                throw new IOException("Snapshot " + file + " is corrupt");
+            }
+        }
+
+        private void ensureAvailable(int bytes) throws IOException {
+            if (window.remaining() >= bytes) {
+                return;
+            }
+            long position = windowStart + window.position();
+            if (position + bytes > fileSize) {
+                throw new IOException("Snapshot ends unexpectedly at " + position);
+            }
+            map(position, bytes);
+        }
+
+        private void map(long position, int minimumBytes) throws IOException {
+            long size = Math.min(Math.max(MAP_WINDOW_BYTES, minimumBytes), fileSize - position);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            windowStart = position;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package persistence;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of opaque binary records.
+ * <p>
+ * A record is its length, the payload and a CRC32 of the payload. On {@link #replay} records are read
+ * up to the first one that is cut short or fails the checksum, which is what a crash in the middle of
+ * an append leaves behind, and the file is truncated there so new records continue a valid log.
+ * How often appended records are forced to disk is decided by the {@link FsyncPolicy}.
+ */
+public class WriteAheadLog implements MutationLog {
+
+    static final int MAX_RECORD_BYTES = 64 << 20;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final FsyncPolicy policy;
+    private final CRC32 checksum = new CRC32();
+    private final ScheduledExecutorService flusher;
+    private volatile boolean dirty;
+    private volatile IOException flushFailure;
+    private boolean replayed;
+    private long size;
+
+    public WriteAheadLog(Path file, FsyncPolicy policy) throws IOException {
+        this.file = file;
+        this.policy = policy;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if (policy.getMode() == FsyncPolicy.Mode.GROUP_COMMIT) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "wal-group-commit-" + file.getFileName());
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = policy.getInterval().toNanos();
+            flusher.scheduleAtFixedRate(this::flushIfDirty, interval, interval, TimeUnit.NANOSECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * Passes the payload of every valid record to the handler in append order and truncates a torn
+     * tail. Has to be called once before the first append. Returns the number of records replayed.
+     */
+    @Override
+    public synchronized long replay(Consumer<ByteBuffer> handler) throws IOException {
+        long records = 0;
+        long validEnd = 0;
+        channel.position(0);
+        InputStream input = new BufferedInputStream(Channels.newInputStream(channel), 1 << 16);
+        DataInputStream in = new DataInputStream(input);
+        byte[] payload = new byte[256];
+        while (true) {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException e) {
+                break;
+            }
+            if (length < 0 || length > MAX_RECORD_BYTES) {
+                break;
+            }
+            if (payload.length < length) {
+                payload = new byte[Math.max(length, payload.length * 2)];
+            }
+            int storedChecksum;
+            try {
+                in.readFully(payload, 0, length);
+                storedChecksum = in.readInt();
+            } catch (EOFException e) {
+                break;
+            }
+            checksum.reset();
+            checksum.update(payload, 0, length);
+            if ((int) checksum.getValue() != storedChecksum) {
+                break;
+            }
+            handler.accept(ByteBuffer.wrap(payload, 0, length));
+            validEnd += RecordBuffer.HEADER_BYTES + length + Integer.BYTES;
+            records++;
+        }
+        if (channel.size() > validEnd) {
+            channel.truncate(validEnd);
+            channel.force(true);
+        }
+        channel.position(validEnd);
+        size = validEnd;
+        replayed = true;
+        return records;
+    }
+
+    /**
+     * Appends the record encoded into the buffer and, for the per operation policy, forces it to disk
+     * before returning.
+     */
+    @Override
+    public synchronized void append(RecordBuffer record) throws IOException {
+        if (!replayed) {
+            throw new IllegalStateException("Log " + file + " should be replayed before appending");
+        }
+        if (flushFailure != null) {
+            throw new IOException("Group commit of " + file + " failed", flushFailure);
+        }
+        record.ensureRemaining(Integer.BYTES);
+        ByteBuffer buffer = record.buffer();
+        int length = buffer.position() - RecordBuffer.HEADER_BYTES;
+        checksum.reset();
+        checksum.update(buffer.array(), RecordBuffer.HEADER_BYTES, length);
+        buffer.putInt((int) checksum.getValue());
+        buffer.putInt(0, length);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            size += channel.write(buffer);
+        }
+        switch (policy.getMode()) {
+            case PER_OPERATION -> channel.force(false);
+            case GROUP_COMMIT -> dirty = true;
+            case OS_MANAGED -> {
+            }
+        }
+    }
+
+    @Override
+    public synchronized long size() {
+        return size;
+    }
+
+    public FsyncPolicy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        if (channel.isOpen()) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+
+    private void flushIfDirty() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            flushFailure = e;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package service;
+
+import model.Task;
+import utils.IntIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * History on parallel arrays instead of linked Node objects.
+ * <p>
+ * Every entry lives in a slot: the task in {@code tasks[slot]} and its neighbours in
+ * {@code prev[slot]} and {@code next[slot]}. Task id is mapped to the slot by a primitive
+ * open addressing table. Freed slots are chained through {@code next} and reused, so adding and
+ * removing views does not allocate once the arrays have grown to the working size.
+ */
+public class ArrayHistoryManager implements HistoryManager {
+
+    private static final int NO_SLOT = -1;
+    private static final int INITIAL_SLOTS = 16;
+
+    private final IntIntHashMap slotsById = new IntIntHashMap();
+    private final int capacity;
+    private Task[] tasks = new Task[INITIAL_SLOTS];
+    private int[] prev = new int[INITIAL_SLOTS];
+    private int[] next = new int[INITIAL_SLOTS];
+    private int head = NO_SLOT;
+    private int tail = NO_SLOT;
+    private int freeSlots = NO_SLOT;
+    private int usedSlots;
+
+    public ArrayHistoryManager() {
+        this.capacity = Integer.MAX_VALUE;
+    }
+
+    /**
+     * History that keeps at most capacity entries, the least recently viewed one is evicted first.
+     */
+    public ArrayHistoryManager(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("History capacity should be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        int slot = slotsById.get(task.getId());
+        if (slot != IntIntHashMap.NO_VALUE) {
+            unlink(slot);
+        } else {
+            if (slotsById.size() == capacity) {
+                remove(tasks[head].getId());
+            }
+            slot = allocateSlot();
+            slotsById.put(task.getId(), slot);
+        }
+        tasks[slot] = task;
+        linkLast(slot);
+    }
+
+    @Override
+    public void remove(int id) {
+        int slot = slotsById.remove(id);
+        if (slot == IntIntHashMap.NO_VALUE) {
+            return;
+        }
+        unlink(slot);
+        tasks[slot] = null;
+        next[slot] = freeSlots;
+        freeSlots = slot;
+    }
+
+    @Override
+    public void removeAll(int[] ids) {
+        for (int id : ids) {
+            remove(id);
+        }
+    }
+
+    @Override
+    public ArrayList<Task> getHistory() {
+        final ArrayList<Task> history = new ArrayList<>(slotsById.size());
+        for (int slot = head; slot != NO_SLOT; slot = next[slot]) {
+            history.add(tasks[slot]);
+        }
+        return history;
+    }
+
+    @Override
+    public ArrayList<Task> getHistory(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit should not be negative");
+        }
+        final ArrayList<Task> history = new ArrayList<>(Math.min(limit, slotsById.size()));
+        for (int slot = tail; slot != NO_SLOT && history.size() < limit; slot = prev[slot]) {
+            history.add(tasks[slot]);
+        }
+        Collections.reverse(history);
+        return history;
+    }
+
+    private int allocateSlot() {
+        if (freeSlots != NO_SLOT) {
+            int slot = freeSlots;
+            freeSlots = next[slot];
+            return slot;
+        }
+        if (usedSlots == tasks.length) {
+            int newLength = (int) Math.min((long) tasks.length << 1, Math.max(capacity, INITIAL_SLOTS));
+            tasks = Arrays.copyOf(tasks, newLength);
+            prev = Arrays.copyOf(prev, newLength);
+            next = Arrays.copyOf(next, newLength);
+        }
+        return usedSlots++;
+    }
+
+    private void linkLast(int slot) {
+        prev[slot] = tail;
+        next[slot] = NO_SLOT;
+        if (tail == NO_SLOT) {
+            head = slot;
+        } else {
+            next[tail] = slot;
+        }
+        tail = slot;
+    }
+
+    private void unlink(int slot) {
+        int before = prev[slot];
+        int after = next[slot];
+        if (before == NO_SLOT) {
+            head = after;
+        } else {
+            next[before] = after;
+        }
+        if (after == NO_SLOT) {
+            tail = before;
+        } else {
+            prev[after] = before;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package service;
+
+import model.ChangeSet;
+
+/**
+ * Revisions of a manager and the changes made after one, so a copy of the board can be kept up to
+ * date without reading it whole, see {@link Changelog}.
+ */
+public interface ChangeFeed {
+
+    /**
+     * Revision of the last change, 0 before the first one. Every task, epic or subtask created,
+     * updated or deleted and every change of an epic status takes the next revision.
+     */
+    long getRevision();
+
+    /**
+     * At most limit changes made after the revision, oldest first. Too old when the changes after the
+     * revision are no longer retained or the revision is ahead of the manager; the caller then reads
+     * the whole board again. To start a copy, read the revision, then the board, then the changes.
+     */
+    ChangeSet getChangesSince(long revision, int limit);
+
+    /**
+     * Number of changes retained, {@value Changelog#DEFAULT_CAPACITY} by default. Setting it drops the
+     * changes retained so far.
+     */
+    void setChangelogCapacity(int capacity);
+}
@@ -0,0 +1,144 @@
+package service;
+
+import model.ChangeSet;
+import model.Task;
+import model.TaskEvent;
+import model.TaskStatus;
+import model.TaskType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The last changes made to a board in a ring, numbered by a revision that grows by one with each
+ * change, starting from 1.
+ * <p>
+ * A change keeps only the id and a byte packing its kind, type and statuses, the object is looked up
+ * when the change is read, so the ring costs five bytes a change whatever the size of the tasks.
+ * Reading the changes after a revision costs the number of changes returned. Once a change is
+ * overwritten, reading from before it reports the set as too old. Not thread-safe.
+ */
+final class Changelog {
+
+    static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final TaskEvent.Kind[] KINDS = TaskEvent.Kind.values();
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private int[] ids;
+    private byte[] codes;
+    private long revision;
+    private long floor;
+
+    /**
+     * Finds the object of a change as it is stored now, null when it is gone.
+     */
+    interface Lookup {
+        Task find(TaskType type, int id);
+    }
+
+    /**
+     * Changes copied out of the ring, to be resolved into a {@link ChangeSet} outside of any lock.
+     */
+    static final class Slice {
+        private final long from;
+        private final int[] ids;
+        private final byte[] codes;
+        private final long revision;
+        private final boolean tooOld;
+
+        private Slice(long from, int[] ids, byte[] codes, long revision, boolean tooOld) {
+            this.from = from;
+            this.ids = ids;
+            this.codes = codes;
+            this.revision = revision;
+            this.tooOld = tooOld;
+        }
+
+        ChangeSet resolve(Lookup lookup) {
+            if (tooOld) {
+                return ChangeSet.tooOld(revision);
+            }
+            List<TaskEvent> changes = new ArrayList<>(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                int code = codes[i];
+                TaskEvent.Kind kind = KINDS[code & 3];
+                TaskType type = TYPES[code >>> 2 & 3];
+                Task task = kind == TaskEvent.Kind.DELETED ? null : lookup.find(type, ids[i]);
+                changes.add(new TaskEvent(from + i, kind, type, ids[i], task, status(code >>> 4 & 3),
+                        status(code >>> 6 & 3)));
+            }
+            long last = from + ids.length - 1;
+            return new ChangeSet(changes, last, last < revision);
+        }
+    }
+
+    Changelog(int capacity) {
+        resize(capacity);
+    }
+
+    Changelog() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Records a change and returns its revision.
+     */
+    long append(TaskEvent.Kind kind, TaskType type, int id, TaskStatus oldStatus, TaskStatus newStatus) {
+        int index = (int) (revision++ % ids.length);
+        ids[index] = id;
+        codes[index] = (byte) (kind.ordinal() | type.ordinal() << 2 | code(oldStatus) << 4 | code(newStatus) << 6);
+        return revision;
+    }
+
+    /**
+     * Revision of the last change, 0 before the first one.
+     */
+    long revision() {
+        return revision;
+    }
+
+    /**
+     * Keeps the last capacity changes from now on, the ones retained so far are dropped.
+     */
+    void resize(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Changelog capacity should be positive");
+        }
+        ids = new int[capacity];
+        codes = new byte[capacity];
+        floor = revision;
+    }
+
+    /**
+     * Copies at most limit changes made after the revision. A revision older than the oldest change
+     * kept, or newer than the last change made, gives a slice that is too old.
+     */
+    Slice since(long since, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit should be positive");
+        }
+        long oldest = Math.max(floor, revision - ids.length);
+        if (since < oldest || since > revision) {
+            return new Slice(0, null, null, revision, true);
+        }
+        int count = (int) Math.min(limit, revision - since);
+        int[] sliceIds = new int[count];
+        byte[] sliceCodes = new byte[count];
+        for (int i = 0; i < count; i++) {
+            int index = (int) ((since + i) % ids.length);
+            sliceIds[i] = ids[index];
+            sliceCodes[i] = codes[index];
+        }
+        return new Slice(since + 1, sliceIds, sliceCodes, revision, false);
+    }
+
+    private static int code(TaskStatus status) {
+        return status == null ? 0 : status.ordinal() + 1;
+    }
+
+    private static TaskStatus status(int code) {
+        return code == 0 ? null : STATUSES[code - 1];
+    }
+}
@@ -0,0 +1,293 @@
+package service;
+
+import exception.ManagerSaveException;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import persistence.FsyncPolicy;
+import persistence.SegmentedLog;
+import persistence.TaskSnapshot;
+import persistence.WriteAheadLog;
+import utils.LatencyHistogram;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.StreamSupport;
+
+/**
+ * File-backed manager whose log is kept short by background compaction.
+ * <p>
+ * Mutations go to a segmented log in the directory. Once the current segment grows past the
+ * segment size, writers are stopped only long enough to copy the history order and start a new
+ * segment. That point is the consistent view the next snapshot describes: a background thread loads
+ * the previous snapshot into a scratch manager, replays the closed segments on top of it, writes the
+ * result as a new snapshot and deletes the segments it covers. Writers keep appending to the new
+ * segment meanwhile, so disk use and startup replay stay bounded by the snapshot plus one or two
+ * segments.
+ * <p>
+ * On startup the newest snapshot is loaded and only the segments after it are replayed.
+ * <p>
+ * A background compaction that fails is recorded, see {@link #getCompactionFailure()}, and no further
+ * compaction is started in the background until {@link #compact()} succeeds. The log stays complete
+ * meanwhile, it only stops shrinking.
+ */
+public class CompactingTaskManager extends FileBackedTaskManager {
+
+    public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    private final Path directory;
+    private final SegmentedLog segments;
+    private final long segmentBytes;
+    private final ExecutorService compactor;
+    private volatile long snapshotSequence;
+    private Future<?> pendingCompaction;
+    private volatile ManagerSaveException compactionFailure;
+
+    private final LatencyHistogram writeLatency = new LatencyHistogram();
+    private final AtomicLong compactions = new AtomicLong();
+    private final AtomicLong rollPauseMaxNanos = new AtomicLong();
+    private final AtomicLong rollPauseTotalNanos = new AtomicLong();
+    private final AtomicLong compactedBytes = new AtomicLong();
+    private final AtomicLong compactionNanos = new AtomicLong();
+
+    public CompactingTaskManager(TaskManager delegate, Path directory, FsyncPolicy fsyncPolicy, long segmentBytes) {
+        this(delegate, directory, fsyncPolicy, segmentBytes, latestSnapshot(directory));
+    }
+
+    public CompactingTaskManager(Path directory) {
+        this(new InMemoryTaskManager(), directory, FsyncPolicy.perOperation(), DEFAULT_SEGMENT_BYTES);
+    }
+
+    private CompactingTaskManager(TaskManager delegate, Path directory, FsyncPolicy fsyncPolicy, long segmentBytes,
+                                  long snapshotSequence) {
+        super(loadSnapshot(delegate, directory, snapshotSequence),
+                openSegments(directory, fsyncPolicy, snapshotSequence));
+        if (segmentBytes <= 0) {
+            throw new IllegalArgumentException("Segment size should be positive");
+        }
+        this.directory = directory;
+        this.segments = (SegmentedLog) getLog();
+        this.segmentBytes = segmentBytes;
+        this.snapshotSequence = snapshotSequence;
+        this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-log-compactor-" + directory.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            deleteCovered(snapshotSequence);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Could not clean up " + directory, e);
+        }
+    }
+
+    @Override
+    public Task addTask(Task newTask) {
+        long start = System.nanoTime();
+        try {
+            return super.addTask(newTask);
+        } finally {
+            writeLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void updateSubTask(Subtask newSubTask) {
+        long start = System.nanoTime();
+        try {
+            super.updateSubTask(newSubTask);
+        } finally {
+            writeLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Rolls the log now and waits until the closed segments are folded into a snapshot.
+     */
+    public void compact() {
+        Future<?> compaction;
+        synchronized (this) {
+            compaction = startCompaction();
+        }
+        try {
+            compaction.get();
+        } catch (ExecutionException e) {
+            throw new ManagerSaveException("Compaction of " + directory + " failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ManagerSaveException("Interrupted while compacting " + directory, e);
+        }
+        compactionFailure = null;
+    }
+
+    /**
+     * Failure of the last background compaction, null when it succeeded or a later {@link #compact()}
+     * did.
+     */
+    public ManagerSaveException getCompactionFailure() {
+        return compactionFailure;
+    }
+
+    public CompactionMetrics getMetrics() {
+        return new CompactionMetrics(compactions.get(), snapshotSequence, rollPauseMaxNanos.get(),
+                rollPauseTotalNanos.get(), compactedBytes.get(), compactionNanos.get(), writeLatency.getCount(),
+                writeLatency.getPercentile(50), writeLatency.getPercentile(99), writeLatency.getMax());
+    }
+
+    @Override
+    public void close() {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            checkPendingCompaction();
+        }
+        super.close();
+    }
+
+    @Override
+    protected void afterAppend() {
+        checkPendingCompaction();
+        if (segments.size() >= segmentBytes && pendingCompaction == null && compactionFailure == null) {
+            pendingCompaction = startCompaction();
+        }
+    }
+
+    // Runs with the mutation lock held.
+    private void checkPendingCompaction() {
+        if (pendingCompaction == null || !pendingCompaction.isDone()) {
+            return;
+        }
+        try {
+            pendingCompaction.get();
+        } catch (ExecutionException e) {
+            compactionFailure = new ManagerSaveException("Background compaction of " + directory + " failed",
+                    e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        pendingCompaction = null;
+    }
+
+    // Runs with the mutation lock held, this is the whole pause writers see.
+    private Future<?> startCompaction() {
+        long start = System.nanoTime();
+        List<Task> history = getDelegate().getHistory();
+        long closedSequence;
+        try {
+            closedSequence = segments.roll();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Could not roll log in " + directory, e);
+        }
+        long pause = System.nanoTime() - start;
+        rollPauseTotalNanos.addAndGet(pause);
+        rollPauseMaxNanos.accumulateAndGet(pause, Math::max);
+        return compactor.submit(() -> {
+            compact(closedSequence, history);
+            return null;
+        });
+    }
+
+    private void compact(long upTo, List<Task> history) throws IOException {
+        long start = System.nanoTime();
+        segments.closeRetired();
+        long after = snapshotSequence;
+        InMemoryTaskManager scratch = new InMemoryTaskManager();
+        if (after > 0) {
+            TaskSnapshot.load(snapshotPath(directory, after), scratch);
+        }
+        LogReplayer replayer = new LogReplayer(scratch);
+        long bytes = 0;
+        for (Path segment : segments.segments(after, upTo)) {
+            try (WriteAheadLog log = new WriteAheadLog(segment, FsyncPolicy.osManaged())) {
+                log.replay(replayer);
+                bytes += log.size();
+            }
+        }
+        scratch.restoreCounter(replayer.getMaxId() + 1);
+        scratch.getHistoryManager().removeAll(scratch.getHistory().stream().mapToInt(Task::getId).toArray());
+        for (Task viewed : history) {
+            if (viewed instanceof Epic) {
+                scratch.getEpicById(viewed.getId());
+            } else if (viewed instanceof Subtask) {
+                scratch.getSubTaskById(viewed.getId());
+            } else {
+                scratch.getTaskById(viewed.getId());
+            }
+        }
+        TaskSnapshot.write(scratch, snapshotPath(directory, upTo));
+        snapshotSequence = upTo;
+        deleteCovered(upTo);
+        compactions.incrementAndGet();
+        compactedBytes.addAndGet(bytes);
+        compactionNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    private void deleteCovered(long sequence) throws IOException {
+        segments.deleteSegments(sequence);
+        for (long older : snapshotSequences(directory)) {
+            if (older < sequence) {
+                Files.deleteIfExists(snapshotPath(directory, older));
+            }
+        }
+    }
+
+    private static TaskManager loadSnapshot(TaskManager delegate, Path directory, long sequence) {
+        if (sequence > 0) {
+            try {
+                TaskSnapshot.load(snapshotPath(directory, sequence), delegate);
+            } catch (IOException e) {
+                throw new ManagerSaveException("Could not load snapshot " + sequence + " from " + directory, e);
+            }
+        }
+        return delegate;
+    }
+
+    private static SegmentedLog openSegments(Path directory, FsyncPolicy fsyncPolicy, long snapshotSequence) {
+        try {
+            return new SegmentedLog(directory, fsyncPolicy, snapshotSequence);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Could not open log in " + directory, e);
+        }
+    }
+
+    private static long latestSnapshot(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            return snapshotSequences(directory).stream().mapToLong(Long::longValue).max().orElse(0);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Could not read " + directory, e);
+        }
+    }
+
+    private static List<Long> snapshotSequences(Path directory) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+            return StreamSupport.stream(files.spliterator(), false)
+                    .map(file -> file.getFileName().toString())
+                    .map(name -> Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(),
+                            name.length() - SNAPSHOT_SUFFIX.length())))
+                    .toList();
+        }
+    }
+
+    private static Path snapshotPath(Path directory, long sequence) {
+        return directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, sequence, SNAPSHOT_SUFFIX));
+    }
+}
@@ -0,0 +1,104 @@
+package service;
+
+/**
+ * Point-in-time figures of {@link CompactingTaskManager}: how long writers were stopped to roll the
+ * log, how fast compaction folds the log into snapshots, and what writers observed meanwhile.
+ */
+public class CompactionMetrics {
+
+    private final long compactions;
+    private final long snapshotSequence;
+    private final long rollPauseMaxNanos;
+    private final long rollPauseTotalNanos;
+    private final long compactedBytes;
+    private final long compactionNanos;
+    private final long writes;
+    private final long writeLatencyP50Nanos;
+    private final long writeLatencyP99Nanos;
+    private final long writeLatencyMaxNanos;
+
+    CompactionMetrics(long compactions, long snapshotSequence, long rollPauseMaxNanos, long rollPauseTotalNanos,
+                      long compactedBytes, long compactionNanos, long writes, long writeLatencyP50Nanos,
+                      long writeLatencyP99Nanos, long writeLatencyMaxNanos) {
+        this.compactions = compactions;
+        this.snapshotSequence = snapshotSequence;
+        this.rollPauseMaxNanos = rollPauseMaxNanos;
+        this.rollPauseTotalNanos = rollPauseTotalNanos;
+        this.compactedBytes = compactedBytes;
+        this.compactionNanos = compactionNanos;
+        this.writes = writes;
+        this.writeLatencyP50Nanos = writeLatencyP50Nanos;
+        this.writeLatencyP99Nanos = writeLatencyP99Nanos;
+        this.writeLatencyMaxNanos = writeLatencyMaxNanos;
+    }
+
+    public long getCompactions() {
+        return compactions;
+    }
+
+    /**
+     * Last log segment covered by the current snapshot, 0 before the first compaction.
+     */
+    public long getSnapshotSequence() {
+        return snapshotSequence;
+    }
+
+    public long getRollPauseMaxNanos() {
+        return rollPauseMaxNanos;
+    }
+
+    public long getRollPauseTotalNanos() {
+        return rollPauseTotalNanos;
+    }
+
+    /**
+     * Log bytes folded into snapshots so far.
+     */
+    public long getCompactedBytes() {
+        return compactedBytes;
+    }
+
+    public long getCompactionNanos() {
+        return compactionNanos;
+    }
+
+    /**
+     * Log bytes folded per second of compaction work.
+     */
+    public double getCompactionThroughput() {
+        return compactionNanos == 0 ? 0 : compactedBytes * 1e9 / compactionNanos;
+    }
+
+    /**
+     * Number of timed addTask and updateSubTask calls.
+     */
+    public long getWrites() {
+        return writes;
+    }
+
+    public long getWriteLatencyP50Nanos() {
+        return writeLatencyP50Nanos;
+    }
+
+    public long getWriteLatencyP99Nanos() {
+        return writeLatencyP99Nanos;
+    }
+
+    public long getWriteLatencyMaxNanos() {
+        return writeLatencyMaxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "CompactionMetrics{compactions=" + compactions
+                + ", snapshotSequence=" + snapshotSequence
+                + ", rollPauseMaxNanos=" + rollPauseMaxNanos
+                + ", rollPauseTotalNanos=" + rollPauseTotalNanos
+                + ", compactionThroughput=" + (long) getCompactionThroughput() + " B/s"
+                + ", writes=" + writes
+                + ", writeLatencyP50Nanos=" + writeLatencyP50Nanos
+                + ", writeLatencyP99Nanos=" + writeLatencyP99Nanos
+                + ", writeLatencyMaxNanos=" + writeLatencyMaxNanos
+                + '}';
+    }
+}
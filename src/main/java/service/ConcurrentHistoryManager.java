@@ -0,0 +1,177 @@
+package service;
+
+import model.Task;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * HistoryManager for concurrent callers.
+ * <p>
+ * Views are not applied to the ordered history right away. Each thread records them into one of
+ * several small striped buffers, and the buffers are drained in batches into an
+ * InMemoryHistoryManager by whichever thread holds the drain lock, the way caches record reads.
+ * Removals and getHistory drain everything first, so getHistory returns a consistent snapshot. A
+ * removal also waits for views whose add is still writing to a buffer, so no add that started before
+ * the removal lands after it and brings the task back.
+ */
+public class ConcurrentHistoryManager implements HistoryManager {
+
+    private static final int BUFFER_CAPACITY = 32;
+    private static final int DRAIN_THRESHOLD = BUFFER_CAPACITY / 2;
+
+    private final InMemoryHistoryManager history;
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final ViewBuffer[] buffers;
+
+    public ConcurrentHistoryManager() {
+        this(new InMemoryHistoryManager());
+    }
+
+    public ConcurrentHistoryManager(int capacity) {
+        this(new InMemoryHistoryManager(capacity));
+    }
+
+    private ConcurrentHistoryManager(InMemoryHistoryManager history) {
+        this.history = history;
+        int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+        buffers = new ViewBuffer[stripes];
+        for (int i = 0; i < stripes; i++) {
+            buffers[i] = new ViewBuffer();
+        }
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        ViewBuffer buffer = buffers[threadProbe() & (buffers.length - 1)];
+        if (!buffer.offer(task)) {
+            drainLock.lock();
+            try {
+                drainBuffers();
+                history.add(task);
+            } finally {
+                drainLock.unlock();
+            }
+        } else if (buffer.size() >= DRAIN_THRESHOLD && drainLock.tryLock()) {
+            try {
+                drainBuffers();
+            } finally {
+                drainLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        drainLock.lock();
+        try {
+            drainBuffers(true);
+            history.remove(id);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public void removeAll(int[] ids) {
+        drainLock.lock();
+        try {
+            drainBuffers(true);
+            history.removeAll(ids);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public ArrayList<Task> getHistory() {
+        drainLock.lock();
+        try {
+            drainBuffers();
+            return history.getHistory();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public ArrayList<Task> getHistory(int limit) {
+        drainLock.lock();
+        try {
+            drainBuffers();
+            return history.getHistory(limit);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private void drainBuffers() {
+        drainBuffers(false);
+    }
+
+    private void drainBuffers(boolean waitForClaimed) {
+        for (ViewBuffer buffer : buffers) {
+            buffer.drainTo(history, waitForClaimed);
+        }
+    }
+
+    private static int threadProbe() {
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+
+    /**
+     * Bounded multi-producer single-consumer ring. Producers claim a slot with a CAS on tail and
+     * publish the task into it afterwards; the consumer runs only under the drain lock and stops at
+     * the first slot that is claimed but not yet published, or spins until it is when asked to.
+     */
+    private static final class ViewBuffer {
+
+        private final AtomicReferenceArray<Task> slots = new AtomicReferenceArray<>(BUFFER_CAPACITY);
+        private final AtomicLong head = new AtomicLong();
+        private final AtomicLong tail = new AtomicLong();
+
+        boolean offer(Task task) {
+            while (true) {
+                long currentTail = tail.get();
+                if (currentTail - head.get() >= BUFFER_CAPACITY) {
+                    return false;
+                }
+                if (tail.compareAndSet(currentTail, currentTail + 1)) {
+                    // Not a lazy set: the view should be visible before the caller reads the task again.
+                    slots.set((int) (currentTail & (BUFFER_CAPACITY - 1)), task);
+                    return true;
+                }
+            }
+        }
+
+        long size() {
+            return tail.get() - head.get();
+        }
+
+        void drainTo(HistoryManager history, boolean waitForClaimed) {
+            long currentHead = head.get();
+            long currentTail = tail.get();
+            while (currentHead < currentTail) {
+                int index = (int) (currentHead & (BUFFER_CAPACITY - 1));
+                Task task = slots.get(index);
+                if (task == null) {
+                    if (!waitForClaimed) {
+                        break;
+                    }
+                    Thread.onSpinWait();
+                    continue;
+                }
+                slots.lazySet(index, null);
+                history.add(task);
+                currentHead++;
+            }
+            head.set(currentHead);
+        }
+    }
+}
@@ -0,0 +1,919 @@
+package service;
+
+import exception.AlreadyExistsException;
+import exception.EpicDoesntExistException;
+import model.ChangeSet;
+import model.Epic;
+import model.Page;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import model.TaskType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * TaskManager that is safe for concurrent callers.
+ * <p>
+ * Tasks, epics and subtasks live in concurrent maps, with their ids also kept in sorted sets for
+ * paging. Everything that touches an epic together
+ * with its subtasks (membership, status counters) runs under a lock taken from a fixed stripe of
+ * locks chosen by epic id, so subtask writes under different epics proceed in parallel.
+ * Statuses, times, text and the changelog are kept in the same {@link TaskIndexes} as in
+ * {@link InMemoryTaskManager}, under its monitor, taken last: after the epic lock and the map lock
+ * of the id when those are held. Each write records itself there under the map lock of its id, so
+ * the changes of an id are recorded in the order they were made.
+ * The history manager passed in must be thread-safe itself.
+ */
+public class ConcurrentTaskManager implements TaskManager, TaskSearch, SlotCalendar, ChangeFeed {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final AtomicInteger counter = new AtomicInteger(1);
+    final ConcurrentHashMap<Integer, Task> tasks = new ConcurrentHashMap<>();
+    final ConcurrentHashMap<Integer, Epic> epics = new ConcurrentHashMap<>();
+    final ConcurrentHashMap<Integer, Subtask> subtasks = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Integer> taskIds = new ConcurrentSkipListSet<>();
+    private final ConcurrentSkipListSet<Integer> epicIds = new ConcurrentSkipListSet<>();
+    private final ConcurrentSkipListSet<Integer> subtaskIds = new ConcurrentSkipListSet<>();
+    final ConcurrentHashMap<Integer, TaskStatus> subtaskStatuses = new ConcurrentHashMap<>();
+    final HistoryManager historyManager;
+    private final ReentrantLock[] epicLocks = new ReentrantLock[LOCK_STRIPES];
+    private final Collection<Task> tasksView = Collections.unmodifiableCollection(tasks.values());
+    private final Collection<Epic> epicsView = Collections.unmodifiableCollection(epics.values());
+    private final Collection<Subtask> subtasksView = Collections.unmodifiableCollection(subtasks.values());
+    private final TaskIndexes indexes = new TaskIndexes();
+
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+        for (int i = 0; i < epicLocks.length; i++) {
+            epicLocks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public int getCounter() {
+        return counter.getAndIncrement();
+    }
+
+    @Override
+    public int peekCounter() {
+        return counter.get();
+    }
+
+    @Override
+    public void restoreCounter(int nextId) {
+        counter.accumulateAndGet(nextId, Math::max);
+    }
+
+    @Override
+    public Task addTask(Task task) {
+        insert(tasks, taskIds, task, true);
+        return task;
+    }
+
+    @Override
+    public Subtask addSubTask(Subtask subtask) {
+        ReentrantLock lock = lockFor(subtask.getEpicId());
+        lock.lock();
+        try {
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic == null) {
+                throw new EpicDoesntExistException("Epic does not exist");
+            }
+            insert(subtasks, subtaskIds, subtask, true);
+            subtaskStatuses.put(subtask.getId(), subtask.getStatus());
+            epic.addSubtaskById(subtask.getId(), subtask.getStatus());
+            epic.addSubtaskTime(subtask.getStartTime(), subtask.getDuration());
+            refreshStatus(epic);
+        } finally {
+            lock.unlock();
+        }
+        return subtask;
+    }
+
+    @Override
+    public Epic addEpic(Epic epic) {
+        insert(epics, epicIds, epic, false);
+        return epic;
+    }
+
+    /**
+     * The batch is checked up front, a task added concurrently with the same id can still make the
+     * call fail after part of the batch was added. Times are taken for the whole batch at once.
+     */
+    @Override
+    public void addAllTasks(List<Task> newTasks) {
+        checkNew(newTasks);
+        IntervalIndex.Slot[] previous;
+        synchronized (indexes) {
+            previous = indexes.scheduleAll(newTasks, task -> true);
+        }
+        try {
+            for (Task task : newTasks) {
+                insert(tasks, taskIds, task, false);
+            }
+        } catch (RuntimeException e) {
+            unscheduleNotStored(tasks, newTasks, previous);
+            throw e;
+        }
+    }
+
+    @Override
+    public void addAllEpics(List<Epic> newEpics) {
+        checkNew(newEpics);
+        for (Epic epic : newEpics) {
+            addEpic(epic);
+        }
+    }
+
+    /**
+     * Subtasks are added under the locks of all their epics with one status refresh per epic, so
+     * the checks made under the locks hold for the whole batch. Only a subtask with the same id added
+     * concurrently to another epic can fail it midway.
+     */
+    @Override
+    public void addAllSubtasks(List<Subtask> newSubtasks) {
+        Map<Integer, List<Subtask>> subtasksByEpic = groupByEpic(newSubtasks);
+        List<ReentrantLock> locks = lockAll(subtasksByEpic.keySet());
+        try {
+            checkNew(newSubtasks);
+            for (Integer epicId : subtasksByEpic.keySet()) {
+                if (!epics.containsKey(epicId)) {
+                    throw new EpicDoesntExistException("Epic does not exist");
+                }
+            }
+            IntervalIndex.Slot[] previous;
+            synchronized (indexes) {
+                previous = indexes.scheduleAll(newSubtasks, subtask -> true);
+            }
+            try {
+                subtasksByEpic.forEach((epicId, group) -> {
+                    Epic epic = epics.get(epicId);
+                    for (Subtask subtask : group) {
+                        insert(subtasks, subtaskIds, subtask, false);
+                        subtaskStatuses.put(subtask.getId(), subtask.getStatus());
+                        epic.addSubtaskById(subtask.getId(), subtask.getStatus());
+                        epic.addSubtaskTime(subtask.getStartTime(), subtask.getDuration());
+                    }
+                    refreshStatus(epic);
+                });
+            } catch (RuntimeException e) {
+                unscheduleNotStored(subtasks, newSubtasks, previous);
+                throw e;
+            }
+        } finally {
+            unlockAll(locks);
+        }
+    }
+
+    @Override
+    public void updateAllTasks(List<Task> newTasks) {
+        for (Task task : newTasks) {
+            updateTask(task);
+        }
+    }
+
+    /**
+     * Runs under the locks of all epics of the batch, so the times of the batch are checked and
+     * taken as a whole.
+     */
+    @Override
+    public void updateAllSubtasks(List<Subtask> newSubtasks) {
+        for (Subtask subtask : newSubtasks) {
+            TaskIndexes.checkSameEpic(subtasks.get(subtask.getId()), subtask);
+        }
+        Map<Integer, List<Subtask>> subtasksByEpic = groupByEpic(newSubtasks);
+        List<ReentrantLock> locks = lockAll(subtasksByEpic.keySet());
+        try {
+            IntervalIndex.Slot[] previous;
+            synchronized (indexes) {
+                previous = indexes.scheduleAll(newSubtasks, subtask -> {
+                    Epic epic = epics.get(subtask.getEpicId());
+                    return epic != null && epic.containsSubtask(subtask.getId());
+                });
+            }
+            Map<Integer, IntervalIndex.Slot> previousById = new HashMap<>();
+            for (int i = 0; i < previous.length; i++) {
+                previousById.putIfAbsent(newSubtasks.get(i).getId(), previous[i]);
+            }
+            subtasksByEpic.forEach((epicId, group) -> {
+                Epic epic = epics.get(epicId);
+                if (epic == null) {
+                    return;
+                }
+                for (Subtask subtask : group) {
+                    if (epic.containsSubtask(subtask.getId())) {
+                        replace(subtasks, subtask);
+                        TaskStatus oldStatus = subtaskStatuses.put(subtask.getId(), subtask.getStatus());
+                        epic.changeSubtaskStatus(oldStatus, subtask.getStatus());
+                        TaskIndexes.moveSubtaskTime(epic, previousById.put(subtask.getId(), timeOf(subtask)),
+                                subtask);
+                    }
+                }
+                refreshStatus(epic);
+            });
+        } finally {
+            unlockAll(locks);
+        }
+    }
+
+    @Override
+    public void deleteAllTasks(int[] ids) {
+        for (int id : ids) {
+            deleteTaskById(id);
+        }
+    }
+
+    @Override
+    public void deleteAllSubtasks(int[] ids) {
+        List<Subtask> stored = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Subtask subtask = subtasks.get(id);
+            if (subtask != null) {
+                stored.add(subtask);
+            }
+        }
+        IntStream.Builder removed = IntStream.builder();
+        groupByEpic(stored).forEach((epicId, group) -> {
+            ReentrantLock lock = lockFor(epicId);
+            lock.lock();
+            try {
+                Epic epic = epics.get(epicId);
+                for (Subtask subtask : group) {
+                    if (removeSubtask(subtask.getId(), epic)) {
+                        removed.add(subtask.getId());
+                    }
+                }
+                if (epic != null) {
+                    refreshStatus(epic);
+                }
+            } finally {
+                lock.unlock();
+            }
+        });
+        historyManager.removeAll(removed.build().toArray());
+    }
+
+    @Override
+    public void deleteAllEpics(int[] ids) {
+        IntStream.Builder removed = IntStream.builder();
+        for (int id : ids) {
+            detachEpic(id, removed);
+        }
+        historyManager.removeAll(removed.build().toArray());
+    }
+
+    @Override
+    public ArrayList<Task> getAllTasks() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    @Override
+    public ArrayList<Subtask> getAllSubtasks() {
+        return new ArrayList<>(subtasks.values());
+    }
+
+    @Override
+    public ArrayList<Epic> getAllEpics() {
+        return new ArrayList<>(epics.values());
+    }
+
+    @Override
+    public void forEachTask(Consumer<? super Task> action) {
+        tasks.values().forEach(action);
+    }
+
+    @Override
+    public void forEachSubtask(Consumer<? super Subtask> action) {
+        subtasks.values().forEach(action);
+    }
+
+    @Override
+    public void forEachEpic(Consumer<? super Epic> action) {
+        epics.values().forEach(action);
+    }
+
+    /**
+     * Views are weakly consistent like the maps under them: they can be iterated while other threads
+     * change the manager and may or may not show those changes.
+     */
+    @Override
+    public Collection<Task> getTasksView() {
+        return tasksView;
+    }
+
+    @Override
+    public Collection<Subtask> getSubtasksView() {
+        return subtasksView;
+    }
+
+    @Override
+    public Collection<Epic> getEpicsView() {
+        return epicsView;
+    }
+
+    /**
+     * Streams a copy of the ids taken under the epic lock, as epic membership is not safe to walk
+     * while other threads change it.
+     */
+    @Override
+    public IntStream streamSubtaskIdsByEpicId(int id) {
+        int[] subtaskIds = getSubtaskIdsByEpicId(id);
+        return subtaskIds == null ? IntStream.empty() : IntStream.of(subtaskIds);
+    }
+
+    @Override
+    public Page<Task> getTasksPage(String cursor, int pageSize) {
+        return Page.collect(cursor, pageSize, taskIds, tasks::get);
+    }
+
+    @Override
+    public Page<Subtask> getSubtasksPage(String cursor, int pageSize) {
+        return Page.collect(cursor, pageSize, subtaskIds, subtasks::get);
+    }
+
+    @Override
+    public Page<Epic> getEpicsPage(String cursor, int pageSize) {
+        return Page.collect(cursor, pageSize, epicIds, epics::get);
+    }
+
+    /**
+     * The page is read under the epic lock, like the other reads of epic membership.
+     */
+    @Override
+    public Page<Subtask> getSubtasksPageByEpicId(int epicId, String cursor, int pageSize) {
+        ReentrantLock lock = lockFor(epicId);
+        lock.lock();
+        try {
+            Epic epic = epics.get(epicId);
+            return epic == null ? null : Page.collect(cursor, pageSize, epic::ceilingSubtaskId, subtasks::get);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(TaskStatus status) {
+        return TaskIndexes.resolve(ids(TaskType.TASK, status), tasks::get);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(TaskStatus status) {
+        return TaskIndexes.resolve(ids(TaskType.SUBTASK, status), subtasks::get);
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(TaskStatus status) {
+        return TaskIndexes.resolve(ids(TaskType.EPIC, status), epics::get);
+    }
+
+    @Override
+    public int countTasksByStatus(TaskStatus status) {
+        synchronized (indexes) {
+            return indexes.count(TaskType.TASK, status);
+        }
+    }
+
+    @Override
+    public int countSubtasksByStatus(TaskStatus status) {
+        synchronized (indexes) {
+            return indexes.count(TaskType.SUBTASK, status);
+        }
+    }
+
+    @Override
+    public int countEpicsByStatus(TaskStatus status) {
+        synchronized (indexes) {
+            return indexes.count(TaskType.EPIC, status);
+        }
+    }
+
+    private int[] ids(TaskType type, TaskStatus status) {
+        synchronized (indexes) {
+            return indexes.ids(type, status);
+        }
+    }
+
+    /**
+     * The index is built under the monitor of the indexes, which every write takes to record itself,
+     * so it holds exactly what is stored.
+     */
+    @Override
+    public void setTextSearch(boolean enabled) {
+        synchronized (indexes) {
+            indexes.setTextSearch(enabled, Stream.of(tasks.values(), epics.values(), subtasks.values())
+                    .flatMap(Collection::stream));
+        }
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        int[] ids;
+        TaskType[] types;
+        synchronized (indexes) {
+            ids = indexes.search(query, limit);
+            types = indexes.typesOf(ids);
+        }
+        return TaskIndexes.resolve(ids, types, this::find);
+    }
+
+    /**
+     * The order is taken under the monitor of the indexes, the items are then read from the maps and
+     * those deleted meanwhile are skipped.
+     */
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        int[] ids;
+        TaskType[] types;
+        synchronized (indexes) {
+            ids = indexes.prioritized();
+            types = indexes.typesOf(ids);
+        }
+        return TaskIndexes.resolve(ids, types, this::find);
+    }
+
+    /**
+     * Grid queries run under the monitor of the indexes, so they see each write whole.
+     */
+    @Override
+    public void setSlotGrid(LocalDateTime origin, Duration slotSize, Duration horizon) {
+        SlotGrid grid = origin == null ? null : new SlotGrid(origin, slotSize, horizon);
+        synchronized (indexes) {
+            indexes.setGrid(grid);
+        }
+    }
+
+    @Override
+    public boolean isFree(LocalDateTime from, LocalDateTime to) {
+        synchronized (indexes) {
+            return indexes.grid().isFree(from, to);
+        }
+    }
+
+    @Override
+    public List<LocalDateTime> getFreeSlots(LocalDateTime from, LocalDateTime to) {
+        synchronized (indexes) {
+            return indexes.grid().freeSlots(from, to);
+        }
+    }
+
+    @Override
+    public LocalDateTime findFreeSlots(LocalDateTime from, int count) {
+        synchronized (indexes) {
+            return indexes.grid().findFree(from, count);
+        }
+    }
+
+    @Override
+    public long getRevision() {
+        synchronized (indexes) {
+            return indexes.revision();
+        }
+    }
+
+    /**
+     * The changes are copied under the monitor of the indexes and their objects read from the maps
+     * after.
+     */
+    @Override
+    public ChangeSet getChangesSince(long revision, int limit) {
+        Changelog.Slice slice;
+        synchronized (indexes) {
+            slice = indexes.since(revision, limit);
+        }
+        return slice.resolve((type, id) -> switch (type) {
+            case TASK -> tasks.get(id);
+            case EPIC -> epics.get(id);
+            case SUBTASK -> subtasks.get(id);
+        });
+    }
+
+    @Override
+    public void setChangelogCapacity(int capacity) {
+        synchronized (indexes) {
+            indexes.resizeChangelog(capacity);
+        }
+    }
+
+    @Override
+    public Set<Integer> getSubtasksByEpicId(int id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            Epic epic = epics.get(id);
+            if (epic == null) {
+                return null;
+            }
+            return epic.getSubtaskIds().boxed().collect(Collectors.toCollection(HashSet::new));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int[] getSubtaskIdsByEpicId(int id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            Epic epic = epics.get(id);
+            return epic == null ? null : epic.getSubtasks();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clearTasks() {
+        IntStream.Builder removed = IntStream.builder();
+        for (Integer taskId : tasks.keySet()) {
+            if (remove(tasks, taskIds, TaskType.TASK, taskId) != null) {
+                removed.add(taskId);
+            }
+        }
+        historyManager.removeAll(removed.build().toArray());
+    }
+
+    @Override
+    public void clearSubtasks() {
+        IntStream.Builder removed = IntStream.builder();
+        for (Epic epic : epics.values()) {
+            ReentrantLock lock = lockFor(epic.getId());
+            lock.lock();
+            try {
+                if (epic.getSubtasksCount() == 0) {
+                    continue;
+                }
+                for (int subtaskId : epic.getSubtasks()) {
+                    if (removeSubtask(subtaskId, epic)) {
+                        removed.add(subtaskId);
+                    }
+                }
+                refreshStatus(epic);
+            } finally {
+                lock.unlock();
+            }
+        }
+        historyManager.removeAll(removed.build().toArray());
+    }
+
+    @Override
+    public void clearEpics() {
+        IntStream.Builder removed = IntStream.builder();
+        for (Integer epicId : epics.keySet()) {
+            detachEpic(epicId, removed);
+        }
+        historyManager.removeAll(removed.build().toArray());
+    }
+
+    @Override
+    public Task getTaskById(int taskId) {
+        Task task = tasks.get(taskId);
+        recordView(task, tasks);
+        return task;
+    }
+
+    @Override
+    public Subtask getSubTaskById(int taskId) {
+        Subtask subtask = subtasks.get(taskId);
+        recordView(subtask, subtasks);
+        return subtask;
+    }
+
+    @Override
+    public Epic getEpicById(int taskId) {
+        Epic epic = epics.get(taskId);
+        recordView(epic, epics);
+        return epic;
+    }
+
+    @Override
+    public Task findTask(int taskId) {
+        return tasks.get(taskId);
+    }
+
+    @Override
+    public Subtask findSubtask(int subtaskId) {
+        return subtasks.get(subtaskId);
+    }
+
+    @Override
+    public Epic findEpic(int epicId) {
+        return epics.get(epicId);
+    }
+
+    @Override
+    public void deleteTaskById(int taskId) {
+        if (remove(tasks, taskIds, TaskType.TASK, taskId) != null) {
+            historyManager.remove(taskId);
+        }
+    }
+
+    @Override
+    public void deleteSubTaskById(int subTaskId) {
+        Subtask stored = subtasks.get(subTaskId);
+        if (stored == null) {
+            return;
+        }
+        ReentrantLock lock = lockFor(stored.getEpicId());
+        lock.lock();
+        try {
+            Epic epic = epics.get(stored.getEpicId());
+            if (!removeSubtask(subTaskId, epic)) {
+                return;
+            }
+            if (epic != null) {
+                refreshStatus(epic);
+            }
+        } finally {
+            lock.unlock();
+        }
+        historyManager.remove(subTaskId);
+    }
+
+    @Override
+    public void deleteEpicById(int epicId) {
+        IntStream.Builder removed = IntStream.builder();
+        if (detachEpic(epicId, removed)) {
+            historyManager.removeAll(removed.build().toArray());
+        }
+    }
+
+    /**
+     * Removes the epic with its subtasks under the epic lock and adds their ids to removed, the
+     * caller drops them from the history afterwards.
+     */
+    private boolean detachEpic(int epicId, IntStream.Builder removed) {
+        ReentrantLock lock = lockFor(epicId);
+        lock.lock();
+        try {
+            Epic epic = remove(epics, epicIds, TaskType.EPIC, epicId);
+            if (epic == null) {
+                return false;
+            }
+            for (int subtaskId : epic.getSubtasks()) {
+                if (remove(subtasks, subtaskIds, TaskType.SUBTASK, subtaskId) != null) {
+                    subtaskStatuses.remove(subtaskId);
+                    removed.add(subtaskId);
+                }
+            }
+            removed.add(epicId);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateTask(Task newTask) {
+        tasks.computeIfPresent(newTask.getId(), (id, stored) -> {
+            synchronized (indexes) {
+                indexes.schedule(newTask);
+                indexes.updated(newTask);
+            }
+            return newTask;
+        });
+    }
+
+    @Override
+    public void updateSubTask(Subtask newSubTask) {
+        int newSubTaskId = newSubTask.getId();
+        // The epic of a stored subtask never changes, so it can be checked before taking its lock.
+        TaskIndexes.checkSameEpic(subtasks.get(newSubTaskId), newSubTask);
+        ReentrantLock lock = lockFor(newSubTask.getEpicId());
+        lock.lock();
+        try {
+            Epic epic = epics.get(newSubTask.getEpicId());
+            if (epic == null || !epic.containsSubtask(newSubTaskId)) {
+                return;
+            }
+            IntervalIndex.Slot previous;
+            synchronized (indexes) {
+                previous = indexes.schedule(newSubTask);
+            }
+            replace(subtasks, newSubTask);
+            TaskStatus oldStatus = subtaskStatuses.put(newSubTaskId, newSubTask.getStatus());
+            epic.changeSubtaskStatus(oldStatus, newSubTask.getStatus());
+            TaskIndexes.moveSubtaskTime(epic, previous, newSubTask);
+            refreshStatus(epic);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic newEpic) {
+        epics.computeIfPresent(newEpic.getId(), (id, epic) -> {
+            epic.setBody(newEpic);
+            synchronized (indexes) {
+                indexes.updated(epic);
+            }
+            return epic;
+        });
+    }
+
+    @Override
+    public ArrayList<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    public HistoryManager getHistoryManager() {
+        return historyManager;
+    }
+
+    /**
+     * A delete may run between reading the item and adding it to the history, and its removal from
+     * the history may come before the add. The map is read again after the add: an item deleted by
+     * then is removed here, one deleted later is removed by the delete, as the add happened first.
+     */
+    private void recordView(Task task, Map<Integer, ? extends Task> map) {
+        if (task != null) {
+            historyManager.add(task);
+            if (!map.containsKey(task.getId())) {
+                historyManager.remove(task.getId());
+            }
+        }
+    }
+
+    /**
+     * Publisher of every change made through this manager, in revision order.
+     */
+    public TaskEventPublisher getEvents() {
+        return indexes.events();
+    }
+
+    /**
+     * Stores a new item under the map lock of its id and records it in the sorted ids and the indexes
+     * in the same step, so the indexes see the changes of an id in the order the map does. The id is
+     * checked against all types under the monitor of the indexes, so a task and a subtask added at
+     * once with one id cannot both get in. A task or subtask takes its slot in the timeline first
+     * unless the caller already did.
+     */
+    private <T extends Task> void insert(ConcurrentHashMap<Integer, T> stored, Set<Integer> ids, T item,
+                                         boolean schedule) {
+        stored.compute(item.getId(), (id, value) -> {
+            if (value != null) {
+                throw new AlreadyExistsException("Object " + id + " already exists");
+            }
+            synchronized (indexes) {
+                indexes.checkUnused(id);
+                if (schedule) {
+                    indexes.schedule(item);
+                }
+                indexes.created(item);
+            }
+            ids.add(id);
+            return item;
+        });
+    }
+
+    private void checkNew(List<? extends Task> batch) {
+        synchronized (indexes) {
+            indexes.checkNew(batch);
+        }
+    }
+
+    /**
+     * Replaces a stored item whose slot the caller already took, see {@link #insert}.
+     */
+    private <T extends Task> void replace(ConcurrentHashMap<Integer, T> stored, T item) {
+        stored.computeIfPresent(item.getId(), (id, value) -> {
+            synchronized (indexes) {
+                indexes.updated(item);
+            }
+            return item;
+        });
+    }
+
+    /**
+     * Removes the item under the map lock of its id, see {@link #insert}, and returns it, null when
+     * there was none.
+     */
+    private <T extends Task> T remove(ConcurrentHashMap<Integer, T> stored, Set<Integer> ids, TaskType type,
+                                      int id) {
+        AtomicReference<T> removed = new AtomicReference<>();
+        stored.computeIfPresent(id, (key, value) -> {
+            synchronized (indexes) {
+                indexes.deleted(type, key);
+            }
+            ids.remove(key);
+            removed.set(value);
+            return null;
+        });
+        return removed.get();
+    }
+
+    /**
+     * Removes the subtask and takes it out of its epic, run under the epic lock.
+     */
+    private boolean removeSubtask(int subtaskId, Epic epic) {
+        AtomicReference<IntervalIndex.Slot> slot = new AtomicReference<>();
+        AtomicReference<Subtask> removed = new AtomicReference<>();
+        subtasks.computeIfPresent(subtaskId, (key, value) -> {
+            synchronized (indexes) {
+                slot.set(indexes.deleted(TaskType.SUBTASK, key));
+            }
+            subtaskIds.remove(key);
+            removed.set(value);
+            return null;
+        });
+        if (removed.get() == null) {
+            return false;
+        }
+        TaskStatus status = subtaskStatuses.remove(subtaskId);
+        if (epic != null) {
+            epic.deleteSubtaskById(subtaskId, status);
+            TaskIndexes.removeSubtaskTime(epic, slot.get());
+        }
+        return true;
+    }
+
+    /**
+     * Gives the slots taken for a failed batch back, except for the items that made it into the map.
+     */
+    private void unscheduleNotStored(Map<Integer, ? extends Task> stored, List<? extends Task> batch,
+                                     IntervalIndex.Slot[] previous) {
+        synchronized (indexes) {
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                Task task = batch.get(i);
+                if (stored.get(task.getId()) != task) {
+                    indexes.unschedule(task.getId(), previous[i]);
+                }
+            }
+        }
+    }
+
+    private static IntervalIndex.Slot timeOf(Task task) {
+        return IntervalIndex.hasTime(task)
+                ? new IntervalIndex.Slot(task.getId(), task.getStartTime(), task.getDuration()) : null;
+    }
+
+    /**
+     * Locks the stripes of all the epics in stripe order, so two batches cannot wait for each other.
+     */
+    private List<ReentrantLock> lockAll(Set<Integer> epicIds) {
+        List<ReentrantLock> locks = new ArrayList<>();
+        BitSet stripes = new BitSet(LOCK_STRIPES);
+        epicIds.forEach(epicId -> stripes.set(epicId & (LOCK_STRIPES - 1)));
+        for (int stripe = stripes.nextSetBit(0); stripe >= 0; stripe = stripes.nextSetBit(stripe + 1)) {
+            epicLocks[stripe].lock();
+            locks.add(epicLocks[stripe]);
+        }
+        return locks;
+    }
+
+    private static void unlockAll(List<ReentrantLock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
+    private static Map<Integer, List<Subtask>> groupByEpic(List<Subtask> batch) {
+        Map<Integer, List<Subtask>> subtasksByEpic = new HashMap<>();
+        for (Subtask subtask : batch) {
+            subtasksByEpic.computeIfAbsent(subtask.getEpicId(), id -> new ArrayList<>()).add(subtask);
+        }
+        return subtasksByEpic;
+    }
+
+    /**
+     * Refreshes the status of the epic from its counters and records it when it changed. Runs under
+     * the epic lock.
+     */
+    private void refreshStatus(Epic epic) {
+        synchronized (indexes) {
+            indexes.refreshStatus(epic);
+        }
+    }
+
+    private Task find(TaskType type, int id) {
+        return switch (type) {
+            case TASK -> tasks.get(id);
+            case EPIC -> epics.get(id);
+            case SUBTASK -> subtasks.get(id);
+        };
+    }
+
+    private ReentrantLock lockFor(int epicId) {
+        return epicLocks[epicId & (LOCK_STRIPES - 1)];
+    }
+}
@@ -0,0 +1,611 @@
+package service;
+
+import exception.FeatureNotEnabledException;
+import exception.ManagerSaveException;
+import model.ChangeSet;
+import model.Epic;
+import model.Page;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import persistence.FsyncPolicy;
+import persistence.MutationLog;
+import persistence.RecordBuffer;
+import persistence.WriteAheadLog;
+import utils.Managers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Task manager that survives restarts: every mutation is appended to a write-ahead log as a compact
+ * binary record before it is applied to the wrapped manager, and on creation the log is replayed into
+ * the wrapped manager, which should be empty.
+ * <p>
+ * When the append fails the mutation is not applied, so memory never holds a change the log lacks.
+ * A mutation the wrapped manager rejects stays in the log: the manager checks a change before making
+ * any of it, so replaying the log rejects the record again in the same state and skips it. Any other
+ * failure of the wrapped manager, such as its body store failing, leaves a record a replay would
+ * apply: this manager then refuses further changes, and reopening it takes the logged change.
+ * <p>
+ * Only the change itself is written, never the whole board. The counter is restored past the
+ * highest id ever added, ids that were drawn but never used are not kept. Views are not logged, so
+ * history starts empty after a restart. Changes made to returned objects without a following update
+ * call are not persisted either.
+ * <p>
+ * Mutations are serialized so that the log order is the order they were applied in, reads take the
+ * same lock, so the wrapped manager needs no thread safety of its own. The live views and the stream
+ * of subtask ids read the wrapped manager when they are used: hold the monitor of this manager
+ * around that when other threads change it.
+ */
+public class FileBackedTaskManager implements TaskManager, TaskSearch, SlotCalendar, ChangeFeed,
+        AutoCloseable {
+
+    static final byte ADD_TASK = 1;
+    static final byte ADD_EPIC = 2;
+    static final byte ADD_SUBTASK = 3;
+    static final byte UPDATE_TASK = 4;
+    static final byte UPDATE_EPIC = 5;
+    static final byte UPDATE_SUBTASK = 6;
+    static final byte DELETE_TASK = 7;
+    static final byte DELETE_EPIC = 8;
+    static final byte DELETE_SUBTASK = 9;
+    static final byte CLEAR_TASKS = 10;
+    static final byte CLEAR_EPICS = 11;
+    static final byte CLEAR_SUBTASKS = 12;
+    static final byte RESTORE_COUNTER = 13;
+    static final byte ADD_TASKS = 14;
+    static final byte ADD_EPICS = 15;
+    static final byte ADD_SUBTASKS = 16;
+    static final byte UPDATE_TASKS = 17;
+    static final byte UPDATE_SUBTASKS = 18;
+    static final byte DELETE_TASKS = 19;
+    static final byte DELETE_SUBTASKS = 20;
+    static final byte DELETE_EPICS = 21;
+
+    // Batches are logged in records of at most this many items to keep records small.
+    static final int BATCH_RECORD_LIMIT = 4096;
+
+    // Set in the item count of a batch split into several records: MORE on every part but the last,
+    // CONTINUED on every part but the first, so replay applies the batch whole or not at all.
+    static final int BATCH_MORE = 1 << 31;
+    static final int BATCH_CONTINUED = 1 << 30;
+    static final int BATCH_COUNT_MASK = BATCH_CONTINUED - 1;
+
+    private final TaskManager delegate;
+    private final MutationLog log;
+    private final RecordBuffer record = new RecordBuffer();
+    private final long openRevision;
+    private RuntimeException failure;
+
+    public FileBackedTaskManager(TaskManager delegate, Path logFile, FsyncPolicy fsyncPolicy) {
+        this(delegate, openLog(logFile, fsyncPolicy));
+    }
+
+    public FileBackedTaskManager(Path logFile) {
+        this(Managers.getDefault(), logFile, FsyncPolicy.perOperation());
+    }
+
+    /**
+     * Replays the log into the delegate and appends further mutations to it.
+     */
+    protected FileBackedTaskManager(TaskManager delegate, MutationLog log) {
+        this.delegate = delegate;
+        this.log = log;
+        LogReplayer replayer = new LogReplayer(delegate);
+        try {
+            log.replay(replayer);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Could not replay log", e);
+        }
+        delegate.restoreCounter(replayer.getMaxId() + 1);
+        openRevision = delegate instanceof ChangeFeed feed ? feed.getRevision() : 0;
+    }
+
+    @Override
+    public synchronized int getCounter() {
+        return delegate.getCounter();
+    }
+
+    @Override
+    public synchronized int peekCounter() {
+        return delegate.peekCounter();
+    }
+
+    @Override
+    public synchronized void restoreCounter(int nextId) {
+        append(record.clear().putByte(RESTORE_COUNTER).putInt(nextId));
+        apply(() -> delegate.restoreCounter(nextId));
+        afterAppend();
+    }
+
+    @Override
+    public synchronized Task addTask(Task newTask) {
+        append(putTask(record.clear().putByte(ADD_TASK), newTask));
+        Task task = applyAndGet(() -> delegate.addTask(newTask));
+        afterAppend();
+        return task;
+    }
+
+    @Override
+    public synchronized Subtask addSubTask(Subtask newSubtask) {
+        append(putTask(record.clear().putByte(ADD_SUBTASK), newSubtask).putInt(newSubtask.getEpicId()));
+        Subtask subtask = applyAndGet(() -> delegate.addSubTask(newSubtask));
+        afterAppend();
+        return subtask;
+    }
+
+    @Override
+    public synchronized Epic addEpic(Epic newEpic) {
+        append(putTask(record.clear().putByte(ADD_EPIC), newEpic));
+        Epic epic = applyAndGet(() -> delegate.addEpic(newEpic));
+        afterAppend();
+        return epic;
+    }
+
+    @Override
+    public synchronized void addAllTasks(List<Task> newTasks) {
+        appendBatch(ADD_TASKS, newTasks, FileBackedTaskManager::putTask);
+        apply(() -> delegate.addAllTasks(newTasks));
+        afterAppend();
+    }
+
+    @Override
+    public synchronized void addAllEpics(List<Epic> newEpics) {
+        appendBatch(ADD_EPICS, newEpics, FileBackedTaskManager::putTask);
+        apply(() -> delegate.addAllEpics(newEpics));
+        afterAppend();
+    }
+
+    @Override
+    public synchronized void addAllSubtasks(List<Subtask> newSubtasks) {
+        appendBatch(ADD_SUBTASKS, newSubtasks, (record, subtask) -> putTask(record, subtask)
+                .putInt(subtask.getEpicId()));
+        apply(() -> delegate.addAllSubtasks(newSubtasks));
+        afterAppend();
+    }
+
+    @Override
+    public synchronized void updateAllTasks(List<Task> newTasks) {
+        appendBatch(UPDATE_TASKS, newTasks, FileBackedTaskManager::putTask);
+        apply(() -> delegate.updateAllTasks(newTasks));
+        afterAppend();
+    }
+
+    @Override
+    public synchronized void updateAllSubtasks(List<Subtask> newSubtasks) {
+        appendBatch(UPDATE_SUBTASKS, newSubtasks, (record, subtask) -> putTask(record, subtask)
+                .putInt(subtask.getEpicId()));
+        apply(() -> delegate.updateAllSubtasks(newSubtasks));
+        afterAppend();
+    }
+
+    @Override
+    public synchronized void deleteAllTasks(int[] ids) {
+        appendBatch(DELETE_TASKS, ids);
+        apply(() -> delegate.deleteAllTasks(ids));
+        afterAppend();
+    }
+
+    @Override
+    public synchronized void deleteAllSubtasks(int[] ids) {
+        appendBatch(DELETE_SUBTASKS, ids);
+        apply(() -> delegate.deleteAllSubtasks(ids));
+        afterAppend();
+    }
+
+    @Override
+    public synchronized void deleteAllEpics(int[] ids) {
+        appendBatch(DELETE_EPICS, ids);
+        apply(() -> delegate.deleteAllEpics(ids));
+        afterAppend();
+    }
+
+    @Override
+    public synchronized ArrayList<Task> getAllTasks() {
+        return delegate.getAllTasks();
+    }
+
+    @Override
+    public synchronized ArrayList<Subtask> getAllSubtasks() {
+        return delegate.getAllSubtasks();
+    }
+
+    @Override
+    public synchronized ArrayList<Epic> getAllEpics() {
+        return delegate.getAllEpics();
+    }
+
+    @Override
+    public synchronized void forEachTask(Consumer<? super Task> action) {
+        delegate.forEachTask(action);
+    }
+
+    @Override
+    public synchronized void forEachSubtask(Consumer<? super Subtask> action) {
+        delegate.forEachSubtask(action);
+    }
+
+    @Override
+    public synchronized void forEachEpic(Consumer<? super Epic> action) {
+        delegate.forEachEpic(action);
+    }
+
+    @Override
+    public Collection<Task> getTasksView() {
+        return delegate.getTasksView();
+    }
+
+    @Override
+    public Collection<Subtask> getSubtasksView() {
+        return delegate.getSubtasksView();
+    }
+
+    @Override
+    public Collection<Epic> getEpicsView() {
+        return delegate.getEpicsView();
+    }
+
+    @Override
+    public IntStream streamSubtaskIdsByEpicId(int id) {
+        return delegate.streamSubtaskIdsByEpicId(id);
+    }
+
+    @Override
+    public synchronized Page<Task> getTasksPage(String cursor, int pageSize) {
+        return delegate.getTasksPage(cursor, pageSize);
+    }
+
+    @Override
+    public synchronized Page<Subtask> getSubtasksPage(String cursor, int pageSize) {
+        return delegate.getSubtasksPage(cursor, pageSize);
+    }
+
+    @Override
+    public synchronized Page<Epic> getEpicsPage(String cursor, int pageSize) {
+        return delegate.getEpicsPage(cursor, pageSize);
+    }
+
+    @Override
+    public synchronized Page<Subtask> getSubtasksPageByEpicId(int epicId, String cursor, int pageSize) {
+        return delegate.getSubtasksPageByEpicId(epicId, cursor, pageSize);
+    }
+
+    @Override
+    public synchronized List<Task> getTasksByStatus(TaskStatus status) {
+        return delegate.getTasksByStatus(status);
+    }
+
+    @Override
+    public synchronized List<Subtask> getSubtasksByStatus(TaskStatus status) {
+        return delegate.getSubtasksByStatus(status);
+    }
+
+    @Override
+    public synchronized List<Epic> getEpicsByStatus(TaskStatus status) {
+        return delegate.getEpicsByStatus(status);
+    }
+
+    @Override
+    public synchronized int countTasksByStatus(TaskStatus status) {
+        return delegate.countTasksByStatus(status);
+    }
+
+    @Override
+    public synchronized int countSubtasksByStatus(TaskStatus status) {
+        return delegate.countSubtasksByStatus(status);
+    }
+
+    @Override
+    public synchronized int countEpicsByStatus(TaskStatus status) {
+        return delegate.countEpicsByStatus(status);
+    }
+
+    /**
+     * Not logged: the index is rebuilt from the tasks when search is turned on after a reopen.
+     */
+    @Override
+    public synchronized void setTextSearch(boolean enabled) {
+        delegateAs(TaskSearch.class).setTextSearch(enabled);
+    }
+
+    @Override
+    public synchronized List<Task> search(String query, int limit) {
+        return delegateAs(TaskSearch.class).search(query, limit);
+    }
+
+    @Override
+    public synchronized List<Task> getPrioritizedTasks() {
+        return delegate.getPrioritizedTasks();
+    }
+
+    /**
+     * Not logged: the grid is rebuilt from the scheduled tasks when it is set again after a reopen.
+     */
+    @Override
+    public synchronized void setSlotGrid(LocalDateTime origin, Duration slotSize, Duration horizon) {
+        delegateAs(SlotCalendar.class).setSlotGrid(origin, slotSize, horizon);
+    }
+
+    @Override
+    public synchronized boolean isFree(LocalDateTime from, LocalDateTime to) {
+        return delegateAs(SlotCalendar.class).isFree(from, to);
+    }
+
+    @Override
+    public synchronized List<LocalDateTime> getFreeSlots(LocalDateTime from, LocalDateTime to) {
+        return delegateAs(SlotCalendar.class).getFreeSlots(from, to);
+    }
+
+    @Override
+    public synchronized LocalDateTime findFreeSlots(LocalDateTime from, int count) {
+        return delegateAs(SlotCalendar.class).findFreeSlots(from, count);
+    }
+
+    @Override
+    public synchronized long getRevision() {
+        return delegateAs(ChangeFeed.class).getRevision();
+    }
+
+    /**
+     * Revisions are not logged, the changes replayed on open are recorded by the delegate like any
+     * others. Changes since a revision from before the open are reported too old, as the revision
+     * may come from an earlier run.
+     */
+    @Override
+    public synchronized ChangeSet getChangesSince(long revision, int limit) {
+        ChangeFeed feed = delegateAs(ChangeFeed.class);
+        if (revision < openRevision) {
+            if (limit <= 0) {
+                throw new IllegalArgumentException("Limit should be positive");
+            }
+            return ChangeSet.tooOld(feed.getRevision());
+        }
+        return feed.getChangesSince(revision, limit);
+    }
+
+    /**
+     * Not logged, like the slot grid.
+     */
+    @Override
+    public synchronized void setChangelogCapacity(int capacity) {
+        delegateAs(ChangeFeed.class).setChangelogCapacity(capacity);
+    }
+
+    @Override
+    public synchronized Set<Integer> getSubtasksByEpicId(int id) {
+        return delegate.getSubtasksByEpicId(id);
+    }
+
+    @Override
+    public synchronized int[] getSubtaskIdsByEpicId(int id) {
+        return delegate.getSubtaskIdsByEpicId(id);
+    }
+
+    @Override
+    public synchronized void clearTasks() {
+        append(record.clear().putByte(CLEAR_TASKS));
+        apply(() -> delegate.clearTasks());
+        afterAppend();
+    }
+
+    @Override
+    public synchronized void clearSubtasks() {
+        append(record.clear().putByte(CLEAR_SUBTASKS));
+        apply(() -> delegate.clearSubtasks());
+        afterAppend();
+    }
+
+    @Override
+    public synchronized void clearEpics() {
+        append(record.clear().putByte(CLEAR_EPICS));
+        apply(() -> delegate.clearEpics());
+        afterAppend();
+    }
+
+    @Override
+    public synchronized Task getTaskById(int taskId) {
+        return delegate.getTaskById(taskId);
+    }
+
+    @Override
+    public synchronized Subtask getSubTaskById(int taskId) {
+        return delegate.getSubTaskById(taskId);
+    }
+
+    @Override
+    public synchronized Epic getEpicById(int taskId) {
+        return delegate.getEpicById(taskId);
+    }
+
+    @Override
+    public synchronized Task findTask(int taskId) {
+        return delegate.findTask(taskId);
+    }
+
+    @Override
+    public synchronized Subtask findSubtask(int subtaskId) {
+        return delegate.findSubtask(subtaskId);
+    }
+
+    @Override
+    public synchronized Epic findEpic(int epicId) {
+        return delegate.findEpic(epicId);
+    }
+
+    @Override
+    public synchronized void deleteTaskById(int taskId) {
+        append(record.clear().putByte(DELETE_TASK).putInt(taskId));
+        apply(() -> delegate.deleteTaskById(taskId));
+        afterAppend();
+    }
+
+    @Override
+    public synchronized void deleteSubTaskById(int subTaskId) {
+        append(record.clear().putByte(DELETE_SUBTASK).putInt(subTaskId));
+        apply(() -> delegate.deleteSubTaskById(subTaskId));
+        afterAppend();
+    }
+
+    @Override
+    public synchronized void deleteEpicById(int epicId) {
+        append(record.clear().putByte(DELETE_EPIC).putInt(epicId));
+        apply(() -> delegate.deleteEpicById(epicId));
+        afterAppend();
+    }
+
+    @Override
+    public synchronized void updateTask(Task newTask) {
+        append(putTask(record.clear().putByte(UPDATE_TASK), newTask));
+        apply(() -> delegate.updateTask(newTask));
+        afterAppend();
+    }
+
+    @Override
+    public synchronized void updateSubTask(Subtask newSubTask) {
+        append(putTask(record.clear().putByte(UPDATE_SUBTASK), newSubTask).putInt(newSubTask.getEpicId()));
+        apply(() -> delegate.updateSubTask(newSubTask));
+        afterAppend();
+    }
+
+    @Override
+    public synchronized void updateEpic(Epic newEpic) {
+        append(putTask(record.clear().putByte(UPDATE_EPIC), newEpic));
+        apply(() -> delegate.updateEpic(newEpic));
+        afterAppend();
+    }
+
+    @Override
+    public synchronized ArrayList<Task> getHistory() {
+        return delegate.getHistory();
+    }
+
+    public TaskManager getDelegate() {
+        return delegate;
+    }
+
+    public long getLogSize() {
+        return log.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            log.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Could not close log", e);
+        }
+    }
+
+    protected MutationLog getLog() {
+        return log;
+    }
+
+    /**
+     * Called after every logged mutation has been applied, while the mutation lock is still held.
+     */
+    protected void afterAppend() {
+    }
+
+    private <T> T delegateAs(Class<T> feature) {
+        if (!feature.isInstance(delegate)) {
+            throw new FeatureNotEnabledException(delegate.getClass().getSimpleName() + " has no "
+                    + feature.getSimpleName());
+        }
+        return feature.cast(delegate);
+    }
+
+    private void apply(Runnable mutation) {
+        applyAndGet(() -> {
+            mutation.run();
+            return null;
+        });
+    }
+
+    // A change that failed after its record was logged for any reason but a rejection would be
+    // applied by a replay, so no further change is taken until the manager is reopened.
+    private <T> T applyAndGet(Supplier<T> mutation) {
+        try {
+            return mutation.get();
+        } catch (RuntimeException e) {
+            if (!LogReplayer.isRejection(e)) {
+                failure = e;
+            }
+            throw e;
+        }
+    }
+
+    private void append(RecordBuffer record) {
+        if (failure != null) {
+            throw new ManagerSaveException("A change failed after it was logged, reopen the manager to continue",
+                    failure);
+        }
+        try {
+            log.append(record);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Could not write to log", e);
+        }
+    }
+
+    private <T extends Task> void appendBatch(byte operation, List<T> batch,
+                                              BiConsumer<RecordBuffer, T> writer) {
+        for (int from = 0; from < batch.size(); from += BATCH_RECORD_LIMIT) {
+            int to = Math.min(batch.size(), from + BATCH_RECORD_LIMIT);
+            record.clear().putByte(operation).putInt(batchHeader(from, to, batch.size()));
+            for (T task : batch.subList(from, to)) {
+                writer.accept(record, task);
+            }
+            append(record);
+        }
+    }
+
+    private void appendBatch(byte operation, int[] ids) {
+        for (int from = 0; from < ids.length; from += BATCH_RECORD_LIMIT) {
+            int to = Math.min(ids.length, from + BATCH_RECORD_LIMIT);
+            record.clear().putByte(operation).putInt(batchHeader(from, to, ids.length));
+            for (int i = from; i < to; i++) {
+                record.putInt(ids[i]);
+            }
+            append(record);
+        }
+    }
+
+    private static int batchHeader(int from, int to, int size) {
+        return (to - from) | (from > 0 ? BATCH_CONTINUED : 0) | (to < size ? BATCH_MORE : 0);
+    }
+
+    private static MutationLog openLog(Path logFile, FsyncPolicy fsyncPolicy) {
+        try {
+            return new WriteAheadLog(logFile, fsyncPolicy);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Could not open log " + logFile, e);
+        }
+    }
+
+    // Epic time is derived from the subtasks, so it is never written.
+    private static RecordBuffer putTask(RecordBuffer record, Task task) {
+        LocalDateTime start = task instanceof Epic ? null : task.getStartTime();
+        Duration duration = task instanceof Epic ? null : task.getDuration();
+        record.putInt(task.getId())
+                .putByte(RecordBuffer.statusFlags(task.getStatus(), start, duration))
+                .putString(task.getName())
+                .putString(task.getDescription());
+        if (start != null) {
+            record.putDateTime(start);
+        }
+        if (duration != null) {
+            record.putDuration(duration);
+        }
+        return record;
+    }
+}
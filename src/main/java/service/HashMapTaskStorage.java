@@ -0,0 +1,45 @@
+package service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+
+public class HashMapTaskStorage<V> implements TaskStorage<V> {
+
+    private final HashMap<Integer, V> values = new HashMap<>();
+
+    @Override
+    public V get(int id) {
+        return values.get(id);
+    }
+
+    @Override
+    public boolean containsKey(int id) {
+        return values.containsKey(id);
+    }
+
+    @Override
+    public V put(int id, V value) {
+        return values.put(id, value);
+    }
+
+    @Override
+    public V remove(int id) {
+        return values.remove(id);
+    }
+
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    @Override
+    public void clear() {
+        values.clear();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return Collections.unmodifiableCollection(values.values());
+    }
+}
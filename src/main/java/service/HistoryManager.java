@@ -10,5 +10,15 @@ public interface HistoryManager {
 
     void remove(int id);
 
+    /**
+     * Removes every given id in one call, ids that are not in the history are skipped.
+     */
+    void removeAll(int[] ids);
+
     ArrayList<Task> getHistory();
+
+    /**
+     * Returns at most limit most recently viewed tasks, from older to newer.
+     */
+    ArrayList<Task> getHistory(int limit);
 }
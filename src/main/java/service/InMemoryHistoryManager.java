@@ -3,15 +3,31 @@ package service;
 import model.Task;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 public class InMemoryHistoryManager implements HistoryManager {
 
     private final Map<Integer, Node> nodes = new HashMap<>();
+    private final int capacity;
     private Node head;
     private Node tail;
 
+    public InMemoryHistoryManager() {
+        this.capacity = Integer.MAX_VALUE;
+    }
+
+    /**
+     * History that keeps at most capacity entries, the least recently viewed one is evicted first.
+     */
+    public InMemoryHistoryManager(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("History capacity should be positive");
+        }
+        this.capacity = capacity;
+    }
+
     @Override
     public void add(Task task) {
         if (task == null) {
@@ -19,6 +35,9 @@ public class InMemoryHistoryManager implements HistoryManager {
         }
         remove(task.getId());
         linkLast(task);
+        if (nodes.size() > capacity) {
+            remove(head.data.getId());
+        }
     }
 
     @Override
@@ -27,11 +46,33 @@ public class InMemoryHistoryManager implements HistoryManager {
         removeNode(nodeToRemove);
     }
 
+    @Override
+    public void removeAll(int[] ids) {
+        for (int id : ids) {
+            removeNode(nodes.remove(id));
+        }
+    }
+
     @Override
     public ArrayList<Task> getHistory() {
         return getTasks();
     }
 
+    @Override
+    public ArrayList<Task> getHistory(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit should not be negative");
+        }
+        final ArrayList<Task> history = new ArrayList<>(Math.min(limit, nodes.size()));
+        Node current = tail;
+        while (current != null && history.size() < limit) {
+            history.add(current.data);
+            current = current.prev;
+        }
+        Collections.reverse(history);
+        return history;
+    }
+
     private void linkLast(Task taskToAdd) {
         final Node newNode = new Node(taskToAdd);
         if (tail == null) {
@@ -45,7 +86,7 @@ public class InMemoryHistoryManager implements HistoryManager {
     }
 
     private ArrayList<Task> getTasks() {
-        final ArrayList<Task> history = new ArrayList<>();
+        final ArrayList<Task> history = new ArrayList<>(nodes.size());
         Node current = head;
         while (current != null) {
             history.add(current.data);
@@ -2,27 +2,66 @@ package service;
 
 import exception.AlreadyExistsException;
 import exception.EpicDoesntExistException;
+import model.ChangeSet;
 import model.Epic;
+import model.Page;
 import model.Subtask;
 import model.Task;
+import model.TaskBodyStore;
+import model.TaskStatus;
+import model.TaskType;
 import utils.Managers;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
-public class InMemoryTaskManager implements TaskManager {
+public class InMemoryTaskManager implements TaskManager, TaskSearch, SlotCalendar, ChangeFeed {
 
     private int counter = 1;
-    final HashMap<Integer, Task> tasks = new HashMap<>();
-    final HashMap<Integer, Epic> epics = new HashMap<>();
-    final HashMap<Integer, Subtask> subtasks = new HashMap<>();
+    final OrderedTaskStorage<Task> tasks;
+    final OrderedTaskStorage<Epic> epics;
+    final OrderedTaskStorage<Subtask> subtasks;
+    final TaskStorage<TaskStatus> subtaskStatuses;
+    private final TaskIndexes indexes = new TaskIndexes();
+    private final Collection<Task> tasksView;
+    private final Collection<Epic> epicsView;
+    private final Collection<Subtask> subtasksView;
     final HistoryManager historyManager;
+    private final TaskBodyStore bodyStore;
+    private boolean epicStatusVerification;
+    private long historyWrites;
 
-    public InMemoryTaskManager(HistoryManager historyManager) {
+    /**
+     * Manager that moves names and descriptions of stored tasks to the body store and keeps only
+     * slim headers in memory, bodies are loaded back when they are read.
+     */
+    public InMemoryTaskManager(HistoryManager historyManager, StorageType storageType, TaskBodyStore bodyStore) {
         this.historyManager = historyManager;
+        this.bodyStore = bodyStore;
+        this.tasks = new OrderedTaskStorage<>(storageType.create());
+        this.epics = new OrderedTaskStorage<>(storageType.create());
+        this.subtasks = new OrderedTaskStorage<>(storageType.create());
+        this.subtaskStatuses = storageType.create();
+        this.tasksView = Collections.unmodifiableCollection(tasks.values());
+        this.epicsView = Collections.unmodifiableCollection(epics.values());
+        this.subtasksView = Collections.unmodifiableCollection(subtasks.values());
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager, StorageType storageType) {
+        this(historyManager, storageType, null);
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager) {
+        this(historyManager, StorageType.HASH_MAP);
     }
 
     public InMemoryTaskManager() {
-        this.historyManager = Managers.getDefaultHistory();
+        this(Managers.getDefaultHistory());
     }
 
     @Override
@@ -30,13 +69,26 @@ public class InMemoryTaskManager implements TaskManager {
         return counter++;
     }
 
+    @Override
+    public int peekCounter() {
+        return counter;
+    }
+
+    @Override
+    public void restoreCounter(int nextId) {
+        counter = Math.max(counter, nextId);
+    }
+
     @Override
     public Task addTask(Task task) {
-        if (!tasks.containsKey(task.getId())) {
-            tasks.put(task.getId(), task);
-        } else {
+        if (tasks.containsKey(task.getId())) {
             throw new AlreadyExistsException("object already exists");
         }
+        indexes.checkUnused(task.getId());
+        detachBody(task);
+        indexes.schedule(task);
+        tasks.put(task.getId(), task);
+        indexes.created(task);
         return task;
     }
 
@@ -45,51 +97,265 @@ public class InMemoryTaskManager implements TaskManager {
         if (!epics.containsKey(subtask.getEpicId())) {
             throw new EpicDoesntExistException("Epic does not exist");
         }
-        if (!subtasks.containsKey(subtask.getId())) {
-            subtasks.put(subtask.getId(), subtask);
-            epics.get(subtask.getEpicId()).addSubtaskById(subtask.getId());
-            updateEpicStatus(epics.get(subtask.getEpicId()));
-        } else {
+        if (subtasks.containsKey(subtask.getId())) {
             throw new AlreadyExistsException("Object already exists");
         }
+        indexes.checkUnused(subtask.getId());
+        detachBody(subtask);
+        indexes.schedule(subtask);
+        subtasks.put(subtask.getId(), subtask);
+        subtaskStatuses.put(subtask.getId(), subtask.getStatus());
+        indexes.created(subtask);
+        Epic epic = findEpic(subtask.getEpicId());
+        epic.addSubtaskById(subtask.getId(), subtask.getStatus());
+        epic.addSubtaskTime(subtask.getStartTime(), subtask.getDuration());
+        updateEpicStatus(epic);
         return subtask;
     }
 
     @Override
     public Epic addEpic(Epic epic) {
-        if (!epics.containsKey(epic.getId())) {
-            epics.put(epic.getId(), epic);
-        } else {
+        if (epics.containsKey(epic.getId())) {
             throw new AlreadyExistsException("object already exists");
         }
+        indexes.checkUnused(epic.getId());
+        detachBody(epic);
+        epics.put(epic.getId(), epic);
+        indexes.created(epic);
         return epic;
     }
 
     @Override
-    public ArrayList<Task> getAllTasks() {
-        ArrayList<Task> allTasks = new ArrayList<>();
-        for (HashMap.Entry<Integer, Task> entry : tasks.entrySet()) {
-            allTasks.add(entry.getValue());
+    public void addAllTasks(List<Task> newTasks) {
+        indexes.checkNew(newTasks);
+        newTasks.forEach(this::detachBody);
+        indexes.scheduleAll(newTasks, task -> true);
+        for (Task task : newTasks) {
+            tasks.put(task.getId(), task);
+            indexes.created(task);
         }
-        return allTasks;
     }
 
     @Override
-    public ArrayList<Epic> getAllEpics() {
-        ArrayList<Epic> allEpics = new ArrayList<>();
-        for (HashMap.Entry<Integer, Epic> entry : epics.entrySet()) {
-            allEpics.add(entry.getValue());
+    public void addAllEpics(List<Epic> newEpics) {
+        indexes.checkNew(newEpics);
+        newEpics.forEach(this::detachBody);
+        for (Epic epic : newEpics) {
+            epics.put(epic.getId(), epic);
+            indexes.created(epic);
         }
-        return allEpics;
     }
 
     @Override
-    public ArrayList<Subtask> getAllSubtasks() {
-        ArrayList<Subtask> allSubTask = new ArrayList<>();
-        for (HashMap.Entry<Integer, Subtask> entry : subtasks.entrySet()) {
-            allSubTask.add(entry.getValue());
+    public void addAllSubtasks(List<Subtask> newSubtasks) {
+        for (Subtask subtask : newSubtasks) {
+            if (!epics.containsKey(subtask.getEpicId())) {
+                throw new EpicDoesntExistException("Epic does not exist");
+            }
+        }
+        indexes.checkNew(newSubtasks);
+        newSubtasks.forEach(this::detachBody);
+        indexes.scheduleAll(newSubtasks, subtask -> true);
+        Set<Epic> affectedEpics = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Subtask subtask : newSubtasks) {
+            subtasks.put(subtask.getId(), subtask);
+            subtaskStatuses.put(subtask.getId(), subtask.getStatus());
+            indexes.created(subtask);
+            Epic epic = findEpic(subtask.getEpicId());
+            epic.addSubtaskById(subtask.getId(), subtask.getStatus());
+            epic.addSubtaskTime(subtask.getStartTime(), subtask.getDuration());
+            affectedEpics.add(epic);
+        }
+        affectedEpics.forEach(this::updateEpicStatus);
+    }
+
+    @Override
+    public void updateAllTasks(List<Task> newTasks) {
+        for (Task task : newTasks) {
+            updateTask(task);
+        }
+    }
+
+    @Override
+    public void updateAllSubtasks(List<Subtask> newSubtasks) {
+        for (Subtask subtask : newSubtasks) {
+            TaskIndexes.checkSameEpic(findSubtask(subtask.getId()), subtask);
+        }
+        for (Subtask subtask : newSubtasks) {
+            if (subtasks.containsKey(subtask.getId())) {
+                detachBody(subtask);
+            }
+        }
+        IntervalIndex.Slot[] previousSlots = indexes.scheduleAll(newSubtasks,
+                subtask -> subtasks.containsKey(subtask.getId()));
+        Set<Epic> affectedEpics = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < newSubtasks.size(); i++) {
+            Subtask subtask = newSubtasks.get(i);
+            int subtaskId = subtask.getId();
+            if (!subtasks.containsKey(subtaskId)) {
+                continue;
+            }
+            subtasks.put(subtaskId, subtask);
+            TaskStatus oldStatus = subtaskStatuses.put(subtaskId, subtask.getStatus());
+            indexes.updated(subtask);
+            Epic epic = findEpic(subtask.getEpicId());
+            epic.changeSubtaskStatus(oldStatus, subtask.getStatus());
+            TaskIndexes.moveSubtaskTime(epic, previousSlots[i], subtask);
+            affectedEpics.add(epic);
+        }
+        affectedEpics.forEach(this::updateEpicStatus);
+    }
+
+    @Override
+    public void deleteAllTasks(int[] ids) {
+        for (int id : ids) {
+            deleteTaskById(id);
+        }
+    }
+
+    @Override
+    public void deleteAllSubtasks(int[] ids) {
+        Set<Epic> affectedEpics = Collections.newSetFromMap(new IdentityHashMap<>());
+        int[] removed = new int[ids.length];
+        int removedCount = 0;
+        for (int id : ids) {
+            Subtask subtask = subtasks.remove(id);
+            if (subtask == null) {
+                continue;
+            }
+            Epic epic = findEpic(subtask.getEpicId());
+            epic.deleteSubtaskById(id, subtaskStatuses.remove(id));
+            TaskIndexes.removeSubtaskTime(epic, indexes.deleted(TaskType.SUBTASK, id));
+            affectedEpics.add(epic);
+            removed[removedCount++] = id;
+        }
+        affectedEpics.forEach(this::updateEpicStatus);
+        historyManager.removeAll(Arrays.copyOf(removed, removedCount));
+    }
+
+    @Override
+    public void deleteAllEpics(int[] ids) {
+        IntStream.Builder removed = IntStream.builder();
+        for (int id : ids) {
+            Epic epic = epics.remove(id);
+            if (epic == null) {
+                continue;
+            }
+            for (int subtaskId : removeSubtasksOf(epic)) {
+                removed.add(subtaskId);
+            }
+            indexes.deleted(TaskType.EPIC, id);
+            removed.add(id);
         }
-        return allSubTask;
+        historyManager.removeAll(removed.build().toArray());
+    }
+
+    @Override
+    public ArrayList<Task> getAllTasks() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    @Override
+    public ArrayList<Epic> getAllEpics() {
+        return new ArrayList<>(epics.values());
+    }
+
+    @Override
+    public ArrayList<Subtask> getAllSubtasks() {
+        return new ArrayList<>(subtasks.values());
+    }
+
+    @Override
+    public void forEachTask(Consumer<? super Task> action) {
+        tasks.values().forEach(action);
+    }
+
+    @Override
+    public void forEachSubtask(Consumer<? super Subtask> action) {
+        subtasks.values().forEach(action);
+    }
+
+    @Override
+    public void forEachEpic(Consumer<? super Epic> action) {
+        epics.values().forEach(action);
+    }
+
+    /**
+     * Views are created once and must not be iterated while the manager is being changed.
+     */
+    @Override
+    public Collection<Task> getTasksView() {
+        return tasksView;
+    }
+
+    @Override
+    public Collection<Subtask> getSubtasksView() {
+        return subtasksView;
+    }
+
+    @Override
+    public Collection<Epic> getEpicsView() {
+        return epicsView;
+    }
+
+    /**
+     * Lazy, the epic should not change while the stream is consumed.
+     */
+    @Override
+    public IntStream streamSubtaskIdsByEpicId(int id) {
+        Epic epic = findEpic(id);
+        return epic == null ? IntStream.empty() : epic.getSubtaskIds();
+    }
+
+    @Override
+    public Page<Task> getTasksPage(String cursor, int pageSize) {
+        return Page.collect(cursor, pageSize, tasks::ceilingId, tasks::get);
+    }
+
+    @Override
+    public Page<Subtask> getSubtasksPage(String cursor, int pageSize) {
+        return Page.collect(cursor, pageSize, subtasks::ceilingId, subtasks::get);
+    }
+
+    @Override
+    public Page<Epic> getEpicsPage(String cursor, int pageSize) {
+        return Page.collect(cursor, pageSize, epics::ceilingId, epics::get);
+    }
+
+    @Override
+    public Page<Subtask> getSubtasksPageByEpicId(int epicId, String cursor, int pageSize) {
+        Epic epic = findEpic(epicId);
+        return epic == null ? null : Page.collect(cursor, pageSize, epic::ceilingSubtaskId, subtasks::get);
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(TaskStatus status) {
+        return TaskIndexes.resolve(indexes.ids(TaskType.TASK, status), tasks::get);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(TaskStatus status) {
+        return TaskIndexes.resolve(indexes.ids(TaskType.SUBTASK, status), subtasks::get);
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(TaskStatus status) {
+        return TaskIndexes.resolve(indexes.ids(TaskType.EPIC, status), epics::get);
+    }
+
+    @Override
+    public int countTasksByStatus(TaskStatus status) {
+        return indexes.count(TaskType.TASK, status);
+    }
+
+    @Override
+    public int countSubtasksByStatus(TaskStatus status) {
+        return indexes.count(TaskType.SUBTASK, status);
+    }
+
+    @Override
+    public int countEpicsByStatus(TaskStatus status) {
+        return indexes.count(TaskType.EPIC, status);
     }
 
     @Override
@@ -97,63 +363,78 @@ public class InMemoryTaskManager implements TaskManager {
         if (!epics.containsKey(id)) {
             return null;
         }
-        return new HashSet<>(epics.get(id).getSubtasks());
+        return findEpic(id).getSubtaskIds().boxed().collect(Collectors.toCollection(HashSet::new));
+    }
+
+    @Override
+    public int[] getSubtaskIdsByEpicId(int id) {
+        Epic epic = findEpic(id);
+        return epic == null ? null : epic.getSubtasks();
     }
 
     @Override
     public void clearTasks() {
-        tasks.values().forEach(t -> historyManager.remove(t.getId()));
+        int[] taskIds = ids(tasks);
+        historyManager.removeAll(taskIds);
         tasks.clear();
+        indexes.cleared(TaskType.TASK, taskIds);
     }
 
     @Override
     public void clearEpics() {
-        for (HashMap.Entry<Integer, Epic> entry : epics.entrySet()) {
-            HashSet<Integer> subtasksByEpic = epics.get(entry.getKey()).getSubtasks();
-            if (!subtasksByEpic.isEmpty()) {
-                for (int subTaskId : subtasksByEpic) {
-                    subtasks.remove(subTaskId);
-                    historyManager.remove(subTaskId);
-                }
-            }
-        }
-        epics.values().forEach(e -> historyManager.remove(e.getId()));
+        // Every subtask belongs to some epic, so both go as a whole.
+        int[] subtaskIds = ids(subtasks);
+        int[] epicIds = ids(epics);
+        subtasks.clear();
+        subtaskStatuses.clear();
         epics.clear();
+        historyManager.removeAll(subtaskIds);
+        historyManager.removeAll(epicIds);
+        indexes.cleared(TaskType.SUBTASK, subtaskIds);
+        indexes.cleared(TaskType.EPIC, epicIds);
     }
 
     @Override
     public void clearSubtasks() {
-        for (Map.Entry<Integer, Subtask> entry : subtasks.entrySet()) {
-            int epicId = subtasks.get(entry.getKey()).getEpicId();
-            epics.get(epicId).deleteSubtaskById(entry.getKey());
-            updateEpicStatus(epics.get(epicId));
+        int[] subtaskIds = ids(subtasks);
+        indexes.cleared(TaskType.SUBTASK, subtaskIds);
+        for (Epic epic : epics.values()) {
+            if (epic.getSubtasksCount() > 0) {
+                epic.clearSubtasks();
+                updateEpicStatus(epic);
+            }
         }
-        subtasks.values().forEach(st -> historyManager.remove(st.getId()));
+        historyManager.removeAll(subtaskIds);
         subtasks.clear();
+        subtaskStatuses.clear();
     }
 
     @Override
     public Task getTaskById(int taskId) {
-        historyManager.add(tasks.get(taskId));
-        return tasks.getOrDefault(taskId, null);
+        Task task = findTask(taskId);
+        recordView(task);
+        return task;
     }
 
     @Override
     public Subtask getSubTaskById(int taskId) {
-        historyManager.add(subtasks.get(taskId));
-        return subtasks.getOrDefault(taskId, null);
+        Subtask subtask = findSubtask(taskId);
+        recordView(subtask);
+        return subtask;
     }
 
     @Override
     public Epic getEpicById(int taskId) {
-        historyManager.add(epics.get(taskId));
-        return epics.getOrDefault(taskId, null);
+        Epic epic = findEpic(taskId);
+        recordView(epic);
+        return epic;
     }
 
     @Override
     public void deleteTaskById(int taskId) {
         if (tasks.containsKey(taskId)) {
             tasks.remove(taskId);
+            indexes.deleted(TaskType.TASK, taskId);
             historyManager.remove(taskId);
         }
     }
@@ -161,54 +442,80 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public void deleteSubTaskById(int subTaskId) {
         if (subtasks.containsKey(subTaskId)) {
-            int epicId = subtasks.get(subTaskId).getEpicId();
+            Epic epic = findEpic(findSubtask(subTaskId).getEpicId());
             subtasks.remove(subTaskId);
+            TaskStatus status = subtaskStatuses.remove(subTaskId);
+            IntervalIndex.Slot slot = indexes.deleted(TaskType.SUBTASK, subTaskId);
 
-            epics.get(epicId).deleteSubtaskById(subTaskId);
-            updateEpicStatus(epics.get(epicId));
+            epic.deleteSubtaskById(subTaskId, status);
+            TaskIndexes.removeSubtaskTime(epic, slot);
+            updateEpicStatus(epic);
             historyManager.remove(subTaskId);
         }
     }
 
     @Override
     public void deleteEpicById(int epicId) {
-        if (epics.containsKey(epicId)) {
-            HashSet<Integer> subtasksByEpic = epics.get(epicId).getSubtasks();
-            if (!subtasksByEpic.isEmpty()) {
-                for (int subTaskId : subtasksByEpic) {
-                    subtasks.remove(subTaskId);
-                    historyManager.remove(subTaskId);
-                }
-            }
-            epics.remove(epicId);
+        Epic epic = epics.remove(epicId);
+        if (epic != null) {
+            historyManager.removeAll(removeSubtasksOf(epic));
             historyManager.remove(epicId);
+            indexes.deleted(TaskType.EPIC, epicId);
         }
     }
 
+    /**
+     * Drops subtasks of a removed epic from storage and returns their ids.
+     */
+    private int[] removeSubtasksOf(Epic epic) {
+        int[] subtasksByEpic = epic.getSubtasks();
+        for (int subTaskId : subtasksByEpic) {
+            subtasks.remove(subTaskId);
+            subtaskStatuses.remove(subTaskId);
+            indexes.deleted(TaskType.SUBTASK, subTaskId);
+        }
+        return subtasksByEpic;
+    }
+
+    private static int[] ids(TaskStorage<? extends Task> storage) {
+        return storage.values().stream().mapToInt(Task::getId).toArray();
+    }
+
     @Override
     public void updateTask(Task newTask) {
         int newTaskId = newTask.getId();
         if (!tasks.containsKey(newTaskId)) return;
-            tasks.put(newTaskId, newTask);
+        detachBody(newTask);
+        indexes.schedule(newTask);
+        tasks.put(newTaskId, newTask);
+        indexes.updated(newTask);
     }
 
     @Override
     public void updateSubTask(Subtask newSubTask) {
         int newSubTaskId = newSubTask.getId();
-        if (!subtasks.containsKey(newSubTaskId)) return;
+        Subtask stored = findSubtask(newSubTaskId);
+        if (stored == null) return;
+        TaskIndexes.checkSameEpic(stored, newSubTask);
 
+        detachBody(newSubTask);
+        IntervalIndex.Slot previousSlot = indexes.schedule(newSubTask);
         subtasks.put(newSubTaskId, newSubTask);
-        int epicId = subtasks.get(newSubTaskId).getEpicId();
-        updateEpicStatus(epics.get(epicId));
+        TaskStatus oldStatus = subtaskStatuses.put(newSubTaskId, newSubTask.getStatus());
+        indexes.updated(newSubTask);
+        Epic epic = findEpic(stored.getEpicId());
+        epic.changeSubtaskStatus(oldStatus, newSubTask.getStatus());
+        TaskIndexes.moveSubtaskTime(epic, previousSlot, newSubTask);
+        updateEpicStatus(epic);
     }
 
     @Override
     public void updateEpic(Epic newEpic) {
-        int newEpicId = newEpic.getId();
-        if (!epics.containsKey(newEpicId)) return;
-        if (!epics.get(newEpicId).equals(newEpic)) {
-            epics.put(newEpicId, newEpic);
-        }
+        Epic epic = findEpic(newEpic.getId());
+        if (epic == null) return;
+        detachBody(newEpic);
+        epic.setBody(newEpic);
+        indexes.updated(epic);
     }
 
     @Override
@@ -216,15 +523,146 @@ public class InMemoryTaskManager implements TaskManager {
         return historyManager.getHistory();
     }
 
+    /**
+     * When enabled, every epic status change is cross-checked against a full recompute
+     * over the last saved statuses of the epic subtasks. Meant for tests, makes each
+     * subtask mutation O(m) again.
+     */
+    public void setEpicStatusVerification(boolean epicStatusVerification) {
+        this.epicStatusVerification = epicStatusVerification;
+    }
+
+    /**
+     * Turns the full-text index used by {@link #search} on or off. Turning it on indexes everything
+     * stored so far, which loads detached bodies back from the body store once.
+     */
+    @Override
+    public void setTextSearch(boolean enabled) {
+        indexes.setTextSearch(enabled, Stream.of(tasks.values(), epics.values(), subtasks.values())
+                .flatMap(Collection::stream));
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        int[] ids = indexes.search(query, limit);
+        return TaskIndexes.resolve(ids, indexes.typesOf(ids), this::find);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        int[] ids = indexes.prioritized();
+        return TaskIndexes.resolve(ids, indexes.typesOf(ids), this::find);
+    }
+
+    @Override
+    public void setSlotGrid(LocalDateTime origin, Duration slotSize, Duration horizon) {
+        indexes.setGrid(origin == null ? null : new SlotGrid(origin, slotSize, horizon));
+    }
+
+    @Override
+    public boolean isFree(LocalDateTime from, LocalDateTime to) {
+        return indexes.grid().isFree(from, to);
+    }
+
+    @Override
+    public List<LocalDateTime> getFreeSlots(LocalDateTime from, LocalDateTime to) {
+        return indexes.grid().freeSlots(from, to);
+    }
+
+    @Override
+    public LocalDateTime findFreeSlots(LocalDateTime from, int count) {
+        return indexes.grid().findFree(from, count);
+    }
+
+    @Override
+    public long getRevision() {
+        return indexes.revision();
+    }
+
+    @Override
+    public ChangeSet getChangesSince(long revision, int limit) {
+        return indexes.since(revision, limit).resolve(this::find);
+    }
+
+    @Override
+    public void setChangelogCapacity(int capacity) {
+        indexes.resizeChangelog(capacity);
+    }
+
+    private Task find(TaskType type, int id) {
+        return switch (type) {
+            case TASK -> findTask(id);
+            case EPIC -> findEpic(id);
+            case SUBTASK -> findSubtask(id);
+        };
+    }
+
+    // Called before any index is touched, so a failing body store leaves the manager as it was.
+    private void detachBody(Task task) {
+        if (bodyStore != null) {
+            task.detachBody(bodyStore);
+        }
+    }
+
     private void updateEpicStatus(Epic epic) {
-        List<Subtask> subtasksByEpic = epic
-                .getSubtasks()
-                .stream()
-                .map(this::getSubTaskById).toList();
-        epic.calculateStatus(subtasksByEpic);
+        indexes.refreshStatus(epic);
+        if (epicStatusVerification) {
+            verifyEpicStatus(epic);
+        }
+    }
+
+    private void verifyEpicStatus(Epic epic) {
+        List<TaskStatus> statusesByEpic = epic
+                .getSubtaskIds()
+                .mapToObj(subtaskStatuses::get).toList();
+        TaskStatus expected = Epic.recalculateStatus(statusesByEpic);
+        if (expected != epic.getStatus()) {
+            throw new IllegalStateException("Epic " + epic.getId() + " status " + epic.getStatus()
+                    + " does not match recalculated status " + expected);
+        }
+    }
+
+    /**
+     * Publisher of every change made through this manager, in the order the changes were made and
+     * with the revision of each. Nothing is built for events while there are no subscribers.
+     */
+    public TaskEventPublisher getEvents() {
+        return indexes.events();
     }
 
     public HistoryManager getHistoryManager() {
         return historyManager;
     }
+
+    /**
+     * Number of writes made to the history manager since creation. Only the public getters
+     * record views, so callers can measure history writes per API call as a difference.
+     */
+    public long getHistoryWriteCount() {
+        return historyWrites;
+    }
+
+    // Also the internal read path: never records views, use it for all bookkeeping inside the manager.
+    @Override
+    public Task findTask(int taskId) {
+        return tasks.get(taskId);
+    }
+
+    @Override
+    public Subtask findSubtask(int subtaskId) {
+        return subtasks.get(subtaskId);
+    }
+
+    @Override
+    public Epic findEpic(int epicId) {
+        return epics.get(epicId);
+    }
+
+    private void recordView(Task task) {
+        if (task == null) {
+            return;
+        }
+        historyManager.add(task);
+        historyWrites++;
+    }
 }
@@ -0,0 +1,213 @@
+package service;
+
+import exception.FeatureNotEnabledException;
+import exception.TaskOverlapException;
+import model.Task;
+import utils.IntObjectHashMap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Start and duration of every timed task and subtask, with the scheduled ones in a red-black tree
+ * by start time, so an overlap check or a move is O(log n) and the timeline is walked in order.
+ * <p>
+ * Intervals are half-open, [start, start + duration), and the ones accepted never overlap, so only
+ * the nearest interval starting at or before a new one and the nearest starting after it can
+ * overlap it. Two intervals with the same start overlap even when they are empty. The time an id
+ * had before is kept here, so callers only pass the time an item has now, even if the stored
+ * object was changed in place. When a {@link SlotGrid} is set, it follows every scheduled slot.
+ * Not thread-safe.
+ */
+final class IntervalIndex {
+
+    private final TreeMap<LocalDateTime, Slot> byStart = new TreeMap<>();
+    private final IntObjectHashMap<Slot> byId = new IntObjectHashMap<>();
+    private SlotGrid grid;
+
+    /**
+     * Time of an item as it was recorded, the start may be null for an unscheduled item with a
+     * duration.
+     */
+    static final class Slot {
+        final int id;
+        final LocalDateTime start;
+        final Duration duration;
+        final LocalDateTime end;
+
+        Slot(int id, LocalDateTime start, Duration duration) {
+            this.id = id;
+            this.start = start;
+            this.duration = duration;
+            this.end = start == null || duration == null ? start : start.plus(duration);
+        }
+    }
+
+    /**
+     * Records the current time of the task and returns the slot it had before, null when it had
+     * none. When the task overlaps another one nothing changes and TaskOverlapException is thrown.
+     */
+    Slot put(Task task) {
+        int id = task.getId();
+        LocalDateTime start = task.getStartTime();
+        Duration duration = task.getDuration();
+        Slot previous = byId.get(id);
+        if (!hasTime(task)) {
+            if (previous != null) {
+                remove(id);
+            }
+            return previous;
+        }
+        Slot slot = new Slot(id, start, duration);
+        if (start != null) {
+            Slot other = findOverlap(slot);
+            if (other != null) {
+                throw new TaskOverlapException("Task " + id + " from " + start + " to " + slot.end
+                        + " overlaps task " + other.id + " from " + other.start + " to " + other.end);
+            }
+        }
+        if (previous != null) {
+            remove(id);
+        }
+        insert(slot);
+        return previous;
+    }
+
+    /**
+     * Puts the times of the batch items passing the filter, all of them or, when one overlaps,
+     * none. Returns the previous slot of every item by its position in the batch.
+     */
+    <T extends Task> Slot[] putAll(List<? extends T> batch, Predicate<? super T> filter) {
+        Slot[] previous = new Slot[batch.size()];
+        int scheduled = 0;
+        try {
+            for (; scheduled < batch.size(); scheduled++) {
+                T task = batch.get(scheduled);
+                if (filter.test(task)) {
+                    previous[scheduled] = put(task);
+                }
+            }
+        } catch (TaskOverlapException e) {
+            // Undone backwards, so an id repeated in the batch ends with the slot it had first.
+            while (--scheduled >= 0) {
+                T task = batch.get(scheduled);
+                if (filter.test(task)) {
+                    restore(task.getId(), previous[scheduled]);
+                }
+            }
+            throw e;
+        }
+        return previous;
+    }
+
+    /**
+     * Puts back the slot an id had before {@link #put}, null meaning none.
+     */
+    void restore(int id, Slot previous) {
+        remove(id);
+        if (previous != null) {
+            insert(previous);
+        }
+    }
+
+    /**
+     * Whether the task has a start or a duration, that is whether it gets a slot.
+     */
+    static boolean hasTime(Task task) {
+        return task.getStartTime() != null || task.getDuration() != null;
+    }
+
+    /**
+     * Replaces the grid, null for none, and marks every scheduled slot in the new one.
+     */
+    void setGrid(SlotGrid grid) {
+        if (grid != null) {
+            for (Slot slot : byStart.values()) {
+                grid.add(slot.start, slot.end);
+            }
+        }
+        this.grid = grid;
+    }
+
+    SlotGrid grid() {
+        if (grid == null) {
+            throw new FeatureNotEnabledException("Slot grid is not set");
+        }
+        return grid;
+    }
+
+    Slot get(int id) {
+        return byId.get(id);
+    }
+
+    Slot remove(int id) {
+        Slot slot = byId.remove(id);
+        if (slot != null && slot.start != null) {
+            byStart.remove(slot.start);
+            if (grid != null) {
+                grid.remove(slot.start, slot.end);
+            }
+        }
+        return slot;
+    }
+
+    void clear() {
+        if (grid != null) {
+            for (Slot slot : byStart.values()) {
+                grid.remove(slot.start, slot.end);
+            }
+        }
+        byStart.clear();
+        byId.clear();
+    }
+
+    /**
+     * Number of items with a start time.
+     */
+    int scheduledCount() {
+        return byStart.size();
+    }
+
+    /**
+     * Slots with a start time, earliest first. A live view, not to be iterated while changing.
+     */
+    Collection<Slot> scheduled() {
+        return byStart.values();
+    }
+
+    private void insert(Slot slot) {
+        byId.put(slot.id, slot);
+        if (slot.start != null) {
+            byStart.put(slot.start, slot);
+            if (grid != null) {
+                grid.add(slot.start, slot.end);
+            }
+        }
+    }
+
+    /**
+     * Another item overlapping the slot, its own previous slot does not count.
+     */
+    private Slot findOverlap(Slot slot) {
+        Map.Entry<LocalDateTime, Slot> before = byStart.floorEntry(slot.start);
+        if (before != null && before.getValue().id == slot.id) {
+            before = byStart.lowerEntry(before.getKey());
+        }
+        if (before != null && (before.getKey().equals(slot.start) || before.getValue().end.isAfter(slot.start))) {
+            return before.getValue();
+        }
+        Map.Entry<LocalDateTime, Slot> after = byStart.higherEntry(slot.start);
+        if (after != null && after.getValue().id == slot.id) {
+            after = byStart.higherEntry(after.getKey());
+        }
+        if (after != null && after.getKey().isBefore(slot.end)) {
+            return after.getValue();
+        }
+        return null;
+    }
+}
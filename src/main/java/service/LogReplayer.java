@@ -0,0 +1,191 @@
+package service;
+
+import exception.AlreadyExistsException;
+import exception.EpicDoesntExistException;
+import exception.TaskOverlapException;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import persistence.RecordBuffer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static persistence.RecordBuffer.HAS_DURATION;
+import static persistence.RecordBuffer.HAS_START;
+import static persistence.RecordBuffer.STATUS_MASK;
+import static service.FileBackedTaskManager.*;
+
+/**
+ * Applies records written by {@link FileBackedTaskManager} to a manager and remembers the highest
+ * id seen, so the counter can be restored past it.
+ * <p>
+ * Records are logged before they are applied, so a log may hold changes the manager rejected when
+ * they were made. Replayed in the same state they are rejected the same way, and are skipped. A batch
+ * split into several records is applied once its last record is read, a batch whose last record
+ * never reached the log is dropped.
+ */
+final class LogReplayer implements Consumer<ByteBuffer> {
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final TaskManager target;
+    private int maxId;
+    private final List<Object> batchParts = new ArrayList<>();
+    private byte batchOperation;
+
+    LogReplayer(TaskManager target) {
+        this.target = target;
+    }
+
+    int getMaxId() {
+        return maxId;
+    }
+
+    @Override
+    public void accept(ByteBuffer payload) {
+        byte operation = payload.get();
+        try {
+            apply(operation, payload);
+        } catch (RuntimeException e) {
+            if (!isRejection(e)) {
+                throw e;
+            }
+            // Rejected when it was logged as well, the manager was left unchanged then too.
+        }
+    }
+
+    /**
+     * Whether the manager refused the change after checking it, leaving its state as it was.
+     */
+    static boolean isRejection(RuntimeException e) {
+        return e instanceof AlreadyExistsException || e instanceof EpicDoesntExistException
+                || e instanceof TaskOverlapException || e instanceof IllegalArgumentException;
+    }
+
+    private void apply(byte operation, ByteBuffer payload) {
+        switch (operation) {
+            case ADD_TASK -> target.addTask(readTask(payload));
+            case ADD_EPIC -> target.addEpic(readEpic(payload));
+            case ADD_SUBTASK -> target.addSubTask(readSubtask(payload));
+            case UPDATE_TASK -> target.updateTask(readTask(payload));
+            case UPDATE_EPIC -> target.updateEpic(readEpic(payload));
+            case UPDATE_SUBTASK -> target.updateSubTask(readSubtask(payload));
+            case DELETE_TASK -> target.deleteTaskById(payload.getInt());
+            case DELETE_EPIC -> target.deleteEpicById(payload.getInt());
+            case DELETE_SUBTASK -> target.deleteSubTaskById(payload.getInt());
+            case CLEAR_TASKS -> target.clearTasks();
+            case CLEAR_EPICS -> target.clearEpics();
+            case CLEAR_SUBTASKS -> target.clearSubtasks();
+            case RESTORE_COUNTER -> target.restoreCounter(payload.getInt());
+            case ADD_TASKS -> applyBatch(operation, payload, this::readTask, target::addAllTasks);
+            case ADD_EPICS -> applyBatch(operation, payload, this::readEpic, target::addAllEpics);
+            case ADD_SUBTASKS -> applyBatch(operation, payload, this::readSubtask, target::addAllSubtasks);
+            case UPDATE_TASKS -> applyBatch(operation, payload, this::readTask, target::updateAllTasks);
+            case UPDATE_SUBTASKS -> applyBatch(operation, payload, this::readSubtask, target::updateAllSubtasks);
+            case DELETE_TASKS -> applyIds(operation, payload, target::deleteAllTasks);
+            case DELETE_SUBTASKS -> applyIds(operation, payload, target::deleteAllSubtasks);
+            case DELETE_EPICS -> applyIds(operation, payload, target::deleteAllEpics);
+            default -> throw new IllegalStateException("Unknown log operation " + operation);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void applyBatch(byte operation, ByteBuffer payload, Function<ByteBuffer, T> reader,
+                                Consumer<List<T>> apply) {
+        int header = payload.getInt();
+        int count = header & BATCH_COUNT_MASK;
+        List<T> part = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            part.add(reader.apply(payload));
+        }
+        List<Object> parts = join(operation, header, part);
+        if (parts == null) {
+            return;
+        }
+        List<T> batch = new ArrayList<>();
+        for (Object each : parts) {
+            batch.addAll((List<T>) each);
+        }
+        apply.accept(batch);
+    }
+
+    private void applyIds(byte operation, ByteBuffer payload, Consumer<int[]> apply) {
+        int header = payload.getInt();
+        int[] part = new int[header & BATCH_COUNT_MASK];
+        for (int i = 0; i < part.length; i++) {
+            part[i] = payload.getInt();
+        }
+        List<Object> parts = join(operation, header, part);
+        if (parts != null) {
+            apply.accept(parts.stream().flatMapToInt(each -> IntStream.of((int[]) each)).toArray());
+        }
+    }
+
+    /**
+     * Collects the records of one batch and returns them once the last one is read, null before. A
+     * batch logged in a single record is returned at once.
+     */
+    private List<Object> join(byte operation, int header, Object part) {
+        if ((header & BATCH_CONTINUED) == 0) {
+            batchParts.clear();
+        } else if (batchParts.isEmpty() || batchOperation != operation) {
+            throw new IllegalStateException("Log record " + operation + " continues no batch");
+        }
+        batchOperation = operation;
+        batchParts.add(part);
+        if ((header & BATCH_MORE) != 0) {
+            return null;
+        }
+        List<Object> parts = List.copyOf(batchParts);
+        batchParts.clear();
+        return parts;
+    }
+
+    private Task readTask(ByteBuffer payload) {
+        int id = readId(payload);
+        byte flags = payload.get();
+        Task task = new Task(RecordBuffer.getString(payload), RecordBuffer.getString(payload), id,
+                STATUSES[flags & STATUS_MASK]);
+        return readTime(payload, flags, task);
+    }
+
+    private Epic readEpic(ByteBuffer payload) {
+        int id = readId(payload);
+        payload.get();
+        return new Epic(RecordBuffer.getString(payload), RecordBuffer.getString(payload), id);
+    }
+
+    private Subtask readSubtask(ByteBuffer payload) {
+        int id = readId(payload);
+        byte flags = payload.get();
+        String name = RecordBuffer.getString(payload);
+        String description = RecordBuffer.getString(payload);
+        Subtask subtask = new Subtask(name, description, id, 0, STATUSES[flags & STATUS_MASK]);
+        readTime(payload, flags, subtask);
+        subtask.setEpicId(payload.getInt());
+        return subtask;
+    }
+
+    // Logs written before tasks had a time have neither flag set.
+    private static <T extends Task> T readTime(ByteBuffer payload, byte flags, T task) {
+        if ((flags & HAS_START) != 0) {
+            task.setStartTime(RecordBuffer.getDateTime(payload));
+        }
+        if ((flags & HAS_DURATION) != 0) {
+            task.setDuration(RecordBuffer.getDuration(payload));
+        }
+        return task;
+    }
+
+    private int readId(ByteBuffer payload) {
+        int id = payload.getInt();
+        maxId = Math.max(maxId, id);
+        return id;
+    }
+}
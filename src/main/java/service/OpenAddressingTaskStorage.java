@@ -0,0 +1,48 @@
+package service;
+
+import utils.IntObjectHashMap;
+
+import java.util.Collection;
+
+/**
+ * Storage on a primitive open addressing map: no boxed keys and no entry objects.
+ */
+public class OpenAddressingTaskStorage<V> implements TaskStorage<V> {
+
+    private final IntObjectHashMap<V> values = new IntObjectHashMap<>();
+
+    @Override
+    public V get(int id) {
+        return values.get(id);
+    }
+
+    @Override
+    public boolean containsKey(int id) {
+        return values.containsKey(id);
+    }
+
+    @Override
+    public V put(int id, V value) {
+        return values.put(id, value);
+    }
+
+    @Override
+    public V remove(int id) {
+        return values.remove(id);
+    }
+
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    @Override
+    public void clear() {
+        values.clear();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return values.values();
+    }
+}
@@ -0,0 +1,70 @@
+package service;
+
+import utils.CompactIntSet;
+
+import java.util.Collection;
+
+/**
+ * Storage that also keeps its ids in a sorted set, so values can be walked in id order from any
+ * point without sorting them.
+ */
+public class OrderedTaskStorage<V> implements TaskStorage<V> {
+
+    private final TaskStorage<V> values;
+    private final CompactIntSet ids = new CompactIntSet();
+
+    public OrderedTaskStorage(TaskStorage<V> values) {
+        this.values = values;
+    }
+
+    /**
+     * Smallest stored id that is at least the given one, or -1 when there is none.
+     */
+    public int ceilingId(int id) {
+        return ids.ceiling(id);
+    }
+
+    @Override
+    public V get(int id) {
+        return values.get(id);
+    }
+
+    @Override
+    public boolean containsKey(int id) {
+        return values.containsKey(id);
+    }
+
+    @Override
+    public V put(int id, V value) {
+        V previous = values.put(id, value);
+        if (previous == null) {
+            ids.add(id);
+        }
+        return previous;
+    }
+
+    @Override
+    public V remove(int id) {
+        V removed = values.remove(id);
+        if (removed != null) {
+            ids.remove(id);
+        }
+        return removed;
+    }
+
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    @Override
+    public void clear() {
+        values.clear();
+        ids.clear();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return values.values();
+    }
+}
@@ -0,0 +1,37 @@
+package service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Free/busy queries over a grid of time slots kept next to the timeline of a manager, see
+ * {@link SlotGrid}.
+ */
+public interface SlotCalendar {
+
+    /**
+     * Keeps a grid of slots of slotSize from origin up to origin + horizon, with the slots touched by
+     * scheduled tasks and subtasks marked busy. Replaces the grid set before, a null origin removes it.
+     */
+    void setSlotGrid(LocalDateTime origin, Duration slotSize, Duration horizon);
+
+    /**
+     * Whether no scheduled task or subtask touches a grid slot of [from, to).
+     *
+     * @throws exception.FeatureNotEnabledException if no slot grid is set
+     * @throws IllegalArgumentException if the range is outside the grid
+     */
+    boolean isFree(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Starts of the free grid slots from the slot holding from up to to, earliest first.
+     */
+    List<LocalDateTime> getFreeSlots(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Start of the first count free grid slots in a row from the slot holding from, null when the grid
+     * ends first.
+     */
+    LocalDateTime findFreeSlots(LocalDateTime from, int count);
+}
@@ -0,0 +1,181 @@
+package service;
+
+import utils.IntIntHashMap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Occupancy of fixed-size time slots from an origin up to a horizon, one bit per slot.
+ * <p>
+ * A slot is busy when any scheduled interval touches it. Scheduled intervals never overlap, so a
+ * slot an interval covers whole belongs to it alone, and only the slots an interval covers in part
+ * can be shared: those keep the number of intervals touching them, the others only their bit. An
+ * empty interval touches the slot it starts in. Parts of intervals outside the grid are ignored.
+ * <p>
+ * Marking an interval costs the number of its slots divided by the word size, queries the number of
+ * slots in their range the same way, whatever the number of intervals. The bits grow lazily up to
+ * the last busy slot. Not thread-safe.
+ */
+final class SlotGrid {
+
+    private final LocalDateTime origin;
+    private final LocalDateTime end;
+    private final long slotNanos;
+    private final long horizonNanos;
+    private final int slots;
+    private final BitSet busy = new BitSet();
+    private final IntIntHashMap shared = new IntIntHashMap();
+
+    /**
+     * Grid of slots of slotSize from origin, as many as fit in horizon.
+     */
+    SlotGrid(LocalDateTime origin, Duration slotSize, Duration horizon) {
+        if (slotSize.isNegative() || slotSize.isZero()) {
+            throw new IllegalArgumentException("Slot size should be positive");
+        }
+        if (horizon.compareTo(slotSize) < 0) {
+            throw new IllegalArgumentException("Horizon should hold at least one slot");
+        }
+        try {
+            slotNanos = slotSize.toNanos();
+            long slotCount = horizon.toNanos() / slotNanos;
+            if (slotCount > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Horizon holds more than " + Integer.MAX_VALUE + " slots");
+            }
+            slots = (int) slotCount;
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Horizon is too long", e);
+        }
+        this.origin = origin;
+        this.horizonNanos = slots * slotNanos;
+        this.end = origin.plusNanos(horizonNanos);
+    }
+
+    void add(LocalDateTime start, LocalDateTime finish) {
+        mark(start, finish, 1);
+    }
+
+    void remove(LocalDateTime start, LocalDateTime finish) {
+        mark(start, finish, -1);
+    }
+
+    /**
+     * Whether no interval touches a slot of [from, to), an empty range asks about the slot of from.
+     */
+    boolean isFree(LocalDateTime from, LocalDateTime to) {
+        int first = firstSlot(from, to);
+        int next = busy.nextSetBit(first);
+        return next < 0 || next >= lastSlot(from, to);
+    }
+
+    /**
+     * Starts of the free slots from the slot of from up to to, earliest first.
+     */
+    List<LocalDateTime> freeSlots(LocalDateTime from, LocalDateTime to) {
+        int last = lastSlot(from, to);
+        List<LocalDateTime> free = new ArrayList<>();
+        for (int slot = busy.nextClearBit(firstSlot(from, to)); slot < last; slot = busy.nextClearBit(slot + 1)) {
+            free.add(startOf(slot));
+        }
+        return free;
+    }
+
+    /**
+     * Start of the first run of count free slots from the slot of from, null when the grid ends
+     * before such a run.
+     */
+    LocalDateTime findFree(LocalDateTime from, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Slot count should be positive");
+        }
+        int slot = busy.nextClearBit(firstSlot(from, from));
+        while (slot <= slots - count) {
+            int next = busy.nextSetBit(slot);
+            if (next < 0 || next - slot >= count) {
+                return startOf(slot);
+            }
+            slot = busy.nextClearBit(next);
+        }
+        return null;
+    }
+
+    private void mark(LocalDateTime start, LocalDateTime finish, int delta) {
+        if (start.equals(finish)) {
+            if (!start.isBefore(origin) && start.isBefore(end)) {
+                share((int) (offset(start) / slotNanos), delta);
+            }
+            return;
+        }
+        long from = offset(start);
+        long to = offset(finish);
+        if (from >= to) {
+            return;
+        }
+        int first = (int) (from / slotNanos);
+        int last = (int) ((to - 1) / slotNanos);
+        boolean firstPartial = from % slotNanos != 0;
+        boolean lastPartial = to % slotNanos != 0;
+        if (first == last && (firstPartial || lastPartial)) {
+            share(first, delta);
+            return;
+        }
+        if (firstPartial) {
+            share(first, delta);
+        }
+        if (lastPartial) {
+            share(last, delta);
+        }
+        int fullFrom = firstPartial ? first + 1 : first;
+        int fullTo = lastPartial ? last : last + 1;
+        if (fullFrom < fullTo) {
+            busy.set(fullFrom, fullTo, delta > 0);
+        }
+    }
+
+    private void share(int slot, int delta) {
+        int count = shared.get(slot);
+        count = (count == IntIntHashMap.NO_VALUE ? 0 : count) + delta;
+        if (count > 0) {
+            shared.put(slot, count);
+            busy.set(slot);
+        } else {
+            shared.remove(slot);
+            busy.clear(slot);
+        }
+    }
+
+    /**
+     * Nanoseconds from the origin, clamped to the grid.
+     */
+    private long offset(LocalDateTime time) {
+        if (!time.isAfter(origin)) {
+            return 0;
+        }
+        if (!time.isBefore(end)) {
+            return horizonNanos;
+        }
+        return Duration.between(origin, time).toNanos();
+    }
+
+    private int firstSlot(LocalDateTime from, LocalDateTime to) {
+        if (from.isBefore(origin) || to.isAfter(end) || to.isBefore(from)) {
+            throw new IllegalArgumentException("Range " + from + " to " + to + " is outside the grid from "
+                    + origin + " to " + end);
+        }
+        return (int) (offset(from) / slotNanos);
+    }
+
+    private int lastSlot(LocalDateTime from, LocalDateTime to) {
+        long offset = offset(to);
+        int last = (int) ((offset + slotNanos - 1) / slotNanos);
+        return from.equals(to) ? Math.min(slots, (int) (offset / slotNanos) + 1) : last;
+    }
+
+    private LocalDateTime startOf(int slot) {
+        return origin.plusNanos(slot * slotNanos);
+    }
+}
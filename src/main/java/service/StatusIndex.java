@@ -0,0 +1,61 @@
+package service;
+
+import model.TaskStatus;
+import utils.CompactIntSet;
+
+import java.util.EnumMap;
+import java.util.stream.IntStream;
+
+/**
+ * Ids grouped by status, so a status column or its size is read without scanning the storage.
+ * <p>
+ * An id is in at most one set. The status it had before is found in the sets themselves, so
+ * callers only pass the status an item has now, even if the stored object was changed in place.
+ * An item with a null status is not indexed.
+ */
+final class StatusIndex {
+
+    private final EnumMap<TaskStatus, CompactIntSet> idsByStatus = new EnumMap<>(TaskStatus.class);
+
+    StatusIndex() {
+        for (TaskStatus status : TaskStatus.values()) {
+            idsByStatus.put(status, new CompactIntSet());
+        }
+    }
+
+    /**
+     * Records the current status of an id, moving it out of the set of its previous status.
+     */
+    void put(int id, TaskStatus status) {
+        if (status != null && idsByStatus.get(status).contains(id)) {
+            return;
+        }
+        remove(id);
+        if (status != null) {
+            idsByStatus.get(status).add(id);
+        }
+    }
+
+    void remove(int id) {
+        for (CompactIntSet ids : idsByStatus.values()) {
+            if (ids.remove(id)) {
+                return;
+            }
+        }
+    }
+
+    void clear() {
+        idsByStatus.values().forEach(CompactIntSet::clear);
+    }
+
+    int count(TaskStatus status) {
+        return idsByStatus.get(status).size();
+    }
+
+    /**
+     * Ids with the status in ascending order, lazy like {@link CompactIntSet#stream()}.
+     */
+    IntStream ids(TaskStatus status) {
+        return idsByStatus.get(status).stream();
+    }
+}
@@ -0,0 +1,13 @@
+package service;
+
+public enum StorageType {
+    HASH_MAP,
+    OPEN_ADDRESSING;
+
+    public <V> TaskStorage<V> create() {
+        return switch (this) {
+            case HASH_MAP -> new HashMapTaskStorage<>();
+            case OPEN_ADDRESSING -> new OpenAddressingTaskStorage<>();
+        };
+    }
+}
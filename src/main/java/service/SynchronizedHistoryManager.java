@@ -0,0 +1,42 @@
+package service;
+
+import model.Task;
+
+import java.util.ArrayList;
+
+/**
+ * Makes any HistoryManager safe for concurrent callers by serializing all calls on one lock.
+ */
+public class SynchronizedHistoryManager implements HistoryManager {
+
+    private final HistoryManager delegate;
+
+    public SynchronizedHistoryManager(HistoryManager delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public synchronized void add(Task task) {
+        delegate.add(task);
+    }
+
+    @Override
+    public synchronized void remove(int id) {
+        delegate.remove(id);
+    }
+
+    @Override
+    public synchronized void removeAll(int[] ids) {
+        delegate.removeAll(ids);
+    }
+
+    @Override
+    public synchronized ArrayList<Task> getHistory() {
+        return delegate.getHistory();
+    }
+
+    @Override
+    public synchronized ArrayList<Task> getHistory(int limit) {
+        return delegate.getHistory(limit);
+    }
+}
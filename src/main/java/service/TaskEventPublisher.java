@@ -0,0 +1,303 @@
+package service;
+
+import exception.EventOverflowException;
+import model.TaskEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Publishes board changes to subscribers, each with its own bounded buffer and demand.
+ * <p>
+ * {@link #publish} never blocks and never runs subscriber code: it appends the event to the buffer
+ * of every subscription and hands delivery to the executor, which sends at most the requested
+ * number of items. When a subscriber falls so far behind that its buffer is full, the events that
+ * do not fit are dropped and, after the buffered ones, it gets {@link EventOverflowException} and
+ * is cancelled, so it knows to read the board again instead of missing changes silently. Other
+ * subscribers are not affected.
+ * <p>
+ * A batch subscription gets lists of up to maxBatch buffered events, one per unit of demand, which
+ * saves a call per event for consumers that write in bulk. Events of one subscription are
+ * delivered in publish order by one task at a time. Thread-safe.
+ */
+public class TaskEventPublisher implements Flow.Publisher<TaskEvent>, AutoCloseable {
+
+    private static final Subscription<?>[] NONE = new Subscription<?>[0];
+
+    private final Executor executor;
+    private volatile Subscription<?>[] subscriptions = NONE;
+    private boolean closed;
+
+    public TaskEventPublisher(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Publisher delivering on the common fork-join pool.
+     */
+    public TaskEventPublisher() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Subscribes with a buffer of {@link Flow#defaultBufferSize()} events.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super TaskEvent> subscriber) {
+        subscribe(subscriber, Flow.defaultBufferSize());
+    }
+
+    public void subscribe(Flow.Subscriber<? super TaskEvent> subscriber, int bufferSize) {
+        Objects.requireNonNull(subscriber);
+        add(new Subscription<>(this, subscriber, bufferSize, 1, false));
+    }
+
+    /**
+     * Subscribes to lists of at most maxBatch events, each list takes one unit of demand.
+     */
+    public void subscribeBatches(Flow.Subscriber<? super List<TaskEvent>> subscriber, int bufferSize, int maxBatch) {
+        Objects.requireNonNull(subscriber);
+        if (maxBatch <= 0) {
+            throw new IllegalArgumentException("Batch size should be positive");
+        }
+        add(new Subscription<>(this, subscriber, bufferSize, maxBatch, true));
+    }
+
+    /**
+     * Whether anyone listens, so a writer can skip building events.
+     */
+    public boolean hasSubscribers() {
+        return subscriptions.length > 0;
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.length;
+    }
+
+    public void publish(TaskEvent event) {
+        for (Subscription<?> subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    /**
+     * Completes every subscription after its buffered events, later subscribers complete at once.
+     */
+    @Override
+    public void close() {
+        Subscription<?>[] current;
+        synchronized (this) {
+            closed = true;
+            current = subscriptions;
+            subscriptions = NONE;
+        }
+        for (Subscription<?> subscription : current) {
+            subscription.complete();
+        }
+    }
+
+    private void add(Subscription<?> subscription) {
+        boolean completed;
+        synchronized (this) {
+            completed = closed;
+            if (!completed) {
+                Subscription<?>[] current = subscriptions;
+                Subscription<?>[] grown = Arrays.copyOf(current, current.length + 1);
+                grown[current.length] = subscription;
+                subscriptions = grown;
+            }
+        }
+        subscription.start();
+        if (completed) {
+            subscription.complete();
+        }
+    }
+
+    private synchronized void remove(Subscription<?> subscription) {
+        Subscription<?>[] current = subscriptions;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == subscription) {
+                Subscription<?>[] shrunk = new Subscription<?>[current.length - 1];
+                System.arraycopy(current, 0, shrunk, 0, i);
+                System.arraycopy(current, i + 1, shrunk, i, shrunk.length - i);
+                subscriptions = shrunk;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Ring buffer of events and the demand of one subscriber. The drain task runs on the executor
+     * while there are events and demand, one at a time, signals go out without holding the lock.
+     */
+    private static final class Subscription<T> implements Flow.Subscription, Runnable {
+        private final TaskEventPublisher publisher;
+        private final Flow.Subscriber<? super T> subscriber;
+        private final TaskEvent[] buffer;
+        private final int maxBatch;
+        private final boolean batches;
+        private int head;
+        private int size;
+        private long demand;
+        private int dropped;
+        private boolean started;
+        private boolean completing;
+        private boolean cancelled;
+        private boolean draining;
+        private Throwable error;
+
+        Subscription(TaskEventPublisher publisher, Flow.Subscriber<? super T> subscriber, int bufferSize,
+                     int maxBatch, boolean batches) {
+            if (bufferSize <= 0) {
+                throw new IllegalArgumentException("Buffer size should be positive");
+            }
+            this.publisher = publisher;
+            this.subscriber = subscriber;
+            this.buffer = new TaskEvent[bufferSize];
+            this.maxBatch = maxBatch;
+            this.batches = batches;
+        }
+
+        void start() {
+            subscriber.onSubscribe(this);
+            synchronized (this) {
+                started = true;
+            }
+            schedule();
+        }
+
+        void offer(TaskEvent event) {
+            synchronized (this) {
+                if (cancelled || completing) {
+                    return;
+                }
+                if (size == buffer.length || dropped > 0) {
+                    dropped++;
+                } else {
+                    buffer[(head + size) % buffer.length] = event;
+                    size++;
+                }
+            }
+            schedule();
+        }
+
+        void complete() {
+            synchronized (this) {
+                completing = true;
+            }
+            schedule();
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                if (n <= 0) {
+                    error = new IllegalArgumentException("Requested " + n + " items, should be positive");
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                cancelled = true;
+                Arrays.fill(buffer, null);
+                size = 0;
+            }
+            publisher.remove(this);
+        }
+
+        /**
+         * Starts the drain task unless it runs already or has nothing to do.
+         */
+        private void schedule() {
+            synchronized (this) {
+                if (draining || !hasWork()) {
+                    return;
+                }
+                draining = true;
+            }
+            publisher.executor.execute(this);
+        }
+
+        private boolean hasWork() {
+            if (!started || cancelled) {
+                return false;
+            }
+            return error != null || size > 0 && demand > 0 || size == 0 && (dropped > 0 || completing);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void run() {
+            while (true) {
+                T item;
+                Throwable failure = null;
+                boolean done = false;
+                synchronized (this) {
+                    if (!hasWork()) {
+                        draining = false;
+                        return;
+                    }
+                    item = null;
+                    if (error != null) {
+                        failure = error;
+                    } else if (size > 0) {
+                        item = (T) (batches ? takeBatch() : take());
+                        demand--;
+                    } else if (dropped > 0) {
+                        failure = new EventOverflowException("Subscriber fell behind by more than " + buffer.length
+                                + " events, " + dropped + " were dropped");
+                    } else {
+                        done = true;
+                    }
+                    if (failure != null || done) {
+                        cancelled = true;
+                    }
+                }
+                if (failure != null) {
+                    publisher.remove(this);
+                    subscriber.onError(failure);
+                } else if (done) {
+                    publisher.remove(this);
+                    subscriber.onComplete();
+                } else {
+                    try {
+                        subscriber.onNext(item);
+                    } catch (Throwable e) {
+                        cancel();
+                        subscriber.onError(e);
+                    }
+                }
+            }
+        }
+
+        private TaskEvent take() {
+            TaskEvent event = buffer[head];
+            buffer[head] = null;
+            head = (head + 1) % buffer.length;
+            size--;
+            return event;
+        }
+
+        private List<TaskEvent> takeBatch() {
+            int count = Math.min(size, maxBatch);
+            List<TaskEvent> batch = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                batch.add(take());
+            }
+            return batch;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package service;
+
+import exception.AlreadyExistsException;
+import exception.FeatureNotEnabledException;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskEvent;
+import model.TaskStatus;
+import model.TaskType;
+import utils.IntIntHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Everything a task manager keeps next to its storage: the type of every id, ids by status, the
+ * timeline with its slot grid, the text index when search is on, and the changelog with the event
+ * publisher. The manager stores the items and tells this class about every change, the queries over
+ * them are answered here.
+ * <p>
+ * Tasks, epics and subtasks share one id space, as the timeline, the text index and the history
+ * know items by id alone: an id in use by an item of any type is rejected for a new one.
+ * <p>
+ * Not thread-safe: {@link ConcurrentTaskManager} holds the monitor of this object around every call.
+ */
+final class TaskIndexes {
+
+    private final StatusIndex tasksByStatus = new StatusIndex();
+    private final StatusIndex epicsByStatus = new StatusIndex();
+    private final StatusIndex subtasksByStatus = new StatusIndex();
+    private final IntervalIndex timeline = new IntervalIndex();
+    private final Changelog changelog = new Changelog();
+    private final TaskEventPublisher events = new TaskEventPublisher();
+    private final IntIntHashMap typesById = new IntIntHashMap();
+    private TextIndex textIndex;
+
+    /**
+     * @throws AlreadyExistsException if an item of any type has the id
+     */
+    void checkUnused(int id) {
+        if (typesById.containsKey(id)) {
+            throw new AlreadyExistsException("Object " + id + " already exists as "
+                    + TaskType.values()[typesById.get(id)]);
+        }
+    }
+
+    /**
+     * Checks every id of the batch like {@link #checkUnused}, and that none repeats in it.
+     */
+    void checkNew(List<? extends Task> batch) {
+        IntIntHashMap batchIds = new IntIntHashMap(batch.size());
+        for (Task task : batch) {
+            checkUnused(task.getId());
+            if (batchIds.put(task.getId(), 0) != IntIntHashMap.NO_VALUE) {
+                throw new AlreadyExistsException("Object " + task.getId() + " already exists");
+            }
+        }
+    }
+
+    /**
+     * Takes the slot of a task or subtask in the timeline and returns the one it had before, see
+     * {@link IntervalIndex#put}.
+     */
+    IntervalIndex.Slot schedule(Task task) {
+        return timeline.put(task);
+    }
+
+    <T extends Task> IntervalIndex.Slot[] scheduleAll(List<? extends T> batch, Predicate<? super T> filter) {
+        return timeline.putAll(batch, filter);
+    }
+
+    /**
+     * Gives back the slot an id had before {@link #schedule}, for a change that failed after it.
+     */
+    void unschedule(int id, IntervalIndex.Slot previous) {
+        timeline.restore(id, previous);
+    }
+
+    void created(Task task) {
+        typesById.put(task.getId(), TaskType.of(task).ordinal());
+        put(task);
+        long revision = changelog.append(TaskEvent.Kind.CREATED, TaskType.of(task), task.getId(), null,
+                task.getStatus());
+        if (events.hasSubscribers()) {
+            events.publish(TaskEvent.created(revision, task));
+        }
+    }
+
+    void updated(Task task) {
+        put(task);
+        long revision = changelog.append(TaskEvent.Kind.UPDATED, TaskType.of(task), task.getId(), null,
+                task.getStatus());
+        if (events.hasSubscribers()) {
+            events.publish(TaskEvent.updated(revision, task));
+        }
+    }
+
+    /**
+     * Drops the id from every index and returns the slot it had in the timeline, null for none.
+     */
+    IntervalIndex.Slot deleted(TaskType type, int id) {
+        typesById.remove(id);
+        byStatus(type).remove(id);
+        if (textIndex != null) {
+            textIndex.remove(id);
+        }
+        IntervalIndex.Slot slot = timeline.remove(id);
+        long revision = changelog.append(TaskEvent.Kind.DELETED, type, id, null, null);
+        if (events.hasSubscribers()) {
+            events.publish(TaskEvent.deleted(revision, type, id));
+        }
+        return slot;
+    }
+
+    /**
+     * Like {@link #deleted} for every id, when all items of the type go at once.
+     */
+    void cleared(TaskType type, int[] ids) {
+        byStatus(type).clear();
+        for (int id : ids) {
+            deleted(type, id);
+        }
+    }
+
+    /**
+     * Recalculates the status of the epic from its counters and records it when it changed.
+     */
+    void refreshStatus(Epic epic) {
+        TaskStatus oldStatus = epic.getStatus();
+        epic.refreshStatus();
+        epicsByStatus.put(epic.getId(), epic.getStatus());
+        if (oldStatus != epic.getStatus()) {
+            long revision = changelog.append(TaskEvent.Kind.EPIC_STATUS_CHANGED, TaskType.EPIC, epic.getId(),
+                    oldStatus, epic.getStatus());
+            if (events.hasSubscribers()) {
+                events.publish(TaskEvent.epicStatusChanged(revision, epic, oldStatus));
+            }
+        }
+    }
+
+    /**
+     * Ids of the type with the status in ascending order.
+     */
+    int[] ids(TaskType type, TaskStatus status) {
+        return byStatus(type).ids(status).toArray();
+    }
+
+    int count(TaskType type, TaskStatus status) {
+        return byStatus(type).count(status);
+    }
+
+    /**
+     * Turns the text index on, indexing the stored items, or off.
+     */
+    void setTextSearch(boolean enabled, Stream<? extends Task> stored) {
+        if (!enabled) {
+            textIndex = null;
+        } else if (textIndex == null) {
+            textIndex = new TextIndex();
+            stored.forEach(textIndex::put);
+        }
+    }
+
+    int[] search(String query, int limit) {
+        if (textIndex == null) {
+            throw new FeatureNotEnabledException("Text search is not enabled");
+        }
+        return textIndex.search(query, limit);
+    }
+
+    /**
+     * Ids of the items with a start time, earliest first.
+     */
+    int[] prioritized() {
+        int[] ids = new int[timeline.scheduledCount()];
+        int i = 0;
+        for (IntervalIndex.Slot slot : timeline.scheduled()) {
+            ids[i++] = slot.id;
+        }
+        return ids;
+    }
+
+    void setGrid(SlotGrid grid) {
+        timeline.setGrid(grid);
+    }
+
+    SlotGrid grid() {
+        return timeline.grid();
+    }
+
+    long revision() {
+        return changelog.revision();
+    }
+
+    Changelog.Slice since(long revision, int limit) {
+        return changelog.since(revision, limit);
+    }
+
+    void resizeChangelog(int capacity) {
+        changelog.resize(capacity);
+    }
+
+    TaskEventPublisher events() {
+        return events;
+    }
+
+    /**
+     * The type of every id, taken together with the ids so each one resolves to the item it was
+     * indexed for. Null for an id no longer in use.
+     */
+    TaskType[] typesOf(int[] ids) {
+        TaskType[] types = new TaskType[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            int ordinal = typesById.get(ids[i]);
+            types[i] = ordinal == IntIntHashMap.NO_VALUE ? null : TaskType.values()[ordinal];
+        }
+        return types;
+    }
+
+    /**
+     * Items found by id and type, those gone meanwhile are skipped.
+     */
+    static List<Task> resolve(int[] ids, TaskType[] types, Lookup find) {
+        List<Task> found = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            Task task = types[i] == null ? null : find.find(types[i], ids[i]);
+            if (task != null) {
+                found.add(task);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Items found by id, those gone meanwhile are skipped.
+     */
+    static <T extends Task> List<T> resolve(int[] ids, IntFunction<? extends T> find) {
+        List<T> found = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            T task = find.apply(id);
+            if (task != null) {
+                found.add(task);
+            }
+        }
+        return found;
+    }
+
+    static void checkSameEpic(Subtask stored, Subtask newSubtask) {
+        if (stored != null && stored.getEpicId() != newSubtask.getEpicId()) {
+            throw new IllegalArgumentException("Subtask " + stored.getId() + " belongs to epic " + stored.getEpicId()
+                    + " and cannot be moved to epic " + newSubtask.getEpicId());
+        }
+    }
+
+    static void moveSubtaskTime(Epic epic, IntervalIndex.Slot previous, Subtask subtask) {
+        removeSubtaskTime(epic, previous);
+        epic.addSubtaskTime(subtask.getStartTime(), subtask.getDuration());
+    }
+
+    static void removeSubtaskTime(Epic epic, IntervalIndex.Slot slot) {
+        if (slot != null) {
+            epic.removeSubtaskTime(slot.start, slot.duration);
+        }
+    }
+
+    @FunctionalInterface
+    interface Lookup {
+        Task find(TaskType type, int id);
+    }
+
+    private void put(Task task) {
+        byStatus(TaskType.of(task)).put(task.getId(), task.getStatus());
+        if (textIndex != null) {
+            textIndex.put(task);
+        }
+    }
+
+    private StatusIndex byStatus(TaskType type) {
+        return switch (type) {
+            case TASK -> tasksByStatus;
+            case EPIC -> epicsByStatus;
+            case SUBTASK -> subtasksByStatus;
+        };
+    }
+}
@@ -1,30 +1,118 @@
 package service;
 
 import model.Epic;
+import model.Page;
 import model.Subtask;
 import model.Task;
+import model.TaskStatus;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 public interface TaskManager {
 
     int getCounter();
 
+    /**
+     * Id the next getCounter call would return, without taking it.
+     */
+    int peekCounter();
+
+    /**
+     * Moves the counter forward to nextId when it is behind, never back.
+     */
+    void restoreCounter(int nextId);
+
+    /**
+     * @throws exception.TaskOverlapException if the task is scheduled over another task or subtask
+     */
     Task addTask(Task newTask);
 
     Subtask addSubTask(Subtask newSubtask);
 
     Epic addEpic(Epic newEpic);
 
+    /**
+     * Adds all tasks or none of them.
+     */
+    void addAllTasks(List<Task> newTasks);
+
+    void addAllEpics(List<Epic> newEpics);
+
+    void addAllSubtasks(List<Subtask> newSubtasks);
+
+    void updateAllTasks(List<Task> newTasks);
+
+    /**
+     * Updates all subtasks or none of them, unknown ids are skipped.
+     */
+    void updateAllSubtasks(List<Subtask> newSubtasks);
+
+    void deleteAllTasks(int[] ids);
+
+    void deleteAllSubtasks(int[] ids);
+
+    void deleteAllEpics(int[] ids);
+
     ArrayList<Task> getAllTasks();
 
     ArrayList<Subtask> getAllSubtasks();
 
     ArrayList<Epic> getAllEpics();
 
+    void forEachTask(Consumer<? super Task> action);
+
+    void forEachSubtask(Consumer<? super Subtask> action);
+
+    void forEachEpic(Consumer<? super Epic> action);
+
+    /**
+     * Live read-only view of stored tasks, nothing is copied.
+     */
+    Collection<Task> getTasksView();
+
+    Collection<Subtask> getSubtasksView();
+
+    Collection<Epic> getEpicsView();
+
+    IntStream streamSubtaskIdsByEpicId(int id);
+
+    /**
+     * Page of tasks in id order from the cursor, null for the first page. Not recorded in the history.
+     */
+    Page<Task> getTasksPage(String cursor, int pageSize);
+
+    Page<Subtask> getSubtasksPage(String cursor, int pageSize);
+
+    Page<Epic> getEpicsPage(String cursor, int pageSize);
+
+    Page<Subtask> getSubtasksPageByEpicId(int epicId, String cursor, int pageSize);
+
+    List<Task> getTasksByStatus(TaskStatus status);
+
+    List<Subtask> getSubtasksByStatus(TaskStatus status);
+
+    List<Epic> getEpicsByStatus(TaskStatus status);
+
+    int countTasksByStatus(TaskStatus status);
+
+    int countSubtasksByStatus(TaskStatus status);
+
+    int countEpicsByStatus(TaskStatus status);
+
+    /**
+     * Tasks and subtasks with a start time, earliest first.
+     */
+    List<Task> getPrioritizedTasks();
+
     Set<Integer> getSubtasksByEpicId(int id);
 
+    int[] getSubtaskIdsByEpicId(int id);
+
     void clearTasks();
 
     void clearSubtasks();
@@ -37,6 +125,15 @@ public interface TaskManager {
 
     Epic getEpicById(int taskId);
 
+    /**
+     * Task with the id or null, without recording a view in the history.
+     */
+    Task findTask(int taskId);
+
+    Subtask findSubtask(int subtaskId);
+
+    Epic findEpic(int epicId);
+
     void deleteTaskById(int taskId);
 
     void deleteSubTaskById(int subTaskId);
@@ -45,8 +142,14 @@ public interface TaskManager {
 
     void updateTask(Task newTask);
 
+    /**
+     * @throws IllegalArgumentException if the subtask names another epic than the stored one
+     */
     void updateSubTask(Subtask newSubTask);
 
+    /**
+     * Copies name and description onto the stored epic.
+     */
     void updateEpic(Epic newEpic);
 
     ArrayList<Task> getHistory();
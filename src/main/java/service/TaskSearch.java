@@ -0,0 +1,26 @@
+package service;
+
+import model.Task;
+
+import java.util.List;
+
+/**
+ * Full-text search over names and descriptions of the tasks of a manager, see {@link TextIndex}.
+ */
+public interface TaskSearch {
+
+    /**
+     * Turns search on or off. It is off by default, as the index takes memory for every distinct word
+     * of every task.
+     */
+    void setTextSearch(boolean enabled);
+
+    /**
+     * Tasks, epics and subtasks whose name or description match the query, best first and at most
+     * limit of them. Words must all match, "word*" matches a prefix and OR separates alternatives.
+     * Views are not recorded in the history.
+     *
+     * @throws exception.FeatureNotEnabledException if search is off
+     */
+    List<Task> search(String query, int limit);
+}
@@ -0,0 +1,26 @@
+package service;
+
+import java.util.Collection;
+
+/**
+ * Storage of values keyed by task id used under InMemoryTaskManager.
+ */
+public interface TaskStorage<V> {
+
+    V get(int id);
+
+    boolean containsKey(int id);
+
+    V put(int id, V value);
+
+    V remove(int id);
+
+    int size();
+
+    void clear();
+
+    /**
+     * Live view of stored values, must not be modified through.
+     */
+    Collection<V> values();
+}
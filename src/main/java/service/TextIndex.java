@@ -0,0 +1,413 @@
+package service;
+
+import model.Task;
+import utils.CompactIntSet;
+import utils.IntObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Inverted index over task names and descriptions.
+ * <p>
+ * Text is split into lower-cased runs of letters and digits. Every term keeps the ids of the tasks
+ * that contain it in a {@link CompactIntSet}, and every task keeps its own terms with a weight:
+ * each occurrence in the name counts {@link #NAME_WEIGHT}, in the description one, up to
+ * {@link #MAX_WEIGHT}. The terms of a task make updates and deletes exact even when the stored task
+ * was changed in place, and give the weights for ranking without a map per term. They are packed
+ * as term id and weight in one int each, so a task costs a single int array next to the postings.
+ * Terms are sorted, so a prefix is a range.
+ * <p>
+ * Queries are words that must all match, a word ending with '*' matches every term with that
+ * prefix, and the word OR separates alternatives: {@code "login bug* OR crash"}. A task scores
+ * weight * idf summed over the terms that matched, and over the alternatives it matched. Not
+ * thread-safe.
+ */
+public class TextIndex {
+
+    static final int NAME_WEIGHT = 3;
+
+    static final int MAX_WEIGHT = 63;
+
+    private static final int WEIGHT_BITS = 6;
+    private static final int MAX_TERMS = 1 << (Integer.SIZE - WEIGHT_BITS);
+    private static final int MAX_TERM_LENGTH = 64;
+
+    private final TreeMap<String, Term> terms = new TreeMap<>();
+    private final IntObjectHashMap<int[]> documents = new IntObjectHashMap<>();
+    private Term[] termsById = new Term[64];
+    private int[] freeTermIds = new int[16];
+    private int freeTermCount;
+    private int nextTermId;
+    private final Map<String, Integer> scratch = new HashMap<>();
+    private long postings;
+
+    /**
+     * Indexes the current name and description of the task, replacing what was indexed for its id.
+     */
+    public void put(Task task) {
+        remove(task.getId());
+        scratch.clear();
+        forEachToken(task.getName(), token -> scratch.merge(token, NAME_WEIGHT, Integer::sum));
+        forEachToken(task.getDescription(), token -> scratch.merge(token, 1, Integer::sum));
+        if (scratch.isEmpty()) {
+            return;
+        }
+        int[] taskTerms = new int[scratch.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : scratch.entrySet()) {
+            Term term = terms.computeIfAbsent(entry.getKey(), this::newTerm);
+            term.ids.add(task.getId());
+            taskTerms[i++] = term.id << WEIGHT_BITS | Math.min(entry.getValue(), MAX_WEIGHT);
+        }
+        documents.put(task.getId(), taskTerms);
+        postings += taskTerms.length;
+    }
+
+    public boolean remove(int id) {
+        int[] taskTerms = documents.remove(id);
+        if (taskTerms == null) {
+            return false;
+        }
+        for (int entry : taskTerms) {
+            Term term = termsById[entry >>> WEIGHT_BITS];
+            term.ids.remove(id);
+            if (term.ids.isEmpty()) {
+                terms.remove(term.text);
+                termsById[term.id] = null;
+                if (freeTermCount == freeTermIds.length) {
+                    freeTermIds = Arrays.copyOf(freeTermIds, freeTermCount * 2);
+                }
+                freeTermIds[freeTermCount++] = term.id;
+            }
+        }
+        postings -= taskTerms.length;
+        return true;
+    }
+
+    public void clear() {
+        terms.clear();
+        documents.clear();
+        termsById = new Term[64];
+        freeTermCount = 0;
+        nextTermId = 0;
+        postings = 0;
+    }
+
+    /**
+     * Number of indexed tasks.
+     */
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * Number of distinct terms.
+     */
+    public int termCount() {
+        return terms.size();
+    }
+
+    /**
+     * Number of (term, task) pairs, the distinct tokens of every task added up.
+     */
+    public long postingCount() {
+        return postings;
+    }
+
+    private Term newTerm(String text) {
+        int id;
+        if (freeTermCount > 0) {
+            id = freeTermIds[--freeTermCount];
+        } else if (nextTermId < MAX_TERMS) {
+            id = nextTermId++;
+        } else {
+            throw new IllegalStateException("Text index is limited to " + MAX_TERMS + " distinct terms");
+        }
+        if (id == termsById.length) {
+            termsById = Arrays.copyOf(termsById, id * 2);
+        }
+        Term term = new Term(id, text);
+        termsById[id] = term;
+        return term;
+    }
+
+    /**
+     * Ids of the best matching tasks, best first, at most limit of them. Ties go to the smaller id.
+     */
+    public int[] search(String query, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit should be positive");
+        }
+        List<List<Word>> alternatives = parse(query);
+        TopHits best = new TopHits(limit);
+        if (alternatives.size() == 1) {
+            collect(alternatives.get(0), best::offer);
+        } else {
+            Map<Integer, Double> scores = new HashMap<>();
+            for (List<Word> words : alternatives) {
+                collect(words, (id, score) -> scores.merge(id, score, Double::sum));
+            }
+            scores.forEach(best::offer);
+        }
+        return best.drain();
+    }
+
+    /**
+     * Scores the tasks matching every word. Candidates come from the word matching the fewest tasks,
+     * the other words are checked against the terms of each candidate.
+     */
+    private void collect(List<Word> words, ScoreSink sink) {
+        double indexed = documents.size();
+        Word rarest = null;
+        for (Word word : words) {
+            if (!word.resolve(terms, indexed)) {
+                return;
+            }
+            if (rarest == null || word.taskCount < rarest.taskCount) {
+                rarest = word;
+            }
+        }
+        rarest.forEachId(id -> {
+            int[] taskTerms = documents.get(id);
+            double score = 0;
+            for (Word word : words) {
+                double wordScore = 0;
+                for (int entry : taskTerms) {
+                    wordScore += (entry & MAX_WEIGHT) * word.idf(entry >>> WEIGHT_BITS, termsById, indexed);
+                }
+                if (wordScore == 0) {
+                    return;
+                }
+                score += wordScore;
+            }
+            sink.accept(id, score);
+        });
+    }
+
+    private static List<List<Word>> parse(String query) {
+        List<List<Word>> alternatives = new ArrayList<>();
+        List<Word> words = new ArrayList<>();
+        for (String part : query.trim().split("\\s+")) {
+            if (part.equals("OR")) {
+                addAlternative(alternatives, words);
+                words = new ArrayList<>();
+                continue;
+            }
+            boolean prefix = part.endsWith("*");
+            List<String> parts = new ArrayList<>();
+            forEachToken(prefix ? part.substring(0, part.length() - 1) : part, parts::add);
+            for (int i = 0; i < parts.size(); i++) {
+                words.add(new Word(parts.get(i), prefix && i == parts.size() - 1));
+            }
+        }
+        addAlternative(alternatives, words);
+        return alternatives;
+    }
+
+    private static void addAlternative(List<List<Word>> alternatives, List<Word> words) {
+        if (!words.isEmpty()) {
+            alternatives.add(words);
+        }
+    }
+
+    private static void forEachToken(String text, Consumer<String> action) {
+        if (text == null) {
+            return;
+        }
+        StringBuilder token = new StringBuilder();
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            token.setLength(0);
+            while (i < length) {
+                int codePoint = text.codePointAt(i);
+                i += Character.charCount(codePoint);
+                if (!Character.isLetterOrDigit(codePoint)) {
+                    break;
+                }
+                if (token.length() < MAX_TERM_LENGTH) {
+                    token.appendCodePoint(Character.toLowerCase(codePoint));
+                }
+            }
+            if (!token.isEmpty()) {
+                action.accept(token.toString());
+            }
+        }
+    }
+
+    private static final class Term {
+        final int id;
+        final String text;
+        final CompactIntSet ids = new CompactIntSet();
+
+        Term(int id, String text) {
+            this.id = id;
+            this.text = text;
+        }
+    }
+
+    private interface ScoreSink {
+        void accept(int id, double score);
+    }
+
+    /**
+     * The limit best hits seen so far, in a binary heap with the worst hit on top.
+     */
+    private static final class TopHits {
+        private final int limit;
+        private int[] ids = new int[16];
+        private double[] scores = new double[16];
+        private int size;
+
+        TopHits(int limit) {
+            this.limit = limit;
+        }
+
+        void offer(int id, double score) {
+            if (size < limit) {
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                    scores = Arrays.copyOf(scores, size * 2);
+                }
+                ids[size] = id;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (worse(0, id, score)) {
+                ids[0] = id;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        /**
+         * Ids best first, empties the heap.
+         */
+        int[] drain() {
+            int[] ranked = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                ranked[i] = ids[0];
+                size--;
+                ids[0] = ids[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+            return ranked;
+        }
+
+        private boolean worse(int index, int id, double score) {
+            return scores[index] < score || scores[index] == score && ids[index] > id;
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (!worse(index, ids[parent], scores[parent])) {
+                    return;
+                }
+                swap(index, parent);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int worst = index;
+                for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                    if (worse(child, ids[worst], scores[worst])) {
+                        worst = child;
+                    }
+                }
+                if (worst == index) {
+                    return;
+                }
+                swap(index, worst);
+                index = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+            double score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+
+    /**
+     * Query word, resolved to the terms it matches before the search.
+     */
+    private static final class Word {
+        final String text;
+        final boolean prefix;
+        List<Term> matched;
+        BitSet matchedIds;
+        Term exact;
+        double exactIdf;
+        int taskCount;
+
+        Word(String text, boolean prefix) {
+            this.text = text;
+            this.prefix = prefix;
+        }
+
+        boolean resolve(TreeMap<String, Term> terms, double indexed) {
+            if (prefix) {
+                matched = new ArrayList<>(terms.subMap(text, true, text + Character.MAX_VALUE, false).values());
+                matchedIds = new BitSet();
+                matched.forEach(term -> matchedIds.set(term.id));
+            } else {
+                exact = terms.get(text);
+                matched = exact == null ? List.of() : List.of(exact);
+                exactIdf = exact == null ? 0 : idf(exact.ids.size(), indexed);
+            }
+            taskCount = 0;
+            for (Term term : matched) {
+                taskCount += term.ids.size();
+            }
+            return !matched.isEmpty();
+        }
+
+        /**
+         * Visits every task having any of the matched terms once.
+         */
+        void forEachId(IntConsumer action) {
+            if (matched.size() == 1) {
+                matched.get(0).ids.forEach(action);
+                return;
+            }
+            BitSet seen = new BitSet();
+            for (Term term : matched) {
+                term.ids.forEach(id -> {
+                    if (!seen.get(id)) {
+                        seen.set(id);
+                        action.accept(id);
+                    }
+                });
+            }
+        }
+
+        /**
+         * Weight of a term of a task for this word, 0 when the word does not match it.
+         */
+        double idf(int termId, Term[] termsById, double indexed) {
+            if (!prefix) {
+                return termId == exact.id ? exactIdf : 0;
+            }
+            return matchedIds.get(termId) ? idf(termsById[termId].ids.size(), indexed) : 0;
+        }
+
+        private static double idf(int taskCount, double indexed) {
+            return Math.log(1 + indexed / taskCount);
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Sorted set of ints without boxing.
+ * <p>
+ * Small sets are a plain sorted int array. Bigger ones are split by the high 16 bits of the value
+ * into chunks, the way roaring bitmaps do: a chunk keeps the low 16 bits either in a sorted char
+ * array or, once it holds more than {@link #ARRAY_CHUNK_LIMIT} values, in a 65536-bit bitmap.
+ * Dense ids therefore cost a bit or two bytes each. Meant for non-negative ids.
+ */
+public class CompactIntSet {
+
+    private static final int SMALL_LIMIT = 64;
+    private static final int ARRAY_CHUNK_LIMIT = 4096;
+    private static final int BITMAP_WORDS = 1024;
+    private static final int[] EMPTY = new int[0];
+
+    private int size;
+    private int[] small = EMPTY;
+    private int[] chunkKeys;
+    private Object[] chunks;
+    private int[] chunkSizes;
+    private int chunkCount;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int value) {
+        if (chunkKeys == null) {
+            return Arrays.binarySearch(small, 0, size, value) >= 0;
+        }
+        int chunk = Arrays.binarySearch(chunkKeys, 0, chunkCount, value >>> 16);
+        if (chunk < 0) {
+            return false;
+        }
+        char low = (char) value;
+        if (chunks[chunk] instanceof long[] bitmap) {
+            return (bitmap[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch((char[]) chunks[chunk], 0, chunkSizes[chunk], low) >= 0;
+    }
+
+    /**
+     * Smallest value that is at least the given one, or -1 when there is none. Takes a binary search
+     * and, inside a bitmap chunk, a scan of at most its 1024 words.
+     */
+    public int ceiling(int value) {
+        if (value < 0) {
+            value = 0;
+        }
+        if (chunkKeys == null) {
+            int index = Arrays.binarySearch(small, 0, size, value);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            return index < size ? small[index] : -1;
+        }
+        int chunk = Arrays.binarySearch(chunkKeys, 0, chunkCount, value >>> 16);
+        if (chunk >= 0) {
+            int low = ceilingInChunk(chunk, (char) value);
+            if (low >= 0) {
+                return chunkKeys[chunk] << 16 | low;
+            }
+            chunk++;
+        } else {
+            chunk = -chunk - 1;
+        }
+        return chunk < chunkCount ? chunkKeys[chunk] << 16 | ceilingInChunk(chunk, (char) 0) : -1;
+    }
+
+    public boolean add(int value) {
+        if (chunkKeys == null) {
+            int index = Arrays.binarySearch(small, 0, size, value);
+            if (index >= 0) {
+                return false;
+            }
+            if (size < SMALL_LIMIT) {
+                index = -index - 1;
+                if (size == small.length) {
+                    small = Arrays.copyOf(small, Math.max(4, size * 2));
+                }
+                System.arraycopy(small, index, small, index + 1, size - index);
+                small[index] = value;
+                size++;
+                return true;
+            }
+            toChunks();
+        }
+        int chunk = Arrays.binarySearch(chunkKeys, 0, chunkCount, value >>> 16);
+        if (chunk < 0) {
+            chunk = insertChunk(-chunk - 1, value >>> 16);
+        }
+        if (addToChunk(chunk, (char) value)) {
+            size++;
+            return true;
+        }
+        return false;
+    }
+
+    public boolean remove(int value) {
+        if (chunkKeys == null) {
+            int index = Arrays.binarySearch(small, 0, size, value);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(small, index + 1, small, index, size - index - 1);
+            size--;
+            return true;
+        }
+        int chunk = Arrays.binarySearch(chunkKeys, 0, chunkCount, value >>> 16);
+        if (chunk < 0 || !removeFromChunk(chunk, (char) value)) {
+            return false;
+        }
+        size--;
+        if (chunkSizes[chunk] == 0) {
+            removeChunk(chunk);
+        }
+        if (size <= SMALL_LIMIT / 2) {
+            small = toArray();
+            chunkKeys = null;
+            chunks = null;
+            chunkSizes = null;
+            chunkCount = 0;
+        }
+        return true;
+    }
+
+    public void clear() {
+        size = 0;
+        small = EMPTY;
+        chunkKeys = null;
+        chunks = null;
+        chunkSizes = null;
+        chunkCount = 0;
+    }
+
+    /**
+     * Calls action for every value in ascending order.
+     */
+    public void forEach(IntConsumer action) {
+        if (chunkKeys == null) {
+            for (int i = 0; i < size; i++) {
+                action.accept(small[i]);
+            }
+            return;
+        }
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            int high = chunkKeys[chunk] << 16;
+            if (chunks[chunk] instanceof long[] bitmap) {
+                for (int word = 0; word < BITMAP_WORDS; word++) {
+                    long bits = bitmap[word];
+                    while (bits != 0) {
+                        action.accept(high | (word << 6) | Long.numberOfTrailingZeros(bits));
+                        bits &= bits - 1;
+                    }
+                }
+            } else {
+                char[] values = (char[]) chunks[chunk];
+                for (int i = 0; i < chunkSizes[chunk]; i++) {
+                    action.accept(high | values[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Snapshot of the values in ascending order.
+     */
+    public int[] toArray() {
+        if (chunkKeys == null) {
+            return Arrays.copyOf(small, size);
+        }
+        int[] result = new int[size];
+        int[] position = new int[1];
+        forEach(value -> result[position[0]++] = value);
+        return result;
+    }
+
+    /**
+     * Iterates values in ascending order without copying them. The set should not change meanwhile.
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        if (chunkKeys == null) {
+            return new PrimitiveIterator.OfInt() {
+                private final int[] values = small;
+                private final int count = size;
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    return index < count;
+                }
+
+                @Override
+                public int nextInt() {
+                    if (index >= count) {
+                        throw new NoSuchElementException();
+                    }
+                    return values[index++];
+                }
+            };
+        }
+        return new ChunkIterator();
+    }
+
+    /**
+     * Lazy stream over {@link #iterator}, the set should not change while it is consumed.
+     */
+    public IntStream stream() {
+        return StreamSupport.intStream(Spliterators.spliterator(iterator(), size,
+                Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    private void toChunks() {
+        int[] values = Arrays.copyOf(small, size);
+        small = EMPTY;
+        size = 0;
+        chunkKeys = new int[4];
+        chunks = new Object[4];
+        chunkSizes = new int[4];
+        chunkCount = 0;
+        for (int value : values) {
+            add(value);
+        }
+    }
+
+    private int insertChunk(int index, int key) {
+        if (chunkCount == chunkKeys.length) {
+            int newLength = chunkCount * 2;
+            chunkKeys = Arrays.copyOf(chunkKeys, newLength);
+            chunks = Arrays.copyOf(chunks, newLength);
+            chunkSizes = Arrays.copyOf(chunkSizes, newLength);
+        }
+        System.arraycopy(chunkKeys, index, chunkKeys, index + 1, chunkCount - index);
+        System.arraycopy(chunks, index, chunks, index + 1, chunkCount - index);
+        System.arraycopy(chunkSizes, index, chunkSizes, index + 1, chunkCount - index);
+        chunkKeys[index] = key;
+        chunks[index] = new char[4];
+        chunkSizes[index] = 0;
+        chunkCount++;
+        return index;
+    }
+
+    private void removeChunk(int index) {
+        System.arraycopy(chunkKeys, index + 1, chunkKeys, index, chunkCount - index - 1);
+        System.arraycopy(chunks, index + 1, chunks, index, chunkCount - index - 1);
+        System.arraycopy(chunkSizes, index + 1, chunkSizes, index, chunkCount - index - 1);
+        chunkCount--;
+        chunks[chunkCount] = null;
+    }
+
+    private boolean addToChunk(int chunk, char low) {
+        if (chunks[chunk] instanceof long[] bitmap) {
+            long mask = 1L << low;
+            if ((bitmap[low >>> 6] & mask) != 0) {
+                return false;
+            }
+            bitmap[low >>> 6] |= mask;
+            chunkSizes[chunk]++;
+            return true;
+        }
+        char[] values = (char[]) chunks[chunk];
+        int count = chunkSizes[chunk];
+        int index = Arrays.binarySearch(values, 0, count, low);
+        if (index >= 0) {
+            return false;
+        }
+        if (count == ARRAY_CHUNK_LIMIT) {
+            long[] bitmap = new long[BITMAP_WORDS];
+            for (int i = 0; i < count; i++) {
+                bitmap[values[i] >>> 6] |= 1L << values[i];
+            }
+            chunks[chunk] = bitmap;
+            return addToChunk(chunk, low);
+        }
+        index = -index - 1;
+        if (count == values.length) {
+            values = Arrays.copyOf(values, Math.min(count * 2, ARRAY_CHUNK_LIMIT));
+            chunks[chunk] = values;
+        }
+        System.arraycopy(values, index, values, index + 1, count - index);
+        values[index] = low;
+        chunkSizes[chunk]++;
+        return true;
+    }
+
+    private boolean removeFromChunk(int chunk, char low) {
+        if (chunks[chunk] instanceof long[] bitmap) {
+            long mask = 1L << low;
+            if ((bitmap[low >>> 6] & mask) == 0) {
+                return false;
+            }
+            bitmap[low >>> 6] &= ~mask;
+            if (--chunkSizes[chunk] == ARRAY_CHUNK_LIMIT) {
+                char[] values = new char[ARRAY_CHUNK_LIMIT];
+                int count = 0;
+                for (int word = 0; word < BITMAP_WORDS; word++) {
+                    long bits = bitmap[word];
+                    while (bits != 0) {
+                        values[count++] = (char) ((word << 6) | Long.numberOfTrailingZeros(bits));
+                        bits &= bits - 1;
+                    }
+                }
+                chunks[chunk] = values;
+            }
+            return true;
+        }
+        char[] values = (char[]) chunks[chunk];
+        int count = chunkSizes[chunk];
+        int index = Arrays.binarySearch(values, 0, count, low);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(values, index + 1, values, index, count - index - 1);
+        chunkSizes[chunk]--;
+        return true;
+    }
+
+    private int ceilingInChunk(int chunk, char low) {
+        if (chunks[chunk] instanceof long[] bitmap) {
+            int word = low >>> 6;
+            long bits = bitmap[word] & (-1L << low);
+            while (bits == 0) {
+                if (++word == BITMAP_WORDS) {
+                    return -1;
+                }
+                bits = bitmap[word];
+            }
+            return word << 6 | Long.numberOfTrailingZeros(bits);
+        }
+        char[] values = (char[]) chunks[chunk];
+        int index = Arrays.binarySearch(values, 0, chunkSizes[chunk], low);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return index < chunkSizes[chunk] ? values[index] : -1;
+    }
+
+    private final class ChunkIterator implements PrimitiveIterator.OfInt {
+
+        private int chunk;
+        private int index;
+        private long bits;
+        private int next;
+        private boolean ready;
+
+        @Override
+        public boolean hasNext() {
+            if (ready) {
+                return true;
+            }
+            while (chunk < chunkCount) {
+                int high = chunkKeys[chunk] << 16;
+                if (chunks[chunk] instanceof long[] bitmap) {
+                    while (bits == 0 && index < BITMAP_WORDS) {
+                        bits = bitmap[index++];
+                    }
+                    if (bits != 0) {
+                        next = high | ((index - 1) << 6) | Long.numberOfTrailingZeros(bits);
+                        bits &= bits - 1;
+                        ready = true;
+                        return true;
+                    }
+                } else if (index < chunkSizes[chunk]) {
+                    next = high | ((char[]) chunks[chunk])[index++];
+                    ready = true;
+                    return true;
+                }
+                chunk++;
+                index = 0;
+                bits = 0;
+            }
+            return false;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ready = false;
+            return next;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing int to int map with linear probing, no boxing and no per-entry objects.
+ * <p>
+ * Values must be non-negative: the value array doubles as the slot state, {@link #NO_VALUE}
+ * marks a free slot and a negative tombstone marks a removed one.
+ */
+public class IntIntHashMap {
+
+    public static final int NO_VALUE = -1;
+    private static final int REMOVED = -2;
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int tombstones;
+    private int resizeThreshold;
+
+    public IntIntHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntIntHashMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns value for the key or {@link #NO_VALUE} when the key is absent.
+     */
+    public int get(int key) {
+        int mask = keys.length - 1;
+        for (int index = hash(key) & mask; ; index = (index + 1) & mask) {
+            int value = values[index];
+            if (value == NO_VALUE) {
+                return NO_VALUE;
+            }
+            if (value != REMOVED && keys[index] == key) {
+                return value;
+            }
+        }
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != NO_VALUE;
+    }
+
+    /**
+     * Returns previous value for the key or {@link #NO_VALUE}.
+     */
+    public int put(int key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value should not be negative");
+        }
+        int mask = keys.length - 1;
+        int firstRemoved = -1;
+        int index = hash(key) & mask;
+        for (; ; index = (index + 1) & mask) {
+            int current = values[index];
+            if (current == NO_VALUE) {
+                break;
+            }
+            if (current == REMOVED) {
+                if (firstRemoved < 0) {
+                    firstRemoved = index;
+                }
+            } else if (keys[index] == key) {
+                values[index] = value;
+                return current;
+            }
+        }
+        if (firstRemoved >= 0) {
+            index = firstRemoved;
+            tombstones--;
+        }
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        if (size + tombstones > resizeThreshold) {
+            rehash(size * 2 > resizeThreshold ? keys.length << 1 : keys.length);
+        }
+        return NO_VALUE;
+    }
+
+    /**
+     * Returns removed value or {@link #NO_VALUE}.
+     */
+    public int remove(int key) {
+        int mask = keys.length - 1;
+        for (int index = hash(key) & mask; ; index = (index + 1) & mask) {
+            int value = values[index];
+            if (value == NO_VALUE) {
+                return NO_VALUE;
+            }
+            if (value != REMOVED && keys[index] == key) {
+                if (values[(index + 1) & mask] == NO_VALUE) {
+                    values[index] = NO_VALUE;
+                } else {
+                    values[index] = REMOVED;
+                    tombstones++;
+                }
+                size--;
+                return value;
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(values, NO_VALUE);
+        size = 0;
+        tombstones = 0;
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newCapacity);
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] >= 0) {
+                int index = hash(oldKeys[i]) & mask;
+                while (values[index] != NO_VALUE) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, NO_VALUE);
+        tombstones = 0;
+        resizeThreshold = capacity / 4 * 3;
+    }
+
+    static int tableSizeFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity / 4 * 3 <= expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,194 @@
+package utils;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Open addressing int to object map with linear probing: keys are never boxed and entries need
+ * no node objects. Null values are not supported, a null slot is a free one.
+ * <p>
+ * Removed entries leave tombstones that are reused by later puts and dropped on resize; when
+ * tombstones fill the table the map is rehashed at the same size.
+ */
+public class IntObjectHashMap<V> {
+
+    private static final Object REMOVED = new Object();
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int tombstones;
+    private int resizeThreshold;
+    private final Collection<V> valuesView = new ValuesView();
+
+    public IntObjectHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntObjectHashMap(int expectedSize) {
+        allocate(IntIntHashMap.tableSizeFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int mask = keys.length - 1;
+        for (int index = IntIntHashMap.hash(key) & mask; ; index = (index + 1) & mask) {
+            Object value = values[index];
+            if (value == null) {
+                return null;
+            }
+            if (value != REMOVED && keys[index] == key) {
+                return (V) value;
+            }
+        }
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported");
+        }
+        int mask = keys.length - 1;
+        int firstRemoved = -1;
+        int index = IntIntHashMap.hash(key) & mask;
+        for (; ; index = (index + 1) & mask) {
+            Object current = values[index];
+            if (current == null) {
+                break;
+            }
+            if (current == REMOVED) {
+                if (firstRemoved < 0) {
+                    firstRemoved = index;
+                }
+            } else if (keys[index] == key) {
+                values[index] = value;
+                return (V) current;
+            }
+        }
+        if (firstRemoved >= 0) {
+            index = firstRemoved;
+            tombstones--;
+        }
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        if (size + tombstones > resizeThreshold) {
+            rehash(size * 2 > resizeThreshold ? keys.length << 1 : keys.length);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int mask = keys.length - 1;
+        for (int index = IntIntHashMap.hash(key) & mask; ; index = (index + 1) & mask) {
+            Object value = values[index];
+            if (value == null) {
+                return null;
+            }
+            if (value != REMOVED && keys[index] == key) {
+                if (values[(index + 1) & mask] == null) {
+                    values[index] = null;
+                } else {
+                    values[index] = REMOVED;
+                    tombstones++;
+                }
+                size--;
+                return (V) value;
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+        tombstones = 0;
+    }
+
+    /**
+     * Live read-only view of the values in table order.
+     */
+    public Collection<V> values() {
+        return valuesView;
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newCapacity);
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            Object value = oldValues[i];
+            if (value != null && value != REMOVED) {
+                int index = IntIntHashMap.hash(oldKeys[i]) & mask;
+                while (values[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = value;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        tombstones = 0;
+        resizeThreshold = capacity / 4 * 3;
+    }
+
+    private final class ValuesView extends AbstractCollection<V> {
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new Iterator<>() {
+                private final Object[] table = values;
+                private int index = advance(0);
+
+                private int advance(int from) {
+                    while (from < table.length && (table[from] == null || table[from] == REMOVED)) {
+                        from++;
+                    }
+                    return from;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return index < table.length;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public V next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    V value = (V) table[index];
+                    index = advance(index + 1);
+                    return value;
+                }
+            };
+        }
+    }
+}
@@ -1,16 +1,50 @@
 package utils;
 
+import service.ArrayHistoryManager;
+import service.ConcurrentHistoryManager;
+import service.ConcurrentTaskManager;
+import service.FileBackedTaskManager;
 import service.HistoryManager;
 import service.TaskManager;
 import service.InMemoryHistoryManager;
 import service.InMemoryTaskManager;
 
+import java.nio.file.Path;
+
 public class Managers {
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
 
+    public static HistoryManager getDefaultHistory(int capacity) {
+        return new InMemoryHistoryManager(capacity);
+    }
+
     public static TaskManager getDefault() {
         return new InMemoryTaskManager(getDefaultHistory());
     }
+
+    public static HistoryManager getArrayHistory() {
+        return new ArrayHistoryManager();
+    }
+
+    public static HistoryManager getArrayHistory(int capacity) {
+        return new ArrayHistoryManager(capacity);
+    }
+
+    public static HistoryManager getConcurrentHistory() {
+        return new ConcurrentHistoryManager();
+    }
+
+    public static HistoryManager getConcurrentHistory(int capacity) {
+        return new ConcurrentHistoryManager(capacity);
+    }
+
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager(getConcurrentHistory());
+    }
+
+    public static FileBackedTaskManager getFileBacked(Path logFile) {
+        return new FileBackedTaskManager(logFile);
+    }
 }
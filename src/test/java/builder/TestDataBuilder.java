@@ -27,7 +27,9 @@ public class TestDataBuilder {
     }
 
     public TaskManager buildTaskManager() {
-        return new InMemoryTaskManager();
+        InMemoryTaskManager inMemoryTaskManager = new InMemoryTaskManager();
+        inMemoryTaskManager.setEpicStatusVerification(true);
+        return inMemoryTaskManager;
     }
 
     public Task buildTask(String title, String description) {
@@ -61,11 +63,8 @@ public class TestDataBuilder {
     }
 
     public Epic buildCopyEpic(Epic epic) {
-        Epic result = buildEpic(epic.getId(), epic.getName(), epic.getDescription());
-        for (int subTaskId : epic.getSubtasks()) {
-            result.addSubtaskById(subTaskId);
-        }
-        return result;
+        // Subtasks and status belong to the stored epic, an update carries name and description only.
+        return buildEpic(epic.getId(), epic.getName(), epic.getDescription());
     }
 
     public Subtask buildCopySubtask(Subtask subtask) {
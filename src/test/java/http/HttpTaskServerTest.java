@@ -0,0 +1,184 @@
+package http;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.ConcurrentTaskManager;
+import utils.Managers;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+class HttpTaskServerTest {
+
+    private ConcurrentTaskManager taskManager;
+    private HttpTaskServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void start() throws IOException {
+        taskManager = new ConcurrentTaskManager(Managers.getConcurrentHistory());
+        server = new HttpTaskServer(taskManager, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop();
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path));
+        request.method(method, body == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(body));
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return send("GET", path, null);
+    }
+
+    @Test
+    void tasksShouldBeCreatedReadUpdatedAndDeletedOverHttp() throws Exception {
+        HttpResponse<String> created = send("POST", "/tasks",
+                "{\"type\":\"TASK\",\"name\":\"t1\",\"description\":\"d1\",\"status\":\"NEW\"}");
+        int id = taskManager.getAllTasks().get(0).getId();
+        HttpResponse<String> read = get("/tasks/" + id);
+        HttpResponse<String> updated = send("POST", "/tasks", "{\"type\":\"TASK\",\"id\":" + id
+                + ",\"name\":\"t1\",\"description\":\"d1\",\"status\":\"DONE\"}");
+        HttpResponse<String> unknown = send("POST", "/tasks",
+                "{\"type\":\"TASK\",\"id\":999,\"name\":\"t\",\"description\":\"d\",\"status\":\"NEW\"}");
+        HttpResponse<String> deleted = send("DELETE", "/tasks/" + id, null);
+        HttpResponse<String> missing = get("/tasks/" + id);
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(201, created.statusCode(), "A new task should be created"),
+                () -> Assertions.assertTrue(created.body().contains("\"id\":" + id),
+                        "The created task should be returned with its id"),
+                () -> Assertions.assertEquals(200, read.statusCode(), "The task should be found by id"),
+                () -> Assertions.assertTrue(read.body().contains("\"name\":\"t1\""), "The task should be returned"),
+                () -> Assertions.assertEquals(200, updated.statusCode(), "The task should be updated"),
+                () -> Assertions.assertEquals(404, unknown.statusCode(), "An unknown id should not be updated"),
+                () -> Assertions.assertEquals(204, deleted.statusCode(), "The task should be deleted"),
+                () -> Assertions.assertEquals(404, missing.statusCode(), "A deleted task should not be found"),
+                () -> Assertions.assertTrue(taskManager.getAllTasks().isEmpty(), "No task should be left")
+        );
+    }
+
+    @Test
+    void subtasksShouldBeListedUnderTheirEpicAndRejectedWithoutOne() throws Exception {
+        send("POST", "/epics", "{\"type\":\"EPIC\",\"name\":\"e1\",\"description\":\"d\",\"status\":\"NEW\"}");
+        int epicId = taskManager.getAllEpics().get(0).getId();
+        HttpResponse<String> subtask = send("POST", "/subtasks", "{\"type\":\"SUBTASK\",\"name\":\"s1\","
+                + "\"description\":\"d\",\"status\":\"DONE\",\"epic\":" + epicId + "}");
+        int nextId = taskManager.peekCounter();
+        HttpResponse<String> orphan = send("POST", "/subtasks", "{\"type\":\"SUBTASK\",\"name\":\"s2\","
+                + "\"description\":\"d\",\"status\":\"NEW\",\"epic\":999}");
+        HttpResponse<String> subtasks = get("/epics/" + epicId + "/subtasks");
+        HttpResponse<String> epic = get("/epics/" + epicId);
+        HttpResponse<String> wrongType = send("POST", "/tasks",
+                "{\"type\":\"EPIC\",\"name\":\"e2\",\"description\":\"d\",\"status\":\"NEW\"}");
+        HttpResponse<String> badTime = send("POST", "/tasks",
+                "{\"type\":\"TASK\",\"name\":\"t\",\"description\":\"d\",\"startTime\":\"noon\"}");
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(201, subtask.statusCode(), "The subtask should be created"),
+                () -> Assertions.assertEquals(404, orphan.statusCode(), "A subtask without an epic should be rejected"),
+                () -> Assertions.assertTrue(subtasks.body().contains("\"name\":\"s1\""),
+                        "The subtask should be listed under its epic"),
+                () -> Assertions.assertTrue(epic.body().contains("\"status\":\"DONE\""),
+                        "The epic status should follow its subtask"),
+                () -> Assertions.assertEquals(400, wrongType.statusCode(), "An epic should not be posted as a task"),
+                () -> Assertions.assertEquals(400, badTime.statusCode(), "A malformed start should be rejected"),
+                () -> Assertions.assertEquals(nextId, taskManager.peekCounter(),
+                        "Rejected requests should not use up ids"),
+                () -> Assertions.assertEquals(404, get("/epics/999/subtasks").statusCode(),
+                        "Subtasks of an unknown epic should not be found"),
+                () -> Assertions.assertEquals(405, send("PUT", "/epics", "{}").statusCode(),
+                        "PUT should not be allowed")
+        );
+    }
+
+    @Test
+    void postedEpicShouldBeRenamedAndSubtaskShouldStayUnderItsEpic() throws Exception {
+        send("POST", "/epics", "{\"type\":\"EPIC\",\"name\":\"e1\",\"description\":\"d1\",\"status\":\"NEW\"}");
+        send("POST", "/epics", "{\"type\":\"EPIC\",\"name\":\"e2\",\"description\":\"d2\",\"status\":\"NEW\"}");
+        int epicId = taskManager.getAllEpics().get(0).getId();
+        int otherEpicId = taskManager.getAllEpics().get(1).getId();
+        send("POST", "/subtasks", "{\"type\":\"SUBTASK\",\"name\":\"s1\","
+                + "\"description\":\"d\",\"status\":\"NEW\",\"epic\":" + epicId + "}");
+        int subtaskId = taskManager.getAllSubtasks().get(0).getId();
+        HttpResponse<String> renamed = send("POST", "/epics", "{\"type\":\"EPIC\",\"id\":" + epicId
+                + ",\"name\":\"renamed\",\"description\":\"new\",\"status\":\"DONE\"}");
+        HttpResponse<String> moved = send("POST", "/subtasks", "{\"type\":\"SUBTASK\",\"id\":" + subtaskId
+                + ",\"name\":\"s1\",\"description\":\"d\",\"status\":\"DONE\",\"epic\":" + otherEpicId + "}");
+        HttpResponse<String> history = get("/history");
+        HttpResponse<String> read = get("/epics/" + epicId);
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(200, renamed.statusCode(), "The epic should be updated"),
+                () -> Assertions.assertTrue(renamed.body().contains("\"name\":\"renamed\""),
+                        "The renamed epic should be returned"),
+                () -> Assertions.assertTrue(read.body().contains("\"name\":\"renamed\"")
+                                && read.body().contains("\"description\":\"new\""),
+                        "The rename should be read back"),
+                () -> Assertions.assertTrue(read.body().contains("\"status\":\"NEW\""),
+                        "The epic status should still follow its subtasks"),
+                () -> Assertions.assertEquals(400, moved.statusCode(),
+                        "A subtask should not be moved to another epic"),
+                () -> Assertions.assertEquals(epicId, taskManager.findSubtask(subtaskId).getEpicId(),
+                        "The subtask should stay under its epic"),
+                () -> Assertions.assertEquals("[]", history.body(), "Updates should not record views")
+        );
+    }
+
+    @Test
+    void overlappingTaskShouldBeRejectedAndPrioritizedListShouldFollowStartTimes() throws Exception {
+        send("POST", "/tasks", "{\"type\":\"TASK\",\"name\":\"late\",\"description\":\"d\",\"status\":\"NEW\","
+                + "\"startTime\":\"2026-01-01T12:00\",\"duration\":\"PT1H\"}");
+        send("POST", "/tasks", "{\"type\":\"TASK\",\"name\":\"early\",\"description\":\"d\",\"status\":\"NEW\","
+                + "\"startTime\":\"2026-01-01T09:00\",\"duration\":\"PT1H\"}");
+        HttpResponse<String> overlapping = send("POST", "/tasks", "{\"type\":\"TASK\",\"name\":\"clash\","
+                + "\"description\":\"d\",\"status\":\"NEW\",\"startTime\":\"2026-01-01T12:30\",\"duration\":\"PT1H\"}");
+        HttpResponse<String> prioritized = get("/prioritized");
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(406, overlapping.statusCode(), "An overlapping task should be rejected"),
+                () -> Assertions.assertEquals(2, taskManager.getAllTasks().size(),
+                        "The overlapping task should not be stored"),
+                () -> Assertions.assertTrue(prioritized.body().indexOf("early") < prioritized.body().indexOf("late"),
+                        "Tasks should be listed by start time")
+        );
+    }
+
+    @Test
+    void historyAndChangesShouldFollowRequests() throws Exception {
+        long start = taskManager.getRevision();
+        send("POST", "/tasks", "{\"type\":\"TASK\",\"name\":\"t1\",\"description\":\"d\",\"status\":\"NEW\"}");
+        int id = taskManager.getAllTasks().get(0).getId();
+        get("/tasks/" + id);
+        HttpResponse<String> history = get("/history");
+        HttpResponse<String> changes = get("/changes?since=" + start);
+        HttpResponse<String> current = get("/changes");
+
+        Assertions.assertAll(
+                () -> Assertions.assertTrue(history.body().contains("\"id\":" + id),
+                        "A task read by id should be in the history"),
+                () -> Assertions.assertTrue(changes.body().contains("\"kind\":\"CREATED\""),
+                        "The creation should be in the changes"),
+                () -> Assertions.assertTrue(changes.body().contains("\"tooOld\":false"),
+                        "Changes since the start should be retained"),
+                () -> Assertions.assertTrue(current.body().startsWith("{\"revision\":" + taskManager.getRevision()),
+                        "Changes without since should start from the current revision"),
+                () -> Assertions.assertEquals(400, get("/changes?since=x").statusCode(),
+                        "An invalid revision should be rejected")
+        );
+    }
+}
@@ -80,6 +80,19 @@ class EpicTest {
                 "Incorrect status when all subtasks are done.");
     }
 
+    @Test
+    void getStatusShouldReturnDoneWhenOnlyNotDoneSubtaskWasDeleted() {
+        addNewSubtasksToEpic();
+        subtask2.setStatus(TaskStatus.DONE);
+        taskManager.updateSubTask(subtask2);
+
+        taskManager.deleteSubTaskById(subtask1.getId());
+        TaskStatus actualStatus = epic.getStatus();
+
+        Assertions.assertEquals(TaskStatus.DONE, actualStatus,
+                "Incorrect status when remaining subtasks are done.");
+    }
+
     void setUpEpicWithoutSubtasksInTaskManager() {
         epic = testDataBuilder.buildEpic("Epic", "You know what you need.");
         taskManager.addEpic(epic);
@@ -0,0 +1,148 @@
+package persistence;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import service.ConcurrentHistoryManager;
+import service.ConcurrentTaskManager;
+import service.InMemoryTaskManager;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+class BoardImporterTest {
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @EnumSource(BoardFormat.class)
+    void importShouldRestoreExportedBoardWithIdsAndCounter(BoardFormat format) throws IOException {
+        TaskManager taskManager = new InMemoryTaskManager();
+        taskManager.addTask(new Task("comma, \"quoted\"", "line\nbreak\r\nand\ttab", taskManager.getCounter(),
+                TaskStatus.IN_PROGRESS));
+        taskManager.addTask(new Task("", null, taskManager.getCounter()));
+        Epic epic = taskManager.addEpic(new Epic("эпик 🚀", "d", taskManager.getCounter()));
+        for (int i = 0; i < 5000; i++) {
+            taskManager.addSubTask(new Subtask("s" + i, "d", taskManager.getCounter(), epic.getId(), TaskStatus.DONE));
+        }
+        taskManager.getCounter();
+        Path file = directory.resolve("board." + format.name().toLowerCase());
+
+        long written = BoardExporter.write(taskManager, file, format);
+        TaskManager restored = new ConcurrentTaskManager(new ConcurrentHistoryManager());
+        long read = BoardImporter.read(file, format, restored);
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(5003, written, "Not every task was exported."),
+                () -> Assertions.assertEquals(written, read, "Not every task was imported."),
+                () -> Assertions.assertEquals("comma, \"quoted\"", restored.getTaskById(1).getName(),
+                        "Quoted name was not restored."),
+                () -> Assertions.assertEquals("line\nbreak\r\nand\ttab", restored.getTaskById(1).getDescription(),
+                        "Line breaks were not restored."),
+                () -> Assertions.assertEquals(TaskStatus.IN_PROGRESS, restored.getTaskById(1).getStatus(),
+                        "Task status was not restored."),
+                () -> Assertions.assertEquals("", restored.getTaskById(2).getName(),
+                        "Empty name was not restored."),
+                () -> Assertions.assertNull(restored.getTaskById(2).getDescription(),
+                        "Null description was not restored."),
+                () -> Assertions.assertEquals("эпик 🚀", restored.getEpicById(3).getName(),
+                        "Non-ASCII name was not restored."),
+                () -> Assertions.assertEquals(5000, restored.getSubtaskIdsByEpicId(3).length,
+                        "Epic subtasks were not restored."),
+                () -> Assertions.assertEquals(TaskStatus.DONE, restored.getEpicById(3).getStatus(),
+                        "Epic status was not derived."),
+                () -> Assertions.assertEquals(5005, restored.getCounter(), "Counter was not restored.")
+        );
+    }
+
+    @ParameterizedTest
+    @EnumSource(BoardFormat.class)
+    void importShouldRestoreStartTimesAndDurations(BoardFormat format) throws IOException {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 9, 30, 15, 500);
+        TaskManager taskManager = new InMemoryTaskManager();
+        taskManager.addTask(new Task("t", "d", taskManager.getCounter()).setStartTime(start)
+                .setDuration(Duration.ofMinutes(90)));
+        taskManager.addTask(new Task("estimate only", "d", taskManager.getCounter()).setDuration(Duration.ofHours(2)));
+        Epic epic = taskManager.addEpic(new Epic("e", "d", taskManager.getCounter()));
+        taskManager.addSubTask((Subtask) new Subtask("s", "d", taskManager.getCounter(), epic.getId())
+                .setStartTime(start.plusDays(1)).setDuration(Duration.ofMinutes(45)));
+        Path file = directory.resolve("board." + format.name().toLowerCase());
+
+        BoardExporter.write(taskManager, file, format);
+        TaskManager restored = new InMemoryTaskManager();
+        BoardImporter.read(file, format, restored);
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(start, restored.getTaskById(1).getStartTime(),
+                        "Start time was not restored."),
+                () -> Assertions.assertEquals(Duration.ofMinutes(90), restored.getTaskById(1).getDuration(),
+                        "Duration was not restored."),
+                () -> Assertions.assertNull(restored.getTaskById(2).getStartTime(),
+                        "Task without a start should stay unscheduled."),
+                () -> Assertions.assertEquals(Duration.ofHours(2), restored.getTaskById(2).getDuration(),
+                        "Duration without a start was not restored."),
+                () -> Assertions.assertEquals(start.plusDays(1).plusMinutes(45), restored.getEpicById(3).getEndTime(),
+                        "Epic end was not derived from the restored subtask."),
+                () -> Assertions.assertEquals(List.of(1, 4), restored.getPrioritizedTasks().stream()
+                        .map(Task::getId).toList(), "Restored tasks are not prioritized by start.")
+        );
+    }
+
+    @Test
+    void importShouldResolveSubtasksListedBeforeTheirEpic() throws IOException {
+        Path file = directory.resolve("board.ndjson");
+        Files.writeString(file, """
+                {"type":"BOARD","version":1,"counter":3}
+                {"type":"SUBTASK","id":7,"name":"s1","description":null,"status":"DONE","epic":9}
+
+                {"type":"EPIC","id":9,"name":"e1","description":"d","status":"NEW","extra":[1,{"a":true}]}
+                """, StandardCharsets.UTF_8);
+        TaskManager restored = new InMemoryTaskManager();
+
+        BoardImporter.read(file, BoardFormat.NDJSON, restored);
+
+        Assertions.assertAll(
+                () -> Assertions.assertArrayEquals(new int[]{7}, restored.getSubtaskIdsByEpicId(9),
+                        "Subtask was not attached to the epic listed after it."),
+                () -> Assertions.assertEquals(TaskStatus.DONE, restored.getEpicById(9).getStatus(),
+                        "Epic status was not derived."),
+                () -> Assertions.assertEquals(10, restored.getCounter(), "Counter should be ahead of imported ids.")
+        );
+    }
+
+    @Test
+    void importShouldReportMalformedLineAndMissingEpic() throws IOException {
+        Path malformed = directory.resolve("malformed.csv");
+        Files.writeString(malformed, TaskCsv.LEGACY_HEADER + "\n1,COUNTER,,,,\n1,TASK,\"multi\nline\",NEW,,\n2,TASK,t,LATE,,\n",
+                StandardCharsets.UTF_8);
+        Path orphan = directory.resolve("orphan.csv");
+        Files.writeString(orphan, TaskCsv.LEGACY_HEADER + "\n1,COUNTER,,,,\n5,SUBTASK,s,NEW,,4\n", StandardCharsets.UTF_8);
+
+        IOException malformedError = Assertions.assertThrows(IOException.class,
+                () -> BoardImporter.read(malformed, BoardFormat.CSV, new InMemoryTaskManager()));
+        IOException orphanError = Assertions.assertThrows(IOException.class,
+                () -> BoardImporter.read(orphan, BoardFormat.CSV, new InMemoryTaskManager()));
+
+        Assertions.assertAll(
+                () -> Assertions.assertTrue(malformedError.getMessage().contains("malformed.csv:5"),
+                        "Line of the bad row was not reported: " + malformedError.getMessage()),
+                () -> Assertions.assertTrue(orphanError.getMessage().contains("missing epic 4"),
+                        "Missing epic was not reported: " + orphanError.getMessage()),
+                () -> Assertions.assertEquals(List.of(), List.of(directory.toFile().list()).stream()
+                        .filter(name -> name.endsWith(".tmp")).toList(), "Temporary file was left behind.")
+        );
+    }
+}
@@ -0,0 +1,38 @@
+package persistence;
+
+import model.TaskBody;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+class FileTaskBodyStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void loadShouldReadEvictedBodiesBackFromFile() throws IOException {
+        try (FileTaskBodyStore store = new FileTaskBodyStore(directory.resolve("bodies"), 2)) {
+            long first = store.store("first", "описание".repeat(100));
+            long second = store.store("second", null);
+            long third = store.store(null, "third");
+
+            TaskBody thirdBody = store.load(third);
+            TaskBody secondBody = store.load(second);
+            TaskBody firstBody = store.load(first);
+
+            Assertions.assertAll(
+                    () -> Assertions.assertEquals("first", firstBody.getName(), "Evicted name was not read back."),
+                    () -> Assertions.assertEquals("описание".repeat(100), firstBody.getDescription(),
+                            "Evicted description was not read back."),
+                    () -> Assertions.assertNull(secondBody.getDescription(), "Null description was not kept."),
+                    () -> Assertions.assertNull(thirdBody.getName(), "Null name was not kept."),
+                    () -> Assertions.assertEquals(1.0 / 3, store.getMissRate(), 1e-9,
+                            "Only the evicted body should have been read from the file.")
+            );
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package persistence;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import service.InMemoryTaskManager;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+class TaskSnapshotTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 9, 0);
+
+    @TempDir
+    Path directory;
+
+    private TaskManager buildBoard() {
+        TaskManager taskManager = new InMemoryTaskManager();
+        Task task = taskManager.addTask(new Task("t1", null, taskManager.getCounter(), TaskStatus.IN_PROGRESS)
+                .setStartTime(START).setDuration(Duration.ofMinutes(30)));
+        Epic epic = taskManager.addEpic(new Epic("e1", "эпик", taskManager.getCounter()));
+        Subtask subtask = taskManager.addSubTask(new Subtask("s1", "d1", taskManager.getCounter(), epic.getId(),
+                TaskStatus.DONE));
+        Subtask second = new Subtask("s2", "d2", taskManager.getCounter(), epic.getId());
+        second.setStartTime(START.plusHours(1));
+        taskManager.addSubTask(second);
+        taskManager.getCounter();
+        taskManager.getSubTaskById(subtask.getId());
+        taskManager.getTaskById(task.getId());
+        taskManager.getEpicById(epic.getId());
+        return taskManager;
+    }
+
+    @Test
+    void loadShouldRestoreBoardHistoryAndCounter() throws IOException {
+        Path file = directory.resolve("board.snapshot");
+        TaskSnapshot.write(buildBoard(), file);
+        TaskManager restored = new InMemoryTaskManager();
+
+        TaskSnapshot.load(file, restored);
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(List.of(3, 1, 2),
+                        restored.getHistory().stream().map(Task::getId).toList(), "History order was not restored."),
+                () -> Assertions.assertEquals(TaskStatus.IN_PROGRESS, restored.getTaskById(1).getStatus(),
+                        "Task status was not restored."),
+                () -> Assertions.assertNull(restored.getTaskById(1).getDescription(),
+                        "Null description was not restored."),
+                () -> Assertions.assertEquals("эпик", restored.getEpicById(2).getDescription(),
+                        "Epic description was not restored."),
+                () -> Assertions.assertArrayEquals(new int[]{3, 4}, restored.getSubtaskIdsByEpicId(2),
+                        "Epic subtasks were not restored."),
+                () -> Assertions.assertEquals(TaskStatus.IN_PROGRESS, restored.getEpicById(2).getStatus(),
+                        "Epic status was not restored."),
+                () -> Assertions.assertEquals(START.plusMinutes(30), restored.getTaskById(1).getEndTime(),
+                        "Task time was not restored."),
+                () -> Assertions.assertEquals(START.plusHours(1), restored.getEpicById(2).getStartTime(),
+                        "Epic start was not derived from the restored subtask."),
+                () -> Assertions.assertNull(restored.getSubTaskById(3).getStartTime(),
+                        "Unscheduled subtask got a start time."),
+                () -> Assertions.assertEquals(6, restored.getCounter(), "Counter was not restored.")
+        );
+    }
+
+    @Test
+    void loadShouldRejectCorruptSnapshot() throws IOException {
+        Path file = directory.resolve("board.snapshot");
+        TaskSnapshot.write(buildBoard(), file);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes);
+
+        Assertions.assertThrows(Exception.class, () -> TaskSnapshot.load(file, new InMemoryTaskManager()),
+                "Corrupt snapshot was loaded.");
+    }
+
+    @Test
+    void corruptSnapshotShouldBeRejectedBeforeAnythingIsAdded() throws IOException {
+        Path file = directory.resolve("board.snapshot");
+        TaskSnapshot.write(buildBoard(), file);
+        byte[] bytes = Files.readAllBytes(file);
+        // The last history id, read after the whole board.
+        bytes[bytes.length - Integer.BYTES - 1] ^= 1;
+        Files.write(file, bytes);
+        TaskManager restored = new InMemoryTaskManager();
+
+        Assertions.assertThrows(IOException.class, () -> TaskSnapshot.load(file, restored),
+                "Corrupt snapshot was loaded.");
+        Assertions.assertAll(
+                () -> Assertions.assertTrue(restored.getAllTasks().isEmpty(), "Tasks were added."),
+                () -> Assertions.assertTrue(restored.getAllEpics().isEmpty(), "Epics were added."),
+                () -> Assertions.assertTrue(restored.getAllSubtasks().isEmpty(), "Subtasks were added."),
+                () -> Assertions.assertTrue(restored.getHistory().isEmpty(), "History was rebuilt.")
+        );
+    }
+
+    @Test
+    void snapshotWithWrongSubtaskCountShouldBeRejectedBeforeAnythingIsAdded() throws IOException {
+        Path file = directory.resolve("board.snapshot");
+        TaskManager board = buildBoard();
+        board.getEpicById(2).addSubtaskById(99, TaskStatus.NEW);
+        TaskSnapshot.write(board, file);
+        InMemoryTaskManager restored = new InMemoryTaskManager();
+
+        IOException exception = Assertions.assertThrows(IOException.class, () -> TaskSnapshot.load(file, restored));
+        Assertions.assertAll(
+                () -> Assertions.assertTrue(exception.getMessage().contains("should have 3 subtasks, found 2"),
+                        "Subtask count was not checked."),
+                () -> Assertions.assertTrue(restored.getAllTasks().isEmpty(), "Tasks were added."),
+                () -> Assertions.assertTrue(restored.getAllEpics().isEmpty(), "Epics were added."),
+                () -> Assertions.assertEquals(0, restored.getRevision(), "Changes were recorded.")
+        );
+    }
+
+    @Test
+    void loadShouldRejectUnknownVersion() throws IOException {
+        Path file = directory.resolve("board.snapshot");
+        TaskSnapshot.write(new InMemoryTaskManager(), file);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[5] = 99;
+        Files.write(file, bytes);
+
+        IOException exception = Assertions.assertThrows(IOException.class,
+                () -> TaskSnapshot.load(file, new InMemoryTaskManager()));
+        Assertions.assertTrue(exception.getMessage().contains("version"), "Version was not checked.");
+    }
+}
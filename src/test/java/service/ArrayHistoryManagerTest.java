@@ -0,0 +1,102 @@
+package service;
+
+import builder.TestDataBuilder;
+import model.Task;
+import model.TaskStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class ArrayHistoryManagerTest {
+
+    private HistoryManager historyManager;
+    private TestDataBuilder testDataBuilder;
+
+    @BeforeEach
+    void setUp() {
+        historyManager = new ArrayHistoryManager();
+        testDataBuilder = new TestDataBuilder();
+    }
+
+    @Test
+    void shouldKeepViewingTaskOrderAndMoveRepeatedViewToTheEnd() {
+        List<Task> tasks = testDataBuilder.buildTasks();
+        tasks.forEach(historyManager::add);
+        List<Task> expected = new ArrayList<>(tasks);
+        expected.add(expected.remove(0));
+
+        historyManager.add(tasks.get(0));
+        List<Task> actual = historyManager.getHistory();
+
+        Assertions.assertIterableEquals(expected, actual, "Order of elements should be same.");
+    }
+
+    @Test
+    void removeShouldDeleteTaskFromBeginningMiddleAndEnd() {
+        List<Task> tasks = testDataBuilder.buildTasks();
+        tasks.forEach(historyManager::add);
+
+        historyManager.remove(tasks.get(0).getId());
+        historyManager.remove(tasks.get(2).getId());
+        historyManager.remove(tasks.get(4).getId());
+        List<Task> actual = historyManager.getHistory();
+
+        Assertions.assertIterableEquals(List.of(tasks.get(1), tasks.get(3)), actual,
+                "Removed tasks should not remain in the history.");
+    }
+
+    @Test
+    void removeAllShouldDeleteGivenTasksAndSkipUnknownIds() {
+        List<Task> tasks = testDataBuilder.buildTasks();
+        tasks.forEach(historyManager::add);
+
+        historyManager.removeAll(new int[]{tasks.get(0).getId(), tasks.get(3).getId(), 1000});
+        historyManager.add(tasks.get(0));
+        List<Task> actual = historyManager.getHistory();
+
+        Assertions.assertIterableEquals(List.of(tasks.get(1), tasks.get(2), tasks.get(4), tasks.get(0)), actual,
+                "Only removed tasks should leave the history and freed slots should be reused.");
+    }
+
+    @Test
+    void addShouldEvictLeastRecentlyViewedTaskWhenCapacityIsReached() {
+        historyManager = new ArrayHistoryManager(2);
+        List<Task> tasks = testDataBuilder.buildTasks();
+
+        tasks.forEach(historyManager::add);
+        List<Task> actual = historyManager.getHistory();
+
+        Assertions.assertIterableEquals(tasks.subList(tasks.size() - 2, tasks.size()), actual,
+                "Only two last viewed tasks should remain.");
+    }
+
+    @Test
+    void shouldBehaveLikeInMemoryHistoryManagerUnderRandomViewsAndRemovals() {
+        HistoryManager expectedHistoryManager = new InMemoryHistoryManager(100);
+        historyManager = new ArrayHistoryManager(100);
+        Random random = new Random(42);
+
+        for (int i = 0; i < 50_000; i++) {
+            int id = random.nextInt(300);
+            if (random.nextInt(4) == 0) {
+                expectedHistoryManager.remove(id);
+                historyManager.remove(id);
+            } else {
+                Task task = TestDataBuilder.buildTask(id, "t" + id, "d", TaskStatus.NEW);
+                expectedHistoryManager.add(task);
+                historyManager.add(task);
+            }
+        }
+
+        Assertions.assertAll(
+                () -> Assertions.assertIterableEquals(expectedHistoryManager.getHistory(),
+                        historyManager.getHistory(), "Histories should be same."),
+                () -> Assertions.assertIterableEquals(expectedHistoryManager.getHistory(10),
+                        historyManager.getHistory(10), "Limited histories should be same.")
+        );
+    }
+}
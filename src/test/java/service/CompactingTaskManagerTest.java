@@ -0,0 +1,171 @@
+package service;
+
+import exception.ManagerSaveException;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import persistence.FsyncPolicy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+class CompactingTaskManagerTest {
+
+    @TempDir
+    Path directory;
+
+    private CompactingTaskManager open(long segmentBytes) {
+        return new CompactingTaskManager(new InMemoryTaskManager(), directory, FsyncPolicy.osManaged(), segmentBytes);
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    @Test
+    void compactionShouldReplaceCoveredSegmentsWithSnapshot() throws IOException {
+        Epic epic;
+        Subtask subtask;
+        try (CompactingTaskManager taskManager = open(CompactingTaskManager.DEFAULT_SEGMENT_BYTES)) {
+            epic = taskManager.addEpic(new Epic("e1", "d1", taskManager.getCounter()));
+            subtask = taskManager.addSubTask(new Subtask("s1", "d2", taskManager.getCounter(), epic.getId()));
+            taskManager.getSubTaskById(subtask.getId());
+            taskManager.getEpicById(epic.getId());
+            taskManager.compact();
+            taskManager.updateSubTask(new Subtask("s1", "d2", subtask.getId(), epic.getId(), TaskStatus.DONE));
+
+            Assertions.assertEquals(1, taskManager.getMetrics().getCompactions(), "Compaction was not counted.");
+        }
+
+        Assertions.assertEquals(List.of("segment-00000000000000000002.log", "snapshot-00000000000000000001.bin"),
+                files(), "Covered segment was not replaced by the snapshot.");
+        try (CompactingTaskManager restored = open(CompactingTaskManager.DEFAULT_SEGMENT_BYTES)) {
+            Assertions.assertAll(
+                    () -> Assertions.assertEquals(List.of(subtask.getId(), epic.getId()),
+                            restored.getHistory().stream().map(Task::getId).toList(),
+                            "History was not restored from the snapshot."),
+                    () -> Assertions.assertEquals(TaskStatus.DONE, restored.getEpicById(epic.getId()).getStatus(),
+                            "Segment after the snapshot was not replayed."),
+                    () -> Assertions.assertEquals(3, restored.getCounter(), "Counter was not restored.")
+            );
+        }
+    }
+
+    @Test
+    void epicRenamedBeforeTheRollShouldKeepItsNameInTheSnapshot() {
+        Epic epic;
+        try (CompactingTaskManager taskManager = open(CompactingTaskManager.DEFAULT_SEGMENT_BYTES)) {
+            epic = taskManager.addEpic(new Epic("e1", "d1", taskManager.getCounter()));
+            taskManager.addSubTask(new Subtask("s1", "d2", taskManager.getCounter(), epic.getId(), TaskStatus.DONE));
+            taskManager.updateEpic(new Epic("renamed", "new description", epic.getId()));
+            taskManager.compact();
+        }
+
+        try (CompactingTaskManager restored = open(CompactingTaskManager.DEFAULT_SEGMENT_BYTES)) {
+            Epic restoredEpic = restored.getEpicById(epic.getId());
+
+            Assertions.assertAll(
+                    () -> Assertions.assertEquals("renamed", restoredEpic.getName(),
+                            "Epic name was not kept by the snapshot."),
+                    () -> Assertions.assertEquals("new description", restoredEpic.getDescription(),
+                            "Epic description was not kept by the snapshot."),
+                    () -> Assertions.assertEquals(TaskStatus.DONE, restoredEpic.getStatus(),
+                            "Epic status was not kept by the snapshot.")
+            );
+        }
+    }
+
+    @Test
+    void failedBackgroundCompactionShouldBeRecordedUntilCompactSucceeds() throws Exception {
+        // The snapshot of the first segment cannot be written while a directory takes its place.
+        Path blocker = Files.createDirectories(directory.resolve("snapshot-00000000000000000001.bin.tmp"));
+        int written = 0;
+        try (CompactingTaskManager taskManager = open(256)) {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (taskManager.getCompactionFailure() == null && System.nanoTime() < deadline) {
+                taskManager.addTask(new Task("task", "description", taskManager.getCounter()));
+                written++;
+                Thread.sleep(1);
+            }
+            ManagerSaveException failure = taskManager.getCompactionFailure();
+            for (int i = 0; i < 100; i++) {
+                taskManager.addTask(new Task("task", "description", taskManager.getCounter()));
+                written++;
+            }
+            long compactionsAfterFailure = taskManager.getMetrics().getCompactions();
+            Files.delete(blocker);
+            taskManager.compact();
+
+            Assertions.assertAll(
+                    () -> Assertions.assertNotNull(failure, "Background failure was not recorded."),
+                    () -> Assertions.assertInstanceOf(IOException.class, failure.getCause(),
+                            "Background failure lost its cause."),
+                    () -> Assertions.assertEquals(0, compactionsAfterFailure,
+                            "Background compaction was retried after failing."),
+                    () -> Assertions.assertEquals(1, taskManager.getMetrics().getCompactions(),
+                            "Compaction was not run on request."),
+                    () -> Assertions.assertNull(taskManager.getCompactionFailure(),
+                            "Failure was kept after a successful compaction.")
+            );
+        }
+
+        int expected = written;
+        try (CompactingTaskManager restored = open(256)) {
+            Assertions.assertEquals(expected, restored.getAllTasks().size(),
+                    "Tasks written around the failed compaction were lost.");
+        }
+    }
+
+    @Test
+    void writersShouldContinueWhileSegmentsAreCompacted() throws Exception {
+        int writers = 4;
+        int tasksPerWriter = 2_000;
+        CountDownLatch start = new CountDownLatch(1);
+        try (CompactingTaskManager taskManager = open(4096)) {
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int j = 0; j < tasksPerWriter; j++) {
+                        taskManager.addTask(new Task("task", "description", taskManager.getCounter()));
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            CompactionMetrics metrics = taskManager.getMetrics();
+
+            Assertions.assertAll(
+                    () -> Assertions.assertTrue(metrics.getCompactions() > 0, "Log was never compacted."),
+                    () -> Assertions.assertEquals(writers * tasksPerWriter, metrics.getWrites(),
+                            "Write latency was not recorded."),
+                    () -> Assertions.assertTrue(metrics.getRollPauseMaxNanos() > 0, "Roll pause was not recorded.")
+            );
+        }
+
+        try (CompactingTaskManager restored = open(4096)) {
+            Assertions.assertEquals(writers * tasksPerWriter, restored.getAllTasks().size(),
+                    "Tasks written during compaction were lost.");
+        }
+    }
+}
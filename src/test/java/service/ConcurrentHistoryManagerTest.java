@@ -0,0 +1,95 @@
+package service;
+
+import builder.TestDataBuilder;
+import model.Task;
+import model.TaskStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+class ConcurrentHistoryManagerTest {
+
+    private HistoryManager historyManager;
+    private TestDataBuilder testDataBuilder;
+
+    @BeforeEach
+    void setUp() {
+        historyManager = new ConcurrentHistoryManager();
+        testDataBuilder = new TestDataBuilder();
+    }
+
+    @Test
+    void shouldKeepViewingTaskOrderAndMoveRepeatedViewToTheEnd() {
+        List<Task> tasks = testDataBuilder.buildTasks();
+        tasks.forEach(historyManager::add);
+        List<Task> expected = new ArrayList<>(tasks);
+        expected.add(expected.remove(1));
+
+        historyManager.add(tasks.get(1));
+        List<Task> actual = historyManager.getHistory();
+
+        Assertions.assertIterableEquals(expected, actual, "Order of elements should be same.");
+    }
+
+    @Test
+    void removeShouldDeleteBufferedView() {
+        Task task = TestDataBuilder.buildTask(1, "t", "d", TaskStatus.NEW);
+        historyManager.add(task);
+
+        historyManager.remove(task.getId());
+
+        Assertions.assertTrue(historyManager.getHistory().isEmpty(), "Removed task should not be in history.");
+    }
+
+    @Test
+    void removeAllShouldDeleteBufferedViews() {
+        Task first = TestDataBuilder.buildTask(1, "t1", "d", TaskStatus.NEW);
+        Task second = TestDataBuilder.buildTask(2, "t2", "d", TaskStatus.NEW);
+        Task third = TestDataBuilder.buildTask(3, "t3", "d", TaskStatus.NEW);
+        historyManager.add(first);
+        historyManager.add(second);
+        historyManager.add(third);
+
+        historyManager.removeAll(new int[]{first.getId(), third.getId()});
+
+        Assertions.assertEquals(List.of(second), historyManager.getHistory(), "Removed tasks should not be in history.");
+    }
+
+    @Test
+    void concurrentViewsShouldAllEndUpInHistoryOnce() throws Exception {
+        int threads = 8;
+        int tasksPerThread = 1_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t * tasksPerThread;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < tasksPerThread; i++) {
+                    Task task = TestDataBuilder.buildTask(offset + i, "t", "d", TaskStatus.NEW);
+                    historyManager.add(task);
+                    historyManager.add(task);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        List<Task> history = historyManager.getHistory();
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(threads * tasksPerThread, history.size(), "Views were lost."),
+                () -> Assertions.assertEquals(history.size(), new HashSet<>(history).size(),
+                        "History should not contain duplicates.")
+        );
+    }
+}
@@ -0,0 +1,409 @@
+package service;
+
+import builder.TestDataBuilder;
+import exception.AlreadyExistsException;
+import exception.EpicDoesntExistException;
+import exception.TaskOverlapException;
+import model.ChangeSet;
+import model.Epic;
+import model.Page;
+import model.Subtask;
+import model.Task;
+import model.TaskEvent;
+import model.TaskStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConcurrentTaskManagerTest {
+
+    private static final int THREADS = 8;
+
+    private ConcurrentTaskManager taskManager;
+    private TestDataBuilder testDataBuilder;
+
+    @BeforeEach
+    void setUp() {
+        taskManager = new ConcurrentTaskManager(new ConcurrentHistoryManager());
+        testDataBuilder = new TestDataBuilder(taskManager);
+    }
+
+    @Test
+    void addSubTaskShouldUpdateEpicMembershipAndStatus() {
+        Epic epic = taskManager.addEpic(testDataBuilder.buildEpic("e", "d"));
+        Subtask subtask = taskManager.addSubTask(testDataBuilder.buildSubtask("st", "d", epic.getId()));
+
+        subtask.setStatus(TaskStatus.DONE);
+        taskManager.updateSubTask(subtask);
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(Set.of(subtask.getId()), taskManager.getSubtasksByEpicId(epic.getId()),
+                        "Subtask was not saved inside epic."),
+                () -> Assertions.assertEquals(TaskStatus.DONE, epic.getStatus(), "Epic status was not updated.")
+        );
+    }
+
+    @Test
+    void batchMethodsShouldGroupSubtasksByEpic() {
+        Epic epic1 = testDataBuilder.buildEpic("e1", "d");
+        Epic epic2 = testDataBuilder.buildEpic("e2", "d");
+        taskManager.addAllEpics(List.of(epic1, epic2));
+        List<Subtask> batch = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            batch.add(testDataBuilder.buildSubtask("st" + i, "d", i % 2 == 0 ? epic1.getId() : epic2.getId()));
+        }
+        taskManager.addAllSubtasks(batch);
+
+        List<Subtask> done = new ArrayList<>();
+        for (Subtask subtask : batch) {
+            if (subtask.getEpicId() == epic2.getId()) {
+                done.add(new Subtask(subtask.getName(), "d", subtask.getId(), subtask.getEpicId(), TaskStatus.DONE));
+            }
+        }
+        taskManager.updateAllSubtasks(done);
+        taskManager.deleteAllSubtasks(new int[]{batch.get(0).getId(), batch.get(2).getId()});
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(3, taskManager.getSubtaskIdsByEpicId(epic1.getId()).length,
+                        "Subtasks were not deleted from epic."),
+                () -> Assertions.assertEquals(TaskStatus.NEW, epic1.getStatus(), "Epic status should not change."),
+                () -> Assertions.assertEquals(TaskStatus.DONE, epic2.getStatus(), "Epic status was not updated."),
+                () -> assertThrows(EpicDoesntExistException.class, () -> taskManager.addAllSubtasks(
+                        List.of(testDataBuilder.buildSubtask("st", "d", 100)))),
+                () -> Assertions.assertEquals(8, taskManager.getAllSubtasks().size(),
+                        "Invalid batch changed the subtasks.")
+        );
+    }
+
+    @Test
+    void addShouldRejectDuplicatesAndMissingEpic() {
+        Task task = taskManager.addTask(testDataBuilder.buildTask("t", "d"));
+        Epic epic = taskManager.addEpic(testDataBuilder.buildEpic("e", "d"));
+        Epic other = taskManager.addEpic(testDataBuilder.buildEpic("e2", "d"));
+        Subtask subtask = taskManager.addSubTask(testDataBuilder.buildSubtask("st", "d", epic.getId()));
+        Subtask moved = new Subtask("st", "d", subtask.getId(), other.getId(), TaskStatus.DONE);
+
+        Assertions.assertAll(
+                () -> assertThrows(AlreadyExistsException.class, () -> taskManager.addTask(task)),
+                () -> assertThrows(AlreadyExistsException.class,
+                        () -> taskManager.addSubTask(new Subtask("st", "d", task.getId(), epic.getId()))),
+                () -> assertThrows(EpicDoesntExistException.class,
+                        () -> taskManager.addSubTask(testDataBuilder.buildSubtask("st", "d", -1))),
+                () -> assertThrows(IllegalArgumentException.class, () -> taskManager.updateSubTask(moved)),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> taskManager.updateAllSubtasks(List.of(moved))),
+                () -> Assertions.assertEquals(0, other.getSubtasksCount(), "The other epic should stay empty")
+        );
+    }
+
+    @Test
+    void deleteEpicShouldDeleteItsSubtasksFromTheMemoryAndHistory() {
+        Epic epic = taskManager.addEpic(testDataBuilder.buildEpic("e", "d"));
+        Subtask subtask = taskManager.addSubTask(testDataBuilder.buildSubtask("st", "d", epic.getId()));
+        taskManager.getEpicById(epic.getId());
+        taskManager.getSubTaskById(subtask.getId());
+
+        taskManager.deleteEpicById(epic.getId());
+
+        Assertions.assertAll(
+                () -> Assertions.assertTrue(taskManager.getAllEpics().isEmpty(), "Epic was not deleted."),
+                () -> Assertions.assertTrue(taskManager.getAllSubtasks().isEmpty(), "Subtask was not deleted."),
+                () -> Assertions.assertTrue(taskManager.getHistory().isEmpty(), "History was not cleared.")
+        );
+    }
+
+    @Test
+    void getCounterShouldNotReturnSameIdToConcurrentCallers() throws Exception {
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < 1_000; i++) {
+                ids.add(taskManager.getCounter());
+            }
+        });
+
+        Assertions.assertEquals(THREADS * 1_000, ids.size(), "Counter returned duplicated ids.");
+    }
+
+    @Test
+    void concurrentSubtaskWritesShouldKeepEpicsConsistent() throws Exception {
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < THREADS / 2; i++) {
+            epics.add(taskManager.addEpic(testDataBuilder.buildEpic("e" + i, "d")));
+        }
+
+        runConcurrently(thread -> {
+            Epic epic = epics.get(thread % epics.size());
+            for (int i = 0; i < 500; i++) {
+                Subtask subtask = taskManager.addSubTask(testDataBuilder.buildSubtask("st", "d", epic.getId()));
+                subtask.setStatus(i % 3 == 0 ? TaskStatus.DONE : TaskStatus.IN_PROGRESS);
+                taskManager.updateSubTask(subtask);
+                if (i % 5 == 0) {
+                    taskManager.deleteSubTaskById(subtask.getId());
+                }
+            }
+        });
+
+        for (Epic epic : epics) {
+            List<Subtask> subtasksByEpic = taskManager.getAllSubtasks().stream()
+                    .filter(st -> st.getEpicId() == epic.getId()).toList();
+            Set<Integer> expectedIds = subtasksByEpic.stream().map(Subtask::getId).collect(Collectors.toSet());
+            TaskStatus expectedStatus = Epic.recalculateStatus(
+                    subtasksByEpic.stream().map(Subtask::getStatus).toList());
+
+            Assertions.assertAll(
+                    () -> Assertions.assertEquals(expectedIds, taskManager.getSubtasksByEpicId(epic.getId()),
+                            "Epic subtasks differ from stored subtasks."),
+                    () -> Assertions.assertEquals(expectedStatus, epic.getStatus(),
+                            "Epic status differs from stored subtasks.")
+            );
+        }
+    }
+
+    @Test
+    void deletedTasksShouldNotComeBackInHistoryWhenViewedConcurrently() throws Exception {
+        List<Task> deleted = new ArrayList<>();
+        for (int round = 0; round < 200; round++) {
+            Task task = taskManager.addTask(testDataBuilder.buildTask("t", "d"));
+            Subtask subtask = taskManager.addSubTask(testDataBuilder.buildSubtask("st", "d",
+                    taskManager.addEpic(testDataBuilder.buildEpic("e", "d")).getId()));
+
+            runConcurrently(thread -> {
+                if (thread == 0) {
+                    taskManager.deleteTaskById(task.getId());
+                    taskManager.deleteSubTaskById(subtask.getId());
+                } else {
+                    for (int i = 0; i < 50; i++) {
+                        taskManager.getTaskById(task.getId());
+                        taskManager.getSubTaskById(subtask.getId());
+                    }
+                }
+            });
+            deleted.add(task);
+            deleted.add(subtask);
+        }
+
+        List<Task> history = taskManager.getHistory();
+        Assertions.assertTrue(deleted.stream().noneMatch(history::contains),
+                "Deleted task came back in the history.");
+    }
+
+    @Test
+    void viewsShouldBeReadableWhileOtherThreadsWrite() throws Exception {
+        Collection<Task> tasksView = taskManager.getTasksView();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < 1_000; i++) {
+                if (thread % 2 == 0) {
+                    taskManager.addTask(testDataBuilder.buildTask("t", "d"));
+                } else {
+                    for (Task task : tasksView) {
+                        Assertions.assertNotNull(task, "View returned a missing task.");
+                    }
+                }
+            }
+        });
+
+        Assertions.assertEquals(THREADS / 2 * 1_000, tasksView.size(), "View did not see every added task.");
+    }
+
+    @Test
+    void pagesShouldStayOrderedWhileOtherThreadsWrite() throws Exception {
+        Epic epic = taskManager.addEpic(testDataBuilder.buildEpic("e", "d"));
+        Set<Integer> keptIds = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 1_000; i++) {
+            keptIds.add(taskManager.addSubTask(testDataBuilder.buildSubtask("kept", "d", epic.getId())).getId());
+        }
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < 200; i++) {
+                if (thread % 2 == 0) {
+                    Subtask subtask = taskManager.addSubTask(testDataBuilder.buildSubtask("s", "d", epic.getId()));
+                    taskManager.deleteSubTaskById(subtask.getId());
+                } else {
+                    Set<Integer> seen = new HashSet<>();
+                    int lastId = -1;
+                    String cursor = null;
+                    do {
+                        Page<Subtask> page = thread % 4 == 1
+                                ? taskManager.getSubtasksPage(cursor, 64)
+                                : taskManager.getSubtasksPageByEpicId(epic.getId(), cursor, 64);
+                        for (Subtask subtask : page.getItems()) {
+                            Assertions.assertTrue(subtask.getId() > lastId, "Page is not in id order.");
+                            lastId = subtask.getId();
+                            seen.add(subtask.getId());
+                        }
+                        cursor = page.getNextCursor();
+                    } while (cursor != null);
+                    Assertions.assertTrue(seen.containsAll(keptIds), "Paging skipped a subtask that was not deleted.");
+                }
+            }
+        });
+    }
+
+    @Test
+    void searchShouldMatchStoredTasksAfterConcurrentRenames() throws Exception {
+        taskManager.setTextSearch(true);
+        List<Task> added = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            added.add(taskManager.addTask(testDataBuilder.buildTask("old", "d")));
+        }
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < 500; i++) {
+                Task task = added.get((thread * 31 + i) % added.size());
+                taskManager.updateTask(new Task(i % 2 == 0 ? "old" : "new", "d", task.getId()));
+                taskManager.search("old OR new", 10);
+            }
+        });
+
+        long stored = taskManager.getAllTasks().stream().filter(task -> task.getName().equals("new")).count();
+        Assertions.assertEquals(stored, taskManager.search("new", 1_000).size(),
+                "Index does not match the last stored names.");
+    }
+
+    @Test
+    void concurrentWritesShouldNeverScheduleOverlappingTasks() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 0, 0);
+        Epic epic = taskManager.addEpic(testDataBuilder.buildEpic("e", "d"));
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < 500; i++) {
+                LocalDateTime slot = start.plusMinutes(30L * ((thread * 7 + i) % 100));
+                try {
+                    if (i % 2 == 0) {
+                        Task task = taskManager.addTask(testDataBuilder.buildTask("t", "d").setStartTime(slot)
+                                .setDuration(Duration.ofHours(1)));
+                        if (i % 3 == 0) {
+                            taskManager.deleteTaskById(task.getId());
+                        }
+                    } else {
+                        Subtask subtask = testDataBuilder.buildSubtask("s", "d", epic.getId());
+                        subtask.setStartTime(slot).setDuration(Duration.ofMinutes(30));
+                        taskManager.addSubTask(subtask);
+                        if (i % 3 == 0) {
+                            taskManager.deleteSubTaskById(subtask.getId());
+                        }
+                    }
+                } catch (TaskOverlapException e) {
+                    // Another thread took the slot first.
+                }
+            }
+        });
+
+        List<Task> prioritized = taskManager.getPrioritizedTasks();
+        List<Subtask> scheduledSubtasks = taskManager.getAllSubtasks();
+        for (int i = 1; i < prioritized.size(); i++) {
+            Assertions.assertFalse(prioritized.get(i).getStartTime().isBefore(prioritized.get(i - 1).getEndTime()),
+                    "Tasks " + prioritized.get(i - 1).getId() + " and " + prioritized.get(i).getId() + " overlap.");
+        }
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(taskManager.getAllTasks().size() + scheduledSubtasks.size(),
+                        prioritized.size(), "Prioritized tasks do not match the stored ones."),
+                () -> Assertions.assertEquals(scheduledSubtasks.stream().map(Subtask::getStartTime)
+                        .min(LocalDateTime::compareTo).orElse(null), epic.getStartTime(), "Epic start is wrong."),
+                () -> Assertions.assertEquals(scheduledSubtasks.stream().map(Subtask::getEndTime)
+                        .max(LocalDateTime::compareTo).orElse(null), epic.getEndTime(), "Epic end is wrong."),
+                () -> Assertions.assertEquals(Duration.ofMinutes(30L * scheduledSubtasks.size()),
+                        scheduledSubtasks.isEmpty() ? Duration.ZERO : epic.getDuration(), "Epic duration is wrong.")
+        );
+    }
+
+    @Test
+    void replicaFedWithChangesShouldMatchBoardAfterConcurrentWrites() throws Exception {
+        Epic epic = taskManager.addEpic(testDataBuilder.buildEpic("e", "d"));
+        Map<Integer, Task> replica = new HashMap<>();
+        long[] revision = {0};
+
+        runConcurrently(thread -> {
+            if (thread == 0) {
+                for (int i = 0; i < 200; i++) {
+                    revision[0] = applyChanges(replica, revision[0]);
+                }
+                return;
+            }
+            for (int i = 0; i < 500; i++) {
+                Task task = taskManager.addTask(testDataBuilder.buildTask("t", "d"));
+                taskManager.updateTask(new Task("t", "d", task.getId(), TaskStatus.DONE));
+                Subtask subtask = taskManager.addSubTask(testDataBuilder.buildSubtask("st", "d", epic.getId()));
+                if (i % 3 == 0) {
+                    taskManager.deleteTaskById(task.getId());
+                    taskManager.deleteSubTaskById(subtask.getId());
+                }
+            }
+        });
+        long last = applyChanges(replica, revision[0]);
+
+        Map<Integer, Task> board = new HashMap<>();
+        taskManager.forEachTask(task -> board.put(task.getId(), task));
+        taskManager.forEachEpic(stored -> board.put(stored.getId(), stored));
+        taskManager.forEachSubtask(subtask -> board.put(subtask.getId(), subtask));
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(board, replica, "Replica differs from the board."),
+                () -> Assertions.assertEquals(taskManager.getRevision(), last, "Replica did not reach the revision."),
+                () -> Assertions.assertTrue(last > 7 * 500 * 3, "Not every change took a revision.")
+        );
+    }
+
+    /**
+     * Applies every change after the revision to the replica and returns the revision reached.
+     */
+    private long applyChanges(Map<Integer, Task> replica, long revision) {
+        ChangeSet changes;
+        do {
+            changes = taskManager.getChangesSince(revision, 100);
+            Assertions.assertFalse(changes.isTooOld(), "Retained changes were reported too old.");
+            for (TaskEvent change : changes.getChanges()) {
+                if (change.getTask() == null) {
+                    replica.remove(change.getId());
+                } else {
+                    replica.put(change.getId(), change.getTask());
+                }
+            }
+            revision = changes.getRevision();
+        } while (changes.hasMore());
+        return revision;
+    }
+
+    private void runConcurrently(ThreadBody body) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int thread = i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                body.run(thread);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    private interface ThreadBody {
+        void run(int thread);
+    }
+}
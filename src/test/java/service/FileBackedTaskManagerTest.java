@@ -0,0 +1,333 @@
+package service;
+
+import exception.AlreadyExistsException;
+import exception.EpicDoesntExistException;
+import exception.ManagerSaveException;
+import exception.TaskOverlapException;
+import model.ChangeSet;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskBody;
+import model.TaskBodyStore;
+import model.TaskEvent;
+import model.TaskStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import persistence.FsyncPolicy;
+import persistence.MutationLog;
+import persistence.RecordBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+class FileBackedTaskManagerTest {
+
+    @TempDir
+    Path directory;
+
+    private FileBackedTaskManager open(FsyncPolicy fsyncPolicy) {
+        return new FileBackedTaskManager(new InMemoryTaskManager(), directory.resolve("tasks.log"), fsyncPolicy);
+    }
+
+    @Test
+    void reopenedManagerShouldRestoreTasksEpicsSubtasksAndCounter() {
+        Task task;
+        Epic epic;
+        Subtask subtask;
+        try (FileBackedTaskManager taskManager = open(FsyncPolicy.perOperation())) {
+            task = taskManager.addTask(new Task("t1", "d1", taskManager.getCounter()));
+            epic = taskManager.addEpic(new Epic("e1", "d2", taskManager.getCounter()));
+            subtask = taskManager.addSubTask(new Subtask("s1", "d3", taskManager.getCounter(), epic.getId()));
+            taskManager.addSubTask(new Subtask("s2", "d4", taskManager.getCounter(), epic.getId(), TaskStatus.DONE));
+            taskManager.updateSubTask(new Subtask("s1", "changed", subtask.getId(), epic.getId(), TaskStatus.DONE));
+            taskManager.updateTask(new Task("t1", null, task.getId(), TaskStatus.IN_PROGRESS));
+        }
+
+        try (FileBackedTaskManager restored = open(FsyncPolicy.perOperation())) {
+            Task restoredTask = restored.getTaskById(task.getId());
+            Epic restoredEpic = restored.getEpicById(epic.getId());
+            Subtask restoredSubtask = restored.getSubTaskById(subtask.getId());
+
+            Assertions.assertAll(
+                    () -> Assertions.assertEquals(TaskStatus.IN_PROGRESS, restoredTask.getStatus(),
+                            "Task update was not restored."),
+                    () -> Assertions.assertNull(restoredTask.getDescription(), "Null description was not restored."),
+                    () -> Assertions.assertEquals("changed", restoredSubtask.getDescription(),
+                            "Subtask update was not restored."),
+                    () -> Assertions.assertEquals(2, restoredEpic.getSubtasksCount(),
+                            "Epic subtasks were not restored."),
+                    () -> Assertions.assertEquals(TaskStatus.DONE, restoredEpic.getStatus(),
+                            "Epic status was not restored."),
+                    () -> Assertions.assertEquals(5, restored.getCounter(), "Counter was not restored.")
+            );
+        }
+    }
+
+    @Test
+    void reopenedManagerShouldRestoreRenamedEpicWithItsSubtasks() {
+        Epic epic;
+        try (FileBackedTaskManager taskManager = open(FsyncPolicy.perOperation())) {
+            epic = taskManager.addEpic(new Epic("e1", "d1", taskManager.getCounter()));
+            taskManager.addSubTask(new Subtask("s1", "d2", taskManager.getCounter(), epic.getId(), TaskStatus.DONE));
+            taskManager.updateEpic(new Epic("renamed", "new description", epic.getId()));
+        }
+
+        try (FileBackedTaskManager restored = open(FsyncPolicy.perOperation())) {
+            Epic restoredEpic = restored.getEpicById(epic.getId());
+
+            Assertions.assertAll(
+                    () -> Assertions.assertEquals("renamed", restoredEpic.getName(), "Epic name was not restored."),
+                    () -> Assertions.assertEquals("new description", restoredEpic.getDescription(),
+                            "Epic description was not restored."),
+                    () -> Assertions.assertEquals(1, restoredEpic.getSubtasksCount(),
+                            "Epic subtasks were lost by the rename."),
+                    () -> Assertions.assertEquals(TaskStatus.DONE, restoredEpic.getStatus(),
+                            "Epic status was lost by the rename.")
+            );
+        }
+    }
+
+    @Test
+    void reopenedManagerShouldReplayDeletionsAndClearing() {
+        try (FileBackedTaskManager taskManager = open(FsyncPolicy.osManaged())) {
+            Task task = taskManager.addTask(new Task("t1", "d1", taskManager.getCounter()));
+            taskManager.addTask(new Task("t2", "d2", taskManager.getCounter()));
+            Epic epic = taskManager.addEpic(new Epic("e1", "d3", taskManager.getCounter()));
+            Epic other = taskManager.addEpic(new Epic("e2", "d4", taskManager.getCounter()));
+            taskManager.addSubTask(new Subtask("s1", "d5", taskManager.getCounter(), epic.getId()));
+            taskManager.addSubTask(new Subtask("s2", "d6", taskManager.getCounter(), other.getId()));
+            taskManager.deleteTaskById(task.getId());
+            taskManager.deleteEpicById(epic.getId());
+            taskManager.clearSubtasks();
+        }
+
+        try (FileBackedTaskManager restored = open(FsyncPolicy.osManaged())) {
+            Assertions.assertAll(
+                    () -> Assertions.assertEquals(List.of("t2"),
+                            restored.getAllTasks().stream().map(Task::getName).toList(), "Deletion was not replayed."),
+                    () -> Assertions.assertEquals(List.of("e2"),
+                            restored.getAllEpics().stream().map(Task::getName).toList(),
+                            "Epic deletion was not replayed."),
+                    () -> Assertions.assertTrue(restored.getAllSubtasks().isEmpty(), "Clearing was not replayed."),
+                    () -> Assertions.assertEquals(7, restored.getCounter(), "Counter was not restored.")
+            );
+        }
+    }
+
+    @Test
+    void reopenedManagerShouldDropTornTailAndKeepAppending() throws IOException {
+        Path logFile = directory.resolve("tasks.log");
+        long validSize;
+        try (FileBackedTaskManager taskManager = open(FsyncPolicy.groupCommit(Duration.ofMillis(5)))) {
+            taskManager.addTask(new Task("t1", "d1", taskManager.getCounter()));
+            validSize = taskManager.getLogSize();
+        }
+        Files.write(logFile, new byte[]{0, 0, 0, 40, 1, 0, 0}, StandardOpenOption.APPEND);
+
+        try (FileBackedTaskManager restored = open(FsyncPolicy.perOperation())) {
+            Assertions.assertEquals(validSize, Files.size(logFile), "Torn record was not truncated.");
+            restored.addTask(new Task("t2", "d2", restored.getCounter()));
+        }
+
+        try (FileBackedTaskManager restored = open(FsyncPolicy.perOperation())) {
+            Assertions.assertEquals(List.of("t1", "t2"),
+                    restored.getAllTasks().stream().map(Task::getName).toList(),
+                    "Records appended after truncation were not replayed.");
+        }
+    }
+
+    @Test
+    void reopenedManagerShouldReplayBatchesSplitIntoSeveralRecords() {
+        int subtasksCount = FileBackedTaskManager.BATCH_RECORD_LIMIT * 2 + 1;
+        try (FileBackedTaskManager taskManager = open(FsyncPolicy.osManaged())) {
+            Epic epic = new Epic("e1", "d1", taskManager.getCounter());
+            taskManager.addAllEpics(List.of(epic));
+            List<Subtask> subtasks = new ArrayList<>();
+            for (int i = 0; i < subtasksCount; i++) {
+                subtasks.add(new Subtask("s" + i, "d", taskManager.getCounter(), epic.getId(), TaskStatus.DONE));
+            }
+            taskManager.addAllSubtasks(subtasks);
+            taskManager.updateAllSubtasks(List.of(new Subtask("s0", "d", subtasks.get(0).getId(), epic.getId())));
+            taskManager.deleteAllSubtasks(new int[]{subtasks.get(1).getId()});
+        }
+
+        try (FileBackedTaskManager restored = open(FsyncPolicy.osManaged())) {
+            Assertions.assertAll(
+                    () -> Assertions.assertEquals(subtasksCount - 1, restored.getAllSubtasks().size(),
+                            "Batches were not replayed."),
+                    () -> Assertions.assertEquals(TaskStatus.IN_PROGRESS, restored.getEpicById(1).getStatus(),
+                            "Batch update was not replayed.")
+            );
+        }
+    }
+
+    @Test
+    void rejectedChangesShouldBeSkippedOnReplayIncludingBatchesSplitIntoSeveralRecords() {
+        int tasksCount = FileBackedTaskManager.BATCH_RECORD_LIMIT + 1;
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 9, 0);
+        try (FileBackedTaskManager taskManager = open(FsyncPolicy.perOperation())) {
+            Task task = taskManager.addTask(new Task("t1", "d1", taskManager.getCounter()).setStartTime(start)
+                    .setDuration(Duration.ofHours(1)));
+            Assertions.assertThrows(AlreadyExistsException.class,
+                    () -> taskManager.addTask(new Task("duplicate", "d", task.getId())));
+            Assertions.assertThrows(EpicDoesntExistException.class,
+                    () -> taskManager.addSubTask(new Subtask("s1", "d", taskManager.getCounter(), -1)));
+            Assertions.assertThrows(TaskOverlapException.class,
+                    () -> taskManager.addTask(new Task("t2", "d", taskManager.getCounter()).setStartTime(start)));
+            List<Task> batch = new ArrayList<>();
+            for (int i = 0; i < tasksCount - 1; i++) {
+                batch.add(new Task("b" + i, "d", taskManager.getCounter()));
+            }
+            // Only the last record of the batch holds the duplicate, the first one alone would be accepted.
+            batch.add(new Task("duplicate", "d", task.getId()));
+            Assertions.assertThrows(AlreadyExistsException.class, () -> taskManager.addAllTasks(batch));
+        }
+
+        try (FileBackedTaskManager restored = open(FsyncPolicy.perOperation())) {
+            Assertions.assertEquals(List.of("t1"), restored.getAllTasks().stream().map(Task::getName).toList(),
+                    "Rejected changes were applied on replay.");
+        }
+    }
+
+    @Test
+    void failedAppendShouldLeaveWrappedManagerUnchanged() {
+        InMemoryTaskManager delegate = new InMemoryTaskManager();
+        FileBackedTaskManager taskManager = new FileBackedTaskManager(delegate, new MutationLog() {
+            @Override
+            public long replay(Consumer<ByteBuffer> handler) {
+                return 0;
+            }
+
+            @Override
+            public void append(RecordBuffer record) throws IOException {
+                throw new IOException("Disk full");
+            }
+
+            @Override
+            public long size() {
+                return 0;
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+
+        Assertions.assertAll(
+                () -> Assertions.assertThrows(ManagerSaveException.class,
+                        () -> taskManager.addTask(new Task("t1", "d1", taskManager.getCounter()))),
+                () -> Assertions.assertThrows(ManagerSaveException.class,
+                        () -> taskManager.addAllEpics(List.of(new Epic("e1", "d2", taskManager.getCounter())))),
+                () -> Assertions.assertTrue(delegate.getAllTasks().isEmpty(), "Unlogged task was applied."),
+                () -> Assertions.assertTrue(delegate.getAllEpics().isEmpty(), "Unlogged batch was applied."),
+                () -> Assertions.assertEquals(0, delegate.getRevision(), "Unlogged changes were recorded.")
+        );
+    }
+
+    @Test
+    void failureOfWrappedManagerAfterLoggingShouldStopChangesUntilReopen() {
+        TaskBodyStore failing = new TaskBodyStore() {
+            @Override
+            public long store(String name, String description) {
+                throw new ManagerSaveException("Disk full", null);
+            }
+
+            @Override
+            public TaskBody load(long reference) {
+                throw new IllegalStateException("Nothing was stored");
+            }
+        };
+        try (FileBackedTaskManager taskManager = new FileBackedTaskManager(
+                new InMemoryTaskManager(new InMemoryHistoryManager(), StorageType.HASH_MAP, failing),
+                directory.resolve("tasks.log"), FsyncPolicy.perOperation())) {
+            ManagerSaveException failure = Assertions.assertThrows(ManagerSaveException.class,
+                    () -> taskManager.addTask(new Task("t1", "d1", 1)));
+            ManagerSaveException refused = Assertions.assertThrows(ManagerSaveException.class,
+                    () -> taskManager.addTask(new Task("t2", "d2", 2)));
+
+            Assertions.assertAll(
+                    () -> Assertions.assertSame(failure, refused.getCause(), "Refusal should name the failure."),
+                    () -> Assertions.assertTrue(taskManager.getAllTasks().isEmpty(), "Failed task was stored.")
+            );
+        }
+
+        try (FileBackedTaskManager restored = open(FsyncPolicy.perOperation())) {
+            Assertions.assertEquals(List.of(new Task("t1", "d1", 1)), restored.getAllTasks(),
+                    "Reopen should take the logged change and nothing refused after it.");
+        }
+    }
+
+    @Test
+    void reopenedManagerShouldRestoreStartTimesAndDurations() {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 9, 0, 0, 123_000_000);
+        try (FileBackedTaskManager taskManager = open(FsyncPolicy.perOperation())) {
+            taskManager.addTask(new Task("t1", "d", taskManager.getCounter()).setStartTime(start)
+                    .setDuration(Duration.ofMinutes(30)));
+            Epic epic = taskManager.addEpic(new Epic("e1", "d", taskManager.getCounter()));
+            Subtask first = new Subtask("s1", "d", taskManager.getCounter(), epic.getId());
+            first.setStartTime(start.plusHours(1)).setDuration(Duration.ofHours(2));
+            Subtask second = new Subtask("s2", "d", taskManager.getCounter(), epic.getId());
+            second.setStartTime(start.plusHours(3));
+            taskManager.addAllSubtasks(List.of(first, second));
+            taskManager.updateSubTask(new Subtask("s2", "unscheduled", second.getId(), epic.getId()));
+        }
+
+        try (FileBackedTaskManager restored = open(FsyncPolicy.perOperation())) {
+            Assertions.assertAll(
+                    () -> Assertions.assertEquals(start.plusMinutes(30), restored.getTaskById(1).getEndTime(),
+                            "Task time was not restored."),
+                    () -> Assertions.assertEquals(start.plusHours(3), restored.getEpicById(2).getEndTime(),
+                            "Epic end was not derived from the replayed subtasks."),
+                    () -> Assertions.assertEquals(List.of(1, 3), restored.getPrioritizedTasks().stream()
+                            .map(Task::getId).toList(), "Unscheduled subtask is still prioritized."),
+                    () -> Assertions.assertNull(restored.getSubTaskById(4).getStartTime(),
+                            "Removed start time was not replayed.")
+            );
+        }
+    }
+
+    @Test
+    void restoreCounterShouldBeReplayed() {
+        try (FileBackedTaskManager taskManager = open(FsyncPolicy.perOperation())) {
+            taskManager.restoreCounter(100);
+        }
+
+        try (FileBackedTaskManager restored = open(FsyncPolicy.perOperation())) {
+            Assertions.assertEquals(100, restored.getCounter(), "Counter was not restored.");
+        }
+    }
+
+    @Test
+    void changesSinceRevisionFromBeforeReopenShouldBeTooOld() {
+        long revision;
+        try (FileBackedTaskManager taskManager = open(FsyncPolicy.perOperation())) {
+            taskManager.addTask(new Task("t1", "d1", taskManager.getCounter()));
+            taskManager.addTask(new Task("t2", "d2", taskManager.getCounter()));
+            revision = taskManager.getRevision();
+        }
+
+        try (FileBackedTaskManager restored = open(FsyncPolicy.perOperation())) {
+            long opened = restored.getRevision();
+            Task task = restored.addTask(new Task("t3", "d3", restored.getCounter()));
+            ChangeSet changes = restored.getChangesSince(opened, 10);
+
+            Assertions.assertAll(
+                    () -> Assertions.assertTrue(restored.getChangesSince(revision - 1, 10).isTooOld(),
+                            "Revision of the earlier run was not reported too old."),
+                    () -> Assertions.assertEquals(List.of(task), changes.getChanges().stream()
+                            .map(TaskEvent::getTask).toList(), "Changes after the reopen are wrong."),
+                    () -> Assertions.assertEquals(opened + 1, changes.getRevision(), "Revision is wrong.")
+            );
+        }
+    }
+}
@@ -146,6 +146,38 @@ class InMemoryHistoryManagerTest {
         Assertions.assertEquals(expectedHistorySize, actualHistorySize, "Should be empty list.");
     }
 
+    @Test
+    void addShouldEvictLeastRecentlyViewedTaskWhenCapacityIsReached() {
+        historyManager = new InMemoryHistoryManager(3);
+        List<Task> tasks = testDataBuilder.buildTasks();
+        historyManager.add(tasks.get(0));
+        historyManager.add(tasks.get(1));
+        historyManager.add(tasks.get(2));
+        historyManager.add(tasks.get(0));
+
+        historyManager.add(tasks.get(3));
+        final List<Task> actual = historyManager.getHistory();
+
+        Assertions.assertIterableEquals(List.of(tasks.get(2), tasks.get(0), tasks.get(3)), actual,
+                "Least recently viewed task should be evicted.");
+    }
+
+    @Test
+    void getHistoryWithLimitShouldReturnMostRecentTasksFromOldToNew() {
+        fillUpHistoryManager();
+        List<Task> tasks = testDataBuilder.buildTasks();
+
+        final List<Task> actual = historyManager.getHistory(2);
+        final List<Task> actualWithBigLimit = historyManager.getHistory(100);
+
+        Assertions.assertAll(
+                () -> Assertions.assertIterableEquals(tasks.subList(tasks.size() - 2, tasks.size()), actual,
+                        "Should return two last viewed tasks."),
+                () -> Assertions.assertIterableEquals(tasks, actualWithBigLimit,
+                        "Should return whole history when limit is bigger than history.")
+        );
+    }
+
     private static Stream<Arguments> provideDeletionPositions() {
         List<Task> tasks = TestDataBuilder.buildTasks();
         return Stream.of(
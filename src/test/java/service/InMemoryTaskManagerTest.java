@@ -3,29 +3,50 @@ package service;
 import builder.TestDataBuilder;
 import exception.AlreadyExistsException;
 import exception.EpicDoesntExistException;
+import exception.EventOverflowException;
+import exception.ManagerSaveException;
+import exception.TaskOverlapException;
+import model.ChangeSet;
 import model.Epic;
+import model.Page;
 import model.Subtask;
 import model.Task;
+import model.TaskBody;
+import model.TaskBodyStore;
+import model.TaskEvent;
 import model.TaskStatus;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import persistence.FileTaskBodyStore;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class InMemoryTaskManagerTest {
 
-    private TaskManager taskManager;
+    private InMemoryTaskManager taskManager;
     private TestDataBuilder testDataBuilder;
 
     @BeforeEach
     void setUp() {
-        taskManager = new InMemoryTaskManager();
+        InMemoryTaskManager inMemoryTaskManager = new InMemoryTaskManager();
+        inMemoryTaskManager.setEpicStatusVerification(true);
+        taskManager = inMemoryTaskManager;
         testDataBuilder = new TestDataBuilder(taskManager);
     }
 
@@ -218,6 +239,31 @@ class InMemoryTaskManagerTest {
         );
     }
 
+    @Test
+    void clearSubtasksShouldResetEveryEpicOfALargeBoard() {
+        int subtasksPerEpic = 50_000;
+        Epic epic1 = taskManager.addEpic(testDataBuilder.buildEpic("e1", "d1"));
+        Epic epic2 = taskManager.addEpic(testDataBuilder.buildEpic("e2", "d2"));
+        List<Subtask> batch = new ArrayList<>();
+        for (int i = 0; i < subtasksPerEpic; i++) {
+            batch.add(new Subtask("st", "d", taskManager.getCounter(), epic1.getId(), TaskStatus.DONE));
+            batch.add(new Subtask("st", "d", taskManager.getCounter(), epic2.getId(), TaskStatus.IN_PROGRESS));
+        }
+        taskManager.addAllSubtasks(batch);
+        taskManager.getSubTaskById(batch.get(0).getId());
+        taskManager.getEpicById(epic1.getId());
+
+        taskManager.clearSubtasks();
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(0, epic1.getSubtasksCount(), "Subtasks were not deleted from epic."),
+                () -> Assertions.assertEquals(TaskStatus.NEW, epic1.getStatus(), "Epic status was not reset."),
+                () -> Assertions.assertEquals(TaskStatus.NEW, epic2.getStatus(), "Epic status was not reset."),
+                () -> Assertions.assertEquals(List.of(epic1), taskManager.getHistory(),
+                        "Only subtasks should leave the history.")
+        );
+    }
+
     @Test
     void clearSubtasksShouldDeleteAllSubtasksFromTheHistory() {
         getHistoryReady();
@@ -760,6 +806,238 @@ class InMemoryTaskManagerTest {
 
     }
 
+    @Test
+    void updateSubtaskShouldRejectMovingItToAnotherEpicWithoutChangingEither() {
+        Epic first = taskManager.addEpic(testDataBuilder.buildEpic("e1", "d"));
+        Epic second = taskManager.addEpic(testDataBuilder.buildEpic("e2", "d"));
+        Subtask subtask = taskManager.addSubTask(
+                new Subtask("st1", "d", taskManager.getCounter(), first.getId(), TaskStatus.DONE));
+        Subtask moved = new Subtask("st1", "d", subtask.getId(), second.getId(), TaskStatus.IN_PROGRESS);
+        Subtask orphaned = new Subtask("st1", "d", subtask.getId(), -1, TaskStatus.IN_PROGRESS);
+
+        Assertions.assertAll(
+                () -> Assertions.assertThrows(IllegalArgumentException.class, () -> taskManager.updateSubTask(moved),
+                        "A subtask should not move to another epic"),
+                () -> Assertions.assertThrows(IllegalArgumentException.class, () -> taskManager.updateSubTask(orphaned),
+                        "A subtask should not move to a missing epic"),
+                () -> Assertions.assertThrows(IllegalArgumentException.class,
+                        () -> taskManager.updateAllSubtasks(List.of(moved)),
+                        "A batch should not move a subtask to another epic"),
+                () -> Assertions.assertSame(subtask, taskManager.getSubTaskById(subtask.getId()),
+                        "The stored subtask should be kept"),
+                () -> Assertions.assertEquals(TaskStatus.DONE, first.getStatus(),
+                        "The epic of the subtask should keep its status"),
+                () -> Assertions.assertEquals(TaskStatus.NEW, second.getStatus(),
+                        "The other epic should not count the subtask"),
+                () -> Assertions.assertEquals(0, second.getSubtasksCount(), "The other epic should stay empty")
+        );
+    }
+
+    @Test
+    void epicStatusShouldFollowSubtaskDeletionAndClearing() {
+        Epic epicInMemory = taskManager.addEpic(testDataBuilder.buildEpic("e1", "d"));
+        Subtask done = taskManager.addSubTask(testDataBuilder.buildSubtask("st1", "d", epicInMemory.getId()));
+        Subtask inProgress = taskManager.addSubTask(
+                testDataBuilder.buildSubtask("st2", "d", epicInMemory.getId()));
+        done.setStatus(TaskStatus.DONE);
+        taskManager.updateSubTask(done);
+        inProgress.setStatus(TaskStatus.IN_PROGRESS);
+        taskManager.updateSubTask(inProgress);
+
+        TaskStatus statusWithBoth = epicInMemory.getStatus();
+        taskManager.deleteSubTaskById(inProgress.getId());
+        TaskStatus statusWithDoneOnly = epicInMemory.getStatus();
+        taskManager.clearSubtasks();
+        TaskStatus statusWithoutSubtasks = epicInMemory.getStatus();
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(TaskStatus.IN_PROGRESS, statusWithBoth),
+                () -> Assertions.assertEquals(TaskStatus.DONE, statusWithDoneOnly),
+                () -> Assertions.assertEquals(TaskStatus.NEW, statusWithoutSubtasks)
+        );
+    }
+
+    @Test
+    void subtaskMutationsShouldNotWriteSiblingsToTheHistory() {
+        final InMemoryTaskManager inMemoryTaskManager = taskManager;
+        final Epic epicInMemory = taskManager.addEpic(testDataBuilder.buildEpic("e1", "d"));
+        final Subtask subtask1 = taskManager.addSubTask(
+                testDataBuilder.buildSubtask("st1", "d", epicInMemory.getId()));
+        final Subtask subtask2 = taskManager.addSubTask(
+                testDataBuilder.buildSubtask("st2", "d", epicInMemory.getId()));
+        taskManager.addSubTask(testDataBuilder.buildSubtask("st3", "d", epicInMemory.getId()));
+        final long writesBefore = inMemoryTaskManager.getHistoryWriteCount();
+
+        subtask1.setStatus(TaskStatus.DONE);
+        taskManager.updateSubTask(subtask1);
+        taskManager.deleteSubTaskById(subtask2.getId());
+        final long writesAfterMutations = inMemoryTaskManager.getHistoryWriteCount();
+        taskManager.getSubTaskById(subtask1.getId());
+        final long writesAfterView = inMemoryTaskManager.getHistoryWriteCount();
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(writesBefore, writesAfterMutations,
+                        "Mutations should not write to the history."),
+                () -> Assertions.assertEquals(writesAfterMutations + 1, writesAfterView,
+                        "One view should make one history write."),
+                () -> Assertions.assertIterableEquals(List.of(subtask1), taskManager.getHistory(),
+                        "Only viewed subtask should be in the history.")
+        );
+    }
+
+    @Test
+    void getSubtaskIdsByEpicIdShouldReturnSortedIdsOrNullForUnknownEpic() {
+        final Epic epic = taskManager.addEpic(testDataBuilder.buildEpic("e", "d"));
+        final Subtask subtask1 = taskManager.addSubTask(testDataBuilder.buildSubtask("st1", "d", epic.getId()));
+        final Subtask subtask2 = taskManager.addSubTask(testDataBuilder.buildSubtask("st2", "d", epic.getId()));
+
+        final int[] actual = taskManager.getSubtaskIdsByEpicId(epic.getId());
+
+        Assertions.assertAll(
+                () -> Assertions.assertArrayEquals(new int[]{subtask1.getId(), subtask2.getId()}, actual,
+                        "Incorrect subtask ids."),
+                () -> Assertions.assertNull(taskManager.getSubtaskIdsByEpicId(-1), "Unknown epic should give null.")
+        );
+    }
+
+    @Test
+    void openAddressingStorageShouldKeepTasksEpicsAndSubtasks() {
+        taskManager = new InMemoryTaskManager(new InMemoryHistoryManager(), StorageType.OPEN_ADDRESSING);
+        testDataBuilder = new TestDataBuilder(taskManager);
+        final Task task = taskManager.addTask(testDataBuilder.buildTask("t", "d"));
+        final Epic epic = taskManager.addEpic(testDataBuilder.buildEpic("e", "d"));
+        final Subtask subtask1 = taskManager.addSubTask(testDataBuilder.buildSubtask("st1", "d", epic.getId()));
+        final Subtask subtask2 = taskManager.addSubTask(testDataBuilder.buildSubtask("st2", "d", epic.getId()));
+
+        subtask1.setStatus(TaskStatus.DONE);
+        taskManager.updateSubTask(subtask1);
+        taskManager.deleteSubTaskById(subtask2.getId());
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(task, taskManager.getTaskById(task.getId()), "Task was not found."),
+                () -> Assertions.assertEquals(List.of(epic), taskManager.getAllEpics(), "Epics differ."),
+                () -> Assertions.assertEquals(List.of(subtask1), taskManager.getAllSubtasks(), "Subtasks differ."),
+                () -> Assertions.assertEquals(TaskStatus.DONE, epic.getStatus(), "Epic status was not updated.")
+        );
+    }
+
+    @Test
+    void bodyStoreShouldKeepOnlyHeadersInMemoryAndLoadBodiesOnDemand(@TempDir Path directory) throws IOException {
+        try (FileTaskBodyStore bodyStore = new FileTaskBodyStore(directory.resolve("bodies"), 1)) {
+            taskManager = new InMemoryTaskManager(new InMemoryHistoryManager(), StorageType.HASH_MAP, bodyStore);
+            testDataBuilder = new TestDataBuilder(taskManager);
+            final Task task = taskManager.addTask(testDataBuilder.buildTask("t", "d"));
+            final Epic epic = taskManager.addEpic(testDataBuilder.buildEpic("e", "d2"));
+            final Subtask subtask = taskManager.addSubTask(testDataBuilder.buildSubtask("st", "d3", epic.getId()));
+
+            subtask.setDescription("changed");
+            subtask.setStatus(TaskStatus.DONE);
+            taskManager.updateSubTask(subtask);
+
+            Assertions.assertAll(
+                    () -> Assertions.assertTrue(task.isBodyDetached(), "Task body was not moved to the store."),
+                    () -> Assertions.assertTrue(subtask.isBodyDetached(), "Updated body was not moved to the store."),
+                    () -> Assertions.assertEquals("t", taskManager.getTaskById(task.getId()).getName(),
+                            "Task name was not loaded."),
+                    () -> Assertions.assertEquals("d2", taskManager.getEpicById(epic.getId()).getDescription(),
+                            "Epic description was not loaded."),
+                    () -> Assertions.assertEquals("changed", taskManager.getSubTaskById(subtask.getId()).getDescription(),
+                            "Updated description was not loaded."),
+                    () -> Assertions.assertEquals(TaskStatus.DONE, epic.getStatus(), "Epic status was not updated.")
+            );
+        }
+    }
+
+    @Test
+    void failingBodyStoreShouldLeaveNoTraceInIndexes() {
+        List<TaskBody> bodies = new ArrayList<>();
+        TaskBodyStore failingOnce = new TaskBodyStore() {
+            @Override
+            public long store(String name, String description) {
+                bodies.add(new TaskBody(name, description));
+                if (bodies.size() == 1) {
+                    throw new ManagerSaveException("Disk full", null);
+                }
+                return bodies.size() - 1;
+            }
+
+            @Override
+            public TaskBody load(long reference) {
+                return bodies.get((int) reference);
+            }
+        };
+        taskManager = new InMemoryTaskManager(new InMemoryHistoryManager(), StorageType.HASH_MAP, failingOnce);
+        taskManager.setTextSearch(true);
+        LocalDateTime nine = LocalDateTime.of(2024, 5, 1, 9, 0);
+
+        assertThrows(ManagerSaveException.class, () -> taskManager.addTask(new Task("Plan", "d", 1)
+                .setStartTime(nine)));
+        Task retry = taskManager.addTask(new Task("Retry", "d", 2).setStartTime(nine));
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(List.of(retry), taskManager.getPrioritizedTasks(),
+                        "Task that was not stored still holds its slot."),
+                () -> Assertions.assertEquals(List.of(), taskManager.search("plan", 10),
+                        "Task that was not stored is still searchable."),
+                () -> Assertions.assertEquals(1, taskManager.getRevision(), "Failed add was recorded.")
+        );
+    }
+
+    @Test
+    void addAllSubtasksShouldAddNothingWhenBatchIsInvalid() {
+        final Epic epic = taskManager.addEpic(testDataBuilder.buildEpic("e", "d"));
+        final Subtask existing = taskManager.addSubTask(testDataBuilder.buildSubtask("st", "d", epic.getId()));
+        final Subtask valid = testDataBuilder.buildSubtask("st1", "d", epic.getId());
+
+        Assertions.assertAll(
+                () -> assertThrows(EpicDoesntExistException.class, () -> taskManager.addAllSubtasks(
+                        List.of(valid, testDataBuilder.buildSubtask("st2", "d", 100)))),
+                () -> assertThrows(AlreadyExistsException.class, () -> taskManager.addAllSubtasks(
+                        List.of(valid, existing))),
+                () -> assertThrows(AlreadyExistsException.class, () -> taskManager.addAllSubtasks(
+                        List.of(valid, valid))),
+                () -> Assertions.assertEquals(List.of(existing), taskManager.getAllSubtasks(),
+                        "Part of an invalid batch was added.")
+        );
+    }
+
+    @Test
+    void batchMethodsShouldKeepEpicStatusesInSync() {
+        final Epic epic1 = testDataBuilder.buildEpic("e1", "d");
+        final Epic epic2 = testDataBuilder.buildEpic("e2", "d");
+        taskManager.addAllEpics(List.of(epic1, epic2));
+        final Subtask subtask1 = testDataBuilder.buildSubtask("st1", "d", epic1.getId());
+        final Subtask subtask2 = testDataBuilder.buildSubtask("st2", "d", epic1.getId());
+        final Subtask subtask3 = testDataBuilder.buildSubtask("st3", "d", epic2.getId());
+        taskManager.addAllSubtasks(List.of(subtask1, subtask2, subtask3));
+        final Task task = testDataBuilder.buildTask("t", "d");
+        taskManager.addAllTasks(List.of(task));
+        taskManager.getSubTaskById(subtask2.getId());
+
+        taskManager.updateAllSubtasks(List.of(
+                new Subtask("st1", "d", subtask1.getId(), epic1.getId(), TaskStatus.DONE),
+                new Subtask("st3", "d", subtask3.getId(), epic2.getId(), TaskStatus.DONE)));
+        final TaskStatus epic1AfterUpdate = epic1.getStatus();
+        final TaskStatus epic2AfterUpdate = epic2.getStatus();
+        taskManager.deleteAllSubtasks(new int[]{subtask2.getId(), 100});
+        taskManager.deleteAllTasks(new int[]{task.getId()});
+        taskManager.deleteAllEpics(new int[]{epic2.getId()});
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(TaskStatus.IN_PROGRESS, epic1AfterUpdate,
+                        "Epic with a done and a new subtask should be in progress."),
+                () -> Assertions.assertEquals(TaskStatus.DONE, epic2AfterUpdate, "Epic status was not updated."),
+                () -> Assertions.assertEquals(TaskStatus.DONE, epic1.getStatus(),
+                        "Epic status was not updated after deletion."),
+                () -> Assertions.assertEquals(List.of(epic1), taskManager.getAllEpics(), "Epic was not deleted."),
+                () -> Assertions.assertEquals(List.of(subtask1), taskManager.getAllSubtasks(),
+                        "Subtasks were not deleted."),
+                () -> Assertions.assertTrue(taskManager.getAllTasks().isEmpty(), "Task was not deleted."),
+                () -> Assertions.assertTrue(taskManager.getHistory().isEmpty(),
+                        "Deleted subtask was left in the history.")
+        );
+    }
+
     @Test
     void tasksInHistoryShouldKeepTheirStateAfterUpdatingThemInTaskManager() {
         Task taskInMemory = taskManager.addTask(testDataBuilder.buildTask("t", "d"));
@@ -778,6 +1056,479 @@ class InMemoryTaskManagerTest {
         Assertions.assertEquals(expected.getStatus(), actual.getStatus(), "Status is different");
     }
 
+    @Test
+    void viewsShouldFollowChangesWithoutRecordingViewsAndRejectModification() {
+        Task task = taskManager.addTask(testDataBuilder.buildTask("t1", "d1"));
+        Epic epic = taskManager.addEpic(testDataBuilder.buildEpic("e1", "d2"));
+        Collection<Task> tasksView = taskManager.getTasksView();
+        Collection<Subtask> subtasksView = taskManager.getSubtasksView();
+
+        Subtask subtask = taskManager.addSubTask(testDataBuilder.buildSubtask("s1", "d3", epic.getId()));
+        taskManager.deleteTaskById(task.getId());
+
+        Assertions.assertAll(
+                () -> Assertions.assertSame(tasksView, taskManager.getTasksView(), "View should be reused."),
+                () -> Assertions.assertTrue(tasksView.isEmpty(), "Task view did not see the deletion."),
+                () -> Assertions.assertEquals(List.of(subtask), List.copyOf(subtasksView),
+                        "Subtask view did not see the addition."),
+                () -> Assertions.assertEquals(List.of(epic), taskManager.getEpicsView().stream().toList(),
+                        "Epic view stream is incorrect."),
+                () -> Assertions.assertArrayEquals(new int[]{subtask.getId()},
+                        taskManager.streamSubtaskIdsByEpicId(epic.getId()).toArray(), "Subtask ids are incorrect."),
+                () -> Assertions.assertEquals(0, taskManager.streamSubtaskIdsByEpicId(100).count(),
+                        "Unknown epic should have no subtask ids."),
+                () -> Assertions.assertTrue(taskManager.getHistory().isEmpty(), "Views should not be recorded."),
+                () -> assertThrows(UnsupportedOperationException.class, () -> subtasksView.remove(subtask)),
+                () -> assertThrows(UnsupportedOperationException.class, () -> tasksView.add(task))
+        );
+    }
+
+    @Test
+    void pagesShouldNeitherRepeatNorSkipTasksWhenBoardChangesBetweenPages() {
+        List<Task> added = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            added.add(taskManager.addTask(testDataBuilder.buildTask("t" + i, "d")));
+        }
+        Page<Task> first = taskManager.getTasksPage(null, 4);
+        taskManager.deleteTaskById(added.get(1).getId());
+        taskManager.deleteTaskById(added.get(5).getId());
+        Task late = taskManager.addTask(testDataBuilder.buildTask("late", "d"));
+        Page<Task> second = taskManager.getTasksPage(first.getNextCursor(), 4);
+        Page<Task> third = taskManager.getTasksPage(second.getNextCursor(), 4);
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(added.subList(0, 4), first.getItems(), "First page is incorrect."),
+                () -> Assertions.assertEquals(List.of(added.get(4), added.get(6), added.get(7), added.get(8)),
+                        second.getItems(), "Second page should skip deleted task and not repeat the first page."),
+                () -> Assertions.assertEquals(List.of(added.get(9), late), third.getItems(),
+                        "Last page should include the task added while paging."),
+                () -> Assertions.assertFalse(third.hasNext(), "Last page should have no next cursor."),
+                () -> Assertions.assertTrue(taskManager.getHistory().isEmpty(), "Pages should not be recorded.")
+        );
+    }
+
+    @Test
+    void subtaskPagesShouldWalkOneEpicAndRejectBadArguments() {
+        Epic epic = taskManager.addEpic(testDataBuilder.buildEpic("e1", "d"));
+        Epic other = taskManager.addEpic(testDataBuilder.buildEpic("e2", "d"));
+        List<Subtask> added = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            added.add(taskManager.addSubTask(testDataBuilder.buildSubtask("s" + i, "d", epic.getId())));
+            taskManager.addSubTask(testDataBuilder.buildSubtask("o" + i, "d", other.getId()));
+        }
+        Page<Subtask> first = taskManager.getSubtasksPageByEpicId(epic.getId(), null, 3);
+        Page<Subtask> second = taskManager.getSubtasksPageByEpicId(epic.getId(), first.getNextCursor(), 3);
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(added.subList(0, 3), first.getItems(), "First page is incorrect."),
+                () -> Assertions.assertEquals(added.subList(3, 5), second.getItems(), "Second page is incorrect."),
+                () -> Assertions.assertNull(second.getNextCursor(), "Last page should have no next cursor."),
+                () -> Assertions.assertEquals(10, taskManager.getSubtasksPage(null, 100).getItems().size(),
+                        "Every subtask should fit one page."),
+                () -> Assertions.assertEquals(List.of(epic, other), taskManager.getEpicsPage(null, 2).getItems(),
+                        "Epic page is incorrect."),
+                () -> Assertions.assertFalse(taskManager.getEpicsPage(null, 2).hasNext(),
+                        "Exactly full last page should have no next cursor."),
+                () -> Assertions.assertNull(taskManager.getSubtasksPageByEpicId(100, null, 3),
+                        "Unknown epic should have no page."),
+                () -> assertThrows(IllegalArgumentException.class, () -> taskManager.getTasksPage("not a cursor", 3)),
+                () -> assertThrows(IllegalArgumentException.class, () -> taskManager.getTasksPage(null, 0))
+        );
+    }
+
+    @Test
+    void statusQueriesShouldFollowEveryChangeIncludingDerivedEpicStatus() {
+        Task task = taskManager.addTask(testDataBuilder.buildTask("t1", "d"));
+        Task doneTask = taskManager.addTask(new Task("t2", "d", taskManager.getCounter(), TaskStatus.DONE));
+        Epic epic = taskManager.addEpic(testDataBuilder.buildEpic("e1", "d"));
+        Epic emptyEpic = taskManager.addEpic(testDataBuilder.buildEpic("e2", "d"));
+        Subtask first = taskManager.addSubTask(testDataBuilder.buildSubtask("s1", "d", epic.getId()));
+        Subtask second = taskManager.addSubTask(testDataBuilder.buildSubtask("s2", "d", epic.getId()));
+
+        taskManager.updateTask(task.setStatus(TaskStatus.IN_PROGRESS));
+        taskManager.updateSubTask(new Subtask("s1", "d", first.getId(), epic.getId(), TaskStatus.DONE));
+        taskManager.deleteTaskById(doneTask.getId());
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(List.of(task), taskManager.getTasksByStatus(TaskStatus.IN_PROGRESS),
+                        "Task changed in place was not moved to its new status."),
+                () -> Assertions.assertEquals(0, taskManager.countTasksByStatus(TaskStatus.NEW),
+                        "Task should leave its old status."),
+                () -> Assertions.assertEquals(0, taskManager.countTasksByStatus(TaskStatus.DONE),
+                        "Deleted task should not be counted."),
+                () -> Assertions.assertEquals(List.of(second), taskManager.getSubtasksByStatus(TaskStatus.NEW),
+                        "Subtask column is incorrect."),
+                () -> Assertions.assertEquals(1, taskManager.countSubtasksByStatus(TaskStatus.DONE),
+                        "Updated subtask was not counted."),
+                () -> Assertions.assertEquals(List.of(epic), taskManager.getEpicsByStatus(TaskStatus.IN_PROGRESS),
+                        "Derived epic status was not indexed."),
+                () -> Assertions.assertEquals(List.of(emptyEpic), taskManager.getEpicsByStatus(TaskStatus.NEW),
+                        "Epic without subtasks should stay NEW."),
+                () -> Assertions.assertTrue(taskManager.getHistory().isEmpty(), "Queries should not be recorded.")
+        );
+
+        taskManager.deleteSubTaskById(second.getId());
+        Assertions.assertEquals(List.of(epic), taskManager.getEpicsByStatus(TaskStatus.DONE),
+                "Epic did not move when its last open subtask was deleted.");
+
+        taskManager.clearSubtasks();
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(0, taskManager.countSubtasksByStatus(TaskStatus.DONE),
+                        "Cleared subtasks should not be counted."),
+                () -> Assertions.assertEquals(2, taskManager.countEpicsByStatus(TaskStatus.NEW),
+                        "Emptied epic should be NEW again.")
+        );
+    }
+
+    @Test
+    void searchShouldRankNameMatchesFirstAndSupportPrefixAndOr() {
+        taskManager.setTextSearch(true);
+        Task inDescription = taskManager.addTask(testDataBuilder.buildTask("Release notes", "Fix login bug"));
+        Task inName = taskManager.addTask(testDataBuilder.buildTask("Login bug", "Happens on Safari"));
+        Epic epic = taskManager.addEpic(testDataBuilder.buildEpic("Платежи", "Crash on checkout"));
+        Subtask subtask = taskManager.addSubTask(testDataBuilder.buildSubtask("Logout", "button", epic.getId()));
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(List.of(inName, inDescription), taskManager.search("login BUG", 10),
+                        "Name match should rank first and words should be case-insensitive."),
+                () -> Assertions.assertEquals(List.of(inName), taskManager.search("login bug", 1),
+                        "Limit was not applied."),
+                () -> Assertions.assertEquals(List.of(subtask, inName, inDescription), taskManager.search("log*", 10),
+                        "Prefix should match login and logout, the rarer term ranking higher."),
+                () -> Assertions.assertEquals(List.of(inName, epic), taskManager.search("crash OR safari", 10),
+                        "Alternatives should be merged, equal scores ordered by id."),
+                () -> Assertions.assertEquals(List.of(epic), taskManager.search("платежи", 10),
+                        "Non-ASCII words should be searchable."),
+                () -> Assertions.assertEquals(List.of(), taskManager.search("login crash", 10),
+                        "All words should have to match."),
+                () -> Assertions.assertTrue(taskManager.getHistory().isEmpty(), "Search should not be recorded."),
+                () -> assertThrows(IllegalArgumentException.class, () -> taskManager.search("login", 0))
+        );
+    }
+
+    @Test
+    void searchShouldFollowUpdatesAndDeletesOfTasksChangedInPlace() {
+        assertThrows(IllegalStateException.class, () -> taskManager.search("draft", 10));
+        Task task = taskManager.addTask(testDataBuilder.buildTask("Draft plan", "d"));
+        Epic epic = taskManager.addEpic(testDataBuilder.buildEpic("Draft epic", "d"));
+        Subtask subtask = taskManager.addSubTask(testDataBuilder.buildSubtask("Draft step", "d", epic.getId()));
+        taskManager.setTextSearch(true);
+
+        Assertions.assertEquals(3, taskManager.search("draft", 10).size(), "Existing tasks were not indexed.");
+
+        task.setName("Final plan");
+        taskManager.updateTask(task);
+        taskManager.deleteEpicById(epic.getId());
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(List.of(), taskManager.search("draft", 10),
+                        "Old name or deleted epic and subtask are still found."),
+                () -> Assertions.assertEquals(List.of(task), taskManager.search("final", 10),
+                        "New name was not indexed."),
+                () -> Assertions.assertNull(taskManager.getSubTaskById(subtask.getId()), "Subtask was not deleted.")
+        );
+    }
+
+    @Test
+    void searchShouldResolveHitsByTypeWhenIdIsReusedByAnotherType() {
+        taskManager.setTextSearch(true);
+        Epic epic = taskManager.addEpic(testDataBuilder.buildEpic("Epic", "d"));
+        Task task = taskManager.addTask(new Task("Shared plan", "d", 7));
+        Subtask sameId = new Subtask("Shared step", "d", 7, epic.getId());
+
+        assertThrows(AlreadyExistsException.class, () -> taskManager.addSubTask(sameId));
+
+        Assertions.assertEquals(List.of(task), taskManager.search("shared", 10),
+                "Rejected subtask should leave the task postings alone.");
+
+        taskManager.deleteTaskById(task.getId());
+        taskManager.addSubTask(sameId);
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(List.of(sameId), taskManager.search("shared", 10),
+                        "Hit should resolve to the subtask now holding the id."),
+                () -> Assertions.assertEquals(List.of(), taskManager.search("plan", 10),
+                        "Deleted task is still found.")
+        );
+    }
+
+    @Test
+    void overlappingTimesShouldBeRejectedOnAddAndUpdateWhileTouchingOnesFit() {
+        LocalDateTime nine = LocalDateTime.of(2024, 5, 1, 9, 0);
+        Task first = taskManager.addTask(testDataBuilder.buildTask("First", "d").setStartTime(nine)
+                .setDuration(Duration.ofHours(1)));
+        Task second = taskManager.addTask(testDataBuilder.buildTask("Second", "d").setStartTime(nine.plusHours(1))
+                .setDuration(Duration.ofHours(1)));
+        Epic epic = taskManager.addEpic(testDataBuilder.buildEpic("Epic", "d"));
+        Subtask overlapping = testDataBuilder.buildSubtask("Overlapping", "d", epic.getId());
+        overlapping.setStartTime(nine.plusMinutes(90));
+        Task moved = new Task("Second", "d", second.getId()).setStartTime(nine.plusMinutes(59));
+        Task early = testDataBuilder.buildTask("Early", "d").setStartTime(nine.minusHours(1))
+                .setDuration(Duration.ofMinutes(30));
+        Task clashing = testDataBuilder.buildTask("Clashing", "d").setStartTime(nine.minusMinutes(45));
+
+        assertThrows(TaskOverlapException.class, () -> taskManager.addTask(testDataBuilder.buildTask("Same start", "d")
+                .setStartTime(nine)));
+        assertThrows(TaskOverlapException.class, () -> taskManager.addSubTask(overlapping));
+        assertThrows(TaskOverlapException.class, () -> taskManager.updateTask(moved));
+        assertThrows(TaskOverlapException.class, () -> taskManager.addAllTasks(List.of(early, clashing)));
+        first.setStartTime(nine.minusMinutes(30));
+        taskManager.updateTask(first);
+        taskManager.deleteTaskById(second.getId());
+        Task freed = taskManager.addTask(testDataBuilder.buildTask("Freed", "d").setStartTime(nine.plusMinutes(30)));
+
+        Assertions.assertAll(
+                () -> Assertions.assertNull(taskManager.getSubTaskById(overlapping.getId()),
+                        "Rejected subtask was stored."),
+                () -> Assertions.assertEquals(List.of(), taskManager.getSubtasksByStatus(TaskStatus.NEW),
+                        "Rejected subtask was indexed."),
+                () -> Assertions.assertNull(taskManager.getTaskById(early.getId()),
+                        "Batch with an overlap was partly added."),
+                () -> Assertions.assertEquals(List.of(first, freed), taskManager.getPrioritizedTasks(),
+                        "Task moved in place should not clash with itself and a deleted task should free its slot.")
+        );
+    }
+
+    @Test
+    void idOfAnyTypeShouldBeRejectedForNewItemSoTimelineSlotsStaySeparate() {
+        LocalDateTime nine = LocalDateTime.of(2024, 5, 1, 9, 0);
+        Epic epic = taskManager.addEpic(testDataBuilder.buildEpic("Epic", "d"));
+        Task task = taskManager.addTask(new Task("Task", "d", 5).setStartTime(nine));
+        Subtask sameId = new Subtask("Subtask", "d", 5, epic.getId());
+        sameId.setStartTime(nine.plusHours(3));
+        Epic epicSameId = new Epic("Epic", "d", 5);
+
+        assertThrows(AlreadyExistsException.class, () -> taskManager.addSubTask(sameId));
+        assertThrows(AlreadyExistsException.class, () -> taskManager.addEpic(epicSameId));
+        assertThrows(AlreadyExistsException.class, () -> taskManager.addAllSubtasks(List.of(sameId)));
+        assertThrows(AlreadyExistsException.class, () -> taskManager.addAllTasks(List.of(
+                new Task("A", "d", 6), new Task("B", "d", 6))));
+        taskManager.deleteTaskById(task.getId());
+        Subtask noon = taskManager.addSubTask(sameId);
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(List.of(noon), taskManager.getPrioritizedTasks(),
+                        "Subtask should take the slot once the task with its id was deleted."),
+                () -> assertThrows(TaskOverlapException.class, () -> taskManager.addTask(
+                        testDataBuilder.buildTask("Clashing", "d").setStartTime(nine.plusMinutes(180)))),
+                () -> Assertions.assertNull(taskManager.getTaskById(6), "Batch with a repeated id was added.")
+        );
+    }
+
+    @Test
+    void epicTimeShouldFollowSubtasksAndPrioritizedTasksShouldBeOrderedByStart() {
+        LocalDateTime nine = LocalDateTime.of(2024, 5, 1, 9, 0);
+        Epic epic = taskManager.addEpic(testDataBuilder.buildEpic("Epic", "d"));
+        Subtask morning = testDataBuilder.buildSubtask("Morning", "d", epic.getId());
+        morning.setStartTime(nine).setDuration(Duration.ofHours(1));
+        Subtask afternoon = testDataBuilder.buildSubtask("Afternoon", "d", epic.getId());
+        afternoon.setStartTime(nine.plusHours(4)).setDuration(Duration.ofMinutes(30));
+        Subtask unscheduled = testDataBuilder.buildSubtask("Unscheduled", "d", epic.getId());
+        unscheduled.setDuration(Duration.ofMinutes(15));
+        taskManager.addAllSubtasks(List.of(morning, afternoon, unscheduled));
+        Task noon = taskManager.addTask(testDataBuilder.buildTask("Noon", "d").setStartTime(nine.plusHours(3)));
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(nine, epic.getStartTime(), "Epic should start with its first subtask."),
+                () -> Assertions.assertEquals(nine.plusMinutes(270), epic.getEndTime(),
+                        "Epic should end with its last subtask."),
+                () -> Assertions.assertEquals(Duration.ofMinutes(105), epic.getDuration(),
+                        "Epic duration should be the sum of subtask durations."),
+                () -> Assertions.assertEquals(nine.plusHours(3), noon.getEndTime(),
+                        "Task without a duration should end when it starts."),
+                () -> Assertions.assertEquals(List.of(morning, noon, afternoon), taskManager.getPrioritizedTasks(),
+                        "Tasks and subtasks should be ordered by start, unscheduled ones left out.")
+        );
+
+        Subtask earlier = new Subtask("Afternoon", "d", afternoon.getId(), epic.getId());
+        earlier.setStartTime(nine.minusHours(1)).setDuration(Duration.ofMinutes(30));
+        taskManager.updateSubTask(earlier);
+        taskManager.deleteSubTaskById(morning.getId());
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(nine.minusHours(1), epic.getStartTime(), "Epic start was not moved."),
+                () -> Assertions.assertEquals(nine.minusMinutes(30), epic.getEndTime(), "Epic end was not moved."),
+                () -> Assertions.assertEquals(Duration.ofMinutes(45), epic.getDuration(),
+                        "Epic duration was not recalculated."),
+                () -> Assertions.assertEquals(List.of(earlier, noon), taskManager.getPrioritizedTasks(),
+                        "Prioritized tasks did not follow the update and the delete."),
+                () -> Assertions.assertEquals(nine.minusHours(1), epic.setStartTime(nine).setDuration(Duration.ZERO)
+                        .getStartTime(), "Epic time set directly should be ignored.")
+        );
+
+        taskManager.clearSubtasks();
+
+        Assertions.assertAll(
+                () -> Assertions.assertNull(epic.getStartTime(), "Epic without subtasks should have no start."),
+                () -> Assertions.assertNull(epic.getDuration(), "Epic without subtasks should have no duration."),
+                () -> Assertions.assertEquals(List.of(noon), taskManager.getPrioritizedTasks(),
+                        "Cleared subtasks are still prioritized.")
+        );
+    }
+
+    @Test
+    void slotGridShouldFollowTasksAddedMovedAndDeleted() {
+        LocalDateTime monday = LocalDateTime.of(2024, 5, 6, 0, 0);
+        LocalDateTime nine = monday.plusHours(9);
+        Duration quarter = Duration.ofMinutes(15);
+        assertThrows(IllegalStateException.class, () -> taskManager.isFree(nine, nine.plusHours(1)));
+        taskManager.addTask(testDataBuilder.buildTask("Standup", "d").setStartTime(nine).setDuration(quarter));
+        taskManager.setSlotGrid(monday, quarter, Duration.ofDays(7));
+        Task review = taskManager.addTask(testDataBuilder.buildTask("Review", "d").setStartTime(nine.plusMinutes(65))
+                .setDuration(Duration.ofMinutes(20)));
+        Epic epic = taskManager.addEpic(testDataBuilder.buildEpic("Epic", "d"));
+        Subtask pairing = testDataBuilder.buildSubtask("Pairing", "d", epic.getId());
+        pairing.setStartTime(nine.plusMinutes(85)).setDuration(Duration.ofMinutes(20));
+        taskManager.addSubTask(pairing);
+
+        Assertions.assertAll(
+                () -> Assertions.assertFalse(taskManager.isFree(nine, nine.plusMinutes(15)),
+                        "Task scheduled before the grid was set is not marked."),
+                () -> Assertions.assertTrue(taskManager.isFree(nine.plusMinutes(15), nine.plusHours(1)),
+                        "Free range is reported busy."),
+                () -> Assertions.assertEquals(List.of(nine.plusMinutes(15), nine.plusMinutes(30), nine.plusMinutes(45),
+                        nine.plusMinutes(105)), taskManager.getFreeSlots(nine, nine.plusHours(2)),
+                        "Slots touched only in part should be busy too."),
+                () -> Assertions.assertEquals(nine.plusMinutes(105), taskManager.findFreeSlots(nine, 4),
+                        "First run of four free slots was not found."),
+                () -> Assertions.assertNull(taskManager.findFreeSlots(monday.plusDays(7).minusMinutes(30), 3),
+                        "Run past the end of the grid was found."),
+                () -> assertThrows(IllegalArgumentException.class, () -> taskManager.isFree(monday.minusHours(1), nine))
+        );
+
+        taskManager.deleteTaskById(review.getId());
+        Subtask moved = new Subtask("Pairing", "d", pairing.getId(), epic.getId());
+        moved.setStartTime(nine.plusHours(4)).setDuration(Duration.ofHours(1));
+        taskManager.updateSubTask(moved);
+        assertThrows(TaskOverlapException.class, () -> taskManager.addAllTasks(List.of(
+                testDataBuilder.buildTask("Fits", "d").setStartTime(nine.plusHours(6)).setDuration(Duration.ofHours(1)),
+                testDataBuilder.buildTask("Clashes", "d").setStartTime(nine.plusHours(4)))));
+
+        Assertions.assertAll(
+                () -> Assertions.assertTrue(taskManager.isFree(nine.plusMinutes(15), nine.plusHours(4)),
+                        "Slots of the deleted and the moved task are still busy."),
+                () -> Assertions.assertFalse(taskManager.isFree(nine.plusHours(4), nine.plusHours(5)),
+                        "Slots of the moved subtask are not busy."),
+                () -> Assertions.assertTrue(taskManager.isFree(nine.plusHours(6), nine.plusHours(7)),
+                        "Slots of a rejected batch stayed busy.")
+        );
+    }
+
+    @Test
+    void eventsShouldFollowWritesInOrderWithDerivedEpicStatus() throws InterruptedException {
+        InMemoryTaskManager manager = taskManager;
+        RecordingSubscriber<TaskEvent> subscriber = new RecordingSubscriber<>(Long.MAX_VALUE);
+        manager.getEvents().subscribe(subscriber);
+
+        Task task = taskManager.addTask(testDataBuilder.buildTask("Task", "d"));
+        Epic epic = taskManager.addEpic(testDataBuilder.buildEpic("Epic", "d"));
+        Subtask subtask = taskManager.addSubTask(testDataBuilder.buildSubtask("Subtask", "d", epic.getId()));
+        taskManager.updateSubTask(new Subtask("Subtask", "d", subtask.getId(), epic.getId(), TaskStatus.DONE));
+        taskManager.updateTask(new Task("Renamed", "d", task.getId()));
+        taskManager.updateTask(new Task("Missing", "d", 1000));
+        taskManager.deleteEpicById(epic.getId());
+        taskManager.deleteTaskById(task.getId());
+        manager.getEvents().close();
+
+        Assertions.assertTrue(subscriber.await(), "Subscription was not completed.");
+        List<String> expected = List.of(
+                "CREATED TASK " + task.getId(),
+                "CREATED EPIC " + epic.getId(),
+                "CREATED SUBTASK " + subtask.getId(),
+                "UPDATED SUBTASK " + subtask.getId(),
+                "EPIC_STATUS_CHANGED EPIC " + epic.getId(),
+                "UPDATED TASK " + task.getId(),
+                "DELETED SUBTASK " + subtask.getId(),
+                "DELETED EPIC " + epic.getId(),
+                "DELETED TASK " + task.getId());
+        TaskEvent statusChange = subscriber.items.get(4);
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(expected, subscriber.items.stream()
+                        .map(event -> event.getKind() + " " + event.getType() + " " + event.getId()).toList(),
+                        "Events do not match the writes."),
+                () -> Assertions.assertEquals(TaskStatus.NEW, statusChange.getOldStatus(), "Old epic status is wrong."),
+                () -> Assertions.assertEquals(TaskStatus.DONE, statusChange.getNewStatus(), "New epic status is wrong."),
+                () -> Assertions.assertEquals("Renamed", subscriber.items.get(5).getTask().getName(),
+                        "Updated event does not carry the stored task."),
+                () -> Assertions.assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L), subscriber.items.stream()
+                        .map(TaskEvent::getRevision).toList(), "Events do not carry consecutive revisions."),
+                () -> Assertions.assertNull(subscriber.error, "Subscriber got an error."),
+                () -> Assertions.assertEquals(0, manager.getEvents().getSubscriberCount(),
+                        "Completed subscription was not removed.")
+        );
+    }
+
+    @Test
+    void slowSubscriberShouldGetOverflowAfterBufferedEventsWhileOthersGetBatches() throws InterruptedException {
+        TaskEventPublisher events = taskManager.getEvents();
+        RecordingSubscriber<TaskEvent> slow = new RecordingSubscriber<>(0);
+        RecordingSubscriber<List<TaskEvent>> batched = new RecordingSubscriber<>(0);
+        events.subscribe(slow, 2);
+        events.subscribeBatches(batched, 16, 3);
+
+        for (int i = 0; i < 5; i++) {
+            taskManager.addTask(testDataBuilder.buildTask("Task " + i, "d"));
+        }
+        slow.subscription.request(10);
+        batched.subscription.request(2);
+
+        Assertions.assertTrue(slow.await(), "Slow subscriber was not told it fell behind.");
+        events.close();
+        Assertions.assertTrue(batched.await(), "Batch subscription was not completed.");
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(2, slow.items.size(), "Buffered events were not delivered first."),
+                () -> Assertions.assertInstanceOf(EventOverflowException.class, slow.error,
+                        "Overflow was not signalled."),
+                () -> Assertions.assertEquals(List.of(3, 2), batched.items.stream().map(List::size).toList(),
+                        "Events were not batched up to the batch size."),
+                () -> Assertions.assertEquals(5, taskManager.getAllTasks().size(), "Writes were held back.")
+        );
+    }
+
+    @Test
+    void changesSinceShouldReturnRetainedDeltasInOrderAndReportOverwrittenOnesTooOld() {
+        taskManager.setChangelogCapacity(5);
+        Task task = taskManager.addTask(testDataBuilder.buildTask("Task", "d"));
+        Epic epic = taskManager.addEpic(testDataBuilder.buildEpic("Epic", "d"));
+        long beforeSubtask = taskManager.getRevision();
+        Subtask subtask = taskManager.addSubTask(new Subtask("Subtask", "d", taskManager.getCounter(), epic.getId(),
+                TaskStatus.IN_PROGRESS));
+        taskManager.updateTask(new Task("Renamed", "d", task.getId(), TaskStatus.DONE));
+        taskManager.deleteSubTaskById(subtask.getId());
+
+        ChangeSet first = taskManager.getChangesSince(beforeSubtask, 2);
+        ChangeSet rest = taskManager.getChangesSince(first.getRevision(), 10);
+        ChangeSet overwritten = taskManager.getChangesSince(0, 10);
+        ChangeSet current = taskManager.getChangesSince(taskManager.getRevision(), 10);
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(7, taskManager.getRevision(), "Not every change took a revision."),
+                () -> Assertions.assertEquals(List.of("CREATED SUBTASK null", "EPIC_STATUS_CHANGED EPIC NEW"),
+                        describe(first), "First changes are wrong."),
+                () -> Assertions.assertTrue(first.hasMore(), "Limit did not leave more changes."),
+                () -> Assertions.assertEquals(4, first.getRevision(), "Revision to continue from is wrong."),
+                () -> Assertions.assertEquals(List.of("UPDATED TASK Renamed", "DELETED SUBTASK null",
+                        "EPIC_STATUS_CHANGED EPIC IN_PROGRESS"), describe(rest), "Remaining changes are wrong."),
+                () -> Assertions.assertFalse(rest.hasMore(), "Last changes reported more."),
+                () -> Assertions.assertNull(first.getChanges().get(0).getTask(),
+                        "Subtask deleted since is still returned."),
+                () -> Assertions.assertEquals(TaskStatus.NEW, rest.getChanges().get(2).getNewStatus(),
+                        "Epic status is not recorded."),
+                () -> Assertions.assertTrue(overwritten.isTooOld(), "Overwritten changes were not reported too old."),
+                () -> Assertions.assertEquals(7, overwritten.getRevision(), "Too old set should give the revision."),
+                () -> Assertions.assertTrue(current.getChanges().isEmpty() && !current.isTooOld(),
+                        "Current revision should have no changes."),
+                () -> Assertions.assertTrue(taskManager.getChangesSince(8, 10).isTooOld(),
+                        "Revision ahead of the manager was not reported too old."),
+                () -> assertThrows(IllegalArgumentException.class, () -> taskManager.getChangesSince(7, 0))
+        );
+    }
+
+    private static List<String> describe(ChangeSet changes) {
+        return changes.getChanges().stream().map(change -> change.getKind() + " " + change.getType() + " "
+                + (change.getKind() == TaskEvent.Kind.EPIC_STATUS_CHANGED ? change.getOldStatus()
+                : change.getTask() == null ? null : change.getTask().getName())).toList();
+    }
+
     private void getHistoryReady() {
         final List<Task> tasks = testDataBuilder.buildTasks();
         for (Task t : tasks) {
@@ -799,4 +1550,44 @@ class InMemoryTaskManagerTest {
             }
         }
     }
+
+    private static final class RecordingSubscriber<T> implements Flow.Subscriber<T> {
+        private final long initialDemand;
+        private final List<T> items = new CopyOnWriteArrayList<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Flow.Subscription subscription;
+        private volatile Throwable error;
+
+        RecordingSubscriber(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialDemand > 0) {
+                subscription.request(initialDemand);
+            }
+        }
+
+        @Override
+        public void onNext(T item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+
+        boolean await() throws InterruptedException {
+            return done.await(10, TimeUnit.SECONDS);
+        }
+    }
 }
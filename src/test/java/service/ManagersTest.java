@@ -17,6 +17,17 @@ class ManagersTest {
         );
     }
 
+    @Test
+    void getConcurrentShouldReturnConcurrentTaskManagerObject() {
+        TaskManager taskManager = Managers.getConcurrent();
+
+        Assertions.assertAll(
+                () -> Assertions.assertNotNull(taskManager, "The object of TaskManager was not created."),
+                () -> Assertions.assertInstanceOf(ConcurrentTaskManager.class, taskManager,
+                        "Created incorrect type of TaskManager")
+        );
+    }
+
     @Test
     void getDefaultHistoryShouldReturnInMemoryHistoryManagerObject() {
         HistoryManager historyManager = Managers.getDefaultHistory();
@@ -0,0 +1,58 @@
+package utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+class CompactIntSetTest {
+
+    @Test
+    void shouldBehaveLikeTreeSetWhileGrowingAndShrinking() {
+        CompactIntSet actual = new CompactIntSet();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(11);
+
+        for (int round = 0; round < 4; round++) {
+            int bound = round % 2 == 0 ? 300_000 : 200;
+            for (int i = 0; i < 60_000; i++) {
+                int value = random.nextInt(bound);
+                boolean adding = round < 2 || random.nextInt(4) == 0;
+                if (adding) {
+                    Assertions.assertEquals(expected.add(value), actual.add(value), "Add result differs.");
+                } else {
+                    Assertions.assertEquals(expected.remove(value), actual.remove(value), "Remove result differs.");
+                }
+            }
+            Assertions.assertEquals(expected.size(), actual.size(), "Sizes differ.");
+            Assertions.assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), actual.toArray(),
+                    "Values differ.");
+            Assertions.assertArrayEquals(actual.toArray(), actual.stream().toArray(),
+                    "Lazy stream differs from the snapshot.");
+            for (int probe = -1; probe < bound + 2; probe += 1 + bound / 1000) {
+                Integer ceiling = expected.ceiling(probe);
+                Assertions.assertEquals(ceiling == null ? -1 : ceiling, actual.ceiling(probe),
+                        "Ceiling of " + probe + " differs.");
+            }
+        }
+    }
+
+    @Test
+    void denseChunkShouldSwitchToBitmapAndBack() {
+        CompactIntSet set = new CompactIntSet();
+        for (int i = 0; i < 10_000; i++) {
+            set.add(i);
+        }
+        for (int i = 0; i < 10_000; i += 2) {
+            set.remove(i);
+        }
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(5_000, set.size(), "Incorrect size."),
+                () -> Assertions.assertTrue(set.contains(9_999), "Odd value should remain."),
+                () -> Assertions.assertFalse(set.contains(5_000), "Even value should be removed."),
+                () -> Assertions.assertEquals(1, set.stream().findFirst().getAsInt(), "Incorrect first value.")
+        );
+    }
+}
@@ -0,0 +1,41 @@
+package utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+class IntObjectHashMapTest {
+
+    @Test
+    void shouldBehaveLikeHashMapUnderRandomPutsAndRemovals() {
+        IntObjectHashMap<String> actual = new IntObjectHashMap<>();
+        IntIntHashMap actualInts = new IntIntHashMap();
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(5_000) - 100;
+            if (random.nextInt(3) == 0) {
+                Assertions.assertEquals(expected.remove(key), actual.remove(key), "Removed value differs.");
+                actualInts.remove(key);
+            } else {
+                String value = "v" + i;
+                Assertions.assertEquals(expected.put(key, value), actual.put(key, value), "Previous value differs.");
+                actualInts.put(key, i);
+            }
+        }
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(expected.size(), actual.size(), "Sizes differ."),
+                () -> Assertions.assertEquals(expected.size(), actualInts.size(), "Sizes of int map differ."),
+                () -> Assertions.assertEquals(new HashSet<>(expected.values()), new HashSet<>(actual.values()),
+                        "Values differ."),
+                () -> expected.keySet().forEach(key -> Assertions.assertEquals(expected.get(key), actual.get(key))),
+                () -> expected.keySet().forEach(key -> Assertions.assertTrue(actualInts.containsKey(key)))
+        );
+    }
+}